@@ -13,8 +13,6 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.retry.RetryOneTime;
@@ -55,7 +53,6 @@ public class FragmenterCallbackIT {
   private static CuratorFramework curator;
   private static TestingServer server;
   private static MessagePublisherStub publisher;
-  private static ExecutorService executor;
   @Mock private PipelinesHistoryClient historyClient;
   @Mock private static DatasetClient datasetClient;
 
@@ -74,7 +71,6 @@ public class FragmenterCallbackIT {
     curator.start();
 
     publisher = MessagePublisherStub.create();
-    executor = Executors.newSingleThreadExecutor();
   }
 
   @AfterClass
@@ -82,7 +78,6 @@ public class FragmenterCallbackIT {
     curator.close();
     server.stop();
     publisher.close();
-    executor.shutdown();
   }
 
   @After
@@ -96,6 +91,7 @@ public class FragmenterCallbackIT {
     // State
     FragmenterConfiguration config = new FragmenterConfiguration();
     config.hbaseFragmentsTable = HbaseServer.FRAGMENT_TABLE_NAME;
+    config.numberThreads = 1;
     config.dwcaArchiveRepository = getClass().getResource(DWCA_INPUT_DATASET_DIR).getFile();
     config.stepConfig.repositoryPath = getClass().getResource(REPO_PATH).getFile();
     config.asyncThreshold = 1_000;
@@ -130,7 +126,6 @@ public class FragmenterCallbackIT {
             .publisher(publisher)
             .curator(curator)
             .historyClient(historyClient)
-            .executor(executor)
             .hbaseConnection(HBASE_SERVER.getConnection())
             .keygenConfig(HbaseServer.CFG)
             .datasetClient(datasetClient)
@@ -160,6 +155,7 @@ public class FragmenterCallbackIT {
     // State
     FragmenterConfiguration config = new FragmenterConfiguration();
     config.hbaseFragmentsTable = HbaseServer.FRAGMENT_TABLE_NAME;
+    config.numberThreads = 1;
     config.xmlArchiveRepository = getClass().getResource(REPO_PATH).getFile();
     config.xmlArchiveRepositoryAbcd = "abcd";
     config.xmlArchiveRepositoryXml = "xml";
@@ -195,7 +191,6 @@ public class FragmenterCallbackIT {
             .publisher(publisher)
             .curator(curator)
             .historyClient(historyClient)
-            .executor(executor)
             .hbaseConnection(HBASE_SERVER.getConnection())
             .keygenConfig(HbaseServer.CFG)
             .datasetClient(datasetClient)
@@ -225,6 +220,7 @@ public class FragmenterCallbackIT {
     // State
     FragmenterConfiguration config = new FragmenterConfiguration();
     config.hbaseFragmentsTable = HbaseServer.FRAGMENT_TABLE_NAME;
+    config.numberThreads = 1;
     config.xmlArchiveRepository = getClass().getResource(REPO_PATH).getFile();
     config.xmlArchiveRepositoryAbcd = "abcd";
     config.xmlArchiveRepositoryXml = "xml";
@@ -260,7 +256,6 @@ public class FragmenterCallbackIT {
             .publisher(publisher)
             .curator(curator)
             .historyClient(historyClient)
-            .executor(executor)
             .hbaseConnection(HBASE_SERVER.getConnection())
             .keygenConfig(HbaseServer.CFG)
             .datasetClient(datasetClient)
@@ -290,6 +285,7 @@ public class FragmenterCallbackIT {
     // State
     FragmenterConfiguration config = new FragmenterConfiguration();
     config.hbaseFragmentsTable = HbaseServer.FRAGMENT_TABLE_NAME;
+    config.numberThreads = 1;
     config.dwcaArchiveRepository = getClass().getResource(DWCA_INPUT_DATASET_DIR).getFile();
     config.stepConfig.repositoryPath = getClass().getResource(REPO_PATH).getFile();
     config.generateIdIfAbsent = true;
@@ -323,7 +319,6 @@ public class FragmenterCallbackIT {
             .publisher(publisher)
             .curator(curator)
             .historyClient(historyClient)
-            .executor(executor)
             .hbaseConnection(HBASE_SERVER.getConnection())
             .keygenConfig(HbaseServer.CFG)
             .datasetClient(datasetClient)
@@ -345,6 +340,7 @@ public class FragmenterCallbackIT {
     // State
     FragmenterConfiguration config = new FragmenterConfiguration();
     config.hbaseFragmentsTable = HbaseServer.FRAGMENT_TABLE_NAME;
+    config.numberThreads = 1;
     config.dwcaArchiveRepository = getClass().getResource(DWCA_INPUT_DATASET_DIR).getFile();
     config.stepConfig.repositoryPath = getClass().getResource(REPO_PATH).getFile();
     config.generateIdIfAbsent = true;
@@ -378,7 +374,6 @@ public class FragmenterCallbackIT {
             .publisher(publisher)
             .curator(curator)
             .historyClient(historyClient)
-            .executor(executor)
             .hbaseConnection(HBASE_SERVER.getConnection())
             .keygenConfig(HbaseServer.CFG)
             .datasetClient(datasetClient)
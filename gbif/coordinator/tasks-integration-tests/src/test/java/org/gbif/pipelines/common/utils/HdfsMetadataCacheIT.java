@@ -0,0 +1,96 @@
+package org.gbif.pipelines.common.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class HdfsMetadataCacheIT {
+
+  private static MiniDFSCluster cluster;
+  private static FileSystem fs;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    Configuration conf = new Configuration();
+    conf.set(
+        MiniDFSCluster.HDFS_MINIDFS_BASEDIR,
+        System.getProperty("java.io.tmpdir") + "/hdfs-metadata-cache-it");
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+    fs = cluster.getFileSystem();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+    }
+  }
+
+  @Test
+  public void listingAndSummaryTest() throws Exception {
+
+    // State
+    Path dir = new Path("/data/ingest/d1/1/occurrence");
+    write(new Path(dir, "interpret-1.avro"), "12345");
+    write(new Path(dir, "interpret-2.avro"), "123");
+
+    try (HdfsMetadataCache cache = HdfsMetadataCache.open()) {
+
+      // When
+      FileStatus[] statuses = cache.listStatus(fs, dir);
+      boolean childExists = cache.exists(fs, new Path(dir, "interpret-1.avro"));
+      boolean missingExists = cache.exists(fs, new Path(dir, "interpret-3.avro"));
+      long size = cache.getContentSummary(fs, dir).getLength();
+      long cachedSize = cache.getContentSummary(fs, dir).getLength();
+
+      // Should
+      assertEquals(2, statuses.length);
+      assertTrue(childExists);
+      assertFalse(missingExists);
+      assertEquals(8L, size);
+      assertEquals(size, cachedSize);
+      assertEquals(2L, cache.getMisses());
+    }
+  }
+
+  @Test
+  public void invalidateOnWriteTest() throws Exception {
+
+    // State
+    Path dir = new Path("/data/ingest/d2/1");
+    Path meta = new Path(dir, "verbatim-to-occurrence.yml");
+    write(meta, "count: 1");
+
+    try (HdfsMetadataCache cache = HdfsMetadataCache.open()) {
+      assertEquals(Collections.singletonList("count: 1"), cache.readLines(fs, meta));
+      long size = cache.getContentSummary(fs, dir).getLength();
+
+      // When
+      write(meta, "count: 100");
+      HdfsMetadataCache.invalidate(fs, meta);
+
+      // Should
+      assertEquals(Collections.singletonList("count: 100"), cache.readLines(fs, meta));
+      assertEquals(size + 2L, cache.getContentSummary(fs, dir).getLength());
+    }
+  }
+
+  private static void write(Path path, String content) throws IOException {
+    try (FSDataOutputStream out = fs.create(path, true)) {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
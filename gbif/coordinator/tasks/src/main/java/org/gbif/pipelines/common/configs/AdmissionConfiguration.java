@@ -0,0 +1,39 @@
+package org.gbif.pipelines.common.configs;
+
+import com.beust.jcommander.Parameter;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Settings of {@link org.gbif.pipelines.common.resources.AdmissionController}, the admission
+ * control of standalone runs is disabled when the memory budget is not set. Services of a JVM with
+ * equal settings share the memory budget.
+ */
+@ToString
+@EqualsAndHashCode
+public class AdmissionConfiguration {
+
+  /** Heap which all standalone runs of the service can use together */
+  @Parameter(names = "--admission-memory-budget-mb")
+  public long memoryBudgetMb = 0L;
+
+  /** Heap used by a run regardless of the number of records */
+  @Parameter(names = "--admission-base-memory-mb")
+  public long baseMemoryMb = 256L;
+
+  /** Heap per record of the core */
+  @Parameter(names = "--admission-record-memory-kb")
+  public double recordMemoryKb = 8d;
+
+  /** Every interpreted extension adds this part of the records heap */
+  @Parameter(names = "--admission-extension-memory-ratio")
+  public double extensionMemoryRatio = 0.5d;
+
+  /** Runs which wait longer are promoted to the distributed mode or admitted before others */
+  @Parameter(names = "--admission-max-wait-minutes")
+  public int maxWaitMinutes = 30;
+
+  /** Runs which don't fit into the budget or wait too long run in the distributed mode */
+  @Parameter(names = "--admission-promote-to-distributed")
+  public boolean promoteToDistributed = true;
+}
@@ -1,6 +1,7 @@
 package org.gbif.pipelines.common.configs;
 
 import com.beust.jcommander.Parameter;
+import com.google.common.base.Strings;
 import lombok.ToString;
 
 @ToString
@@ -29,4 +30,11 @@ public class DistributedConfiguration {
 
   @Parameter(names = "--other-user")
   public String otherUser;
+
+  /** A distributed run can be submitted, the settings required by spark-submit are set */
+  public boolean isConfigured() {
+    return !Strings.isNullOrEmpty(mainClass)
+        && !Strings.isNullOrEmpty(deployMode)
+        && !Strings.isNullOrEmpty(jarPath);
+  }
 }
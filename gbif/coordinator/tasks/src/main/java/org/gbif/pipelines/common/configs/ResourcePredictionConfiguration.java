@@ -0,0 +1,40 @@
+package org.gbif.pipelines.common.configs;
+
+import com.beust.jcommander.Parameter;
+import lombok.ToString;
+
+/**
+ * Settings of {@link org.gbif.pipelines.common.resources.ResourcePredictor}, the prediction is
+ * disabled when historyDir is not set. Services which must share the history, e.g. the
+ * interpretation service and the balancer, must point to the same directory.
+ */
+@ToString
+public class ResourcePredictionConfiguration {
+
+  @Parameter(names = "--resource-history-dir")
+  public String historyDir;
+
+  /** Number of the latest runs per step type kept in the history */
+  @Parameter(names = "--resource-history-max-runs")
+  public int maxRuns = 5_000;
+
+  /** Number of runs of a step type before the step wide model is used */
+  @Parameter(names = "--resource-min-samples")
+  public int minSamples = 5;
+
+  /** Predicted values can't differ from the default formulas more than this factor */
+  @Parameter(names = "--resource-max-adjustment")
+  public double maxAdjustment = 2d;
+
+  /** Distributed runs are sized to finish in this time */
+  @Parameter(names = "--resource-target-runtime-minutes")
+  public int targetRuntimeMinutes = 30;
+
+  /** Datasets predicted to run longer in standalone mode run distributed */
+  @Parameter(names = "--resource-standalone-max-runtime-minutes")
+  public int standaloneMaxRuntimeMinutes = 20;
+
+  /** Datasets predicted to take more heap in standalone mode run distributed */
+  @Parameter(names = "--resource-standalone-max-memory-mb")
+  public long standaloneMaxMemoryMb = 8_192L;
+}
@@ -20,6 +20,7 @@ import org.gbif.pipelines.common.interpretation.SparkSettings;
 import org.gbif.pipelines.common.process.BeamSettings;
 import org.gbif.pipelines.common.process.ProcessRunnerBuilder;
 import org.gbif.pipelines.common.process.ProcessRunnerBuilder.ProcessRunnerBuilderBuilder;
+import org.gbif.pipelines.common.resources.AdmissionController;
 import org.gbif.pipelines.common.utils.HdfsUtils;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.ingest.java.pipelines.HdfsViewPipeline;
@@ -57,7 +58,22 @@ public class CommonHdfsViewCallback {
         if (runnerPr.test(StepRunner.DISTRIBUTED)) {
           runDistributed(message, builder);
         } else if (runnerPr.test(StepRunner.STANDALONE)) {
-          runLocal(builder);
+          AdmissionController admission = AdmissionController.get(config.admissionConfig);
+          long memoryMb = 0L;
+          if (admission.isEnabled()) {
+            memoryMb = admission.estimateMb(getRecordNumber(message), message.getInterpretTypes());
+          }
+          try (AdmissionController.Ticket ticket =
+              admission.admit(
+                  message.getDatasetUuid().toString(),
+                  memoryMb,
+                  config.distributedConfig.isConfigured())) {
+            if (ticket.isPromoted()) {
+              runDistributed(message, builder);
+            } else {
+              runLocal(builder);
+            }
+          }
         }
       } catch (Exception ex) {
         log.error(ex.getMessage(), ex);
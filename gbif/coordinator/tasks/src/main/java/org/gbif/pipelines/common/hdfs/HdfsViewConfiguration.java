@@ -7,6 +7,7 @@ import javax.validation.constraints.NotNull;
 import lombok.ToString;
 import org.gbif.api.model.pipelines.StepType;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline;
+import org.gbif.pipelines.common.configs.AdmissionConfiguration;
 import org.gbif.pipelines.common.configs.BaseConfiguration;
 import org.gbif.pipelines.common.configs.DistributedConfiguration;
 import org.gbif.pipelines.common.configs.SparkConfiguration;
@@ -23,6 +24,9 @@ public class HdfsViewConfiguration implements BaseConfiguration {
   @ParametersDelegate @Valid
   public DistributedConfiguration distributedConfig = new DistributedConfiguration();
 
+  @ParametersDelegate @Valid
+  public AdmissionConfiguration admissionConfig = new AdmissionConfiguration();
+
   @Parameter(names = "--repository-target-path")
   @NotNull
   public String repositoryTargetPath;
@@ -56,7 +56,9 @@ public class BeamSettings {
           .ifPresent(x -> command.add("--defaultDateFormat=" + x));
 
       if (isValidator(message.getPipelineSteps(), config.validatorOnly)) {
-        command.add("--useMetadataWsCalls=false");
+        command
+            .add("--useMetadataWsCalls=false")
+            .add("--validationMetricsFileName=" + config.validationMetricsFileName);
       }
 
       if (config.skipGbifIds) {
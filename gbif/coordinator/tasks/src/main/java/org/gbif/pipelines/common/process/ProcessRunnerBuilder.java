@@ -11,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.gbif.pipelines.common.MainSparkSettings;
 import org.gbif.pipelines.common.configs.DistributedConfiguration;
 import org.gbif.pipelines.common.configs.SparkConfiguration;
+import org.gbif.pipelines.common.utils.HdfsMetadataCache;
 
 /** Class to build an instance of ProcessBuilder for direct or spark command */
 @SuppressWarnings("all")
@@ -26,10 +27,13 @@ public final class ProcessRunnerBuilder {
   private MainSparkSettings sparkSettings;
 
   public ProcessBuilder get() {
+    // The run writes to HDFS without the cache
+    HdfsMetadataCache.invalidateAll();
     return buildSpark();
   }
 
   public String[] buildOptions() {
+    HdfsMetadataCache.invalidateAll();
     StringJoiner joiner = new StringJoiner(DELIMITER);
     beamConfigFn.accept(joiner);
     return joiner.toString().split(DELIMITER);
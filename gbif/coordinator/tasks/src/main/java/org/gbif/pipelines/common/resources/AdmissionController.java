@@ -0,0 +1,275 @@
+package org.gbif.pipelines.common.resources;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
+import org.gbif.pipelines.common.configs.AdmissionConfiguration;
+
+/**
+ * Keeps the estimated heap of concurrent standalone runs of a service under the configured budget:
+ *
+ * <pre>{@code
+ * try (AdmissionController.Ticket ticket = controller.admit(datasetId, estimateMb)) {
+ *   if (ticket.isPromoted()) {
+ *     runDistributed(...);
+ *   } else {
+ *     runLocal(...);
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Runs which don't fit wait in a queue, the smallest waiting run which fits is admitted first.
+ * Runs bigger than the whole budget or waiting longer than the max wait time are promoted to the
+ * distributed mode; when promotion is disabled, or the service can't run distributed steps, such
+ * runs are admitted before the others as soon as the memory is released, a run bigger than the
+ * budget runs alone.
+ */
+@Slf4j
+public class AdmissionController {
+
+  private static final Map<AdmissionConfiguration, AdmissionController> CONTROLLERS =
+      new ConcurrentHashMap<>();
+
+  private static final Set<RecordType> EXTENSIONS =
+      Collections.unmodifiableSet(
+          EnumSet.of(
+              RecordType.IMAGE,
+              RecordType.MULTIMEDIA,
+              RecordType.AUDUBON,
+              RecordType.MEASUREMENT_OR_FACT,
+              RecordType.AMPLIFICATION));
+
+  private static final Ticket DISABLED = new Ticket(null, 0L, false);
+
+  /** Smaller runs first, then in the order of arrival */
+  private static final Comparator<Waiter> PRIORITY =
+      Comparator.comparingLong((Waiter w) -> w.memoryMb).thenComparingLong(w -> w.order);
+
+  private final AdmissionConfiguration config;
+  private final long maxWaitMs;
+  private final ReentrantLock lock = new ReentrantLock(true);
+  private final Condition released = lock.newCondition();
+  private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(PRIORITY);
+  private long usedMb;
+  private long order;
+
+  @Getter private final AdmissionMetrics metrics = new AdmissionMetrics();
+
+  AdmissionController(AdmissionConfiguration config, long maxWaitMs) {
+    this.config = config;
+    this.maxWaitMs = maxWaitMs;
+  }
+
+  /**
+   * Returns the controller of the configuration, callbacks with equal configurations share it and
+   * its memory budget
+   */
+  public static AdmissionController get(AdmissionConfiguration config) {
+    return CONTROLLERS.computeIfAbsent(
+        config, c -> new AdmissionController(c, TimeUnit.MINUTES.toMillis(c.maxWaitMinutes)));
+  }
+
+  public boolean isEnabled() {
+    return config.memoryBudgetMb > 0;
+  }
+
+  /**
+   * Estimates the heap of a run from the number of records and the interpreted extensions
+   *
+   * @param interpretTypes interpretation types of the message, empty or ALL means all extensions
+   */
+  public long estimateMb(long records, Set<String> interpretTypes) {
+    return config.baseMemoryMb + estimateRecordsMb(records, interpretTypes);
+  }
+
+  /**
+   * Estimates the heap of the records of a run without the base heap, like the interpreted records
+   * kept in memory for chained steps
+   *
+   * @param interpretTypes interpretation types of the message, empty or ALL means all extensions
+   */
+  public long estimateRecordsMb(long records, Set<String> interpretTypes) {
+    long extensions;
+    if (interpretTypes == null
+        || interpretTypes.isEmpty()
+        || interpretTypes.contains(RecordType.ALL.name())) {
+      extensions = EXTENSIONS.size();
+    } else {
+      extensions =
+          Arrays.stream(RecordType.values())
+              .filter(EXTENSIONS::contains)
+              .filter(rt -> interpretTypes.contains(rt.name()))
+              .count();
+    }
+    double recordsMb = records * config.recordMemoryKb / 1024d;
+    return (long) Math.ceil(recordsMb * (1d + extensions * config.extensionMemoryRatio));
+  }
+
+  /**
+   * Blocks until the run is admitted or promoted, the returned ticket must be closed when the run
+   * is finished
+   */
+  public Ticket admit(String name, long memoryMb) throws InterruptedException {
+    return admit(name, memoryMb, true);
+  }
+
+  /**
+   * Blocks until the run is admitted or promoted, the returned ticket must be closed when the run
+   * is finished
+   *
+   * @param canPromote the service can run the step in the distributed mode
+   */
+  public Ticket admit(String name, long memoryMb, boolean canPromote) throws InterruptedException {
+    if (!isEnabled()) {
+      return DISABLED;
+    }
+
+    boolean promote = config.promoteToDistributed && canPromote;
+    long start = System.currentTimeMillis();
+    if (memoryMb > config.memoryBudgetMb) {
+      if (promote) {
+        return promote(name, memoryMb, start, "bigger than the budget");
+      }
+      // Runs alone
+      memoryMb = config.memoryBudgetMb;
+    }
+
+    lock.lock();
+    try {
+      Waiter waiter = new Waiter(memoryMb, start, order++);
+      waiters.add(waiter);
+      metrics.waiting(waiters.size());
+      if (!canAdmit(waiter)) {
+        metrics.queued();
+        log.info("Run {} of {} MB is queued, used {} MB", name, memoryMb, usedMb);
+      }
+      try {
+        while (!canAdmit(waiter)) {
+          long waitedMs = System.currentTimeMillis() - start;
+          if (waitedMs >= maxWaitMs) {
+            if (promote) {
+              leave(waiter);
+              return promote(name, memoryMb, start, "waited " + waitedMs + " ms");
+            }
+            waiter.overdue = true;
+            released.await();
+          } else {
+            released.await(maxWaitMs - waitedMs, TimeUnit.MILLISECONDS);
+          }
+        }
+      } catch (InterruptedException ex) {
+        leave(waiter);
+        throw ex;
+      }
+      waiters.remove(waiter);
+      usedMb += memoryMb;
+      long waitedMs = System.currentTimeMillis() - start;
+      metrics.waiting(waiters.size());
+      metrics.admitted(waitedMs, usedMb);
+      log.info("Run {} of {} MB is admitted after {} ms, {}", name, memoryMb, waitedMs, metrics);
+      // The next smallest run may fit too
+      released.signalAll();
+      return new Ticket(this, memoryMb, false);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Ticket promote(String name, long memoryMb, long start, String reason) {
+    long waitedMs = System.currentTimeMillis() - start;
+    metrics.promoted(waitedMs);
+    log.info("Run {} of {} MB is promoted to distributed, {}, {}", name, memoryMb, reason, metrics);
+    return new Ticket(this, 0L, true);
+  }
+
+  /**
+   * The run fits into the budget and no other run goes first: an overdue run which waits longer, or
+   * a smaller run, which fits too then
+   */
+  private boolean canAdmit(Waiter waiter) {
+    if (usedMb + waiter.memoryMb > config.memoryBudgetMb) {
+      return false;
+    }
+    for (Waiter w : waiters) {
+      if (w == waiter) {
+        continue;
+      }
+      if (w.overdue && (!waiter.overdue || w.start < waiter.start)) {
+        return false;
+      }
+      if (!waiter.overdue && PRIORITY.compare(w, waiter) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Removes a waiting run which is not admitted, the runs behind it may go */
+  private void leave(Waiter waiter) {
+    waiters.remove(waiter);
+    metrics.waiting(waiters.size());
+    released.signalAll();
+  }
+
+  private void release(long memoryMb) {
+    if (memoryMb == 0L) {
+      return;
+    }
+    lock.lock();
+    try {
+      usedMb -= memoryMb;
+      metrics.released(usedMb);
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static class Waiter {
+
+    private final long memoryMb;
+    private final long start;
+    private final long order;
+    private boolean overdue;
+
+    private Waiter(long memoryMb, long start, long order) {
+      this.memoryMb = memoryMb;
+      this.start = start;
+      this.order = order;
+    }
+  }
+
+  /** Admission decision, releases the admitted memory when closed */
+  public static class Ticket implements AutoCloseable {
+
+    private final AdmissionController controller;
+    private final long memoryMb;
+    @Getter private final boolean promoted;
+    private boolean closed;
+
+    private Ticket(AdmissionController controller, long memoryMb, boolean promoted) {
+      this.controller = controller;
+      this.memoryMb = memoryMb;
+      this.promoted = promoted;
+    }
+
+    @Override
+    public synchronized void close() {
+      if (!closed && controller != null) {
+        closed = true;
+        controller.release(memoryMb);
+      }
+    }
+  }
+}
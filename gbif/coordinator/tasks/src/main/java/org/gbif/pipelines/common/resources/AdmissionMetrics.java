@@ -0,0 +1,97 @@
+package org.gbif.pipelines.common.resources;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Admission decisions and queue wait time of an {@link AdmissionController} */
+public class AdmissionMetrics {
+
+  private final LongAdder admitted = new LongAdder();
+  private final LongAdder promoted = new LongAdder();
+  private final LongAdder queued = new LongAdder();
+  private final LongAdder waitMillis = new LongAdder();
+  private final LongAccumulator maxWaitMillis = new LongAccumulator(Math::max, 0L);
+  private final AtomicLong usedMb = new AtomicLong();
+  private final LongAccumulator peakUsedMb = new LongAccumulator(Math::max, 0L);
+  private final AtomicLong waiting = new AtomicLong();
+
+  void admitted(long waitMs, long usedMb) {
+    admitted.increment();
+    addWait(waitMs);
+    this.usedMb.set(usedMb);
+    peakUsedMb.accumulate(usedMb);
+  }
+
+  void promoted(long waitMs) {
+    promoted.increment();
+    addWait(waitMs);
+  }
+
+  void queued() {
+    queued.increment();
+  }
+
+  void released(long usedMb) {
+    this.usedMb.set(usedMb);
+  }
+
+  void waiting(int waiting) {
+    this.waiting.set(waiting);
+  }
+
+  private void addWait(long waitMs) {
+    waitMillis.add(waitMs);
+    maxWaitMillis.accumulate(waitMs);
+  }
+
+  public long getAdmitted() {
+    return admitted.sum();
+  }
+
+  public long getPromoted() {
+    return promoted.sum();
+  }
+
+  /** Number of runs which didn't fit into the budget immediately */
+  public long getQueued() {
+    return queued.sum();
+  }
+
+  public double getAvgWaitMillis() {
+    long decisions = admitted.sum() + promoted.sum();
+    return decisions == 0 ? 0d : (double) waitMillis.sum() / decisions;
+  }
+
+  public long getMaxWaitMillis() {
+    return maxWaitMillis.get();
+  }
+
+  public long getUsedMb() {
+    return usedMb.get();
+  }
+
+  public long getPeakUsedMb() {
+    return peakUsedMb.get();
+  }
+
+  public long getWaiting() {
+    return waiting.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        Locale.ROOT,
+        "admitted %d, promoted %d, queued %d, waiting %d, wait avg %.0f ms max %d ms, used %d MB peak %d MB",
+        getAdmitted(),
+        getPromoted(),
+        getQueued(),
+        getWaiting(),
+        getAvgWaitMillis(),
+        getMaxWaitMillis(),
+        getUsedMb(),
+        getPeakUsedMb());
+  }
+}
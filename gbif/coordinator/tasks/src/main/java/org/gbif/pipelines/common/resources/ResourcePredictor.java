@@ -0,0 +1,398 @@
+package org.gbif.pipelines.common.resources;
+
+import com.google.common.base.Strings;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.api.model.pipelines.StepRunner;
+import org.gbif.api.model.pipelines.StepType;
+import org.gbif.pipelines.common.MainSparkSettings;
+import org.gbif.pipelines.common.configs.ResourcePredictionConfiguration;
+import org.gbif.pipelines.common.configs.SparkConfiguration;
+
+/**
+ * Recommends the runner type and the Spark resources of a step from the actual resources of the
+ * previous runs, see {@link StepRunHistory}.
+ *
+ * <p>The model is deliberately simple. The latest runs of the same dataset are used when there are
+ * any, they capture the extensions and the shape of the dataset, otherwise all runs of the step
+ * once there are minSamples of them:
+ *
+ * <ul>
+ *   <li>distributed: the median executor-seconds per record gives the executors to finish in the
+ *       target runtime, the executor memory follows the records per executor and the output bytes
+ *       per record of the dataset compared to the median dataset
+ *   <li>standalone: the median runtime per record and a linear fit of the peak heap by records
+ *       decide if a dataset can run standalone
+ * </ul>
+ *
+ * <p>Guard rails: without history or with the prediction disabled the default formulas are used,
+ * predicted values stay within maxAdjustment of the default formulas and within the Spark
+ * configuration limits, and only datasets close to the records switch can change the runner.
+ */
+@Slf4j
+public class ResourcePredictor {
+
+  // latest runs of the same dataset used by the model
+  private static final int DATASET_RUNS = 5;
+  // Spark memory format, a number without a unit is in Mb
+  private static final Pattern MEMORY_PATTERN = Pattern.compile("^(\\d+)([kmgt]?)b?$");
+  // standalone runs measuring the peak heap in this JVM, running and started ever
+  private static final AtomicInteger RUNNING_SAMPLES = new AtomicInteger();
+  private static final AtomicLong STARTED_SAMPLES = new AtomicLong();
+
+  private final ResourcePredictionConfiguration config;
+  private final StepRunHistory history;
+
+  private ResourcePredictor(ResourcePredictionConfiguration config, StepRunHistory history) {
+    this.config = config;
+    this.history = history;
+  }
+
+  public static ResourcePredictor create(ResourcePredictionConfiguration config) {
+    StepRunHistory history =
+        config == null || Strings.isNullOrEmpty(config.historyDir)
+            ? null
+            : new StepRunHistory(config.historyDir, config.maxRuns);
+    return new ResourcePredictor(config, history);
+  }
+
+  public boolean isEnabled() {
+    return history != null;
+  }
+
+  /** Adds a finished run to the history */
+  public void record(StepRun run) {
+    if (isEnabled() && run.getRecords() > 0 && run.getRuntimeMs() > 0) {
+      history.add(run);
+    }
+  }
+
+  /** Adds a finished distributed run to the history */
+  public void recordDistributed(
+      StepType stepType,
+      String datasetKey,
+      long records,
+      MainSparkSettings settings,
+      long runtimeMs,
+      long outputBytes) {
+    record(
+        StepRun.builder()
+            .datasetKey(datasetKey)
+            .stepType(stepType.name())
+            .runner(StepRunner.DISTRIBUTED.name())
+            .records(records)
+            .executors(settings.getExecutorNumbers())
+            .executorMemoryGb((int) Math.ceil(parseGb(settings.getExecutorMemory())))
+            .runtimeMs(runtimeMs)
+            .outputBytes(outputBytes)
+            .finished(System.currentTimeMillis())
+            .build());
+  }
+
+  /** Adds a finished standalone run to the history */
+  public void recordStandalone(
+      StepType stepType,
+      String datasetKey,
+      long records,
+      long runtimeMs,
+      long peakMemoryMb,
+      long outputBytes) {
+    record(
+        StepRun.builder()
+            .datasetKey(datasetKey)
+            .stepType(stepType.name())
+            .runner(StepRunner.STANDALONE.name())
+            .records(records)
+            .runtimeMs(runtimeMs)
+            .peakMemoryMb(peakMemoryMb)
+            .outputBytes(outputBytes)
+            .finished(System.currentTimeMillis())
+            .build());
+  }
+
+  /**
+   * Recommends the runner of a dataset close to the records switch, the fallback is the runner
+   * chosen by the switch
+   */
+  public StepRunner predictRunner(
+      StepType stepType, String datasetKey, long records, int switchRecords, StepRunner fallback) {
+    if (!isEnabled()
+        || records <= 0
+        || records < switchRecords / config.maxAdjustment
+        || records > switchRecords * config.maxAdjustment) {
+      return fallback;
+    }
+
+    List<StepRun> standalone = filter(history.get(stepType.name()), StepRunner.STANDALONE);
+
+    OptionalDouble msPerRecord =
+        median(select(standalone, datasetKey), r -> (double) r.getRuntimeMs() / r.getRecords());
+    if (!msPerRecord.isPresent()) {
+      return fallback;
+    }
+    double runtimeMinutes = msPerRecord.getAsDouble() * records / 60_000d;
+
+    List<StepRun> withMemory =
+        standalone.stream().filter(r -> r.getPeakMemoryMb() > 0).collect(Collectors.toList());
+    OptionalDouble memoryMb = fitMemory(select(withMemory, datasetKey), records);
+
+    boolean fits =
+        runtimeMinutes <= config.standaloneMaxRuntimeMinutes
+            && (!memoryMb.isPresent() || memoryMb.getAsDouble() <= config.standaloneMaxMemoryMb);
+    StepRunner runner = fits ? StepRunner.STANDALONE : StepRunner.DISTRIBUTED;
+
+    log.info(
+        "Predicted standalone runtime {} min, peak heap {} Mb, records {}, runner {}, default {}",
+        Math.round(runtimeMinutes),
+        memoryMb.isPresent() ? Math.round(memoryMb.getAsDouble()) : "unknown",
+        records,
+        runner,
+        fallback);
+    return runner;
+  }
+
+  /**
+   * Recommends the executors, executor memory and parallelism of a distributed run, the fallback
+   * are the settings of the default formulas
+   */
+  public MainSparkSettings predictSparkSettings(
+      StepType stepType,
+      String datasetKey,
+      long records,
+      SparkConfiguration sparkConfig,
+      MainSparkSettings fallback) {
+    if (!isEnabled() || records <= 0) {
+      return fallback;
+    }
+
+    List<StepRun> distributed = filter(history.get(stepType.name()), StepRunner.DISTRIBUTED);
+
+    // executor-seconds per record
+    OptionalDouble cost =
+        median(
+            select(distributed, datasetKey),
+            r -> r.getRuntimeMs() / 1_000d * r.getExecutors() / r.getRecords());
+    if (!cost.isPresent()) {
+      return fallback;
+    }
+
+    int fallbackExecutors = fallback.getExecutorNumbers();
+    double executorsValue =
+        Math.ceil(records * cost.getAsDouble() / (config.targetRuntimeMinutes * 60d));
+    int executors =
+        Math.max(
+            1,
+            clamp(
+                bounded(executorsValue, fallbackExecutors),
+                sparkConfig.executorNumbersMin,
+                sparkConfig.executorNumbersMax));
+
+    // memory follows the records per executor and the output bytes per record of the dataset
+    double fallbackMemory;
+    try {
+      fallbackMemory = parseGb(fallback.getExecutorMemory());
+    } catch (IllegalArgumentException ex) {
+      log.warn("Can't predict Spark settings, {}", ex.getMessage());
+      return fallback;
+    }
+    double memoryValue =
+        Math.ceil(
+            fallbackMemory
+                * ((double) fallbackExecutors / executors)
+                * bytesRatio(distributed, datasetKey));
+    int memory =
+        clamp(
+            bounded(memoryValue, fallbackMemory),
+            sparkConfig.executorMemoryGbMin,
+            sparkConfig.executorMemoryGbMax);
+
+    double parallelismValue = (double) fallback.getParallelism() * executors / fallbackExecutors;
+    int parallelism =
+        clamp(parallelismValue, sparkConfig.parallelismMin, sparkConfig.parallelismMax);
+
+    Settings settings = new Settings(parallelism, memory + "G", executors);
+    log.info(
+        "Predicted Spark settings {}, executor-seconds per record {}, default executors {}, memory {}, parallelism {}",
+        settings,
+        cost.getAsDouble(),
+        fallbackExecutors,
+        fallback.getExecutorMemory(),
+        fallback.getParallelism());
+    return settings;
+  }
+
+  /**
+   * Starts measuring the peak heap of a standalone run. The peak usage of the heap memory pools is
+   * global to the JVM, a run resetting it would make the concurrent runs underestimate their memory
+   * and a run sharing it overestimates its own, so the peak is only reset and measured for a run
+   * which was alone in the service from start to end, see {@link HeapSample#stop()}.
+   */
+  public static HeapSample startHeapSample() {
+    boolean alone = RUNNING_SAMPLES.getAndIncrement() == 0;
+    long startIndex = STARTED_SAMPLES.incrementAndGet();
+    if (alone) {
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP) {
+          pool.resetPeakUsage();
+        }
+      }
+    }
+    return new HeapSample(alone, startIndex);
+  }
+
+  /** Peak heap measurement of a standalone run, see {@link #startHeapSample()} */
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  public static final class HeapSample {
+
+    private final boolean alone;
+    private final long startIndex;
+
+    /**
+     * Stops the measurement, must be called once, also when the run fails
+     *
+     * @return peak usage of the heap memory pools in Mb, 0 when another run overlapped this one and
+     *     the peak is unreliable
+     */
+    public long stop() {
+      long peakMb = heapPeakMb();
+      boolean reliable = alone && STARTED_SAMPLES.get() == startIndex;
+      RUNNING_SAMPLES.decrementAndGet();
+      return reliable ? peakMb : 0L;
+    }
+  }
+
+  private static long heapPeakMb() {
+    long bytes = 0L;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        bytes += pool.getPeakUsage().getUsed();
+      }
+    }
+    return bytes / (1024L * 1024L);
+  }
+
+  /** Latest runs of the dataset if there are any, otherwise all runs if there are enough */
+  private List<StepRun> select(List<StepRun> runs, String datasetKey) {
+    List<StepRun> datasetRuns =
+        runs.stream()
+            .filter(r -> datasetKey.equals(r.getDatasetKey()))
+            .collect(Collectors.toList());
+    if (!datasetRuns.isEmpty()) {
+      return datasetRuns.subList(
+          Math.max(0, datasetRuns.size() - DATASET_RUNS), datasetRuns.size());
+    }
+    return runs.size() >= config.minSamples ? runs : datasetRuns;
+  }
+
+  /** Output bytes per record of the dataset compared to the median of the step */
+  private double bytesRatio(List<StepRun> runs, String datasetKey) {
+    Predicate<StepRun> hasBytes = r -> r.getOutputBytes() > 0;
+    List<StepRun> withBytes = runs.stream().filter(hasBytes).collect(Collectors.toList());
+    if (withBytes.size() < config.minSamples) {
+      return 1d;
+    }
+    ToDoubleFunction<StepRun> bytesPerRecord = r -> (double) r.getOutputBytes() / r.getRecords();
+    OptionalDouble all = median(withBytes, bytesPerRecord);
+    OptionalDouble dataset =
+        median(
+            withBytes.stream()
+                .filter(r -> datasetKey.equals(r.getDatasetKey()))
+                .collect(Collectors.toList()),
+            bytesPerRecord);
+    if (!dataset.isPresent() || !all.isPresent() || all.getAsDouble() <= 0d) {
+      return 1d;
+    }
+    return dataset.getAsDouble() / all.getAsDouble();
+  }
+
+  /** Least squares fit of the peak heap by records */
+  private static OptionalDouble fitMemory(List<StepRun> runs, long records) {
+    if (runs.isEmpty()) {
+      return OptionalDouble.empty();
+    }
+    double meanX = runs.stream().mapToDouble(StepRun::getRecords).average().orElse(0d);
+    double meanY = runs.stream().mapToDouble(StepRun::getPeakMemoryMb).average().orElse(0d);
+    double cov = 0d;
+    double var = 0d;
+    for (StepRun r : runs) {
+      cov += (r.getRecords() - meanX) * (r.getPeakMemoryMb() - meanY);
+      var += (r.getRecords() - meanX) * (r.getRecords() - meanX);
+    }
+    if (var == 0d) {
+      // all runs have the same size, scale the mean by records
+      return OptionalDouble.of(meanY * records / meanX);
+    }
+    double slope = Math.max(cov / var, 0d);
+    return OptionalDouble.of(meanY + slope * (records - meanX));
+  }
+
+  private static List<StepRun> filter(List<StepRun> runs, StepRunner runner) {
+    return runs.stream()
+        .filter(r -> runner.name().equals(r.getRunner()))
+        .filter(r -> r.getRecords() > 0 && r.getRuntimeMs() > 0)
+        .filter(r -> runner == StepRunner.STANDALONE || r.getExecutors() > 0)
+        .collect(Collectors.toList());
+  }
+
+  private static OptionalDouble median(List<StepRun> runs, ToDoubleFunction<StepRun> fn) {
+    double[] values = runs.stream().mapToDouble(fn).sorted().toArray();
+    if (values.length == 0) {
+      return OptionalDouble.empty();
+    }
+    int mid = values.length / 2;
+    return OptionalDouble.of(
+        values.length % 2 == 1 ? values[mid] : (values[mid - 1] + values[mid]) / 2d);
+  }
+
+  /** Keeps the predicted value within maxAdjustment of the default value */
+  private double bounded(double value, double fallback) {
+    return Math.min(
+        Math.max(value, fallback / config.maxAdjustment), fallback * config.maxAdjustment);
+  }
+
+  private static int clamp(double value, int min, int max) {
+    return (int) Math.min(Math.max(Math.round(value), min), max);
+  }
+
+  /** Memory in Gb of a Spark memory setting, like 512m, 2048M or 4g */
+  static double parseGb(String memory) {
+    Matcher matcher =
+        MEMORY_PATTERN.matcher(memory == null ? "" : memory.trim().toLowerCase(Locale.ROOT));
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException("Unknown memory format " + memory);
+    }
+    double value = Long.parseLong(matcher.group(1));
+    switch (matcher.group(2)) {
+      case "k":
+        return value / (1024d * 1024d);
+      case "g":
+        return value;
+      case "t":
+        return value * 1024d;
+      default:
+        return value / 1024d;
+    }
+  }
+
+  @Value
+  private static class Settings implements MainSparkSettings {
+    int parallelism;
+    String executorMemory;
+    int executorNumbers;
+  }
+}
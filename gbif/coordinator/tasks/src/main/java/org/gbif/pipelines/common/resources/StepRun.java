@@ -0,0 +1,28 @@
+package org.gbif.pipelines.common.resources;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Actual resources of one finished step run, see {@link StepRunHistory} */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepRun {
+
+  private String datasetKey;
+  private String stepType;
+  private String runner;
+  private long records;
+  // 0 for standalone runs
+  private int executors;
+  private int executorMemoryGb;
+  private long runtimeMs;
+  // 0 when not measured, standalone runs measure the heap of the service
+  private long peakMemoryMb;
+  // 0 when not measured
+  private long outputBytes;
+  private long finished;
+}
@@ -0,0 +1,104 @@
+package org.gbif.pipelines.common.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * File backed history of {@link StepRun}s, one file of JSON lines per step type. A file is
+ * compacted to the latest maxRuns runs when it grows to twice that. Appends of one line from
+ * several services are safe on a local or NFS directory, a concurrent compaction may lose a few
+ * runs, which only makes the history shorter.
+ *
+ * <p>The history is best effort: read and write failures are logged and the predictions fall back
+ * to the default formulas.
+ */
+@Slf4j
+public class StepRunHistory {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String EXTENSION = ".jsonl";
+  // Histories of the same file in a JVM share a lock, an append and a compaction don't overlap
+  private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+  private final Path dir;
+  private final int maxRuns;
+
+  public StepRunHistory(String dir, int maxRuns) {
+    this.dir = Paths.get(dir);
+    this.maxRuns = maxRuns;
+  }
+
+  public void add(StepRun run) {
+    Path file = dir.resolve(run.getStepType() + EXTENSION);
+    synchronized (lock(file)) {
+      append(file, run);
+    }
+  }
+
+  private void append(Path file, StepRun run) {
+    try {
+      Files.createDirectories(dir);
+      String line = MAPPER.writeValueAsString(run) + "\n";
+      Files.write(
+          file,
+          line.getBytes(StandardCharsets.UTF_8),
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+
+      List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+      if (lines.size() >= maxRuns * 2) {
+        Path tmp = dir.resolve(run.getStepType() + EXTENSION + ".tmp");
+        Files.write(tmp, lines.subList(lines.size() - maxRuns, lines.size()));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+    } catch (IOException ex) {
+      log.warn("Can't add the run to the resource history {}", file, ex);
+    }
+  }
+
+  /** Returns the latest maxRuns runs of the step type, oldest first */
+  public List<StepRun> get(String stepType) {
+    Path file = dir.resolve(stepType + EXTENSION);
+    synchronized (lock(file)) {
+      return read(file);
+    }
+  }
+
+  private List<StepRun> read(Path file) {
+    if (!Files.exists(file)) {
+      return Collections.emptyList();
+    }
+    try {
+      List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+      List<StepRun> runs = new ArrayList<>(Math.min(lines.size(), maxRuns));
+      for (String line : lines.subList(Math.max(0, lines.size() - maxRuns), lines.size())) {
+        try {
+          runs.add(MAPPER.readValue(line, StepRun.class));
+        } catch (IOException ex) {
+          // a line of an interrupted append
+          log.debug("Skip the history line {}", line);
+        }
+      }
+      return runs;
+    } catch (IOException ex) {
+      log.warn("Can't read the resource history {}", file, ex);
+      return Collections.emptyList();
+    }
+  }
+
+  private static Object lock(Path file) {
+    return LOCKS.computeIfAbsent(file.toAbsolutePath().normalize(), f -> new Object());
+  }
+}
@@ -0,0 +1,198 @@
+package org.gbif.pipelines.common.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.ContentSummary;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Short-lived cache of HDFS metadata for handling of one message, used by {@link HdfsUtils} in the
+ * thread which opened it:
+ *
+ * <pre>{@code
+ * try (HdfsMetadataCache cache = HdfsMetadataCache.open()) {
+ *   long size = HdfsUtils.getFileSizeByte(hdfsConfigs, verbatimPath);
+ *   Optional<Long> count = HdfsUtils.getLongByKey(hdfsConfigs, metaPath, key);
+ * }
+ * }</pre>
+ *
+ * <p>Existence checks, directory listings, content summaries and small yaml files are cached by
+ * path, a cached directory listing answers the existence checks of its children too.
+ *
+ * <p>Writes through {@link HdfsUtils} invalidate the cached metadata of the path. Pipelines write
+ * without it, so the whole cache is invalidated when a pipeline run is built, see {@link
+ * org.gbif.pipelines.common.process.ProcessRunnerBuilder}, and after the message runnable.
+ */
+@Slf4j
+public class HdfsMetadataCache implements AutoCloseable {
+
+  private static final ThreadLocal<HdfsMetadataCache> CURRENT = new ThreadLocal<>();
+
+  private final Map<String, Boolean> existence = new HashMap<>();
+
+  /** Directory listings, null value means the directory doesn't exist */
+  private final Map<String, FileStatus[]> listings = new HashMap<>();
+
+  private final Map<String, ContentSummary> summaries = new HashMap<>();
+  private final Map<String, List<String>> lines = new HashMap<>();
+
+  @Getter private long hits;
+  @Getter private long misses;
+  private int depth = 1;
+
+  private HdfsMetadataCache() {}
+
+  /**
+   * Opens the cache for the current thread, a nested call returns the open cache, which is closed
+   * by the outermost close
+   */
+  public static HdfsMetadataCache open() {
+    HdfsMetadataCache cache = CURRENT.get();
+    if (cache != null) {
+      cache.depth++;
+      return cache;
+    }
+    cache = new HdfsMetadataCache();
+    CURRENT.set(cache);
+    return cache;
+  }
+
+  /** Returns the cache of the current thread, if it is open */
+  public static Optional<HdfsMetadataCache> current() {
+    return Optional.ofNullable(CURRENT.get());
+  }
+
+  /** Drops cached metadata of the path, its sub paths and its parent directory listing */
+  public static void invalidate(FileSystem fs, Path path) {
+    current().ifPresent(c -> c.invalidatePath(fs, path));
+  }
+
+  /** Drops all cached metadata of the current thread */
+  public static void invalidateAll() {
+    current().ifPresent(HdfsMetadataCache::clear);
+  }
+
+  /** A cached listing of the parent directory answers the check without a NameNode call */
+  public boolean exists(FileSystem fs, Path path) throws IOException {
+    Path qualified = fs.makeQualified(path);
+    String key = qualified.toString();
+    Boolean exists = existence.get(key);
+    Path parent = qualified.getParent();
+    if (exists == null && parent != null && listings.containsKey(parent.toString())) {
+      // Listed children are in the existence map already
+      exists = Boolean.FALSE;
+    }
+    if (exists != null) {
+      hits++;
+      return exists;
+    }
+    misses++;
+    exists = fs.exists(path);
+    existence.put(key, exists);
+    return exists;
+  }
+
+  /** Returns statuses of the directory content, null if the directory doesn't exist */
+  public FileStatus[] listStatus(FileSystem fs, Path path) throws IOException {
+    String key = fs.makeQualified(path).toString();
+    if (listings.containsKey(key)) {
+      hits++;
+      return listings.get(key);
+    }
+    misses++;
+    FileStatus[] statuses;
+    try {
+      statuses = fs.listStatus(path);
+    } catch (FileNotFoundException ex) {
+      statuses = null;
+    }
+    listings.put(key, statuses);
+    // One listing answers the existence of the directory and all its children
+    existence.put(key, statuses != null);
+    if (statuses != null) {
+      for (FileStatus status : statuses) {
+        existence.put(fs.makeQualified(status.getPath()).toString(), Boolean.TRUE);
+      }
+    }
+    return statuses;
+  }
+
+  public ContentSummary getContentSummary(FileSystem fs, Path path) throws IOException {
+    String key = fs.makeQualified(path).toString();
+    ContentSummary summary = summaries.get(key);
+    if (summary != null) {
+      hits++;
+      return summary;
+    }
+    misses++;
+    summary = fs.getContentSummary(path);
+    summaries.put(key, summary);
+    return summary;
+  }
+
+  /** Returns lines of a small text file, empty list if the file doesn't exist */
+  public List<String> readLines(FileSystem fs, Path path) throws IOException {
+    String key = fs.makeQualified(path).toString();
+    List<String> cached = lines.get(key);
+    if (cached != null) {
+      hits++;
+      return cached;
+    }
+    List<String> result = Collections.emptyList();
+    if (exists(fs, path)) {
+      misses++;
+      try (BufferedReader br = new BufferedReader(new InputStreamReader(fs.open(path), UTF_8))) {
+        result = Collections.unmodifiableList(br.lines().collect(Collectors.toList()));
+      }
+    }
+    lines.put(key, result);
+    return result;
+  }
+
+  private void invalidatePath(FileSystem fs, Path path) {
+    Path qualified = fs.makeQualified(path);
+    String key = qualified.toString();
+    String prefix = key + Path.SEPARATOR;
+    existence.keySet().removeIf(k -> k.equals(key) || k.startsWith(prefix));
+    listings.keySet().removeIf(k -> k.equals(key) || k.startsWith(prefix));
+    summaries.keySet().removeIf(k -> k.equals(key) || k.startsWith(prefix));
+    lines.keySet().removeIf(k -> k.equals(key) || k.startsWith(prefix));
+    // Content summaries of parent directories include the path
+    Path parent = qualified.getParent();
+    while (parent != null) {
+      String parentKey = parent.toString();
+      listings.remove(parentKey);
+      summaries.remove(parentKey);
+      parent = parent.getParent();
+    }
+  }
+
+  private void clear() {
+    existence.clear();
+    listings.clear();
+    summaries.clear();
+    lines.clear();
+  }
+
+  @Override
+  public void close() {
+    if (--depth == 0) {
+      CURRENT.remove();
+      log.debug("HDFS metadata cache closed, hits {}, misses {}", hits, misses);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Strings;
 import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
@@ -20,6 +21,7 @@ import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.ContentSummary;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocatedFileStatus;
@@ -45,7 +47,7 @@ public class HdfsUtils {
     FileSystem fs = getFileSystem(hdfsConfigs, filePath);
     Path path = new Path(fileUri);
 
-    return fs.exists(path) ? fs.getContentSummary(path).getLength() : -1;
+    return exists(fs, path) ? getContentSummary(fs, path).getLength() : -1;
   }
 
   /**
@@ -58,8 +60,19 @@ public class HdfsUtils {
     URI fileUri = URI.create(directoryPath);
     FileSystem fs = getFileSystem(hdfsConfigs, directoryPath);
 
+    Path path = new Path(fileUri);
+
+    Optional<HdfsMetadataCache> cache = HdfsMetadataCache.current();
+    if (cache.isPresent()) {
+      FileStatus[] statuses = cache.get().listStatus(fs, path);
+      if (statuses == null) {
+        throw new FileNotFoundException("Directory doesn't exist - " + directoryPath);
+      }
+      return (int) Arrays.stream(statuses).filter(FileStatus::isFile).count();
+    }
+
     int count = 0;
-    RemoteIterator<LocatedFileStatus> iterator = fs.listFiles(new Path(fileUri), false);
+    RemoteIterator<LocatedFileStatus> iterator = fs.listFiles(path, false);
     while (iterator.hasNext()) {
       LocatedFileStatus fileStatus = iterator.next();
       if (fileStatus.isFile()) {
@@ -78,7 +91,7 @@ public class HdfsUtils {
   public static boolean exists(HdfsConfigs hdfsConfigs, String filePath) throws IOException {
     FileSystem fs = getFileSystem(hdfsConfigs, filePath);
     Path fsPath = new Path(filePath);
-    return fs.exists(fsPath);
+    return exists(fs, fsPath);
   }
 
   /**
@@ -91,8 +104,8 @@ public class HdfsUtils {
       throws IOException {
     FileSystem fs = getFileSystem(hdfsConfigs, filePath);
     Path fsPath = new Path(filePath);
-    if (fs.exists(fsPath)) {
-      FileStatus[] statuses = fs.listStatus(fsPath);
+    if (exists(fs, fsPath)) {
+      FileStatus[] statuses = listStatus(fs, fsPath);
       if (statuses != null && statuses.length > 0) {
         return Arrays.stream(statuses).filter(FileStatus::isDirectory).collect(Collectors.toList());
       }
@@ -110,17 +123,11 @@ public class HdfsUtils {
   public static Optional<String> getValueByKey(HdfsConfigs hdfsConfigs, String filePath, String key)
       throws IOException {
     FileSystem fs = getFileSystem(hdfsConfigs, filePath);
-    Path fsPath = new Path(filePath);
-    if (fs.exists(fsPath)) {
-      try (BufferedReader br = new BufferedReader(new InputStreamReader(fs.open(fsPath), UTF_8))) {
-        return br.lines()
-            .map(x -> x.replace("\u0000", ""))
-            .filter(y -> y.startsWith(key))
-            .findFirst()
-            .map(z -> z.replace(key + ": ", ""));
-      }
-    }
-    return Optional.empty();
+    return readLines(fs, new Path(filePath)).stream()
+        .map(x -> x.replace("\u0000", ""))
+        .filter(y -> y.startsWith(key))
+        .findFirst()
+        .map(z -> z.replace(key + ": ", ""));
   }
 
   /**
@@ -158,18 +165,13 @@ public class HdfsUtils {
     FileSystem fs = getFileSystem(hdfsConfigs, filePath);
     Path fsPath = new Path(filePath);
     try {
-      if (fs.exists(fsPath)) {
-        try (BufferedReader br =
-            new BufferedReader(new InputStreamReader(fs.open(fsPath), UTF_8))) {
-          return br.lines()
-              .map(x -> x.replace("\u0000", ""))
-              .filter(s -> !Strings.isNullOrEmpty(s))
-              .map(z -> z.split(":"))
-              .filter(s -> s.length > 1)
-              .map(v -> new PipelineStep.MetricInfo(v[0].trim(), v[1].trim()))
-              .collect(Collectors.toList());
-        }
-      }
+      return readLines(fs, fsPath).stream()
+          .map(x -> x.replace("\u0000", ""))
+          .filter(s -> !Strings.isNullOrEmpty(s))
+          .map(z -> z.split(":"))
+          .filter(s -> s.length > 1)
+          .map(v -> new PipelineStep.MetricInfo(v[0].trim(), v[1].trim()))
+          .collect(Collectors.toList());
     } catch (IOException e) {
       log.warn("Couldn't read meta file from {}", filePath, e);
     }
@@ -191,6 +193,7 @@ public class HdfsUtils {
     Path fsPath = new Path(filePath);
     try {
       if (fs.exists(fsPath)) {
+        HdfsMetadataCache.invalidate(fs, fsPath);
         return fs.delete(fsPath, true);
       }
     } catch (IOException ex) {
@@ -223,6 +226,35 @@ public class HdfsUtils {
             });
   }
 
+  private static boolean exists(FileSystem fs, Path path) throws IOException {
+    Optional<HdfsMetadataCache> cache = HdfsMetadataCache.current();
+    return cache.isPresent() ? cache.get().exists(fs, path) : fs.exists(path);
+  }
+
+  private static FileStatus[] listStatus(FileSystem fs, Path path) throws IOException {
+    Optional<HdfsMetadataCache> cache = HdfsMetadataCache.current();
+    return cache.isPresent() ? cache.get().listStatus(fs, path) : fs.listStatus(path);
+  }
+
+  private static ContentSummary getContentSummary(FileSystem fs, Path path) throws IOException {
+    Optional<HdfsMetadataCache> cache = HdfsMetadataCache.current();
+    return cache.isPresent() ? cache.get().getContentSummary(fs, path) : fs.getContentSummary(path);
+  }
+
+  /** Returns lines of a small text file, empty list if the file doesn't exist */
+  private static List<String> readLines(FileSystem fs, Path path) throws IOException {
+    Optional<HdfsMetadataCache> cache = HdfsMetadataCache.current();
+    if (cache.isPresent()) {
+      return cache.get().readLines(fs, path);
+    }
+    if (!fs.exists(path)) {
+      return Collections.emptyList();
+    }
+    try (BufferedReader br = new BufferedReader(new InputStreamReader(fs.open(path), UTF_8))) {
+      return br.lines().collect(Collectors.toList());
+    }
+  }
+
   private static FileSystem getFileSystem(HdfsConfigs hdfsConfigs, String filePath) {
     return FileSystemFactory.getInstance(hdfsConfigs).getFs(filePath);
   }
@@ -43,6 +43,7 @@ import org.gbif.crawler.constants.CrawlerNodePaths;
 import org.gbif.crawler.constants.PipelinesNodePaths.Fn;
 import org.gbif.pipelines.common.PipelinesException;
 import org.gbif.pipelines.common.configs.BaseConfiguration;
+import org.gbif.pipelines.common.utils.HdfsMetadataCache;
 import org.gbif.pipelines.common.utils.HdfsUtils;
 import org.gbif.pipelines.common.utils.ZookeeperUtils;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
@@ -116,7 +117,8 @@ public class PipelinesCallback<I extends PipelineBasedMessage, O extends Pipelin
 
     try (MDCCloseable mdc = MDC.putCloseable("datasetKey", datasetKey);
         MDCCloseable mdc1 = MDC.putCloseable("attempt", message.getAttempt().toString());
-        MDCCloseable mdc2 = MDC.putCloseable("step", stepType.name())) {
+        MDCCloseable mdc2 = MDC.putCloseable("step", stepType.name());
+        HdfsMetadataCache hdfsCache = HdfsMetadataCache.open()) {
 
       O outgoingMessage = handler.createOutgoingMessage(message);
 
@@ -183,6 +185,7 @@ public class PipelinesCallback<I extends PipelineBasedMessage, O extends Pipelin
       log.info("Handler has been started, datasetKey - {}", datasetKey);
       checkIfDatasetIsDeleted();
       runnable.run();
+      HdfsMetadataCache.invalidateAll();
       checkIfDatasetIsDeleted();
       log.info("Handler has been finished, datasetKey - {}", datasetKey);
 
@@ -1,7 +1,6 @@
 package org.gbif.pipelines.tasks.balancer;
 
 import java.io.IOException;
-import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.common.messaging.AbstractMessageCallback;
@@ -18,6 +17,8 @@ import org.gbif.common.messaging.api.messages.PipelinesIndexedMessage;
 import org.gbif.common.messaging.api.messages.PipelinesInterpretedMessage;
 import org.gbif.common.messaging.api.messages.PipelinesVerbatimMessage;
 import org.gbif.common.messaging.api.messages.PipelinesXmlMessage;
+import org.gbif.pipelines.common.resources.ResourcePredictor;
+import org.gbif.pipelines.common.utils.HdfsMetadataCache;
 import org.gbif.pipelines.tasks.balancer.handler.EventsIndexedMessageHandler;
 import org.gbif.pipelines.tasks.balancer.handler.EventsInterpretedMessageHandler;
 import org.gbif.pipelines.tasks.balancer.handler.InterpretedMessageHandler;
@@ -39,11 +40,17 @@ import org.gbif.pipelines.tasks.balancer.handler.VerbatimMessageHandler;
  * <p>The main method is {@link BalancerCallback#handleMessage}
  */
 @Slf4j
-@AllArgsConstructor
 public class BalancerCallback extends AbstractMessageCallback<PipelinesBalancerMessage> {
 
-  @NonNull private final BalancerConfiguration config;
+  private final BalancerConfiguration config;
   private final MessagePublisher publisher;
+  private final ResourcePredictor resourcePredictor;
+
+  public BalancerCallback(@NonNull BalancerConfiguration config, MessagePublisher publisher) {
+    this.config = config;
+    this.publisher = publisher;
+    this.resourcePredictor = ResourcePredictor.create(config.resourceConfig);
+  }
 
   /** Handles a MQ {@link PipelinesBalancerMessage} message */
   @Override
@@ -53,9 +60,9 @@ public class BalancerCallback extends AbstractMessageCallback<PipelinesBalancerM
     String className = message.getMessageClass();
 
     // Select handler by message class name
-    try {
+    try (HdfsMetadataCache hdfsCache = HdfsMetadataCache.open()) {
       if (PipelinesVerbatimMessage.class.getSimpleName().equals(className)) {
-        VerbatimMessageHandler.handle(config, publisher, message);
+        VerbatimMessageHandler.handle(config, resourcePredictor, publisher, message);
       } else if (PipelinesInterpretedMessage.class.getSimpleName().equals(className)) {
         InterpretedMessageHandler.handle(config, publisher, message);
       } else if (PipelinesIndexedMessage.class.getSimpleName().equals(className)) {
@@ -6,6 +6,7 @@ import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import lombok.ToString;
+import org.gbif.pipelines.common.configs.ResourcePredictionConfiguration;
 import org.gbif.pipelines.common.configs.StepConfiguration;
 
 /** Configuration required to start Balancer service */
@@ -37,6 +38,9 @@ public class BalancerConfiguration {
   @Parameter(names = "--validator-repository-path")
   public String validatorRepositoryPath;
 
+  @ParametersDelegate @Valid
+  public ResourcePredictionConfiguration resourceConfig = new ResourcePredictionConfiguration();
+
   @Parameter(names = "--events-enabled")
   public boolean eventsEnabled = false;
 }
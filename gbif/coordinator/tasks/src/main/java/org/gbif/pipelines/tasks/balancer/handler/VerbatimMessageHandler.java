@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.api.model.pipelines.StepRunner;
+import org.gbif.api.model.pipelines.StepType;
 import org.gbif.api.vocabulary.DatasetType;
 import org.gbif.common.messaging.api.MessagePublisher;
 import org.gbif.common.messaging.api.messages.PipelinesBalancerMessage;
@@ -23,6 +24,7 @@ import org.gbif.pipelines.common.PipelinesVariables.Pipeline;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Conversion;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
 import org.gbif.pipelines.common.configs.StepConfiguration;
+import org.gbif.pipelines.common.resources.ResourcePredictor;
 import org.gbif.pipelines.common.utils.HdfsUtils;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.tasks.balancer.BalancerConfiguration;
@@ -40,7 +42,10 @@ public class VerbatimMessageHandler {
 
   /** Main handler, basically computes the runner type and sends to the same consumer */
   public static void handle(
-      BalancerConfiguration config, MessagePublisher publisher, PipelinesBalancerMessage message)
+      BalancerConfiguration config,
+      ResourcePredictor resourcePredictor,
+      MessagePublisher publisher,
+      PipelinesBalancerMessage message)
       throws IOException {
 
     log.info("Process PipelinesVerbatimMessage - {}", message);
@@ -87,7 +92,7 @@ public class VerbatimMessageHandler {
       log.info("The events message has been sent - {}", eventsMessage);
     } else {
       long recordsNumber = getRecordNumber(config, m);
-      String runner = computeRunner(config, m, recordsNumber).name();
+      String runner = computeRunner(config, resourcePredictor, m, recordsNumber).name();
 
       ValidationResult result = m.getValidationResult();
       if (result.getNumberOfRecords() == null) {
@@ -118,7 +123,10 @@ public class VerbatimMessageHandler {
    * Strategy 2 - Chooses a runner type by calculating verbatim.avro file size
    */
   private static StepRunner computeRunner(
-      BalancerConfiguration config, PipelinesVerbatimMessage message, long recordsNumber)
+      BalancerConfiguration config,
+      ResourcePredictor resourcePredictor,
+      PipelinesVerbatimMessage message,
+      long recordsNumber)
       throws IOException {
 
     String datasetId = message.getDatasetUuid().toString();
@@ -137,6 +145,15 @@ public class VerbatimMessageHandler {
       }
 
       runner = recordsNumber >= switchRecord ? StepRunner.DISTRIBUTED : StepRunner.STANDALONE;
+
+      // Datasets close to the switch use the runtime and memory of the previous interpretations
+      StepType stepType =
+          isValidator(message.getPipelineSteps())
+              ? StepType.VALIDATOR_VERBATIM_TO_INTERPRETED
+              : StepType.VERBATIM_TO_INTERPRETED;
+      runner =
+          resourcePredictor.predictRunner(stepType, datasetId, recordsNumber, switchRecord, runner);
+
       log.info("Records number - {}, Spark Runner type - {}", recordsNumber, runner);
       return runner;
     }
@@ -20,12 +20,15 @@ import org.gbif.common.messaging.api.MessagePublisher;
 import org.gbif.common.messaging.api.messages.PipelinesIndexedMessage;
 import org.gbif.common.messaging.api.messages.PipelinesInterpretedMessage;
 import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.common.MainSparkSettings;
 import org.gbif.pipelines.common.PipelinesVariables.Metrics;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
 import org.gbif.pipelines.common.indexing.IndexSettings;
 import org.gbif.pipelines.common.indexing.SparkSettings;
 import org.gbif.pipelines.common.process.BeamSettings;
 import org.gbif.pipelines.common.process.ProcessRunnerBuilder;
+import org.gbif.pipelines.common.resources.AdmissionController;
+import org.gbif.pipelines.common.resources.ResourcePredictor;
 import org.gbif.pipelines.common.utils.HdfsUtils;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.ingest.java.pipelines.InterpretedToEsIndexExtendedPipeline;
@@ -52,6 +55,7 @@ public class IndexingCallback extends AbstractMessageCallback<PipelinesInterpret
   private final ValidationWsClient validationClient;
   private final DatasetClient datasetClient;
   private final ExecutorService executor;
+  private final ResourcePredictor resourcePredictor;
 
   @Override
   public void handleMessage(PipelinesInterpretedMessage message) {
@@ -150,7 +154,19 @@ public class IndexingCallback extends AbstractMessageCallback<PipelinesInterpret
         if (runnerPr.test(StepRunner.DISTRIBUTED)) {
           runDistributed(message, builder, recordsNumber);
         } else if (runnerPr.test(StepRunner.STANDALONE)) {
-          runLocal(builder);
+          AdmissionController admission = AdmissionController.get(config.admissionConfig);
+          long memoryMb = admission.estimateMb(recordsNumber, message.getInterpretTypes());
+          try (AdmissionController.Ticket ticket =
+              admission.admit(
+                  message.getDatasetUuid().toString(),
+                  memoryMb,
+                  config.distributedConfig.isConfigured())) {
+            if (ticket.isPromoted()) {
+              runDistributed(message, builder, recordsNumber);
+            } else {
+              runLocal(builder);
+            }
+          }
         }
       } catch (Exception ex) {
         log.error(ex.getMessage(), ex);
@@ -190,12 +206,19 @@ public class IndexingCallback extends AbstractMessageCallback<PipelinesInterpret
             DwcTerm.Occurrence.simpleName().toLowerCase(),
             RecordType.BASIC.name().toLowerCase());
 
-    SparkSettings sparkSettings =
-        SparkSettings.create(config.sparkConfig, config.stepConfig, filePath, recordsNumber);
+    String datasetId = message.getDatasetUuid().toString();
+    MainSparkSettings sparkSettings =
+        resourcePredictor.predictSparkSettings(
+            getType(message),
+            datasetId,
+            recordsNumber,
+            config.sparkConfig,
+            SparkSettings.create(config.sparkConfig, config.stepConfig, filePath, recordsNumber));
 
     builder.sparkSettings(sparkSettings);
 
     // Assembles a terminal java process and runs it
+    long start = System.currentTimeMillis();
     int exitValue = builder.build().get().start().waitFor();
 
     if (exitValue != 0) {
@@ -203,6 +226,21 @@ public class IndexingCallback extends AbstractMessageCallback<PipelinesInterpret
     } else {
       log.info("Process has been finished with exit value - {}", exitValue);
     }
+
+    // The output is an index, only the runtime is recorded
+    if (resourcePredictor.isEnabled()) {
+      try {
+        resourcePredictor.recordDistributed(
+            getType(message),
+            datasetId,
+            recordsNumber,
+            sparkSettings,
+            System.currentTimeMillis() - start,
+            0L);
+      } catch (Exception ex) {
+        log.warn("Can't record the resources of the run", ex);
+      }
+    }
   }
 
   /**
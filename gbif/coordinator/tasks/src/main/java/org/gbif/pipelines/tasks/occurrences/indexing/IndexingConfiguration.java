@@ -25,6 +25,12 @@ public class IndexingConfiguration implements BaseConfiguration {
   @ParametersDelegate @Valid
   public DistributedConfiguration distributedConfig = new DistributedConfiguration();
 
+  @ParametersDelegate @Valid
+  public ResourcePredictionConfiguration resourceConfig = new ResourcePredictionConfiguration();
+
+  @ParametersDelegate @Valid
+  public AdmissionConfiguration admissionConfig = new AdmissionConfiguration();
+
   @Parameter(names = "--meta-file-name")
   public String metaFileName = Pipeline.OCCURRENCE_TO_INDEX + ".yml";
 
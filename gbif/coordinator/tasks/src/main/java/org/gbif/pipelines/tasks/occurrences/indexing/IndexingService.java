@@ -13,6 +13,7 @@ import org.gbif.common.messaging.DefaultMessagePublisher;
 import org.gbif.common.messaging.MessageListener;
 import org.gbif.common.messaging.api.MessagePublisher;
 import org.gbif.pipelines.common.configs.StepConfiguration;
+import org.gbif.pipelines.common.resources.ResourcePredictor;
 import org.gbif.pipelines.tasks.ServiceFactory;
 import org.gbif.registry.ws.client.DatasetClient;
 import org.gbif.registry.ws.client.pipelines.PipelinesHistoryClient;
@@ -72,6 +73,7 @@ public class IndexingService extends AbstractIdleService {
             .validationClient(validationClient)
             .executor(executor)
             .datasetClient(datasetClient)
+            .resourcePredictor(ResourcePredictor.create(config.resourceConfig))
             .build();
 
     listener.listen(c.queueName, callback.getRouting(), c.poolSize, callback);
@@ -0,0 +1,170 @@
+package org.gbif.pipelines.tasks.occurrences.interpretation;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.http.client.HttpClient;
+import org.gbif.api.model.pipelines.StepRunner;
+import org.gbif.api.model.pipelines.StepType;
+import org.gbif.common.messaging.api.MessagePublisher;
+import org.gbif.common.messaging.api.messages.PipelinesInterpretedMessage;
+import org.gbif.pipelines.common.configs.AdmissionConfiguration;
+import org.gbif.pipelines.common.hdfs.CommonHdfsViewCallback;
+import org.gbif.pipelines.common.hdfs.HdfsViewConfiguration;
+import org.gbif.pipelines.common.resources.AdmissionController;
+import org.gbif.pipelines.common.resources.ResourcePredictor;
+import org.gbif.pipelines.tasks.occurrences.hdfs.HdfsViewCallback;
+import org.gbif.pipelines.tasks.occurrences.indexing.IndexingCallback;
+import org.gbif.pipelines.tasks.occurrences.indexing.IndexingConfiguration;
+import org.gbif.registry.ws.client.DatasetClient;
+import org.gbif.registry.ws.client.pipelines.PipelinesHistoryClient;
+import org.gbif.validator.ws.client.ValidationWsClient;
+
+/**
+ * Runs the HDFS view and indexing steps of a standalone dataset in the interpretation JVM, right
+ * after the interpretation, instead of sending the interpreted message to other services. The steps
+ * are handled by the usual callbacks, so the tracking and monitoring stay the same, and read the
+ * interpreted records from {@link
+ * org.gbif.pipelines.ingest.java.transforms.InterpretedRecordsCache} instead of avro files.
+ *
+ * <p>The chained steps don't ask {@link AdmissionController} for memory, they run within the ticket
+ * of the interpretation, which includes their estimate, see {@link #estimateMb}. A chained step
+ * waiting for the budget held by its own interpretation would never be admitted.
+ */
+@Slf4j
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ChainedStepsExecutor {
+
+  private final IndexingCallback indexingCallback;
+  private final HdfsViewCallback hdfsViewCallback;
+  private final AdmissionConfiguration indexingAdmissionConfig;
+  private final AdmissionConfiguration hdfsViewAdmissionConfig;
+
+  public static ChainedStepsExecutor create(
+      InterpreterConfiguration config,
+      MessagePublisher publisher,
+      CuratorFramework curator,
+      PipelinesHistoryClient historyClient,
+      ValidationWsClient validationClient,
+      DatasetClient datasetClient,
+      HttpClient httpClient,
+      ExecutorService executor) {
+
+    IndexingCallback indexingCallback = null;
+    AdmissionConfiguration indexingAdmissionConfig = null;
+    IndexingConfiguration indexingConfig = config.chainIndexingConfig;
+    if (indexingConfig != null) {
+      indexingConfig.processRunner = StepRunner.STANDALONE.name();
+      indexingAdmissionConfig = indexingConfig.admissionConfig;
+      indexingConfig.admissionConfig = new AdmissionConfiguration();
+      indexingCallback =
+          IndexingCallback.builder()
+              .config(indexingConfig)
+              .publisher(publisher)
+              .curator(curator)
+              .historyClient(historyClient)
+              .httpClient(httpClient)
+              .validationClient(validationClient)
+              .executor(executor)
+              .datasetClient(datasetClient)
+              .resourcePredictor(ResourcePredictor.create(indexingConfig.resourceConfig))
+              .build();
+    }
+
+    HdfsViewCallback hdfsViewCallback = null;
+    AdmissionConfiguration hdfsViewAdmissionConfig = null;
+    HdfsViewConfiguration hdfsViewConfig = config.chainHdfsViewConfig;
+    if (hdfsViewConfig != null) {
+      hdfsViewConfig.processRunner = StepRunner.STANDALONE.name();
+      hdfsViewAdmissionConfig = hdfsViewConfig.admissionConfig;
+      hdfsViewConfig.admissionConfig = new AdmissionConfiguration();
+      hdfsViewCallback =
+          HdfsViewCallback.builder()
+              .config(hdfsViewConfig)
+              .publisher(publisher)
+              .curator(curator)
+              .historyClient(historyClient)
+              .datasetClient(datasetClient)
+              .commonHdfsViewCallback(CommonHdfsViewCallback.create(hdfsViewConfig, executor))
+              .build();
+    }
+
+    return new ChainedStepsExecutor(
+        indexingCallback, hdfsViewCallback, indexingAdmissionConfig, hdfsViewAdmissionConfig);
+  }
+
+  /**
+   * Estimates the heap of the chained steps, the steps run one by one, so it is the heap of the
+   * biggest step. The interpreted records kept in memory for the steps are not included.
+   */
+  public long estimateMb(Set<StepType> chainedSteps, long records, Set<String> interpretTypes) {
+    long memoryMb = 0L;
+    if (chainedSteps.contains(StepType.HDFS_VIEW)) {
+      memoryMb =
+          Math.max(
+              memoryMb,
+              AdmissionController.get(hdfsViewAdmissionConfig).estimateMb(records, interpretTypes));
+    }
+    if (chainedSteps.contains(StepType.INTERPRETED_TO_INDEX)) {
+      memoryMb =
+          Math.max(
+              memoryMb,
+              AdmissionController.get(indexingAdmissionConfig).estimateMb(records, interpretTypes));
+    }
+    return memoryMb;
+  }
+
+  /** Steps of the pipeline which can run in this JVM */
+  public Set<StepType> getChainedSteps(Set<String> pipelineSteps) {
+    Set<StepType> steps = EnumSet.noneOf(StepType.class);
+    if (hdfsViewCallback != null && pipelineSteps.contains(StepType.HDFS_VIEW.name())) {
+      steps.add(StepType.HDFS_VIEW);
+    }
+    if (indexingCallback != null && pipelineSteps.contains(StepType.INTERPRETED_TO_INDEX.name())) {
+      steps.add(StepType.INTERPRETED_TO_INDEX);
+    }
+    return steps;
+  }
+
+  /** Steps of the pipeline left for other services */
+  public static Set<String> getRemainingSteps(
+      Set<String> pipelineSteps, Set<StepType> chainedSteps) {
+    if (chainedSteps.isEmpty()) {
+      return pipelineSteps;
+    }
+    Set<String> steps = new HashSet<>(pipelineSteps);
+    chainedSteps.forEach(st -> steps.remove(st.name()));
+    return Collections.unmodifiableSet(steps);
+  }
+
+  /**
+   * Runs the chained steps one by one, a failed step is tracked as failed by its callback and
+   * doesn't stop the next step
+   *
+   * @param messageFn creates a new message for each step, callbacks modify messages
+   */
+  public void run(Set<StepType> chainedSteps, Supplier<PipelinesInterpretedMessage> messageFn) {
+    if (chainedSteps.contains(StepType.HDFS_VIEW)) {
+      log.info("Running chained {} step", StepType.HDFS_VIEW);
+      hdfsViewCallback.handleMessage(createMessage(messageFn));
+    }
+    if (chainedSteps.contains(StepType.INTERPRETED_TO_INDEX)) {
+      log.info("Running chained {} step", StepType.INTERPRETED_TO_INDEX);
+      indexingCallback.handleMessage(createMessage(messageFn));
+    }
+  }
+
+  private static PipelinesInterpretedMessage createMessage(
+      Supplier<PipelinesInterpretedMessage> messageFn) {
+    PipelinesInterpretedMessage message = messageFn.get();
+    message.setRunner(StepRunner.STANDALONE.name());
+    return message;
+  }
+}
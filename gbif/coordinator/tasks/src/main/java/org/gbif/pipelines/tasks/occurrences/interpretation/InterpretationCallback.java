@@ -6,10 +6,13 @@ import static org.gbif.common.parsers.date.DateComponentOrdering.MDY_FORMATS;
 import static org.gbif.pipelines.common.ValidatorPredicate.isValidator;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.MapMaker;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -27,15 +30,19 @@ import org.gbif.common.messaging.api.messages.PipelinesVerbatimMessage;
 import org.gbif.common.parsers.date.DateComponentOrdering;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.GbifApi;
+import org.gbif.pipelines.common.MainSparkSettings;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Conversion;
 import org.gbif.pipelines.common.interpretation.RecordCountReader;
 import org.gbif.pipelines.common.interpretation.SparkSettings;
 import org.gbif.pipelines.common.process.BeamSettings;
 import org.gbif.pipelines.common.process.ProcessRunnerBuilder;
+import org.gbif.pipelines.common.resources.AdmissionController;
+import org.gbif.pipelines.common.resources.ResourcePredictor;
 import org.gbif.pipelines.common.utils.HdfsUtils;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.ingest.java.pipelines.VerbatimToOccurrencePipeline;
+import org.gbif.pipelines.ingest.java.transforms.InterpretedRecordsCache;
 import org.gbif.pipelines.tasks.PipelinesCallback;
 import org.gbif.pipelines.tasks.StepHandler;
 import org.gbif.registry.ws.client.DatasetClient;
@@ -56,6 +63,12 @@ public class InterpretationCallback extends AbstractMessageCallback<PipelinesVer
   private final DatasetClient datasetClient;
   private final CloseableHttpClient httpClient;
   private final ExecutorService executor;
+  private final ChainedStepsExecutor chainedStepsExecutor;
+  private final ResourcePredictor resourcePredictor;
+
+  /** Chained steps of the messages in progress, weak identity keys, see {@link #getChainedSteps} */
+  private final Map<PipelinesVerbatimMessage, Set<StepType>> chainedSteps =
+      new MapMaker().weakKeys().makeMap();
 
   @Override
   public void handleMessage(PipelinesVerbatimMessage message) {
@@ -154,7 +167,7 @@ public class InterpretationCallback extends AbstractMessageCallback<PipelinesVer
         if (runnerPr.test(StepRunner.DISTRIBUTED)) {
           runDistributed(message, builder);
         } else if (runnerPr.test(StepRunner.STANDALONE)) {
-          runLocal(builder);
+          runStandalone(message, builder);
         }
 
         log.info("Deleting old attempts directories");
@@ -172,8 +185,17 @@ public class InterpretationCallback extends AbstractMessageCallback<PipelinesVer
     };
   }
 
+  /** Chained steps are removed from the message, they run in this JVM */
   @Override
   public PipelinesInterpretedMessage createOutgoingMessage(PipelinesVerbatimMessage message) {
+    Set<String> steps =
+        ChainedStepsExecutor.getRemainingSteps(
+            message.getPipelineSteps(), getChainedSteps(message));
+    return createInterpretedMessage(message, steps, pathExists(message));
+  }
+
+  private PipelinesInterpretedMessage createInterpretedMessage(
+      PipelinesVerbatimMessage message, Set<String> steps, boolean repeatAttempt) {
 
     Long recordsNumber = null;
     Long eventRecordsNumber = null;
@@ -182,11 +204,10 @@ public class InterpretationCallback extends AbstractMessageCallback<PipelinesVer
       eventRecordsNumber = message.getValidationResult().getNumberOfEventRecords();
     }
 
-    boolean repeatAttempt = pathExists(message);
     return new PipelinesInterpretedMessage(
         message.getDatasetUuid(),
         message.getAttempt(),
-        message.getPipelineSteps(),
+        steps,
         recordsNumber,
         eventRecordsNumber,
         null, // Set in balancer cli
@@ -200,20 +221,102 @@ public class InterpretationCallback extends AbstractMessageCallback<PipelinesVer
         message.getDatasetType());
   }
 
-  private void runLocal(ProcessRunnerBuilder.ProcessRunnerBuilderBuilder builder) {
-    VerbatimToOccurrencePipeline.run(builder.build().buildOptions(), executor);
+  /**
+   * Runs the interpretation when the memory budget of the service admits it, or in the distributed
+   * mode if the run is promoted, and then the chained steps. The ticket of a local run includes the
+   * chained steps and the interpreted records kept for them, the chained steps don't ask for memory
+   * themselves. A promoted run holds no memory, so the chained steps get their own ticket.
+   */
+  private void runStandalone(
+      PipelinesVerbatimMessage message, ProcessRunnerBuilder.ProcessRunnerBuilderBuilder builder)
+      throws IOException, InterruptedException {
+    String datasetId = message.getDatasetUuid().toString();
+    Set<StepType> chainedSteps = getChainedSteps(message);
+    boolean repeatAttempt = pathExists(message);
+
+    AdmissionController admission = AdmissionController.get(config.admissionConfig);
+    long memoryMb = 0L;
+    long chainedMb = 0L;
+    if (admission.isEnabled()) {
+      long recordsNumber = RecordCountReader.get(config.stepConfig, message);
+      Set<String> interpretTypes = message.getInterpretTypes();
+      memoryMb = admission.estimateMb(recordsNumber, interpretTypes);
+      if (!chainedSteps.isEmpty()) {
+        long recordsMb = admission.estimateRecordsMb(recordsNumber, interpretTypes);
+        chainedMb = chainedStepsExecutor.estimateMb(chainedSteps, recordsNumber, interpretTypes);
+        memoryMb = Math.max(memoryMb, chainedMb) + recordsMb;
+      }
+    }
+
+    try (AdmissionController.Ticket ticket =
+        admission.admit(datasetId, memoryMb, config.distributedConfig.isConfigured())) {
+      // The interpreted records are kept in memory for the chained steps
+      boolean keepRecords = !ticket.isPromoted() && !chainedSteps.isEmpty();
+      try (InterpretedRecordsCache.Session ignored =
+          keepRecords ? InterpretedRecordsCache.open(datasetId, message.getAttempt()) : null) {
+        if (ticket.isPromoted()) {
+          runDistributed(message, builder);
+        } else {
+          runLocal(message, builder);
+        }
+        if (!chainedSteps.isEmpty()) {
+          try (AdmissionController.Ticket ignoredChained =
+              ticket.isPromoted() ? admission.admit(datasetId, chainedMb, false) : null) {
+            log.info("Steps {} will run in this JVM", chainedSteps);
+            chainedStepsExecutor.run(
+                chainedSteps,
+                () -> createInterpretedMessage(message, message.getPipelineSteps(), repeatAttempt));
+          }
+        }
+      }
+    }
+  }
+
+  private void runLocal(
+      PipelinesVerbatimMessage message, ProcessRunnerBuilder.ProcessRunnerBuilderBuilder builder) {
+    ResourcePredictor.HeapSample heapSample = ResourcePredictor.startHeapSample();
+    long start = System.currentTimeMillis();
+
+    long peakMemoryMb;
+    try {
+      VerbatimToOccurrencePipeline.run(builder.build().buildOptions(), executor);
+    } finally {
+      peakMemoryMb = heapSample.stop();
+    }
+
+    if (resourcePredictor.isEnabled()) {
+      try {
+        resourcePredictor.recordStandalone(
+            getType(message),
+            message.getDatasetUuid().toString(),
+            RecordCountReader.get(config.stepConfig, message),
+            System.currentTimeMillis() - start,
+            peakMemoryMb,
+            getOutputSize(message));
+      } catch (Exception ex) {
+        log.warn("Can't record the resources of the run", ex);
+      }
+    }
   }
 
   private void runDistributed(
       PipelinesVerbatimMessage message, ProcessRunnerBuilder.ProcessRunnerBuilderBuilder builder)
       throws IOException, InterruptedException {
 
+    String datasetId = message.getDatasetUuid().toString();
     long recordsNumber = RecordCountReader.get(config.stepConfig, message);
-    SparkSettings sparkSettings = SparkSettings.create(config.sparkConfig, recordsNumber);
+    MainSparkSettings sparkSettings =
+        resourcePredictor.predictSparkSettings(
+            getType(message),
+            datasetId,
+            recordsNumber,
+            config.sparkConfig,
+            SparkSettings.create(config.sparkConfig, recordsNumber));
 
     builder.sparkSettings(sparkSettings);
 
     // Assembles a terminal java process and runs it
+    long start = System.currentTimeMillis();
     int exitValue = builder.build().get().start().waitFor();
 
     if (exitValue != 0) {
@@ -221,6 +324,62 @@ public class InterpretationCallback extends AbstractMessageCallback<PipelinesVer
     } else {
       log.info("Process has been finished with exit value - {}", exitValue);
     }
+
+    if (resourcePredictor.isEnabled()) {
+      try {
+        resourcePredictor.recordDistributed(
+            getType(message),
+            datasetId,
+            recordsNumber,
+            sparkSettings,
+            System.currentTimeMillis() - start,
+            getOutputSize(message));
+      } catch (Exception ex) {
+        log.warn("Can't record the resources of the run", ex);
+      }
+    }
+  }
+
+  /**
+   * Steps which run in this JVM after a standalone interpretation, see {@link
+   * ChainedStepsExecutor}. The steps are computed once per message, so the outgoing message and the
+   * run agree and the number of records is read once.
+   */
+  private Set<StepType> getChainedSteps(PipelinesVerbatimMessage message) {
+    return chainedSteps.computeIfAbsent(message, this::computeChainedSteps);
+  }
+
+  private Set<StepType> computeChainedSteps(PipelinesVerbatimMessage message) {
+    if (chainedStepsExecutor == null
+        || !StepRunner.STANDALONE.name().equalsIgnoreCase(config.processRunner)
+        || isValidator(message.getPipelineSteps(), config.validatorOnly)) {
+      return Collections.emptySet();
+    }
+    try {
+      long recordsNumber = RecordCountReader.get(config.stepConfig, message);
+      if (recordsNumber > config.chainMaxRecords) {
+        log.info("Steps aren't chained, number of records {} is too big", recordsNumber);
+        return Collections.emptySet();
+      }
+    } catch (Exception ex) {
+      log.warn("Steps aren't chained, can't read the number of records", ex);
+      return Collections.emptySet();
+    }
+    return chainedStepsExecutor.getChainedSteps(message.getPipelineSteps());
+  }
+
+  /** Size of the interpreted occurrence directory in bytes */
+  private long getOutputSize(PipelinesVerbatimMessage message) throws IOException {
+    String path =
+        String.join(
+            "/",
+            config.stepConfig.repositoryPath,
+            message.getDatasetUuid().toString(),
+            Integer.toString(message.getAttempt()),
+            DwcTerm.Occurrence.simpleName().toLowerCase());
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(config.stepConfig.hdfsSiteConfig, config.stepConfig.coreSiteConfig);
+    return HdfsUtils.getFileSizeByte(hdfsConfigs, path);
   }
 
   /** Checks if the directory exists */
@@ -13,6 +13,7 @@ import org.gbif.common.messaging.DefaultMessagePublisher;
 import org.gbif.common.messaging.MessageListener;
 import org.gbif.common.messaging.api.MessagePublisher;
 import org.gbif.pipelines.common.configs.StepConfiguration;
+import org.gbif.pipelines.common.resources.ResourcePredictor;
 import org.gbif.pipelines.tasks.ServiceFactory;
 import org.gbif.registry.ws.client.DatasetClient;
 import org.gbif.registry.ws.client.pipelines.PipelinesHistoryClient;
@@ -63,6 +64,20 @@ public class InterpretationService extends AbstractIdleService {
                 RequestConfig.custom().setConnectTimeout(60_000).setSocketTimeout(60_000).build())
             .build();
 
+    ChainedStepsExecutor chainedStepsExecutor = null;
+    if (config.chainStandaloneSteps) {
+      chainedStepsExecutor =
+          ChainedStepsExecutor.create(
+              config,
+              publisher,
+              curator,
+              historyClient,
+              validationClient,
+              datasetClient,
+              httpClient,
+              executor);
+    }
+
     InterpretationCallback callback =
         InterpretationCallback.builder()
             .config(config)
@@ -73,6 +88,8 @@ public class InterpretationService extends AbstractIdleService {
             .httpClient(httpClient)
             .executor(executor)
             .datasetClient(datasetClient)
+            .chainedStepsExecutor(chainedStepsExecutor)
+            .resourcePredictor(ResourcePredictor.create(config.resourceConfig))
             .build();
 
     listener.listen(c.queueName, callback.getRouting(), c.poolSize, callback);
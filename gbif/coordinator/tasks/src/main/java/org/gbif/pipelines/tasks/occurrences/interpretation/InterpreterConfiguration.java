@@ -7,6 +7,8 @@ import javax.validation.constraints.NotNull;
 import lombok.ToString;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline;
 import org.gbif.pipelines.common.configs.*;
+import org.gbif.pipelines.common.hdfs.HdfsViewConfiguration;
+import org.gbif.pipelines.tasks.occurrences.indexing.IndexingConfiguration;
 
 /** Configuration required to start Interpretation Pipeline on provided dataset */
 @ToString
@@ -22,6 +24,12 @@ public class InterpreterConfiguration implements BaseConfiguration {
   @ParametersDelegate @Valid @NotNull
   public AvroWriteConfiguration avroConfig = new AvroWriteConfiguration();
 
+  @ParametersDelegate @Valid
+  public ResourcePredictionConfiguration resourceConfig = new ResourcePredictionConfiguration();
+
+  @ParametersDelegate @Valid
+  public AdmissionConfiguration admissionConfig = new AdmissionConfiguration();
+
   @Parameter(names = "--meta-file-name")
   public String metaFileName = Pipeline.VERBATIM_TO_OCCURRENCE + ".yml";
 
@@ -40,6 +48,9 @@ public class InterpreterConfiguration implements BaseConfiguration {
   @Parameter(names = "--validator-only")
   public boolean validatorOnly = false;
 
+  @Parameter(names = "--validation-metrics-file-name")
+  public String validationMetricsFileName = Pipeline.VALIDATION_METRICS + ".json";
+
   @Parameter(names = "--skip-gbif-ids")
   public boolean skipGbifIds = false;
 
@@ -55,6 +66,20 @@ public class InterpreterConfiguration implements BaseConfiguration {
   @Parameter(names = "--fail-if-duplicate-id-percent")
   public int failIfDuplicateIdPercent = 5;
 
+  /** Runs the HDFS view and indexing steps of standalone datasets in this JVM */
+  @Parameter(names = "--chain-standalone-steps")
+  public boolean chainStandaloneSteps = false;
+
+  /** Bigger datasets send the interpreted message, interpreted records are kept in memory */
+  @Parameter(names = "--chain-max-records")
+  public long chainMaxRecords = 100_000L;
+
+  /** Configuration of the chained indexing step, the step isn't chained if it is empty */
+  @Valid public IndexingConfiguration chainIndexingConfig;
+
+  /** Configuration of the chained HDFS view step, the step isn't chained if it is empty */
+  @Valid public HdfsViewConfiguration chainHdfsViewConfig;
+
   @Override
   public String getHdfsSiteConfig() {
     return stepConfig.hdfsSiteConfig;
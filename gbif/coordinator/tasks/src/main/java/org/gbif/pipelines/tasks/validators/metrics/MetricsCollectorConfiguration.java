@@ -44,6 +44,9 @@ public class MetricsCollectorConfiguration implements BaseConfiguration {
   @Parameter(names = "--interpretation-meta-file-name")
   public String interpretationMetaFileName = Pipeline.VERBATIM_TO_OCCURRENCE + ".yml";
 
+  @Parameter(names = "--validation-metrics-file-name")
+  public String validationMetricsFileName = Pipeline.VALIDATION_METRICS + ".json";
+
   @Override
   public String getHdfsSiteConfig() {
     return stepConfig.hdfsSiteConfig;
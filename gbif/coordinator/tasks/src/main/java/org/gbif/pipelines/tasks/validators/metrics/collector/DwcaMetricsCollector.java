@@ -20,12 +20,15 @@ import org.gbif.dwc.Archive;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.PipelinesVariables;
 import org.gbif.pipelines.common.configs.StepConfiguration;
+import org.gbif.pipelines.common.pojo.ValidationMetrics;
 import org.gbif.pipelines.common.utils.HdfsUtils;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.DwcaUtils;
+import org.gbif.pipelines.core.utils.ValidationMetricsAccumulator;
 import org.gbif.pipelines.tasks.validators.metrics.MetricsCollectorConfiguration;
 import org.gbif.pipelines.validator.DwcaFileTermCounter;
 import org.gbif.pipelines.validator.IndexMetricsCollector;
+import org.gbif.pipelines.validator.ValidationMetricsConverter;
 import org.gbif.pipelines.validator.Validations;
 import org.gbif.pipelines.validator.rules.IndexableRules;
 import org.gbif.validator.api.FileFormat;
@@ -89,20 +92,11 @@ public class DwcaMetricsCollector implements MetricsCollector {
 
   @SneakyThrows
   private void collectMetrics(Archive archive) {
-    // Collect raw terms count using archive and DwcaIO
-    List<FileInfo> fileInfos = DwcaFileTermCounter.process(archive);
-
-    // Collect metrics from ES
+    // Use metrics accumulated by the interpretation or query ES using raw terms data
     Metrics metrics =
-        IndexMetricsCollector.builder()
-            .fileInfos(fileInfos)
-            .key(message.getDatasetUuid())
-            .index(config.indexName)
-            .corePrefix(config.corePrefix)
-            .extensionsPrefix(config.extensionsPrefix)
-            .esHost(config.esConfig.hosts)
-            .build()
-            .collect();
+        readValidationMetrics(archive)
+            .map(vm -> ValidationMetricsConverter.convert(archive, vm))
+            .orElseGet(() -> collectIndexMetrics(archive));
 
     // Get saved metrics object and merge with the result
     Validation validation = validationClient.get(message.getDatasetUuid());
@@ -119,6 +113,48 @@ public class DwcaMetricsCollector implements MetricsCollector {
     validationClient.update(validation);
   }
 
+  private Metrics collectIndexMetrics(Archive archive) {
+    // Collect raw terms count using archive and DwcaIO
+    List<FileInfo> fileInfos = DwcaFileTermCounter.process(archive);
+
+    // Collect metrics from ES
+    return IndexMetricsCollector.builder()
+        .fileInfos(fileInfos)
+        .key(message.getDatasetUuid())
+        .index(config.indexName)
+        .extensionsPrefix(config.extensionsPrefix)
+        .esHost(config.esConfig.hosts)
+        .build()
+        .collect();
+  }
+
+  /** Reads the summary saved by the interpretation, empty if it is missing or has no core file */
+  @SneakyThrows
+  private Optional<ValidationMetrics> readValidationMetrics(Archive archive) {
+    if (archive.getCore().getRowType() == null) {
+      return Optional.empty();
+    }
+    StepConfiguration stepConfig = config.stepConfig;
+    String datasetId = message.getDatasetUuid().toString();
+    String attempt = message.getAttempt().toString();
+    String path =
+        String.join(
+            "/", stepConfig.repositoryPath, datasetId, attempt, config.validationMetricsFileName);
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(stepConfig.hdfsSiteConfig, stepConfig.coreSiteConfig);
+
+    String coreRowType = archive.getCore().getRowType().qualifiedName();
+    Optional<ValidationMetrics> metrics =
+        ValidationMetricsAccumulator.read(hdfsConfigs, path)
+            .filter(vm -> vm.getFiles().containsKey(coreRowType));
+    if (metrics.isPresent()) {
+      log.info("Use validation metrics from {}", path);
+    } else {
+      log.info("Validation metrics {} are not found, query ES", path);
+    }
+    return metrics;
+  }
+
   @SneakyThrows
   private void updateIssuesFromMetaInfos(Validation validation) {
     StepConfiguration stepConfig = config.stepConfig;
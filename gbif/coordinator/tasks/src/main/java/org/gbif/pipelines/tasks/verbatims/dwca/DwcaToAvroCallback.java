@@ -15,7 +15,6 @@ import java.util.function.Consumer;
 import lombok.Builder;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.avro.file.CodecFactory;
 import org.apache.curator.framework.CuratorFramework;
 import org.gbif.api.model.crawler.GenericValidationReport;
 import org.gbif.api.model.crawler.OccurrenceValidationReport;
@@ -32,6 +31,7 @@ import org.gbif.dwc.UnsupportedArchiveException;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.dwc.terms.Term;
 import org.gbif.pipelines.common.utils.HdfsUtils;
+import org.gbif.pipelines.core.io.AvroCodecs;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.DwcaUtils;
 import org.gbif.pipelines.tasks.PipelinesCallback;
@@ -143,7 +143,7 @@ public class DwcaToAvroCallback extends AbstractMessageCallback<PipelinesDwcaMes
           HdfsConfigs.create(config.stepConfig.hdfsSiteConfig, config.stepConfig.coreSiteConfig);
       // Run main conversion process
       DwcaToAvroConverter.create()
-          .codecFactory(CodecFactory.fromString(config.avroConfig.compressionType))
+          .codecFactory(AvroCodecs.parse(config.avroConfig.compressionType))
           .syncInterval(config.avroConfig.syncInterval)
           .hdfsConfigs(hdfsConfigs)
           .inputPath(inputPath)
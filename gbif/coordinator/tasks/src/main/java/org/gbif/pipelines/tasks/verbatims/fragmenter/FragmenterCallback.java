@@ -7,7 +7,6 @@ import static org.gbif.pipelines.common.utils.PathUtil.buildXmlInputPath;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
@@ -46,7 +45,6 @@ public class FragmenterCallback extends AbstractMessageCallback<PipelinesInterpr
   private final CuratorFramework curator;
   private final PipelinesHistoryClient historyClient;
   private final DatasetClient datasetClient;
-  private final ExecutorService executor;
   private final Connection hbaseConnection;
   private final KeygenConfig keygenConfig;
 
@@ -105,7 +103,8 @@ public class FragmenterCallback extends AbstractMessageCallback<PipelinesInterpr
               .attempt(attempt)
               .tableName(config.hbaseFragmentsTable)
               .hbaseConnection(hbaseConnection)
-              .executor(executor)
+              .convertThreads(config.numberThreads)
+              .writeThreads(config.numberThreads)
               .useOccurrenceId(message.getValidationResult().isOccurrenceIdValid())
               .useTriplet(message.getValidationResult().isTripletValid())
               .pathToArchive(pathToArchive)
@@ -113,6 +112,8 @@ public class FragmenterCallback extends AbstractMessageCallback<PipelinesInterpr
               .useSyncMode(useSync)
               .backPressure(config.backPressure)
               .batchSize(config.batchSize)
+              .hbaseGetBatchSize(config.hbaseGetBatchSize)
+              .hbaseWriteBufferSize(config.hbaseWriteBufferSize)
               .generateIdIfAbsent(config.generateIdIfAbsent)
               .build()
               .persist();
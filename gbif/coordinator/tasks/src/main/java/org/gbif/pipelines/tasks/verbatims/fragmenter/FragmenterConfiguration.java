@@ -57,6 +57,12 @@ public class FragmenterConfiguration implements BaseConfiguration {
   @Parameter(names = "--batch-size")
   public int batchSize = 100;
 
+  @Parameter(names = "--hbase-get-batch-size")
+  public int hbaseGetBatchSize = 500;
+
+  @Parameter(names = "--hbase-write-buffer-size")
+  public long hbaseWriteBufferSize = 8L * 1024L * 1024L;
+
   @Parameter(names = "--back-pressure")
   public Integer backPressure;
 
@@ -2,8 +2,6 @@ package org.gbif.pipelines.tasks.verbatims.fragmenter;
 
 import com.google.common.util.concurrent.AbstractIdleService;
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.hadoop.hbase.client.Connection;
@@ -30,7 +28,6 @@ public class FragmenterService extends AbstractIdleService {
   private MessageListener listener;
   private MessagePublisher publisher;
   private CuratorFramework curator;
-  private ExecutorService executor;
   private Connection hbaseConnection;
 
   public FragmenterService(FragmenterConfiguration config) {
@@ -45,7 +42,6 @@ public class FragmenterService extends AbstractIdleService {
     listener = new MessageListener(c.messaging.getConnectionParameters(), 1);
     publisher = new DefaultMessagePublisher(c.messaging.getConnectionParameters());
     curator = c.zooKeeper.getCuratorFramework();
-    executor = Executors.newFixedThreadPool(config.numberThreads);
 
     PipelinesHistoryClient historyClient =
         ServiceFactory.createPipelinesHistoryClient(config.stepConfig);
@@ -61,7 +57,6 @@ public class FragmenterService extends AbstractIdleService {
             .publisher(publisher)
             .curator(curator)
             .historyClient(historyClient)
-            .executor(executor)
             .hbaseConnection(hbaseConnection)
             .keygenConfig(keygenConfig)
             .datasetClient(datasetClient)
@@ -77,7 +72,6 @@ public class FragmenterService extends AbstractIdleService {
       publisher.close();
       curator.close();
       hbaseConnection.close();
-      executor.shutdown();
       log.info("Stopping pipelines-verbatim-fragmenter service");
     } catch (IOException ex) {
       log.warn("Couldn't close some resources during the exit - {}", ex.getMessage());
@@ -18,7 +18,6 @@ import java.util.concurrent.ExecutorService;
 import lombok.Builder;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.avro.file.CodecFactory;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.http.client.HttpClient;
 import org.gbif.api.model.crawler.FinishReason;
@@ -34,6 +33,7 @@ import org.gbif.converters.XmlToAvroConverter;
 import org.gbif.pipelines.common.GbifApi;
 import org.gbif.pipelines.common.PipelinesVariables.Metrics;
 import org.gbif.pipelines.common.utils.HdfsUtils;
+import org.gbif.pipelines.core.io.AvroCodecs;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.tasks.PipelinesCallback;
 import org.gbif.pipelines.tasks.StepHandler;
@@ -116,7 +116,7 @@ public class XmlToAvroCallback extends AbstractMessageCallback<PipelinesXmlMessa
       boolean isConverted =
           XmlToAvroConverter.create()
               .executor(executor)
-              .codecFactory(CodecFactory.fromString(config.avroConfig.compressionType))
+              .codecFactory(AvroCodecs.parse(config.avroConfig.compressionType))
               .syncInterval(config.avroConfig.syncInterval)
               .hdfsConfigs(hdfsConfigs)
               .inputPath(inputPath)
@@ -713,7 +713,8 @@ public class ProcessRunnerBuilderTest {
             + "--runner=SparkRunner --targetPath=tmp --metaFileName=verbatim-to-occurrence.yml --inputPath=verbatim.avro "
             + "--avroCompressionType=SNAPPY --avroSyncInterval=1 --hdfsSiteConfig=hdfs.xml --coreSiteConfig=core.xml "
             + "--properties=/path/ws.config --experiments=use_deprecated_read "
-            + "--useMetadataWsCalls=false --tripletValid=true --occurrenceIdValid=true --useExtendedRecordId=true";
+            + "--useMetadataWsCalls=false --validationMetricsFileName=validation-metrics.json "
+            + "--tripletValid=true --occurrenceIdValid=true --useExtendedRecordId=true";
 
     InterpreterConfiguration config = new InterpreterConfiguration();
     config.distributedConfig.jarPath = "java.jar";
@@ -0,0 +1,196 @@
+package org.gbif.pipelines.common.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.gbif.pipelines.common.configs.AdmissionConfiguration;
+import org.junit.Test;
+
+public class AdmissionControllerTest {
+
+  @Test
+  public void disabledTest() throws Exception {
+
+    // State
+    AdmissionController controller = new AdmissionController(new AdmissionConfiguration(), 1_000L);
+
+    // When
+    try (AdmissionController.Ticket ticket = controller.admit("d1", 1_000_000L)) {
+
+      // Should
+      assertFalse(controller.isEnabled());
+      assertFalse(ticket.isPromoted());
+      assertEquals(0L, controller.getMetrics().getAdmitted());
+    }
+  }
+
+  @Test
+  public void estimateTest() {
+
+    // State
+    AdmissionConfiguration config = config(true);
+    config.baseMemoryMb = 100L;
+    config.recordMemoryKb = 1d;
+    config.extensionMemoryRatio = 0.5d;
+    AdmissionController controller = new AdmissionController(config, 1_000L);
+
+    // When
+    long noExtensions = controller.estimateMb(10_240L, Collections.singleton("BASIC"));
+    long oneExtension = controller.estimateMb(10_240L, Collections.singleton("MULTIMEDIA"));
+    long allExtensions = controller.estimateMb(10_240L, Collections.singleton("ALL"));
+    long allRecords = controller.estimateRecordsMb(10_240L, Collections.singleton("ALL"));
+
+    // Should
+    assertEquals(110L, noExtensions);
+    assertEquals(115L, oneExtension);
+    assertEquals(135L, allExtensions);
+    assertEquals(35L, allRecords);
+  }
+
+  @Test
+  public void promoteBiggerThanBudgetTest() throws Exception {
+
+    // State
+    AdmissionController controller = new AdmissionController(config(true), 1_000L);
+
+    // When
+    try (AdmissionController.Ticket ticket = controller.admit("d1", 2_000L)) {
+
+      // Should
+      assertTrue(ticket.isPromoted());
+      assertEquals(1L, controller.getMetrics().getPromoted());
+      assertEquals(0L, controller.getMetrics().getUsedMb());
+    }
+  }
+
+  @Test
+  public void smallerRunFirstTest() throws Exception {
+
+    // State
+    AdmissionController controller = new AdmissionController(config(true), 60_000L);
+    List<String> admitted = new CopyOnWriteArrayList<>();
+    AdmissionController.Ticket full = controller.admit("full", 1_000L);
+
+    // When
+    CompletableFuture<Void> big =
+        CompletableFuture.runAsync(() -> run(controller, "big", 950L, admitted));
+    waitForWaiting(controller, 1);
+    CompletableFuture<Void> small =
+        CompletableFuture.runAsync(() -> run(controller, "small", 100L, admitted));
+    waitForWaiting(controller, 2);
+    full.close();
+    CompletableFuture.allOf(big, small).get(10, TimeUnit.SECONDS);
+
+    // Should
+    assertEquals("small", admitted.get(0));
+    assertEquals("big", admitted.get(1));
+    assertEquals(3L, controller.getMetrics().getAdmitted());
+    assertEquals(2L, controller.getMetrics().getQueued());
+    assertEquals(0L, controller.getMetrics().getUsedMb());
+    assertEquals(1_000L, controller.getMetrics().getPeakUsedMb());
+  }
+
+  @Test
+  public void promoteAfterMaxWaitTest() throws Exception {
+
+    // State
+    AdmissionController controller = new AdmissionController(config(true), 50L);
+
+    try (AdmissionController.Ticket full = controller.admit("full", 1_000L)) {
+
+      // When
+      try (AdmissionController.Ticket ticket = controller.admit("d1", 100L)) {
+
+        // Should
+        assertTrue(ticket.isPromoted());
+        assertTrue(controller.getMetrics().getMaxWaitMillis() >= 50L);
+        assertEquals(0L, controller.getMetrics().getWaiting());
+      }
+    }
+  }
+
+  @Test
+  public void notPromotableTest() throws Exception {
+
+    // State
+    AdmissionController controller = new AdmissionController(config(true), 1_000L);
+
+    // When
+    try (AdmissionController.Ticket ticket = controller.admit("d1", 2_000L, false)) {
+
+      // Should
+      assertFalse(ticket.isPromoted());
+      assertEquals(0L, controller.getMetrics().getPromoted());
+      assertEquals(1_000L, controller.getMetrics().getUsedMb());
+    }
+  }
+
+  @Test
+  public void sharedBudgetTest() {
+
+    // When
+    AdmissionController first = AdmissionController.get(config(true));
+    AdmissionController second = AdmissionController.get(config(true));
+    AdmissionController other = AdmissionController.get(config(false));
+
+    // Should
+    assertSame(first, second);
+    assertNotSame(first, other);
+  }
+
+  @Test
+  public void overdueRunFirstTest() throws Exception {
+
+    // State
+    AdmissionController controller = new AdmissionController(config(false), 50L);
+    List<String> admitted = new CopyOnWriteArrayList<>();
+    AdmissionController.Ticket full = controller.admit("full", 1_000L);
+
+    // When
+    CompletableFuture<Void> big =
+        CompletableFuture.runAsync(() -> run(controller, "big", 950L, admitted));
+    TimeUnit.MILLISECONDS.sleep(200L);
+    CompletableFuture<Void> small =
+        CompletableFuture.runAsync(() -> run(controller, "small", 100L, admitted));
+    waitForWaiting(controller, 2);
+    full.close();
+    CompletableFuture.allOf(big, small).get(10, TimeUnit.SECONDS);
+
+    // Should
+    assertEquals("big", admitted.get(0));
+    assertEquals("small", admitted.get(1));
+    assertEquals(0L, controller.getMetrics().getPromoted());
+  }
+
+  private static AdmissionConfiguration config(boolean promote) {
+    AdmissionConfiguration config = new AdmissionConfiguration();
+    config.memoryBudgetMb = 1_000L;
+    config.promoteToDistributed = promote;
+    return config;
+  }
+
+  @SneakyThrows
+  private static void run(
+      AdmissionController controller, String name, long memoryMb, List<String> admitted) {
+    try (AdmissionController.Ticket ticket = controller.admit(name, memoryMb)) {
+      admitted.add(name);
+      TimeUnit.MILLISECONDS.sleep(20L);
+    }
+  }
+
+  @SneakyThrows
+  private static void waitForWaiting(AdmissionController controller, long waiting) {
+    while (controller.getMetrics().getWaiting() < waiting) {
+      TimeUnit.MILLISECONDS.sleep(5L);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package org.gbif.pipelines.common.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import org.gbif.api.model.pipelines.StepRunner;
+import org.gbif.api.model.pipelines.StepType;
+import org.gbif.pipelines.common.MainSparkSettings;
+import org.gbif.pipelines.common.configs.ResourcePredictionConfiguration;
+import org.gbif.pipelines.common.configs.SparkConfiguration;
+import org.gbif.pipelines.common.interpretation.SparkSettings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourcePredictorTest {
+
+  private static final StepType STEP = StepType.VERBATIM_TO_INTERPRETED;
+  private static final String DATASET = "d1";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void disabledTest() {
+
+    // State
+    ResourcePredictor predictor = ResourcePredictor.create(new ResourcePredictionConfiguration());
+    MainSparkSettings fallback = SparkSettings.create(sparkConfig(), 2_000_000L);
+
+    // When
+    MainSparkSettings result =
+        predictor.predictSparkSettings(STEP, DATASET, 2_000_000L, sparkConfig(), fallback);
+
+    // Should
+    assertFalse(predictor.isEnabled());
+    assertSame(fallback, result);
+    assertEquals(
+        StepRunner.STANDALONE,
+        predictor.predictRunner(STEP, DATASET, 1_000L, 1_000, StepRunner.STANDALONE));
+  }
+
+  @Test
+  public void overlappingHeapSamplesTest() {
+
+    // State
+    ResourcePredictor.HeapSample first = ResourcePredictor.startHeapSample();
+    ResourcePredictor.HeapSample second = ResourcePredictor.startHeapSample();
+
+    // When
+    long firstMb = first.stop();
+    long secondMb = second.stop();
+    long aloneMb = ResourcePredictor.startHeapSample().stop();
+
+    // Should
+    assertEquals(0L, firstMb);
+    assertEquals(0L, secondMb);
+    assertTrue(aloneMb > 0L);
+  }
+
+  @Test
+  public void datasetHistoryTest() throws IOException {
+
+    // State
+    ResourcePredictor predictor = ResourcePredictor.create(config());
+    for (int i = 0; i < 3; i++) {
+      // 5 executors for 20 minutes, 0.006 executor-seconds per record
+      predictor.recordDistributed(
+          STEP,
+          DATASET,
+          1_000_000L,
+          SparkSettings.create(sparkConfig(), 1_000_000L),
+          1_200_000L,
+          0L);
+    }
+    MainSparkSettings fallback = SparkSettings.create(sparkConfig(), 2_000_000L);
+
+    // When
+    MainSparkSettings result =
+        predictor.predictSparkSettings(STEP, DATASET, 2_000_000L, sparkConfig(), fallback);
+    MainSparkSettings otherDataset =
+        predictor.predictSparkSettings(STEP, "d2", 2_000_000L, sparkConfig(), fallback);
+
+    // Should
+    assertEquals(10, fallback.getExecutorNumbers());
+    // 2M records * 0.006 / 1800 seconds
+    assertEquals(7, result.getExecutorNumbers());
+    // more records per executor, limited by the max memory
+    assertEquals("12G", result.getExecutorMemory());
+    assertEquals(70, result.getParallelism());
+    // not enough runs for the step wide model
+    assertSame(fallback, otherDataset);
+  }
+
+  @Test
+  public void guardRailsTest() throws IOException {
+
+    // State
+    ResourcePredictor predictor = ResourcePredictor.create(config());
+    for (int i = 0; i < 5; i++) {
+      // extremely slow dataset, 1 executor-second per record
+      predictor.recordDistributed(
+          STEP, "d" + i, 10_000L, SparkSettings.create(sparkConfig(), 10_000L), 10_000_000L, 0L);
+    }
+    MainSparkSettings fallback = SparkSettings.create(sparkConfig(), 2_000_000L);
+
+    // When
+    MainSparkSettings result =
+        predictor.predictSparkSettings(STEP, DATASET, 2_000_000L, sparkConfig(), fallback);
+
+    // Should, at most twice the default formula
+    assertEquals(20, result.getExecutorNumbers());
+  }
+
+  @Test
+  public void runnerTest() throws IOException {
+
+    // State
+    ResourcePredictor predictor = ResourcePredictor.create(config());
+    for (int i = 0; i < 5; i++) {
+      // 1 ms per record and 1 Mb per 1000 records
+      long records = 100_000L * (i + 1);
+      predictor.recordStandalone(STEP, "d" + i, records, records, records / 1_000L, 0L);
+    }
+
+    // Should
+    // 1_500_000 records: 25 minutes, longer than 20 minutes
+    assertEquals(
+        StepRunner.DISTRIBUTED,
+        predictor.predictRunner(STEP, DATASET, 1_500_000L, 1_000_000, StepRunner.DISTRIBUTED));
+    assertEquals(
+        StepRunner.DISTRIBUTED,
+        predictor.predictRunner(STEP, DATASET, 1_500_000L, 2_000_000, StepRunner.STANDALONE));
+    // 900_000 records: 15 minutes and 900 Mb
+    assertEquals(
+        StepRunner.STANDALONE,
+        predictor.predictRunner(STEP, DATASET, 900_000L, 800_000, StepRunner.DISTRIBUTED));
+    // far from the switch the switch decides
+    assertEquals(
+        StepRunner.DISTRIBUTED,
+        predictor.predictRunner(STEP, DATASET, 900_000L, 100_000, StepRunner.DISTRIBUTED));
+  }
+
+  @Test
+  public void parseGbTest() {
+
+    // Should
+    assertEquals(4d, ResourcePredictor.parseGb("4G"), 0d);
+    assertEquals(4d, ResourcePredictor.parseGb("4g"), 0d);
+    assertEquals(0.5d, ResourcePredictor.parseGb("512m"), 0d);
+    assertEquals(2d, ResourcePredictor.parseGb("2048M"), 0d);
+    assertEquals(1d, ResourcePredictor.parseGb("1024"), 0d);
+    assertEquals(2048d, ResourcePredictor.parseGb("2t"), 0d);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void parseGbUnknownFormatTest() {
+    // When
+    ResourcePredictor.parseGb("4 gigabytes");
+  }
+
+  private ResourcePredictionConfiguration config() throws IOException {
+    ResourcePredictionConfiguration config = new ResourcePredictionConfiguration();
+    config.historyDir = folder.newFolder().getAbsolutePath();
+    return config;
+  }
+
+  private static SparkConfiguration sparkConfig() {
+    SparkConfiguration config = new SparkConfiguration();
+    config.executorCores = 5;
+    config.recordsPerThread = 40_000;
+    config.executorNumbersMin = 1;
+    config.executorNumbersMax = 50;
+    config.executorMemoryGbMin = 4;
+    config.executorMemoryGbMax = 12;
+    config.parallelismMin = 10;
+    config.parallelismMax = 500;
+    return config;
+  }
+}
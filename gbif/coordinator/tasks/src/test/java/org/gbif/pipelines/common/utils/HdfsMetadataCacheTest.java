@@ -0,0 +1,197 @@
+package org.gbif.pipelines.common.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Optional;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.ContentSummary;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HdfsMetadataCacheTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void cachedCallsTest() throws Exception {
+
+    // State
+    File dir = folder.newFolder("1");
+    write(new File(dir, "a.avro"), "aaa");
+    CountingFileSystem fs = new CountingFileSystem();
+    Path path = new Path(dir.getAbsolutePath());
+
+    try (HdfsMetadataCache cache = HdfsMetadataCache.open()) {
+
+      // When
+      FileStatus[] statuses = cache.listStatus(fs, path);
+      FileStatus[] cachedStatuses = cache.listStatus(fs, path);
+      boolean exists = cache.exists(fs, path);
+      boolean childExists = cache.exists(fs, new Path(path, "a.avro"));
+      boolean missingChildExists = cache.exists(fs, new Path(path, "b.avro"));
+      ContentSummary summary = cache.getContentSummary(fs, path);
+      ContentSummary cachedSummary = cache.getContentSummary(fs, path);
+
+      // Should
+      assertEquals(1, statuses.length);
+      assertSame(statuses, cachedStatuses);
+      assertTrue(exists);
+      assertTrue(childExists);
+      assertFalse(missingChildExists);
+      assertEquals(3L, summary.getLength());
+      assertSame(summary, cachedSummary);
+      assertEquals(1, fs.listCalls);
+      assertEquals(1, fs.summaryCalls);
+      assertEquals(0, fs.statusCalls);
+      assertEquals(5L, cache.getHits());
+      assertEquals(2L, cache.getMisses());
+    }
+  }
+
+  @Test
+  public void missingPathTest() throws Exception {
+
+    // State
+    CountingFileSystem fs = new CountingFileSystem();
+    Path path = new Path(folder.getRoot().getAbsolutePath(), "missing");
+
+    try (HdfsMetadataCache cache = HdfsMetadataCache.open()) {
+
+      // When
+      FileStatus[] statuses = cache.listStatus(fs, path);
+      boolean exists = cache.exists(fs, path);
+
+      // Should
+      assertNull(statuses);
+      assertFalse(exists);
+      assertEquals(Collections.emptyList(), cache.readLines(fs, new Path(path, "_metrics.yaml")));
+      assertEquals(1, fs.listCalls);
+    }
+  }
+
+  @Test
+  public void invalidateTest() throws Exception {
+
+    // State
+    File dir = folder.newFolder("2");
+    File meta = new File(dir, "_metrics.yaml");
+    write(meta, "count: 1");
+    CountingFileSystem fs = new CountingFileSystem();
+    Path dirPath = new Path(dir.getAbsolutePath());
+    Path metaPath = new Path(meta.getAbsolutePath());
+
+    try (HdfsMetadataCache cache = HdfsMetadataCache.open()) {
+      cache.listStatus(fs, dirPath);
+      cache.readLines(fs, metaPath);
+
+      // When
+      write(meta, "count: 2");
+      HdfsMetadataCache.invalidate(fs, metaPath);
+
+      // Should
+      assertEquals(Collections.singletonList("count: 2"), cache.readLines(fs, metaPath));
+      assertEquals(1, cache.listStatus(fs, dirPath).length);
+      assertEquals(2, fs.listCalls);
+      assertEquals(2, fs.openCalls);
+    }
+  }
+
+  @Test
+  public void nestedOpenTest() {
+
+    // When
+    try (HdfsMetadataCache cache = HdfsMetadataCache.open()) {
+      try (HdfsMetadataCache nested = HdfsMetadataCache.open()) {
+
+        // Should
+        assertSame(cache, nested);
+      }
+      assertEquals(Optional.of(cache), HdfsMetadataCache.current());
+    }
+    assertFalse(HdfsMetadataCache.current().isPresent());
+  }
+
+  @Test
+  public void hdfsUtilsTest() throws Exception {
+
+    // State
+    HdfsConfigs hdfsConfigs = HdfsConfigs.nullConfig();
+    File dir = folder.newFolder("3");
+    File meta = new File(dir, "_metrics.yaml");
+    write(meta, "count: 10");
+
+    try (HdfsMetadataCache cache = HdfsMetadataCache.open()) {
+
+      // When
+      Optional<Long> count = HdfsUtils.getLongByKey(hdfsConfigs, meta.getAbsolutePath(), "count");
+      Optional<Long> cachedCount =
+          HdfsUtils.getLongByKey(hdfsConfigs, meta.getAbsolutePath(), "count");
+      boolean deleted = HdfsUtils.deleteDirectory(hdfsConfigs, dir.getAbsolutePath());
+      boolean exists = HdfsUtils.exists(hdfsConfigs, meta.getAbsolutePath());
+
+      // Should
+      assertEquals(Optional.of(10L), count);
+      assertEquals(count, cachedCount);
+      assertTrue(deleted);
+      assertFalse(exists);
+      assertTrue(cache.getHits() > 0);
+    }
+  }
+
+  private static void write(File file, String content) throws IOException {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Local file system which counts calls to the NameNode-like methods */
+  private static class CountingFileSystem extends FilterFileSystem {
+
+    private int statusCalls;
+    private int listCalls;
+    private int summaryCalls;
+    private int openCalls;
+
+    private CountingFileSystem() throws IOException {
+      super(FileSystem.getLocal(new Configuration()));
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path f) throws IOException {
+      statusCalls++;
+      return super.getFileStatus(f);
+    }
+
+    @Override
+    public FileStatus[] listStatus(Path f) throws IOException {
+      listCalls++;
+      return super.listStatus(f);
+    }
+
+    @Override
+    public ContentSummary getContentSummary(Path f) throws IOException {
+      summaryCalls++;
+      return super.getContentSummary(f);
+    }
+
+    @Override
+    public FSDataInputStream open(Path f, int bufferSize) throws IOException {
+      openCalls++;
+      return super.open(f, bufferSize);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package org.gbif.pipelines.tasks.occurrences.interpretation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.gbif.api.model.pipelines.StepType;
+import org.gbif.pipelines.common.configs.AdmissionConfiguration;
+import org.gbif.pipelines.common.resources.AdmissionController;
+import org.gbif.pipelines.tasks.occurrences.indexing.IndexingConfiguration;
+import org.junit.Test;
+
+public class ChainedStepsExecutorTest {
+
+  @Test
+  public void chainedStepWithinTicketTest() throws Exception {
+
+    // State
+    InterpreterConfiguration config = new InterpreterConfiguration();
+    config.admissionConfig = admissionConfig();
+    config.chainIndexingConfig = new IndexingConfiguration();
+    config.chainIndexingConfig.admissionConfig = admissionConfig();
+
+    ChainedStepsExecutor executor =
+        ChainedStepsExecutor.create(config, null, null, null, null, null, null, null);
+    Set<StepType> chainedSteps =
+        executor.getChainedSteps(Collections.singleton(StepType.INTERPRETED_TO_INDEX.name()));
+    AdmissionController admission = AdmissionController.get(config.admissionConfig);
+
+    // When
+    long chainedMb = executor.estimateMb(chainedSteps, 10_240L, Collections.singleton("BASIC"));
+    try (AdmissionController.Ticket ticket = admission.admit("d1", 2_000L, false)) {
+      AdmissionController.Ticket chained =
+          CompletableFuture.supplyAsync(() -> admitChained(config, chainedMb))
+              .get(10, TimeUnit.SECONDS);
+
+      // Should
+      assertEquals(Collections.singleton(StepType.INTERPRETED_TO_INDEX), chainedSteps);
+      assertEquals(336L, chainedMb);
+      assertFalse(chained.isPromoted());
+      assertEquals(2_000L, admission.getMetrics().getUsedMb());
+      assertEquals(0L, admission.getMetrics().getWaiting());
+    }
+  }
+
+  /** Admission of the chained step, as the indexing callback asks for it */
+  @SneakyThrows
+  private static AdmissionController.Ticket admitChained(
+      InterpreterConfiguration config, long memoryMb) {
+    return AdmissionController.get(config.chainIndexingConfig.admissionConfig)
+        .admit("d1", memoryMb, config.chainIndexingConfig.distributedConfig.isConfigured());
+  }
+
+  private static AdmissionConfiguration admissionConfig() {
+    AdmissionConfiguration config = new AdmissionConfiguration();
+    config.memoryBudgetMb = 2_000L;
+    return config;
+  }
+}
@@ -14,6 +14,9 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Put;
@@ -102,14 +105,23 @@ public class HBaseLockingKeyServiceIT {
     }
     assertEquals(1001, result.getKey());
 
-    // first one claimed up to 2000, then "died". On restart we claim 2000 to 3000.
+    // first one claimed a second range, sized by its rate, then "died". On restart we claim the
+    // range after it.
+    long reserved =
+        new HBaseStore<Long>(
+                HbaseServer.CFG.getCounterTable(),
+                Columns.OCCURRENCE_COLUMN_FAMILY,
+                HBASE_SERVER.connection)
+            .getLong(1L, Columns.COUNTER_COLUMN);
+    assertTrue(reserved >= 2000);
+
     HBaseLockingKeyService keyService2 =
         new HBaseLockingKeyService(HbaseServer.CFG, HBASE_SERVER.connection);
     for (int i = 0; i < 5; i++) {
       Set<String> uniqueIds = Collections.singleton("A" + i);
       result = keyService2.generateKey(uniqueIds, "boo");
     }
-    assertEquals(2005, result.getKey());
+    assertEquals(reserved + 5, result.getKey());
   }
 
   @Test
@@ -140,6 +152,113 @@ public class HBaseLockingKeyServiceIT {
     assertEquals(1, result.getKey());
   }
 
+  @Test
+  public void testBatchGenerateKeys() {
+    // setup: 1 existing key shared by the first and the last records
+    KeyLookupResult existing =
+        HBASE_SERVER.keyService.generateKey(Collections.singleton("a"), "boo");
+
+    // the third record shares a free lookup key with the second one, it goes through the single
+    // record path once the batch is written
+    List<Set<String>> uniqueIds =
+        Arrays.asList(
+            new HashSet<>(Arrays.asList("a", "b")),
+            Collections.singleton("c"),
+            new HashSet<>(Arrays.asList("c", "d")),
+            Collections.singleton("e"));
+
+    List<KeyLookupResult> results = HBASE_SERVER.keyService.generateKeys(uniqueIds, "boo");
+
+    assertEquals(4, results.size());
+    assertEquals(existing.getKey(), results.get(0).getKey());
+    assertFalse(results.get(0).isCreated());
+    assertTrue(results.get(1).isCreated());
+    assertEquals(results.get(1).getKey(), results.get(2).getKey());
+    assertFalse(results.get(2).isCreated());
+    assertTrue(results.get(3).isCreated());
+    assertEquals(
+        3,
+        new HashSet<>(
+                Arrays.asList(
+                    results.get(0).getKey(), results.get(1).getKey(), results.get(3).getKey()))
+            .size());
+
+    // all lookup keys are allocated and unlocked
+    List<Optional<KeyLookupResult>> found =
+        HBASE_SERVER.keyService.findKeys(
+            Arrays.asList(
+                Collections.singleton("b"),
+                Collections.singleton("d"),
+                Collections.singleton("e"),
+                Collections.singleton("f")),
+            "boo");
+    assertEquals(existing.getKey(), found.get(0).get().getKey());
+    assertEquals(results.get(1).getKey(), found.get(1).get().getKey());
+    assertEquals(results.get(3).getKey(), found.get(2).get().getKey());
+    assertFalse(found.get(3).isPresent());
+
+    KeyLookupResult next = HBASE_SERVER.keyService.generateKey(Collections.singleton("g"), "boo");
+    assertEquals(4, next.getKey());
+  }
+
+  @Test
+  public void testBatchFindKeysFillsMissing() {
+    KeyLookupResult existing =
+        HBASE_SERVER.keyService.generateKey(Collections.singleton("triplet"), "boo");
+
+    List<Optional<KeyLookupResult>> found =
+        HBASE_SERVER.keyService.findKeys(
+            Arrays.asList(
+                new HashSet<>(Arrays.asList("triplet", "occurrenceId")),
+                Collections.singleton("unknown")),
+            "boo");
+
+    assertTrue(found.get(0).isPresent());
+    assertEquals(existing.getKey(), found.get(0).get().getKey());
+    assertFalse(found.get(1).isPresent());
+
+    Optional<KeyLookupResult> linked =
+        HBASE_SERVER.keyService.findKey(Collections.singleton("occurrenceId"), "boo");
+    assertTrue(linked.isPresent());
+    assertEquals(existing.getKey(), linked.get().getKey());
+  }
+
+  @Test
+  public void testPreload() {
+    // setup: keys of the dataset and of another dataset
+    String datasetKey = UUID.randomUUID().toString();
+    HBaseLockingKeyService keyService =
+        new HBaseLockingKeyService(HbaseServer.CFG, HBASE_SERVER.connection, datasetKey);
+    KeyLookupResult first = keyService.generateKey(Collections.singleton("a"));
+    KeyLookupResult second = keyService.generateKey(new HashSet<>(Arrays.asList("b", "c")));
+    keyService.generateKey(Collections.singleton("a"), "anotherDataset");
+
+    // test: only the lookup keys of the dataset are preloaded
+    assertEquals(3, keyService.preload());
+
+    assertEquals(first.getKey(), keyService.findKey(Collections.singleton("a")).get().getKey());
+    assertEquals(
+        second.getKey(), keyService.findKey(new HashSet<>(Arrays.asList("b", "c"))).get().getKey());
+    assertFalse(keyService.findKey(Collections.singleton("d")).isPresent());
+
+    // a new lookup key is linked in HBase
+    assertEquals(
+        first.getKey(), keyService.findKey(new HashSet<>(Arrays.asList("a", "e"))).get().getKey());
+    assertTrue(HBASE_SERVER.keyService.findKey(Collections.singleton("e"), datasetKey).isPresent());
+
+    // a key generated after the preload is found by generateKey in HBase
+    KeyLookupResult generated = keyService.generateKey(Collections.singleton("d"));
+    assertTrue(generated.isCreated());
+    assertFalse(keyService.findKey(Collections.singleton("d")).isPresent());
+    KeyLookupResult regenerated = keyService.generateKey(Collections.singleton("d"));
+    assertFalse(regenerated.isCreated());
+    assertEquals(generated.getKey(), regenerated.getKey());
+
+    // deletes drop the preloaded keys
+    keyService.deleteKeyByUniques(Collections.singleton("a"));
+    assertFalse(keyService.findKey(Collections.singleton("a")).isPresent());
+  }
+
   @Test
   public void testConflictingIds() throws IOException {
     // setup: 2 rows with different lookupkeys and assigned ids
@@ -232,6 +351,43 @@ public class HBaseLockingKeyServiceIT {
     assertEquals(5001, result.getKey());
   }
 
+  @Test
+  public void testConcurrentServicesUniqueKeys() throws Exception {
+    // 3 services, as 3 processes, with 4 threads each allocate keys from the same counter
+    int services = 3;
+    int threads = 4;
+    int keyCount = 1500;
+    ExecutorService executor = Executors.newFixedThreadPool(services * threads);
+    List<Future<List<Long>>> futures = new ArrayList<>();
+    for (int s = 0; s < services; s++) {
+      HBaseLockingKeyService keyService =
+          new HBaseLockingKeyService(HbaseServer.CFG, HBASE_SERVER.connection);
+      for (int t = 0; t < threads; t++) {
+        String name = s + "-" + t + "-";
+        futures.add(
+            executor.submit(
+                () -> {
+                  List<Long> keys = new ArrayList<>(keyCount);
+                  for (int i = 0; i < keyCount; i++) {
+                    Set<String> uniqueIds = Collections.singleton(name + i);
+                    keys.add(keyService.generateKey(uniqueIds, "boo").getKey());
+                  }
+                  return keys;
+                }));
+      }
+    }
+
+    Set<Long> keys = new HashSet<>();
+    for (Future<List<Long>> future : futures) {
+      for (Long key : future.get()) {
+        assertTrue("Duplicate key " + key, keys.add(key));
+      }
+    }
+    executor.shutdown();
+
+    assertEquals(services * threads * keyCount, keys.size());
+  }
+
   private static class KeyRequester implements Runnable {
 
     private final int keyCount;
@@ -2,11 +2,14 @@ package org.gbif.pipelines.keygen;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import org.gbif.pipelines.keygen.api.KeyLookupResult;
 import org.gbif.pipelines.resources.HbaseServer;
@@ -210,4 +213,69 @@ public class KeygenIT {
     // Should
     assertTrue(key.isPresent());
   }
+
+  @Test
+  public void testBatchKeys() {
+
+    // State
+    KeyLookupResult existing =
+        HBASE_SERVER.keyService.generateKey(
+            new HashSet<>(Arrays.asList("occurrenceId", "triplet")));
+    KeyLookupResult existingTriplet =
+        HBASE_SERVER.keyService.generateKey(Collections.singleton("anotherTriplet"));
+
+    // Found by occurrenceId
+    SimpleOccurrenceRecord existingRecord = SimpleOccurrenceRecord.create();
+    existingRecord.setOccurrenceId("occurrenceId");
+
+    // New occurrenceId is linked to the key of the triplet
+    SimpleOccurrenceRecord relinkRecord = SimpleOccurrenceRecord.create();
+    relinkRecord.setOccurrenceId("newOccurrenceId");
+    relinkRecord.setTriplet("anotherTriplet");
+
+    // Generated in the batch
+    SimpleOccurrenceRecord newRecord = SimpleOccurrenceRecord.create();
+    newRecord.setOccurrenceId("anotherOccurrenceId");
+    newRecord.setTriplet("newTriplet");
+
+    // Share the occurrenceId, generated one by one
+    SimpleOccurrenceRecord sharedRecord = SimpleOccurrenceRecord.create();
+    sharedRecord.setOccurrenceId("sharedOccurrenceId");
+    SimpleOccurrenceRecord sameSharedRecord = SimpleOccurrenceRecord.create();
+    sameSharedRecord.setOccurrenceId("sharedOccurrenceId");
+
+    SimpleOccurrenceRecord emptyRecord = SimpleOccurrenceRecord.create();
+
+    // When
+    List<Optional<Long>> keys =
+        Keygen.getKeys(
+            HBASE_SERVER.keyService,
+            true,
+            true,
+            true,
+            Arrays.asList(
+                existingRecord,
+                relinkRecord,
+                newRecord,
+                sharedRecord,
+                sameSharedRecord,
+                emptyRecord));
+
+    SimpleOccurrenceRecord relinkedRecord = SimpleOccurrenceRecord.create();
+    relinkedRecord.setOccurrenceId("newOccurrenceId");
+    Optional<Long> relinkedKey =
+        Keygen.getKey(HBASE_SERVER.keyService, true, true, false, relinkedRecord);
+
+    // Should
+    assertEquals(6, keys.size());
+    assertEquals(Optional.of(existing.getKey()), keys.get(0));
+    assertEquals(Optional.of(existingTriplet.getKey()), keys.get(1));
+    assertEquals(Optional.of(existingTriplet.getKey()), relinkedKey);
+    assertTrue(keys.get(2).isPresent());
+    assertEquals(3L, keys.get(2).get().longValue());
+    assertTrue(keys.get(3).isPresent());
+    assertEquals(keys.get(3), keys.get(4));
+    assertNotEquals(keys.get(2), keys.get(3));
+    assertEquals(Optional.of(Keygen.getErrorKey()), keys.get(5));
+  }
 }
@@ -1,5 +1,7 @@
 package org.gbif.pipelines.keygen;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import org.gbif.pipelines.keygen.api.KeyLookupResult;
@@ -14,5 +16,27 @@ public interface HBaseLockingKey {
 
   Optional<KeyLookupResult> findKey(Set<String> uniqueStrings);
 
+  /**
+   * Finds the keys of many records, the result has the same order as the records. Implementations
+   * may resolve all records with a single round trip, the default calls {@link #findKey(Set)} per
+   * record.
+   */
+  default List<Optional<KeyLookupResult>> findKeys(List<Set<String>> uniqueStringsList) {
+    List<Optional<KeyLookupResult>> results = new ArrayList<>(uniqueStringsList.size());
+    uniqueStringsList.forEach(uniqueStrings -> results.add(findKey(uniqueStrings)));
+    return results;
+  }
+
+  /**
+   * Retrieves or creates the keys of many records, the result has the same order as the records.
+   * Implementations may batch the lookups and writes, the default calls {@link #generateKey(Set)}
+   * per record.
+   */
+  default List<KeyLookupResult> generateKeys(List<Set<String>> uniqueStringsList) {
+    List<KeyLookupResult> results = new ArrayList<>(uniqueStringsList.size());
+    uniqueStringsList.forEach(uniqueStrings -> results.add(generateKey(uniqueStrings)));
+    return results;
+  }
+
   void close();
 }
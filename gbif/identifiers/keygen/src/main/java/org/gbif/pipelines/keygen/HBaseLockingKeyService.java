@@ -6,6 +6,8 @@ import com.google.common.annotations.VisibleForTesting;
 import java.io.Serializable;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -60,14 +62,9 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
   public static final int NUMBER_OF_BUCKETS =
       100; // TODO: consider if this should be parameterized.
 
-  // The number of IDs to reserve at a time in batch
-  private static final int BATCHED_ID_SIZE = 1000;
-  // the next available key to allocate
-  private long currentKey;
-  // our reserved upper key limit for the current batch
-  private long maxReservedKeyInclusive;
-
   private static final int HBASE_CLIENT_CACHING = 200;
+  // lookup rows are small, fewer round trips when the keys of a dataset are preloaded
+  private static final int HBASE_PRELOAD_CACHING = 5_000;
 
   private final Connection connection;
   private final TableName lookupTableName;
@@ -78,6 +75,12 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
   private final String datasetId;
   private final Random random;
 
+  // range of keys leased by this instance, created on first use, also after deserialization
+  private transient volatile RangeKeyAllocator keyAllocator;
+
+  // snapshot of the lookup keys of one scope, see preload
+  private transient volatile PreloadedKeys preloadedKeys;
+
   @SneakyThrows
   public HBaseLockingKeyService(KeygenConfig cfg, Connection connection, String datasetId) {
     this.lookupTableName =
@@ -261,25 +264,34 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
 
   /**
    * Provides the next available key. Because throughput of an incrementColumnValue is limited by
-   * HBase to a few thousand calls per second, this implementation reserves a batch of IDs at a
-   * time, and then allocates them to the calling threads, until they are exhausted, when it will go
-   * and reserve another batch. Failure scenarios will therefore mean IDs go unused. This is
-   * expected to be a rare scenario and therefore acceptable.
+   * HBase to a few thousand calls per second, the service leases a range of IDs at a time, sized by
+   * its allocation rate, and the calling threads allocate from it without locking until it is
+   * exhausted, see {@link RangeKeyAllocator}. Failure scenarios will therefore mean IDs go unused.
+   * This is expected and acceptable, keys are unique but not contiguous.
    *
    * @return the next key
    */
-  private synchronized long getNextKey() {
-    // if we have exhausted our reserved keys, get a new batch of them
-    if (currentKey == maxReservedKeyInclusive) {
-      // get batch
-      maxReservedKeyInclusive =
-          counterTableStore.incrementColumnValue(
-              COUNTER_ROW, Columns.COUNTER_COLUMN, BATCHED_ID_SIZE);
-      // safer to calculate our guaranteed safe range than rely on what nextKey was set to
-      currentKey = maxReservedKeyInclusive - BATCHED_ID_SIZE;
+  private long getNextKey() {
+    return getKeyAllocator().next();
+  }
+
+  /** The allocator isn't serializable, a deserialized service creates its own on first use */
+  private RangeKeyAllocator getKeyAllocator() {
+    RangeKeyAllocator allocator = keyAllocator;
+    if (allocator == null) {
+      synchronized (this) {
+        allocator = keyAllocator;
+        if (allocator == null) {
+          allocator =
+              new RangeKeyAllocator(
+                  size ->
+                      counterTableStore.incrementColumnValue(
+                          COUNTER_ROW, Columns.COUNTER_COLUMN, size));
+          keyAllocator = allocator;
+        }
+      }
     }
-    currentKey++;
-    return currentKey;
+    return allocator;
   }
 
   @Override
@@ -291,6 +303,15 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
     }
 
     Set<String> lookupKeys = OccurrenceKeyBuilder.buildKeys(uniqueStrings, scope);
+
+    // answer from the preloaded keys, if they can
+    long preloadedKey = findPreloadedKey(lookupKeys, scope);
+    if (preloadedKey == PreloadedKeys.ABSENT) {
+      return Optional.empty();
+    } else if (preloadedKey != PreloadedKeys.UNKNOWN) {
+      return Optional.of(new KeyLookupResult(preloadedKey, false));
+    }
+
     Map<String, Long> foundOccurrenceKeys =
         new TreeMap<>(); // required: predictable sorting for e.g. testing
 
@@ -308,17 +329,7 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
     // go through all the returned keys and make sure they're all the same - if not, fail loudly
     // (this means
     // an inconsistency in the db that we can't resolve here)
-    Long resultKey = null;
-    for (String uniqueString : lookupKeys) {
-      Long occurrenceKey = foundOccurrenceKeys.get(uniqueString);
-      if (occurrenceKey != null) {
-        if (resultKey == null) {
-          resultKey = occurrenceKey;
-        } else if (resultKey.longValue() != occurrenceKey.longValue()) {
-          failWithConflictingLookup(foundOccurrenceKeys);
-        }
-      }
-    }
+    Long resultKey = getConsistentKey(foundOccurrenceKeys);
 
     // if we got an occurrenceKey as well as nulls, then we need to fill in the lookup table with
     // the missing entries
@@ -338,6 +349,255 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
     return findKey(uniqueStrings, datasetId);
   }
 
+  /**
+   * Batched version of {@link #findKey(Set, String)}, the result has the same order as the given
+   * records. The lookup keys of all records are read with a single multi-Get and the missing lookup
+   * keys of the found records are written in one call.
+   *
+   * @throws IllegalStateException if the lookup keys of a record point to different keys
+   */
+  public List<Optional<KeyLookupResult>> findKeys(
+      List<Set<String>> uniqueStringsList, String scope) {
+    checkNotNull(uniqueStringsList, "uniqueStringsList can't be null");
+    checkNotNull(scope, "scope can't be null");
+
+    List<Set<String>> lookupKeysList = buildLookupKeys(uniqueStringsList, scope);
+
+    // answer from the preloaded keys, if they can, and read only the other records from HBase
+    List<Optional<KeyLookupResult>> results = new ArrayList<>(lookupKeysList.size());
+    List<Set<String>> unresolvedList = new ArrayList<>();
+    for (Set<String> lookupKeys : lookupKeysList) {
+      long preloadedKey = findPreloadedKey(lookupKeys, scope);
+      if (preloadedKey == PreloadedKeys.ABSENT) {
+        results.add(Optional.empty());
+      } else if (preloadedKey != PreloadedKeys.UNKNOWN) {
+        results.add(Optional.of(new KeyLookupResult(preloadedKey, false)));
+      } else {
+        results.add(null);
+        unresolvedList.add(lookupKeys);
+      }
+    }
+    if (unresolvedList.isEmpty()) {
+      return results;
+    }
+
+    Map<String, Result> rows = getLookupRows(unresolvedList, Columns.LOOKUP_KEY_COLUMN);
+
+    Map<String, Long> missingKeys = new HashMap<>();
+    for (int i = 0; i < lookupKeysList.size(); i++) {
+      if (results.get(i) != null) {
+        continue;
+      }
+      Set<String> lookupKeys = lookupKeysList.get(i);
+      Map<String, Long> foundOccurrenceKeys =
+          new TreeMap<>(); // required: predictable sorting for e.g. testing
+      for (String lookupKey : lookupKeys) {
+        Long occurrenceKey =
+            ResultReader.getLong(
+                rows.get(lookupKey),
+                Columns.OCCURRENCE_COLUMN_FAMILY,
+                Columns.LOOKUP_KEY_COLUMN,
+                null);
+        if (occurrenceKey != null) {
+          foundOccurrenceKeys.put(lookupKey, occurrenceKey);
+        }
+      }
+
+      Long resultKey = getConsistentKey(foundOccurrenceKeys);
+      if (resultKey == null) {
+        results.set(i, Optional.empty());
+        continue;
+      }
+
+      // the same missing lookup key can't be filled with different keys by two records
+      for (String lookupKey : lookupKeys) {
+        if (!foundOccurrenceKeys.containsKey(lookupKey)) {
+          Long filledKey = missingKeys.putIfAbsent(lookupKey, resultKey);
+          if (filledKey != null && !filledKey.equals(resultKey)) {
+            foundOccurrenceKeys.put(lookupKey, filledKey);
+            failWithConflictingLookup(foundOccurrenceKeys);
+          }
+        }
+      }
+      results.set(i, Optional.of(new KeyLookupResult(resultKey, false)));
+    }
+
+    lookupTableStore.putLongs(missingKeys, Columns.LOOKUP_KEY_COLUMN);
+
+    return results;
+  }
+
+  @Override
+  public List<Optional<KeyLookupResult>> findKeys(List<Set<String>> uniqueStringsList) {
+    return findKeys(uniqueStringsList, datasetId);
+  }
+
+  /**
+   * Batched version of {@link #generateKey(Set, String)}, the result has the same order as the
+   * given records. The lookup rows of all records are read with a single multi-Get, free lookup
+   * keys are locked one by one (HBase 1.x has no batched checkAndPut), then the keys of all records
+   * are written and the locks released with one batched put and one batched delete.
+   *
+   * <p>Records which hit a lock, held by another process or by a previous record of the same batch
+   * sharing a lookup key, or which have conflicting keys, go through {@link #generateKey(Set,
+   * String)} once the batch is written, keeping the same conflict and retry semantics.
+   */
+  public List<KeyLookupResult> generateKeys(List<Set<String>> uniqueStringsList, String scope) {
+    checkNotNull(uniqueStringsList, "uniqueStringsList can't be null");
+    checkNotNull(scope, "scope can't be null");
+
+    List<Set<String>> lookupKeysList = buildLookupKeys(uniqueStringsList, scope);
+    Map<String, Result> rows = getLookupRows(lookupKeysList);
+
+    byte[] lockId = Bytes.toBytes(UUID.randomUUID().toString());
+    long now = System.currentTimeMillis();
+
+    KeyLookupResult[] results = new KeyLookupResult[lookupKeysList.size()];
+    // lookup keys locked by this batch and the keys to write to them
+    Map<String, Long> allocatingKeys = new HashMap<>();
+    // lookup keys of the current record, locked before its key is known
+    List<String> lockedLookupKeys = new ArrayList<>();
+    List<Integer> singleRecords = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < lookupKeysList.size(); i++) {
+        Map<String, Long> existingKeyMap =
+            new TreeMap<>(); // required: predictable sorting for e.g. testing
+        List<String> freeLookupKeys = new ArrayList<>();
+        boolean locked = false;
+        for (String lookupKey : lookupKeysList.get(i)) {
+          Result row = rows.get(lookupKey);
+          String rawStatus =
+              ResultReader.getString(
+                  row, Columns.OCCURRENCE_COLUMN_FAMILY, Columns.LOOKUP_STATUS_COLUMN, null);
+          if (rawStatus != null && KeyStatus.valueOf(rawStatus) == KeyStatus.ALLOCATED) {
+            existingKeyMap.put(
+                lookupKey,
+                ResultReader.getLong(
+                    row, Columns.OCCURRENCE_COLUMN_FAMILY, Columns.LOOKUP_KEY_COLUMN, null));
+          } else if (allocatingKeys.containsKey(lookupKey)
+              || ResultReader.getBytes(
+                      row, Columns.OCCURRENCE_COLUMN_FAMILY, Columns.LOOKUP_LOCK_COLUMN, null)
+                  != null) {
+            locked = true;
+          } else {
+            freeLookupKeys.add(lookupKey);
+          }
+        }
+
+        Set<Long> existingKeys = new HashSet<>(existingKeyMap.values());
+        if (locked || existingKeys.size() > 1 || existingKeys.contains(null)) {
+          singleRecords.add(i);
+          continue;
+        }
+
+        for (String lookupKey : freeLookupKeys) {
+          boolean gotLock =
+              lookupTableStore.checkAndPut(
+                  lookupKey,
+                  Columns.LOOKUP_LOCK_COLUMN,
+                  lockId,
+                  Columns.LOOKUP_LOCK_COLUMN,
+                  null,
+                  now);
+          if (!gotLock) {
+            break;
+          }
+          lockedLookupKeys.add(lookupKey);
+        }
+        if (lockedLookupKeys.size() < freeLookupKeys.size()) {
+          log.debug("Failed to grab free locks for [{}], using single record", freeLookupKeys);
+          lookupTableStore.delete(lockedLookupKeys, Columns.LOOKUP_LOCK_COLUMN);
+          lockedLookupKeys.clear();
+          singleRecords.add(i);
+          continue;
+        }
+
+        Long foundKey = existingKeys.isEmpty() ? null : existingKeys.iterator().next();
+        long key = foundKey == null ? getNextKey() : foundKey;
+        lockedLookupKeys.forEach(lookupKey -> allocatingKeys.put(lookupKey, key));
+        lockedLookupKeys.clear();
+        results[i] = new KeyLookupResult(key, foundKey == null);
+      }
+
+      // write the keys and update status to ALLOCATED
+      lookupTableStore.putLongStrings(
+          allocatingKeys,
+          Columns.LOOKUP_KEY_COLUMN,
+          Columns.LOOKUP_STATUS_COLUMN,
+          KeyStatus.ALLOCATED.toString());
+    } finally {
+      // release the locks of the whole batch, also when the batch fails
+      lookupTableStore.delete(lockedLookupKeys, Columns.LOOKUP_LOCK_COLUMN);
+      lookupTableStore.delete(allocatingKeys.keySet(), Columns.LOOKUP_LOCK_COLUMN);
+    }
+
+    log.debug(
+        "Batch of [{}] records, [{}] lookup keys written, [{}] records left for single generation",
+        results.length,
+        allocatingKeys.size(),
+        singleRecords.size());
+
+    for (int i : singleRecords) {
+      results[i] = generateKey(uniqueStringsList.get(i), scope);
+    }
+
+    return Arrays.asList(results);
+  }
+
+  @Override
+  public List<KeyLookupResult> generateKeys(List<Set<String>> uniqueStringsList) {
+    return generateKeys(uniqueStringsList, datasetId);
+  }
+
+  /**
+   * Preloads the lookup keys of the scope with one short range scan per salt bucket, then {@link
+   * #findKey(Set, String)} and {@link #findKeys(List, String)} of the scope answer from memory, see
+   * {@link PreloadedKeys}, and HBase is only read for lookup keys which have to be linked, conflict
+   * or collide. Lookup keys absent from the snapshot are reported as not found without HBase,
+   * {@link #generateKey(Set, String)} still reads and locks the lookup rows, so a key written after
+   * the preload is found there and never allocated twice.
+   *
+   * <p>Meant for recrawls, where nearly all records already have a key, a single service instance
+   * should be shared, the snapshot is dropped when keys are deleted.
+   *
+   * @return the number of preloaded lookup keys
+   */
+  @SneakyThrows
+  public int preload(String scope) {
+    checkNotNull(scope, "scope can't be null");
+    String unsaltedPrefix = OccurrenceKeyBuilder.buildKeyPrefix(scope);
+    PreloadedKeys.Builder builder = PreloadedKeys.builder(scope);
+    byte[] keyColumn = Bytes.toBytes(Columns.LOOKUP_KEY_COLUMN);
+
+    try (Table table = connection.getTable(lookupTableName)) {
+      for (byte[] prefix : HBaseStore.saltedPrefixes(unsaltedPrefix, NUMBER_OF_BUCKETS)) {
+        Scan scan = new Scan();
+        scan.setCacheBlocks(false);
+        scan.setCaching(HBASE_PRELOAD_CACHING);
+        scan.addColumn(Columns.CF, keyColumn);
+        scan.setRowPrefixFilter(prefix);
+        try (ResultScanner results = table.getScanner(scan)) {
+          for (Result result : results) {
+            byte[] rawKey = result.getValue(Columns.CF, keyColumn);
+            if (rawKey != null) {
+              String saltedKey = Bytes.toString(result.getRow());
+              builder.add(saltedKey.substring(saltedKey.indexOf(':') + 1), Bytes.toLong(rawKey));
+            }
+          }
+        }
+      }
+    }
+
+    preloadedKeys = builder.build();
+    log.info("Preloaded [{}] lookup keys of scope [{}]", preloadedKeys.getSize(), scope);
+    return preloadedKeys.getSize();
+  }
+
+  public int preload() {
+    return preload(datasetId);
+  }
+
   @SneakyThrows
   public Set<Long> findKeysByScope(String scope) {
     Set<Long> keys = new HashSet<>();
@@ -377,6 +637,7 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
   @SneakyThrows
   public void deleteKey(Long occurrenceKey, @Nullable String datasetKey) {
     checkNotNull(occurrenceKey, "occurrenceKey can't be null");
+    preloadedKeys = null;
 
     // get the dataset for this occurrence if not handed in as scope
     String rawDatasetKey = datasetKey;
@@ -430,6 +691,7 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
   public void deleteKeyByUniques(Set<String> uniqueStrings, String scope) {
     checkNotNull(uniqueStrings, "uniqueStrings can't be null");
     checkNotNull(scope, "scope can't be null");
+    preloadedKeys = null;
 
     // craft a delete for every uniqueString
     List<Delete> keysToDelete =
@@ -476,6 +738,47 @@ public class HBaseLockingKeyService implements HBaseLockingKey, Serializable {
     throw new IllegalStateException(sb.toString());
   }
 
+  /** Resolves the lookup keys with the preloaded keys of the scope, UNKNOWN without a preload */
+  private long findPreloadedKey(Set<String> lookupKeys, String scope) {
+    PreloadedKeys preloaded = preloadedKeys;
+    if (preloaded == null || !preloaded.getScope().equals(scope)) {
+      return PreloadedKeys.UNKNOWN;
+    }
+    return preloaded.find(lookupKeys);
+  }
+
+  /** Returns the key all the found lookup keys point to, fails if they point to different keys */
+  private static Long getConsistentKey(Map<String, Long> foundOccurrenceKeys) {
+    Long resultKey = null;
+    for (Long occurrenceKey : foundOccurrenceKeys.values()) {
+      if (resultKey == null) {
+        resultKey = occurrenceKey;
+      } else if (resultKey.longValue() != occurrenceKey.longValue()) {
+        failWithConflictingLookup(foundOccurrenceKeys);
+      }
+    }
+    return resultKey;
+  }
+
+  private static List<Set<String>> buildLookupKeys(
+      List<Set<String>> uniqueStringsList, String scope) {
+    return uniqueStringsList.stream()
+        .map(uniqueStrings -> OccurrenceKeyBuilder.buildKeys(uniqueStrings, scope))
+        .collect(Collectors.toList());
+  }
+
+  /** Reads the rows of all distinct lookup keys with a single multi-Get */
+  private Map<String, Result> getLookupRows(List<Set<String>> lookupKeysList, String... columns) {
+    List<String> lookupKeys =
+        lookupKeysList.stream().flatMap(Set::stream).distinct().collect(Collectors.toList());
+    Result[] results = lookupTableStore.getRows(lookupKeys, columns);
+    Map<String, Result> rows = new HashMap<>(lookupKeys.size() * 2);
+    for (int i = 0; i < lookupKeys.size(); i++) {
+      rows.put(lookupKeys.get(i), results[i]);
+    }
+    return rows;
+  }
+
   private void fillMissingKeys(
       Set<String> lookupKeys, Map<String, Long> foundOccurrenceKeys, Long occurrenceKey) {
     lookupKeys.stream()
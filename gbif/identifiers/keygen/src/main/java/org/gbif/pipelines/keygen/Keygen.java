@@ -1,9 +1,15 @@
 package org.gbif.pipelines.keygen;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -72,6 +78,165 @@ public class Keygen {
     return keyResult.map(KeyLookupResult::getKey);
   }
 
+  /**
+   * Batched version of {@link #getKey}, the result has the same order as the records. The
+   * occurrenceIds and triplets of all records are looked up together, records which need both go
+   * through a second batched lookup and absent keys are generated in one batch, see {@link
+   * HBaseLockingKey#findKeys(List)} and {@link HBaseLockingKey#generateKeys(List)}. Records sharing
+   * an occurrenceId or a triplet with another record of the batch depend on the order of the
+   * records, they use {@link #getKey} one by one after the batch.
+   *
+   * <p>Unlike {@link #getKey}, errors of the batch are not converted to the error key, a failed
+   * batch throws and the caller can fall back to {@link #getKey} per record.
+   */
+  public static List<Optional<Long>> getKeys(
+      HBaseLockingKey keygenService,
+      boolean useTriplet,
+      boolean useOccurrenceId,
+      boolean generateIfAbsent,
+      List<? extends OccurrenceRecord> records) {
+
+    Map<String, Integer> counts = new HashMap<>(records.size() * 2);
+    Consumer<Optional<String>> countFn = v -> v.ifPresent(s -> counts.merge(s, 1, Integer::sum));
+    records.forEach(
+        r -> {
+          countFn.accept(r.getOccurrenceId().filter(x -> useOccurrenceId));
+          countFn.accept(r.getTriplet().filter(x -> useTriplet));
+        });
+    Predicate<Optional<String>> sharedFn = v -> v.map(counts::get).orElse(0) > 1;
+
+    List<OccurrenceRecord> distinct = new ArrayList<>(records.size());
+    List<Integer> distinctIdx = new ArrayList<>(records.size());
+    List<Integer> sharedIdx = new ArrayList<>();
+    for (int i = 0; i < records.size(); i++) {
+      OccurrenceRecord record = records.get(i);
+      if (sharedFn.test(record.getOccurrenceId().filter(x -> useOccurrenceId))
+          || sharedFn.test(record.getTriplet().filter(x -> useTriplet))) {
+        sharedIdx.add(i);
+      } else {
+        distinct.add(record);
+        distinctIdx.add(i);
+      }
+    }
+
+    List<Optional<Long>> distinctKeys =
+        getDistinctKeys(keygenService, useTriplet, useOccurrenceId, generateIfAbsent, distinct);
+
+    List<Optional<Long>> keys = new ArrayList<>(Collections.nCopies(records.size(), null));
+    for (int j = 0; j < distinctIdx.size(); j++) {
+      keys.set(distinctIdx.get(j), distinctKeys.get(j));
+    }
+    for (int i : sharedIdx) {
+      keys.set(
+          i, getKey(keygenService, useTriplet, useOccurrenceId, generateIfAbsent, records.get(i)));
+    }
+    return keys;
+  }
+
+  /** Gets keys of records which don't share an occurrenceId or a triplet */
+  private static List<Optional<Long>> getDistinctKeys(
+      HBaseLockingKey keygenService,
+      boolean useTriplet,
+      boolean useOccurrenceId,
+      boolean generateIfAbsent,
+      List<OccurrenceRecord> records) {
+
+    int size = records.size();
+    List<Optional<Long>> keys = new ArrayList<>(Collections.nCopies(size, Optional.empty()));
+
+    // Looks up occurrenceIds and triplets on their own
+    List<Set<String>> singles = new ArrayList<>(size * 2);
+    int[] occurrenceIdIdx = new int[size];
+    int[] tripletIdx = new int[size];
+    for (int i = 0; i < size; i++) {
+      OccurrenceRecord record = records.get(i);
+      occurrenceIdIdx[i] = addSingle(singles, useOccurrenceId, record.getOccurrenceId());
+      tripletIdx[i] = addSingle(singles, useTriplet, record.getTriplet());
+    }
+    List<Optional<KeyLookupResult>> singleKeys = keygenService.findKeys(singles);
+
+    List<Set<String>> uniqueStringsList = new ArrayList<>(size);
+    List<Integer> toFindIdx = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Set<String> uniqueStrings = new HashSet<>(2);
+      Optional<KeyLookupResult> singleKey = Optional.empty();
+      uniqueStringsList.add(uniqueStrings);
+
+      // Adds occurrenceId
+      if (occurrenceIdIdx[i] >= 0) {
+        singleKey = singleKeys.get(occurrenceIdIdx[i]);
+        if (singleKey.isPresent()) {
+          keys.set(i, Optional.of(singleKey.get().getKey()));
+          uniqueStrings.clear();
+          continue;
+        }
+        uniqueStrings.addAll(singles.get(occurrenceIdIdx[i]));
+      }
+
+      // Adds triplet, if useTriplet and useOccurrenceId is false, or occurrenceId is null
+      if (tripletIdx[i] >= 0) {
+        Optional<KeyLookupResult> tripletKey = singleKeys.get(tripletIdx[i]);
+        if (uniqueStrings.isEmpty()) {
+          singleKey = tripletKey;
+          uniqueStrings.addAll(singles.get(tripletIdx[i]));
+        } else if (tripletKey.isPresent()) {
+          uniqueStrings.addAll(singles.get(tripletIdx[i]));
+        }
+      }
+
+      if (uniqueStrings.isEmpty()) {
+        keys.set(i, Optional.of(ERROR_KEY));
+      } else if (uniqueStrings.size() == 1) {
+        // The only unique string was looked up already
+        keys.set(i, singleKey.map(KeyLookupResult::getKey));
+      } else {
+        toFindIdx.add(i);
+      }
+    }
+
+    // Finds keys of records with both identifiers, links the occurrenceId to the triplet key
+    List<Optional<KeyLookupResult>> foundKeys =
+        keygenService.findKeys(select(uniqueStringsList, toFindIdx));
+    for (int j = 0; j < toFindIdx.size(); j++) {
+      keys.set(toFindIdx.get(j), foundKeys.get(j).map(KeyLookupResult::getKey));
+    }
+
+    // Generates keys of records without a key
+    if (generateIfAbsent) {
+      List<Integer> toGenerateIdx = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        if (!keys.get(i).isPresent()) {
+          toGenerateIdx.add(i);
+        }
+      }
+      if (!toGenerateIdx.isEmpty()) {
+        log.info("GBIF IDs weren't found, generating {} new keys", toGenerateIdx.size());
+        List<KeyLookupResult> generatedKeys =
+            keygenService.generateKeys(select(uniqueStringsList, toGenerateIdx));
+        for (int j = 0; j < toGenerateIdx.size(); j++) {
+          keys.set(toGenerateIdx.get(j), Optional.of(generatedKeys.get(j).getKey()));
+        }
+      }
+    }
+
+    return keys;
+  }
+
+  /** Adds the value as a single unique string to look up, returns its index or -1 */
+  private static int addSingle(List<Set<String>> singles, boolean use, Optional<String> value) {
+    if (use && value.isPresent()) {
+      singles.add(Collections.singleton(value.get()));
+      return singles.size() - 1;
+    }
+    return -1;
+  }
+
+  private static List<Set<String>> select(List<Set<String>> values, List<Integer> idx) {
+    List<Set<String>> selected = new ArrayList<>(idx.size());
+    idx.forEach(i -> selected.add(values.get(i)));
+    return selected;
+  }
+
   public static String getSaltedKey(Long key) {
     long salt = key % 100;
     String result = salt + ":" + key;
@@ -0,0 +1,200 @@
+package org.gbif.pipelines.keygen;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import lombok.Getter;
+
+/**
+ * Read-only snapshot of the lookup keys of one scope (dataset) and their GBIF keys, used to answer
+ * lookups without HBase when most of the records already have a key, e.g. recrawls.
+ *
+ * <p>Lookup keys are stored as 64-bit fingerprints in a primitive open addressing map, so the
+ * snapshot takes about 32 bytes per lookup key instead of the strings. A small bloom filter is
+ * checked first, it fits in the CPU caches and answers most lookups of new records without probing
+ * the map. Two stored lookup keys with the same fingerprint are stored as {@link #UNKNOWN}, the
+ * caller asks HBase for them. A lookup key which is not in the snapshot can still have the
+ * fingerprint of a stored one, it then gets the GBIF key of that lookup key. The fingerprints are
+ * well mixed, so the probability is about n / 2^64 per lookup of a new key for n stored keys, e.g.
+ * 5e-13 for 10 million keys, which is negligible.
+ */
+public class PreloadedKeys {
+
+  /** The lookup key is not in the snapshot */
+  public static final long ABSENT = 0L;
+
+  /** The snapshot can't answer, HBase must be asked */
+  public static final long UNKNOWN = -1L;
+
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+  private static final float LOAD_FACTOR = 0.5f;
+
+  @Getter private final String scope;
+  @Getter private final int size;
+
+  private final long[] bloom;
+  private final int bloomBits;
+  private final int bloomHashes;
+
+  private final long[] fingerprints;
+  private final long[] values;
+  private final int mask;
+
+  private PreloadedKeys(String scope, long[] keyFingerprints, long[] keyValues, int size) {
+    this.scope = checkNotNull(scope, "scope can't be null");
+    this.size = size;
+
+    // m = -n * ln(p) / ln(2)^2, k = m / n * ln(2)
+    int n = Math.max(size, 1);
+    long bits = (long) Math.ceil(-n * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+    this.bloomBits = (int) Math.min(Math.max(bits, 64L), Integer.MAX_VALUE - 63L);
+    this.bloomHashes = Math.max(1, (int) Math.round((double) bloomBits / n * Math.log(2)));
+    this.bloom = new long[(bloomBits + 63) >>> 6];
+
+    int capacity = Integer.highestOneBit(Math.max((int) (n / LOAD_FACTOR), 2) - 1) << 1;
+    this.mask = capacity - 1;
+    this.fingerprints = new long[capacity];
+    this.values = new long[capacity];
+
+    for (int i = 0; i < size; i++) {
+      insert(keyFingerprints[i], keyValues[i]);
+    }
+  }
+
+  public static Builder builder(String scope) {
+    return new Builder(scope);
+  }
+
+  /**
+   * Returns the GBIF key of the lookup key, {@link #ABSENT} if the lookup key is not in the
+   * snapshot or {@link #UNKNOWN} if it collided with another lookup key. A lookup key which is not
+   * in the snapshot gets a wrong GBIF key when its fingerprint collides with a stored one, see the
+   * class documentation for the probability
+   */
+  public long get(String lookupKey) {
+    long fingerprint = fingerprint(lookupKey);
+    if (!mightContain(fingerprint)) {
+      return ABSENT;
+    }
+    int idx = slot(fingerprint);
+    while (fingerprints[idx] != 0L) {
+      if (fingerprints[idx] == fingerprint) {
+        return values[idx];
+      }
+      idx = (idx + 1) & mask;
+    }
+    return ABSENT;
+  }
+
+  /**
+   * Resolves the lookup keys of one record: returns the GBIF key if all lookup keys point to it,
+   * {@link #ABSENT} if none of them is in the snapshot, otherwise {@link #UNKNOWN}, when some
+   * lookup keys are missing and must be linked, when they conflict or when one is unknown
+   */
+  public long find(Collection<String> lookupKeys) {
+    long result = ABSENT;
+    int found = 0;
+    for (String lookupKey : lookupKeys) {
+      long key = get(lookupKey);
+      if (key == UNKNOWN) {
+        return UNKNOWN;
+      }
+      if (key != ABSENT) {
+        if (result != ABSENT && result != key) {
+          return UNKNOWN;
+        }
+        result = key;
+        found++;
+      }
+    }
+    if (found == 0) {
+      return ABSENT;
+    }
+    return found == lookupKeys.size() ? result : UNKNOWN;
+  }
+
+  private void insert(long fingerprint, long value) {
+    addToBloom(fingerprint);
+    int idx = slot(fingerprint);
+    while (fingerprints[idx] != 0L) {
+      if (fingerprints[idx] == fingerprint) {
+        // Fingerprint collision of two lookup keys, HBase has to answer for both
+        values[idx] = UNKNOWN;
+        return;
+      }
+      idx = (idx + 1) & mask;
+    }
+    fingerprints[idx] = fingerprint;
+    // ABSENT and UNKNOWN can't be used as GBIF keys
+    values[idx] = value > 0L ? value : UNKNOWN;
+  }
+
+  private void addToBloom(long fingerprint) {
+    int h1 = (int) fingerprint;
+    int h2 = (int) (fingerprint >>> 32);
+    for (int i = 1; i <= bloomHashes; i++) {
+      int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bloomBits;
+      bloom[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  private boolean mightContain(long fingerprint) {
+    int h1 = (int) fingerprint;
+    int h2 = (int) (fingerprint >>> 32);
+    for (int i = 1; i <= bloomHashes; i++) {
+      int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bloomBits;
+      if ((bloom[bit >>> 6] & (1L << bit)) == 0L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int slot(long fingerprint) {
+    return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+  }
+
+  /** 64-bit FNV-1a of the chars, mixed with the MurmurHash3 finalizer, 0 is reserved for empty */
+  static long fingerprint(String lookupKey) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < lookupKey.length(); i++) {
+      h ^= lookupKey.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h == 0L ? 1L : h;
+  }
+
+  /** Collects lookup keys of a scan, the size isn't known before the scan ends */
+  public static class Builder {
+
+    private final String scope;
+    private long[] fingerprints = new long[1024];
+    private long[] values = new long[1024];
+    private int size;
+
+    private Builder(String scope) {
+      this.scope = scope;
+    }
+
+    public Builder add(String lookupKey, long key) {
+      if (size == fingerprints.length) {
+        fingerprints = Arrays.copyOf(fingerprints, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      fingerprints[size] = fingerprint(lookupKey);
+      values[size] = key;
+      size++;
+      return this;
+    }
+
+    public PreloadedKeys build() {
+      return new PreloadedKeys(scope, fingerprints, values, size);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package org.gbif.pipelines.keygen;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out GBIF keys from ranges reserved in the counter row without locking. The allocator leases
+ * one range with one atomic increment of the counter, the calling threads take keys from it with an
+ * atomic increment and only the thread which finds the range used up leases the next one. The size
+ * of the next lease doubles while the leases are used up in less than {@link #TARGET_LEASE_MS} and
+ * halves when a lease lasts more than 4 times that, between {@link #MIN_LEASE_SIZE} and {@link
+ * #MAX_LEASE_SIZE}, so the lease follows the key rate of the process and busy processes rarely hit
+ * the counter row.
+ *
+ * <p>Keys are unique across threads and processes, since every range comes from an atomic increment
+ * of the counter, but they are not contiguous: keys of different processes interleave, and the
+ * unused part of the current lease is lost when the process stops. Unused keys are not returned,
+ * which would need a coordination the counter row can't provide, the gaps are accepted as before
+ * with the batches reserved by a single process.
+ */
+@Slf4j
+public class RangeKeyAllocator {
+
+  static final int MIN_LEASE_SIZE = 1_000;
+  static final int MAX_LEASE_SIZE = 100_000;
+  static final long TARGET_LEASE_MS = 10_000L;
+
+  // reserves the given number of keys, returns the last reserved key, inclusive
+  private final LongUnaryOperator reserveFn;
+  private final LongSupplier clock;
+  private volatile Lease lease = new Lease(1L, 0L, MIN_LEASE_SIZE, 0L);
+
+  public RangeKeyAllocator(LongUnaryOperator reserveFn) {
+    this(reserveFn, System::currentTimeMillis);
+  }
+
+  RangeKeyAllocator(LongUnaryOperator reserveFn, LongSupplier clock) {
+    this.reserveFn = checkNotNull(reserveFn, "reserveFn can't be null");
+    this.clock = checkNotNull(clock, "clock can't be null");
+  }
+
+  /** Returns the next key of the leased range, leases a new one if needed */
+  public long next() {
+    while (true) {
+      Lease current = lease;
+      long key = current.next.getAndIncrement();
+      if (key <= current.last) {
+        return key;
+      }
+      renew(current);
+    }
+  }
+
+  /** Size of the current lease */
+  int getLeaseSize() {
+    return lease.size;
+  }
+
+  // Only one of the threads which found the lease used up leases the next range
+  private synchronized void renew(Lease used) {
+    if (lease != used) {
+      return;
+    }
+    long now = clock.getAsLong();
+    int size = used.size;
+    if (used.leasedAt > 0L) {
+      long elapsed = now - used.leasedAt;
+      if (elapsed < TARGET_LEASE_MS) {
+        size = Math.min(size * 2, MAX_LEASE_SIZE);
+      } else if (elapsed > TARGET_LEASE_MS * 4) {
+        size = Math.max(size / 2, MIN_LEASE_SIZE);
+      }
+    }
+    // safer to calculate our guaranteed safe range than rely on what the next key was set to
+    long last = reserveFn.applyAsLong(size);
+    lease = new Lease(last - size + 1, last, size, now);
+    log.debug("Leased keys [{}..{}]", last - size + 1, last);
+  }
+
+  private static class Lease {
+    private final AtomicLong next;
+    private final long last;
+    private final int size;
+    private final long leasedAt;
+
+    private Lease(long next, long last, int size, long leasedAt) {
+      this.next = new AtomicLong(next);
+      this.last = last;
+      this.size = size;
+      this.leasedAt = leasedAt;
+    }
+  }
+}
@@ -5,6 +5,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Connection;
@@ -175,6 +179,80 @@ public class HBaseStore<T> {
     return row;
   }
 
+  /**
+   * Returns HBase Result objects matching the given keys, in the same order as the keys, using a
+   * single multi-Get. A missing row is returned as an empty Result.
+   *
+   * @param keys the primary keys of the requested rows
+   * @param columnNames the column values to return, all columns if empty
+   * @return HBase Results
+   * @throws ServiceUnavailableException if there are errors when communicating with HBase
+   */
+  public Result[] getRows(List<T> keys, String... columnNames) {
+    checkNotNull(keys, "keys can't be null");
+    if (keys.isEmpty()) {
+      return new Result[0];
+    }
+
+    List<Get> gets = new ArrayList<>(keys.size());
+    for (T key : keys) {
+      Get get = new Get(checkNotNull(convertKey(checkNotNull(key, KEY_CANT_BE_NULL_MSG))));
+      for (String columnName : columnNames) {
+        get.addColumn(cfBytes, Bytes.toBytes(columnName));
+      }
+      gets.add(get);
+    }
+
+    try (Table table = connection.getTable(tableName)) {
+      return table.get(gets);
+    } catch (IOException e) {
+      throw new ServiceUnavailableException(HBASE_READ_ERROR_MSG, e);
+    }
+  }
+
+  /** Batched version of {@link #putLong(Object, String, long)}, writes all values in one call. */
+  public void putLongs(Map<T, Long> values, String columnName) {
+    checkNotNull(values, "values can't be null");
+    checkNotNull(columnName, "columnName can't be null");
+    List<Put> puts = new ArrayList<>(values.size());
+    values.forEach(
+        (key, value) -> {
+          Put put = new Put(checkNotNull(convertKey(key)));
+          put.addColumn(cfBytes, Bytes.toBytes(columnName), Bytes.toBytes(value));
+          puts.add(put);
+        });
+    put(puts);
+  }
+
+  /**
+   * Batched version of {@link #putLongString(Object, String, long, String, String)}, writes all
+   * values in one call, the second column gets the same value for every key.
+   */
+  public void putLongStrings(
+      Map<T, Long> values, String columnName, String columnName2, String value2) {
+    checkNotNull(values, "values can't be null");
+    List<Put> puts = new ArrayList<>(values.size());
+    values.forEach(
+        (key, value) -> {
+          Put put = new Put(checkNotNull(convertKey(key)));
+          put.addColumn(cfBytes, Bytes.toBytes(columnName), Bytes.toBytes(value));
+          put.addColumn(cfBytes, Bytes.toBytes(columnName2), Bytes.toBytes(value2));
+          puts.add(put);
+        });
+    put(puts);
+  }
+
+  private void put(List<Put> puts) {
+    if (puts.isEmpty()) {
+      return;
+    }
+    try (Table table = connection.getTable(tableName)) {
+      table.put(puts);
+    } catch (IOException e) {
+      throw new ServiceUnavailableException(HBASE_READ_ERROR_MSG, e);
+    }
+  }
+
   /**
    * Do an HBase checkAndPut - a put that will only be attempted if the checkColumn contains the
    * expected checkValue.
@@ -238,6 +316,30 @@ public class HBaseStore<T> {
     }
   }
 
+  /** Batched version of {@link #delete(Object, String...)}, deletes all keys in one call. */
+  public void delete(Collection<T> keys, String... columns) {
+    checkNotNull(keys, "keys can't be null");
+    checkArgument(columns.length > 0, "columns can't be empty");
+    if (keys.isEmpty()) {
+      return;
+    }
+
+    List<Delete> deletes = new ArrayList<>(keys.size());
+    for (T key : keys) {
+      Delete delete = new Delete(checkNotNull(convertKey(checkNotNull(key, KEY_CANT_BE_NULL_MSG))));
+      for (String column : columns) {
+        delete.addColumn(cfBytes, Bytes.toBytes(column));
+      }
+      deletes.add(delete);
+    }
+
+    try (Table table = connection.getTable(tableName)) {
+      table.delete(deletes);
+    } catch (IOException e) {
+      throw new ServiceUnavailableException(HBASE_READ_ERROR_MSG, e);
+    }
+  }
+
   public byte[] convertKey(T key) {
     if (salted) {
       return saltKey(String.valueOf(key), numberOfBuckets);
@@ -274,6 +376,23 @@ public class HBaseStore<T> {
     return Bytes.toBytes(saltedKey);
   }
 
+  /**
+   * Returns the salted row prefixes of an unsalted prefix, one per bucket, to scan all salted rows
+   * starting with the unsalted prefix with one short range scan per bucket.
+   *
+   * @param unsaltedPrefix Prefix of the unsalted keys (e.g. a dataset UUID and the delimiter)
+   * @param numberOfBuckets To use in salting
+   * @return The salted prefixes
+   */
+  public static List<byte[]> saltedPrefixes(String unsaltedPrefix, int numberOfBuckets) {
+    int digitCount = digitCount(numberOfBuckets - 1);
+    List<byte[]> prefixes = new ArrayList<>(numberOfBuckets);
+    for (int salt = 0; salt < numberOfBuckets; salt++) {
+      prefixes.add(Bytes.toBytes(leftPadZeros(salt, digitCount) + ":" + unsaltedPrefix));
+    }
+    return prefixes;
+  }
+
   /**
    * Pads with 0s to desired length.
    *
@@ -0,0 +1,67 @@
+package org.gbif.pipelines.keygen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class PreloadedKeysTest {
+
+  private static final String SCOPE = "dataset";
+
+  @Test
+  public void testGet() {
+    PreloadedKeys.Builder builder = PreloadedKeys.builder(SCOPE);
+    for (int i = 1; i <= 100_000; i++) {
+      builder.add(SCOPE + "|occ" + i, i);
+    }
+    PreloadedKeys keys = builder.build();
+
+    assertEquals(100_000, keys.getSize());
+    for (int i = 1; i <= 100_000; i++) {
+      assertEquals(i, keys.get(SCOPE + "|occ" + i));
+    }
+
+    int absent = 0;
+    for (int i = 100_001; i <= 200_000; i++) {
+      if (keys.get(SCOPE + "|occ" + i) == PreloadedKeys.ABSENT) {
+        absent++;
+      }
+    }
+    assertEquals(100_000, absent);
+  }
+
+  @Test
+  public void testFind() {
+    PreloadedKeys keys =
+        PreloadedKeys.builder(SCOPE)
+            .add(SCOPE + "|occ1", 1L)
+            .add(SCOPE + "|triplet1", 1L)
+            .add(SCOPE + "|occ2", 2L)
+            .add(SCOPE + "|invalid", 0L)
+            .build();
+
+    // All lookup keys point to the same key
+    assertEquals(1L, keys.find(Arrays.asList(SCOPE + "|occ1", SCOPE + "|triplet1")));
+    assertEquals(2L, keys.find(Collections.singleton(SCOPE + "|occ2")));
+    // None of the lookup keys is preloaded
+    assertEquals(PreloadedKeys.ABSENT, keys.find(Collections.singleton(SCOPE + "|occ3")));
+    // The new lookup key must be linked
+    assertEquals(PreloadedKeys.UNKNOWN, keys.find(Arrays.asList(SCOPE + "|occ1", SCOPE + "|new")));
+    // Conflicting keys
+    assertEquals(PreloadedKeys.UNKNOWN, keys.find(Arrays.asList(SCOPE + "|occ1", SCOPE + "|occ2")));
+    // A key which can't be used as GBIF key
+    assertEquals(PreloadedKeys.UNKNOWN, keys.find(Collections.singleton(SCOPE + "|invalid")));
+  }
+
+  @Test
+  public void testEmpty() {
+    PreloadedKeys keys = PreloadedKeys.builder(SCOPE).build();
+
+    assertEquals(0, keys.getSize());
+    assertEquals(PreloadedKeys.ABSENT, keys.find(Collections.singleton(SCOPE + "|occ1")));
+    assertTrue(PreloadedKeys.fingerprint("") != 0L);
+  }
+}
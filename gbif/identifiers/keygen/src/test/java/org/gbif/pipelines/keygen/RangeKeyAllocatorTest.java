@@ -0,0 +1,126 @@
+package org.gbif.pipelines.keygen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class RangeKeyAllocatorTest {
+
+  @Test
+  public void testContiguousSingleThread() {
+    AtomicLong counter = new AtomicLong();
+    RangeKeyAllocator allocator = new RangeKeyAllocator(counter::addAndGet, () -> 1L);
+
+    for (long i = 1; i <= 5_000; i++) {
+      assertEquals(i, allocator.next());
+    }
+  }
+
+  @Test
+  public void testLeaseSize() {
+    AtomicLong counter = new AtomicLong();
+    AtomicLong clock = new AtomicLong(1L);
+    RangeKeyAllocator allocator = new RangeKeyAllocator(counter::addAndGet, clock::get);
+
+    // fast allocation doubles the lease
+    allocator.next();
+    for (int i = 1; i < RangeKeyAllocator.MIN_LEASE_SIZE; i++) {
+      allocator.next();
+    }
+    allocator.next();
+    assertEquals(RangeKeyAllocator.MIN_LEASE_SIZE * 2, allocator.getLeaseSize());
+    assertEquals(RangeKeyAllocator.MIN_LEASE_SIZE * 3, counter.get());
+
+    // slow allocation halves it again
+    for (int i = 1; i < RangeKeyAllocator.MIN_LEASE_SIZE * 2; i++) {
+      allocator.next();
+    }
+    clock.addAndGet(RangeKeyAllocator.TARGET_LEASE_MS * 5);
+    allocator.next();
+    assertEquals(RangeKeyAllocator.MIN_LEASE_SIZE, allocator.getLeaseSize());
+
+    // never above the max
+    for (int i = 0; i < RangeKeyAllocator.MAX_LEASE_SIZE * 4; i++) {
+      allocator.next();
+    }
+    assertEquals(RangeKeyAllocator.MAX_LEASE_SIZE, allocator.getLeaseSize());
+  }
+
+  @Test
+  public void testUniqueKeys() throws Exception {
+    // State: 4 allocators, as 4 processes, with 8 threads each share one counter
+    AtomicLong counter = new AtomicLong();
+    int allocators = 4;
+    int threads = 8;
+    int keyCount = 50_000;
+    ExecutorService executor = Executors.newFixedThreadPool(allocators * threads);
+
+    // When
+    List<Future<long[]>> futures = new ArrayList<>();
+    for (int a = 0; a < allocators; a++) {
+      RangeKeyAllocator allocator = new RangeKeyAllocator(counter::addAndGet);
+      for (int t = 0; t < threads; t++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  long[] keys = new long[keyCount];
+                  for (int i = 0; i < keyCount; i++) {
+                    keys[i] = allocator.next();
+                  }
+                  return keys;
+                }));
+      }
+    }
+
+    Set<Long> keys = new HashSet<>();
+    for (Future<long[]> future : futures) {
+      for (long key : future.get()) {
+        assertTrue("Duplicate key " + key, keys.add(key));
+        assertTrue(key > 0L && key <= counter.get());
+      }
+    }
+    executor.shutdown();
+
+    // Should
+    assertEquals(allocators * threads * keyCount, keys.size());
+  }
+
+  @Test
+  public void testSharedLease() throws Exception {
+    // State: 8 threads share one allocator
+    AtomicLong counter = new AtomicLong();
+    RangeKeyAllocator allocator = new RangeKeyAllocator(counter::addAndGet);
+    int threads = 8;
+    int keyCount = 20_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    // When
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = 0; i < keyCount; i++) {
+                  allocator.next();
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    // Should: only the rest of the current lease is unused
+    long unused = counter.get() - threads * keyCount;
+    assertTrue(unused >= 0L && unused < allocator.getLeaseSize());
+  }
+}
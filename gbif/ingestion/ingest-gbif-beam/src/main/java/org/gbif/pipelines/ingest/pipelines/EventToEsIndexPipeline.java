@@ -35,6 +35,7 @@ import org.apache.beam.sdk.values.TypeDescriptor;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.PipelinesVariables;
 import org.gbif.pipelines.common.beam.coders.EdgeCoder;
+import org.gbif.pipelines.common.beam.coders.SpecificAvroCoderProvider;
 import org.gbif.pipelines.common.beam.metrics.MetricsHandler;
 import org.gbif.pipelines.common.beam.options.EsIndexingPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
@@ -153,6 +154,9 @@ public class EventToEsIndexPipeline {
     boolean datasetHasOccurrences = FsUtils.fileExists(hdfsConfigs, occurrencesMetadataPath);
 
     Pipeline p = pipelinesFn.apply(options);
+    if (options.getUseSpecificAvroCoders()) {
+      SpecificAvroCoderProvider.register(p);
+    }
 
     log.info("Adding step 2: Creating transformations");
     MetadataTransform metadataTransform = MetadataTransform.builder().create();
@@ -27,12 +27,14 @@ import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretati
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType.getAllTables;
 
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.file.CodecFactory;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.transforms.Create;
@@ -47,10 +49,12 @@ import org.apache.beam.sdk.values.PCollectionView;
 import org.apache.beam.sdk.values.TypeDescriptors;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
+import org.gbif.pipelines.common.beam.coders.SpecificAvroCoderProvider;
 import org.gbif.pipelines.common.beam.metrics.MetricsHandler;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.io.AvroCodecs;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
 import org.gbif.pipelines.core.utils.HdfsViewUtils;
@@ -107,6 +111,7 @@ import org.gbif.pipelines.transforms.table.PreparationTableTransform;
 import org.gbif.pipelines.transforms.table.PreservationTableTransform;
 import org.gbif.pipelines.transforms.table.ReferenceTableTransform;
 import org.gbif.pipelines.transforms.table.ResourceRelationshipTableTransform;
+import org.gbif.pipelines.transforms.table.TableTransform;
 import org.gbif.wrangler.lock.Mutex;
 import org.slf4j.MDC;
 
@@ -178,6 +183,7 @@ public class HdfsViewPipeline {
         st ->
             PathBuilder.buildFilePathViewUsingInputPath(
                 options, recordType, st.name().toLowerCase(), datasetId + '_' + attempt);
+    CodecFactory codec = AvroCodecs.parse(options.getAvroCompressionType());
 
     MDC.put("datasetKey", datasetId);
     MDC.put("attempt", attempt.toString());
@@ -194,6 +200,9 @@ public class HdfsViewPipeline {
         t -> PathBuilder.buildPathInterpretUsingInputPath(options, coreTerm, t, ALL_AVRO);
 
     Pipeline p = pipelinesFn.apply(options);
+    if (options.getUseSpecificAvroCoders()) {
+      SpecificAvroCoderProvider.register(p);
+    }
 
     log.info("Adding step 2: Reading AVROs");
     // Core
@@ -327,7 +336,7 @@ public class HdfsViewPipeline {
         // Apply
         .apply("Group hdfs objects", CoGroupByKey.create())
         .apply("Merge to HdfsRecord", hdfsRecordTransform.converter())
-        .apply(hdfsRecordTransform.write(pathFn.apply(recordType), numberOfShards));
+        .apply(hdfsRecordTransform.write(pathFn.apply(recordType), numberOfShards, codec));
 
     // Table records
     PCollection<KV<String, CoGbkResult>> tableCollection =
@@ -338,235 +347,239 @@ public class HdfsViewPipeline {
             // Apply
             .apply("Group table objects", CoGroupByKey.create());
 
-    AmplificationTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(AMPLIFICATION_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    IdentificationTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(IDENTIFICATION_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    MeasurementOrFactTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(MEASUREMENT_OR_FACT_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    ResourceRelationshipTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(RESOURCE_RELATIONSHIP_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    CloningTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(CLONING_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    GelImageTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(GEL_IMAGE_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    LoanTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(LOAN_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    MaterialSampleTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(MATERIAL_SAMPLE_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    PermitTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(PERMIT_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    PreparationTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(PREPARATION_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    PreservationTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(PRESERVATION_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    GermplasmMeasurementScoreTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(GERMPLASM_MEASUREMENT_SCORE_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    GermplasmMeasurementTraitTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(GERMPLASM_MEASUREMENT_TRAIT_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    GermplasmMeasurementTrialTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(GERMPLASM_MEASUREMENT_TRIAL_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    GermplasmAccessionTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(GERMPLASM_ACCESSION_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    ExtendedMeasurementOrFactTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(EXTENDED_MEASUREMENT_OR_FACT_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    ChronometricAgeTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(CHRONOMETRIC_AGE_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    ReferenceTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(REFERENCE_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    IdentifierTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(IDENTIFIER_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    DnaDerivedDataTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(DNA_DERIVED_DATA_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    AudubonTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(AUDUBON_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    MultimediaTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(MULTIMEDIA_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
-
-    ImageTableTransform.builder()
-        .extendedRecordTag(verbatimTransform.getTag())
-        .identifierRecordTag(idTransform.getTag())
-        .metadataView(metadataView)
-        .numShards(numberOfShards)
-        .path(pathFn.apply(IMAGE_TABLE))
-        .types(types)
-        .build()
-        .write(tableCollection);
+    // Every table is written with the Avro codec of the pipeline
+    Consumer<TableTransform<?>> writeTableFn =
+        t -> t.setCodec(options.getAvroCompressionType()).write(tableCollection);
+
+    writeTableFn.accept(
+        AmplificationTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(AMPLIFICATION_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        IdentificationTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(IDENTIFICATION_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        MeasurementOrFactTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(MEASUREMENT_OR_FACT_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        ResourceRelationshipTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(RESOURCE_RELATIONSHIP_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        CloningTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(CLONING_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        GelImageTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(GEL_IMAGE_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        LoanTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(LOAN_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        MaterialSampleTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(MATERIAL_SAMPLE_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        PermitTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(PERMIT_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        PreparationTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(PREPARATION_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        PreservationTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(PRESERVATION_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        GermplasmMeasurementScoreTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(GERMPLASM_MEASUREMENT_SCORE_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        GermplasmMeasurementTraitTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(GERMPLASM_MEASUREMENT_TRAIT_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        GermplasmMeasurementTrialTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(GERMPLASM_MEASUREMENT_TRIAL_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        GermplasmAccessionTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(GERMPLASM_ACCESSION_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        ExtendedMeasurementOrFactTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(EXTENDED_MEASUREMENT_OR_FACT_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        ChronometricAgeTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(CHRONOMETRIC_AGE_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        ReferenceTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(REFERENCE_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        IdentifierTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(IDENTIFIER_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        DnaDerivedDataTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(DNA_DERIVED_DATA_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        AudubonTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(AUDUBON_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        MultimediaTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(MULTIMEDIA_TABLE))
+            .types(types)
+            .build());
+
+    writeTableFn.accept(
+        ImageTableTransform.builder()
+            .extendedRecordTag(verbatimTransform.getTag())
+            .identifierRecordTag(idTransform.getTag())
+            .metadataView(metadataView)
+            .numShards(numberOfShards)
+            .path(pathFn.apply(IMAGE_TABLE))
+            .types(types)
+            .build());
 
     log.info("Running the pipeline");
     PipelineResult result = p.run();
@@ -1,5 +1,6 @@
 package org.gbif.pipelines.ingest.pipelines;
 
+import java.util.Collections;
 import java.util.Set;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -75,7 +76,7 @@ public class InterpretedToEsIndexExtendedPipeline {
     MDC.put("step", options.getStepType().name());
 
     if (DatasetType.OCCURRENCE == options.getDatasetType()) {
-      run(options, () -> OccurrenceToEsIndexPipeline.run(options));
+      run(options, () -> OccurrenceToEsIndexPipeline.run(options), true);
     } else if (DatasetType.SAMPLING_EVENT == options.getDatasetType()) {
       run(options, () -> EventToEsIndexPipeline.run(options));
     } else {
@@ -87,13 +88,31 @@ public class InterpretedToEsIndexExtendedPipeline {
     log.info("Finished main indexing pipeline");
   }
 
+  /**
+   * Runs a pipeline which indexes all documents of the dataset, see {@link
+   * #run(EsIndexingPipelineOptions, Runnable, boolean)}
+   */
   public static void run(EsIndexingPipelineOptions options, Runnable pipeline) {
+    run(options, pipeline, false);
+  }
+
+  /**
+   * @param pipeline indexing pipeline
+   * @param incrementalSupported the pipeline compares documents with the index hashes, deletes
+   *     removed documents and writes new hashes, see {@link
+   *     org.gbif.pipelines.ingest.utils.IndexHashesUtils}
+   */
+  public static void run(
+      EsIndexingPipelineOptions options, Runnable pipeline, boolean incrementalSupported) {
     EsIndexUtils.createIndexAndAliasForDefault(options);
 
-    // Returns indices names in case of swapping
-    Set<String> indices = EsIndexUtils.deleteRecordsByDatasetId(options);
+    // Returns indices names in case of swapping, the incremental indexing deletes records itself
+    Set<String> indices =
+        EsIndexUtils.prepareIncrementalIndexing(options, incrementalSupported)
+            ? Collections.singleton(options.getEsIndexName())
+            : EsIndexUtils.deleteRecordsByDatasetId(options);
 
-    pipeline.run();
+    EsIndexUtils.bulkLoad(options, pipeline);
 
     PipelinesConfig config = null;
     if (options.getProperties() != null) {
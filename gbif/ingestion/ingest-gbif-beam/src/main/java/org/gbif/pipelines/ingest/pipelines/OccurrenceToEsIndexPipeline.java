@@ -1,7 +1,13 @@
 package org.gbif.pipelines.ingest.pipelines;
 
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.ALL_AVRO;
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Indexing.CRAWL_ID;
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Indexing.CREATED;
+import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Indexing.LAST_CRAWLED;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import lombok.AccessLevel;
@@ -18,15 +24,20 @@ import org.apache.beam.sdk.transforms.join.CoGroupByKey;
 import org.apache.beam.sdk.transforms.join.KeyedPCollectionTuple;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionTuple;
 import org.apache.beam.sdk.values.PCollectionView;
 import org.gbif.api.model.pipelines.StepType;
 import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.common.beam.coders.SpecificAvroCoderProvider;
 import org.gbif.pipelines.common.beam.metrics.MetricsHandler;
 import org.gbif.pipelines.common.beam.options.EsIndexingPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.io.AvroReader;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
+import org.gbif.pipelines.ingest.utils.EsIndexUtils;
+import org.gbif.pipelines.ingest.utils.IndexHashesUtils;
 import org.gbif.pipelines.io.avro.AudubonRecord;
 import org.gbif.pipelines.io.avro.BasicRecord;
 import org.gbif.pipelines.io.avro.ClusteringRecord;
@@ -39,6 +50,7 @@ import org.gbif.pipelines.io.avro.MultimediaRecord;
 import org.gbif.pipelines.io.avro.TaxonRecord;
 import org.gbif.pipelines.io.avro.TemporalRecord;
 import org.gbif.pipelines.io.avro.grscicoll.GrscicollRecord;
+import org.gbif.pipelines.transforms.common.IndexDiffTransform;
 import org.gbif.pipelines.transforms.converters.OccurrenceJsonTransform;
 import org.gbif.pipelines.transforms.core.BasicTransform;
 import org.gbif.pipelines.transforms.core.GrscicollTransform;
@@ -70,7 +82,9 @@ import org.slf4j.MDC;
  *      {@link org.gbif.pipelines.io.avro.LocationRecord}
  *    2) Joins avro files
  *    3) Converts to json model (resources/elasticsearch/es-occurrence-schema.json)
- *    4) Pushes data to Elasticsearch instance
+ *    4) Compares the documents with the hashes of the previous indexing, if the indexing is incremental
+ *    5) Pushes data to Elasticsearch instance
+ *    6) Updates crawl fields of the documents which weren't pushed, if the indexing is incremental
  * </pre>
  *
  * <p>How to run:
@@ -100,6 +114,11 @@ import org.slf4j.MDC;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class OccurrenceToEsIndexPipeline {
 
+  // Fields which change on every indexing, they don't mark a document as changed and are updated
+  // by query for the documents which aren't written
+  private static final Set<String> HASH_IGNORED_FIELDS =
+      new HashSet<>(Arrays.asList(CREATED, CRAWL_ID, LAST_CRAWLED));
+
   public static void main(String[] args) {
     EsIndexingPipelineOptions options = PipelinesOptionsFactory.createIndexing(args);
     run(options);
@@ -128,6 +147,9 @@ public class OccurrenceToEsIndexPipeline {
             PathBuilder.buildPathInterpretUsingTargetPath(options, DwcTerm.Occurrence, t, ALL_AVRO);
 
     Pipeline p = pipelinesFn.apply(options);
+    if (options.getUseSpecificAvroCoders()) {
+      SpecificAvroCoderProvider.register(p);
+    }
 
     PCollection<String> jsonCollection =
         IndexingTransform.builder()
@@ -137,6 +159,22 @@ public class OccurrenceToEsIndexPipeline {
             .build()
             .apply();
 
+    boolean incremental = IndexHashesUtils.isSupported(options);
+    if (incremental) {
+      log.info("Adding step: Comparing documents with the previous indexing");
+      PCollectionTuple diff =
+          jsonCollection.apply(
+              "Compare with previous index hashes",
+              IndexDiffTransform.builder()
+                  .idField(esDocumentId)
+                  .ignoredFields(HASH_IGNORED_FIELDS)
+                  .previousHashes(IndexHashesUtils.readPreviousHashes(p, options))
+                  .build());
+
+      jsonCollection = diff.get(IndexDiffTransform.DOCUMENT_TAG);
+      IndexHashesUtils.writeHashes(diff.get(IndexDiffTransform.HASH_TAG), options);
+    }
+
     log.info("Adding step 4: Elasticsearch indexing");
     ElasticsearchIO.ConnectionConfiguration esConfig =
         ElasticsearchIO.ConnectionConfiguration.create(
@@ -153,21 +191,33 @@ public class OccurrenceToEsIndexPipeline {
       writeIO = writeIO.withIdFn(input -> input.get(esDocumentId).asText());
     }
 
+    if (incremental) {
+      writeIO = writeIO.withIsDeleteFn(IndexDiffTransform::isDelete);
+    }
+
     jsonCollection.apply(writeIO);
 
     log.info("Running the pipeline");
     PipelineResult result = p.run();
     result.waitUntilFinish();
 
+    HdfsConfigs hdfsConfigs =
+        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+
+    if (incremental) {
+      log.info("Updating crawl fields of the documents which weren't written");
+      String metadataAvroPath = pathFn.apply(MetadataTransform.builder().create().getBaseName());
+      AvroReader.readObjects(hdfsConfigs, MetadataRecord.class, metadataAvroPath).stream()
+          .findFirst()
+          .ifPresent(metadata -> EsIndexUtils.updateCrawlFields(options, metadata));
+      IndexHashesUtils.commitHashes(options);
+    }
+
     log.info("Save metrics into the file and set files owner");
     MetricsHandler.saveCountersToTargetPathFile(options, result.metrics());
     String metadataPath =
         PathBuilder.buildDatasetAttemptPath(options, options.getMetaFileName(), false);
-    FsUtils.setOwner(
-        HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig()),
-        metadataPath,
-        "crap",
-        "supergroup");
+    FsUtils.setOwner(hdfsConfigs, metadataPath, "crap", "supergroup");
 
     log.info("Pipeline has been finished");
   }
@@ -10,33 +10,41 @@ import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretati
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.file.CodecFactory;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.transforms.Create;
 import org.apache.beam.sdk.transforms.View;
+import org.apache.beam.sdk.transforms.join.CoGroupByKey;
+import org.apache.beam.sdk.transforms.join.KeyedPCollectionTuple;
+import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.PCollectionView;
 import org.gbif.api.model.pipelines.StepType;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
+import org.gbif.pipelines.common.beam.coders.SpecificAvroCoderProvider;
 import org.gbif.pipelines.common.beam.metrics.MetricsHandler;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.io.AvroCodecs;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
 import org.gbif.pipelines.ingest.pipelines.interpretation.TransformsFactory;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.gbif.pipelines.io.avro.MetadataRecord;
+import org.gbif.pipelines.io.avro.Parent;
 import org.gbif.pipelines.transforms.core.EventCoreTransform;
 import org.gbif.pipelines.transforms.core.LocationTransform;
+import org.gbif.pipelines.transforms.core.ParentsLineageTransform;
 import org.gbif.pipelines.transforms.core.TaxonomyTransform;
 import org.gbif.pipelines.transforms.core.TemporalTransform;
 import org.gbif.pipelines.transforms.core.VerbatimTransform;
@@ -111,6 +119,7 @@ public class VerbatimToEventPipeline {
     // Path to write
     UnaryOperator<String> pathFn =
         t -> PathBuilder.buildPathInterpretUsingTargetPath(options, CORE_TERM, t, id);
+    CodecFactory codec = AvroCodecs.parse(options.getAvroCompressionType());
 
     // Path function for reading avro files
     UnaryOperator<String> interpretedPathFn =
@@ -118,6 +127,9 @@ public class VerbatimToEventPipeline {
 
     log.info("Creating a pipeline from options");
     Pipeline p = pipelinesFn.apply(options);
+    if (options.getUseSpecificAvroCoders()) {
+      SpecificAvroCoderProvider.register(p);
+    }
 
     // Used transforms
     MetadataTransform metadataTransform = transformsFactory.createMetadataTransform();
@@ -142,7 +154,7 @@ public class VerbatimToEventPipeline {
           p.apply("Create metadata collection", Create.of(options.getDatasetId()))
               .apply("Interpret metadata", metadataTransform.interpret());
 
-      metadataRecord.apply("Write metadata to avro", metadataTransform.write(pathFn));
+      metadataRecord.apply("Write metadata to avro", metadataTransform.write(pathFn, codec));
     } else {
       metadataRecord = p.apply("Read metadata record", metadataTransform.read(interpretedPathFn));
     }
@@ -156,61 +168,70 @@ public class VerbatimToEventPipeline {
             .apply("Filter event duplicates", transformsFactory.createUniqueIdTransform())
             .apply("Filter event extensions", transformsFactory.createExtensionFilterTransform());
 
-    // view with the records that have parents to find the hierarchy in the event core
-    // interpretation later
-    PCollectionView<Map<String, Map<String, String>>> erWithParentEventsView =
+    // lineages of the records that have parents, resolved by joins instead of a side input with
+    // all the records
+    PCollection<KV<String, List<Parent>>> parentsLineage =
         uniqueRawRecords
-            .apply(verbatimTransform.toParentEventsKv())
-            .apply("View to find parents", View.asMap());
-    eventCoreTransform.setErWithParentsView(erWithParentEventsView);
+            .apply("Map to parent events KV", verbatimTransform.toParentEventsKv())
+            .apply("Resolve parents lineage", ParentsLineageTransform.create());
 
     uniqueRawRecords
         .apply("Interpret event identifiers", identifierTransform.interpret())
-        .apply("Write event identifiers to avro", identifierTransform.write(pathFn));
+        .apply("Write event identifiers to avro", identifierTransform.write(pathFn, codec));
 
-    uniqueRawRecords
-        .apply("Check event core transform", eventCoreTransform.check(types))
-        .apply("Interpret event core", eventCoreTransform.interpret())
-        .apply("Write event core to avro", eventCoreTransform.write(pathFn));
+    PCollection<KV<String, ExtendedRecord>> eventCoreRawRecords =
+        uniqueRawRecords
+            .apply("Check event core transform", eventCoreTransform.check(types))
+            .apply("Map event core verbatim to KV", verbatimTransform.toKv());
+
+    KeyedPCollectionTuple.of(verbatimTransform.getTag(), eventCoreRawRecords)
+        .and(ParentsLineageTransform.tag(), parentsLineage)
+        .apply("Grouping event core and parents lineage", CoGroupByKey.create())
+        .apply(
+            "Interpret event core",
+            eventCoreTransform.interpret(verbatimTransform.getTag(), ParentsLineageTransform.tag()))
+        .apply("Write event core to avro", eventCoreTransform.write(pathFn, codec));
 
     uniqueRawRecords
         .apply("Check event temporal transform", temporalTransform.check(types))
         .apply("Interpret event temporal", temporalTransform.interpret())
-        .apply("Write event temporal to avro", temporalTransform.write(pathFn));
+        .apply("Write event temporal to avro", temporalTransform.write(pathFn, codec));
 
     uniqueRawRecords
         .apply("Check event taxonomy transform", taxonomyTransform.check(types))
         .apply("Interpret event taxonomy", taxonomyTransform.interpret())
-        .apply("Write event taxon to avro", taxonomyTransform.write(pathFn));
+        .apply("Write event taxon to avro", taxonomyTransform.write(pathFn, codec));
 
     uniqueRawRecords
         .apply("Check event multimedia transform", multimediaTransform.check(types))
         .apply("Interpret event multimedia", multimediaTransform.interpret())
-        .apply("Write event multimedia to avro", multimediaTransform.write(pathFn));
+        .apply("Write event multimedia to avro", multimediaTransform.write(pathFn, codec));
 
     uniqueRawRecords
         .apply("Check event audubon transform", audubonTransform.check(types))
         .apply("Interpret event audubon", audubonTransform.interpret())
-        .apply("Write event audubon to avro", audubonTransform.write(pathFn));
+        .apply("Write event audubon to avro", audubonTransform.write(pathFn, codec));
 
     uniqueRawRecords
         .apply("Check event image transform", imageTransform.check(types))
         .apply("Interpret event image", imageTransform.interpret())
-        .apply("Write event image to avro", imageTransform.write(pathFn));
+        .apply("Write event image to avro", imageTransform.write(pathFn, codec));
 
     uniqueRawRecords
         .apply("Check location transform", locationTransform.check(types))
         .apply("Interpret event location", locationTransform.interpret(metadataView))
-        .apply("Write event location to avro", locationTransform.write(pathFn));
+        .apply("Write event location to avro", locationTransform.write(pathFn, codec));
 
     uniqueRawRecords
         .apply("Check event measurementOrFact", measurementOrFactTransform.check(types))
         .apply("Interpret event measurementOrFact", measurementOrFactTransform.interpret())
-        .apply("Write event measurementOrFact to avro", measurementOrFactTransform.write(pathFn));
+        .apply(
+            "Write event measurementOrFact to avro",
+            measurementOrFactTransform.write(pathFn, codec));
 
     uniqueRawRecords
         .apply("Check event verbatim transform", verbatimTransform.check(types))
-        .apply("Write event verbatim to avro", verbatimTransform.write(pathFn));
+        .apply("Write event verbatim to avro", verbatimTransform.write(pathFn, codec));
 
     log.info("Running the pipeline");
     PipelineResult result = p.run();
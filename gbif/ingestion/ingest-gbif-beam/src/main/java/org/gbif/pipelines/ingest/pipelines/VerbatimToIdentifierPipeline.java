@@ -7,6 +7,7 @@ import java.util.function.UnaryOperator;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.file.CodecFactory;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.values.PCollectionTuple;
@@ -17,6 +18,7 @@ import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
 import org.gbif.pipelines.core.config.model.PipelinesConfig;
+import org.gbif.pipelines.core.io.AvroCodecs;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
 import org.gbif.pipelines.factory.KeygenServiceFactory;
@@ -64,6 +66,7 @@ public class VerbatimToIdentifierPipeline {
 
     UnaryOperator<String> pathFn =
         t -> PathBuilder.buildPathInterpretUsingTargetPath(options, CORE_TERM, t, id);
+    CodecFactory codec = AvroCodecs.parse(options.getAvroCompressionType());
 
     log.info("Creating a pipeline from options");
     Pipeline p = pipelinesFn.apply(options);
@@ -103,17 +106,17 @@ public class VerbatimToIdentifierPipeline {
 
     idsTuple
         .get(uniqueIdTransform.getTag())
-        .apply("Write GBIF ids to avro", idTransform.write(pathFn));
+        .apply("Write GBIF ids to avro", idTransform.write(pathFn, codec));
 
     idsTuple
         .get(uniqueIdTransform.getInvalidTag())
-        .apply("Write invalid GBIF IDs to avro", idTransform.writeInvalid(pathFn));
+        .apply("Write invalid GBIF IDs to avro", idTransform.writeInvalid(pathFn, codec));
 
     idCollection
         .get(tupleTransform.getAbsentTag())
         .apply(
             "Write absent GBIF ids to avro",
-            idTransform.write(pathFn.apply(idTransform.getAbsentName())));
+            idTransform.write(pathFn.apply(idTransform.getAbsentName()), codec));
 
     log.info("Running the pipeline");
     PipelineResult result = p.run();
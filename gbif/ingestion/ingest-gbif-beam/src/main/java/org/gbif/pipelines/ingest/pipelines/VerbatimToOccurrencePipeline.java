@@ -6,14 +6,17 @@ import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretati
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.file.CodecFactory;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
+import org.apache.beam.sdk.transforms.Combine;
 import org.apache.beam.sdk.transforms.Create;
 import org.apache.beam.sdk.transforms.Flatten;
 import org.apache.beam.sdk.transforms.View;
@@ -27,18 +30,26 @@ import org.apache.beam.sdk.values.PCollectionView;
 import org.gbif.api.model.pipelines.StepType;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
+import org.gbif.pipelines.common.beam.coders.SpecificAvroCoderProvider;
 import org.gbif.pipelines.common.beam.metrics.MetricsHandler;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
 import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.common.pojo.ValidationMetrics;
+import org.gbif.pipelines.core.io.AvroCodecs;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
 import org.gbif.pipelines.ingest.pipelines.interpretation.TransformsFactory;
+import org.gbif.pipelines.io.avro.BasicRecord;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.gbif.pipelines.io.avro.IdentifierRecord;
+import org.gbif.pipelines.io.avro.LocationRecord;
 import org.gbif.pipelines.io.avro.MetadataRecord;
+import org.gbif.pipelines.io.avro.TaxonRecord;
+import org.gbif.pipelines.io.avro.TemporalRecord;
 import org.gbif.pipelines.transforms.common.CheckTransforms;
 import org.gbif.pipelines.transforms.common.UniqueGbifIdTransform;
+import org.gbif.pipelines.transforms.common.ValidationMetricsFn;
 import org.gbif.pipelines.transforms.core.BasicTransform;
 import org.gbif.pipelines.transforms.core.GrscicollTransform;
 import org.gbif.pipelines.transforms.core.LocationTransform;
@@ -134,6 +145,7 @@ public class VerbatimToOccurrencePipeline {
     String id = Long.toString(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC));
     UnaryOperator<String> pathFn =
         t -> PathBuilder.buildPathInterpretUsingTargetPath(options, CORE_TERM, t, id);
+    CodecFactory codec = AvroCodecs.parse(options.getAvroCompressionType());
 
     // Path function for reading avro files
     UnaryOperator<String> interpretedPathFn =
@@ -157,6 +169,9 @@ public class VerbatimToOccurrencePipeline {
 
     log.info("Creating beam pipeline");
     Pipeline p = pipelinesFn.apply(options);
+    if (options.getUseSpecificAvroCoders()) {
+      SpecificAvroCoderProvider.register(p);
+    }
 
     // Create and write metadata
     PCollection<MetadataRecord> metadataRecord;
@@ -165,7 +180,7 @@ public class VerbatimToOccurrencePipeline {
           p.apply("Create metadata collection", Create.of(options.getDatasetId()))
               .apply("Interpret metadata", metadataTransform.interpret());
 
-      metadataRecord.apply("Write metadata to avro", metadataTransform.write(pathFn));
+      metadataRecord.apply("Write metadata to avro", metadataTransform.write(pathFn, codec));
     } else {
       metadataRecord = p.apply("Read metadata record", metadataTransform.read(interpretedPathFn));
     }
@@ -199,10 +214,10 @@ public class VerbatimToOccurrencePipeline {
               .apply("Lookup GBIF IDs records", idTransform.interpret())
               .apply("Filter unique GBIF ids", uniqueIdTransform);
       uniqueGbifId = idsTuple.get(uniqueIdTransform.getTag());
-      uniqueGbifId.apply("Write GBIF IDs to avro", idTransform.write(pathFn));
+      uniqueGbifId.apply("Write GBIF IDs to avro", idTransform.write(pathFn, codec));
       idsTuple
           .get(uniqueIdTransform.getInvalidTag())
-          .apply("Write invalid GBIF IDs to avro", idTransform.writeInvalid(pathFn));
+          .apply("Write invalid GBIF IDs to avro", idTransform.writeInvalid(pathFn, codec));
     } else if (useGbifIdReadIO(types)) {
       uniqueGbifId = p.apply("Read GBIF ids records", idTransform.read(interpretedPathFn));
     } else {
@@ -225,11 +240,11 @@ public class VerbatimToOccurrencePipeline {
       PCollection<IdentifierRecord> absentCreatedGbifIds =
           absentTyple.get(uniqueIdTransform.getTag());
 
-      absentCreatedGbifIds.apply("Write GBIF ids to avro", idTransform.write(pathFn));
+      absentCreatedGbifIds.apply("Write GBIF ids to avro", idTransform.write(pathFn, codec));
 
       absentTyple
           .get(uniqueIdTransform.getInvalidTag())
-          .apply("Write invalid GBIF ids to avro", idTransform.writeInvalid(pathFn));
+          .apply("Write invalid GBIF ids to avro", idTransform.writeInvalid(pathFn, codec));
 
       // Merge GBIF ids collections
       uniqueGbifId =
@@ -258,54 +273,107 @@ public class VerbatimToOccurrencePipeline {
 
     filteredUniqueRecords
         .apply("Check verbatim transform condition", verbatimTransform.check(types))
-        .apply("Write verbatim to avro", verbatimTransform.write(pathFn));
+        .apply("Write verbatim to avro", verbatimTransform.write(pathFn, codec));
 
     uniqueGbifId
         .apply(
             "Check clustering transform condition",
             clusteringTransform.check(types, IdentifierRecord.class))
         .apply("Interpret clustering", clusteringTransform.interpret())
-        .apply("Write clustering to avro", clusteringTransform.write(pathFn));
+        .apply("Write clustering to avro", clusteringTransform.write(pathFn, codec));
 
-    filteredUniqueRecords
-        .apply("Check basic transform condition", basicTransform.check(types))
-        .apply("Interpret basic", basicTransform.interpret())
-        .apply("Write basic to avro", basicTransform.write(pathFn));
+    PCollection<BasicRecord> basicRecords =
+        filteredUniqueRecords
+            .apply("Check basic transform condition", basicTransform.check(types))
+            .apply("Interpret basic", basicTransform.interpret());
+    basicRecords.apply("Write basic to avro", basicTransform.write(pathFn, codec));
 
-    filteredUniqueRecords
-        .apply("Check temporal transform condition", temporalTransform.check(types))
-        .apply("Interpret temporal", temporalTransform.interpret())
-        .apply("Write temporal to avro", temporalTransform.write(pathFn));
+    PCollection<TemporalRecord> temporalRecords =
+        filteredUniqueRecords
+            .apply("Check temporal transform condition", temporalTransform.check(types))
+            .apply("Interpret temporal", temporalTransform.interpret());
+    temporalRecords.apply("Write temporal to avro", temporalTransform.write(pathFn, codec));
 
     filteredUniqueRecords
         .apply("Check multimedia transform condition", multimediaTransform.check(types))
         .apply("Interpret multimedia", multimediaTransform.interpret())
-        .apply("Write multimedia to avro", multimediaTransform.write(pathFn));
+        .apply("Write multimedia to avro", multimediaTransform.write(pathFn, codec));
 
     filteredUniqueRecords
         .apply("Check image transform condition", imageTransform.check(types))
         .apply("Interpret image", imageTransform.interpret())
-        .apply("Write image to avro", imageTransform.write(pathFn));
+        .apply("Write image to avro", imageTransform.write(pathFn, codec));
 
     filteredUniqueRecords
         .apply("Check audubon transform condition", audubonTransform.check(types))
         .apply("Interpret audubon", audubonTransform.interpret())
-        .apply("Write audubon to avro", audubonTransform.write(pathFn));
+        .apply("Write audubon to avro", audubonTransform.write(pathFn, codec));
 
-    filteredUniqueRecords
-        .apply("Check taxonomy transform condition", taxonomyTransform.check(types))
-        .apply("Interpret taxonomy", taxonomyTransform.interpret())
-        .apply("Write taxon to avro", taxonomyTransform.write(pathFn));
+    PCollection<TaxonRecord> taxonRecords =
+        filteredUniqueRecords
+            .apply("Check taxonomy transform condition", taxonomyTransform.check(types))
+            .apply("Interpret taxonomy", taxonomyTransform.interpret());
+    taxonRecords.apply("Write taxon to avro", taxonomyTransform.write(pathFn, codec));
 
     filteredUniqueRecords
         .apply("Check grscicoll transform condition", grscicollTransform.check(types))
         .apply("Interpret grscicoll", grscicollTransform.interpret(metadataView))
-        .apply("Write grscicoll to avro", grscicollTransform.write(pathFn));
-
-    filteredUniqueRecords
-        .apply("Check location transform condition", locationTransform.check(types))
-        .apply("Interpret location", locationTransform.interpret(metadataView))
-        .apply("Write location to avro", locationTransform.write(pathFn));
+        .apply("Write grscicoll to avro", grscicollTransform.write(pathFn, codec));
+
+    PCollection<LocationRecord> locationRecords =
+        filteredUniqueRecords
+            .apply("Check location transform condition", locationTransform.check(types))
+            .apply("Interpret location", locationTransform.interpret(metadataView));
+    locationRecords.apply("Write location to avro", locationTransform.write(pathFn, codec));
+
+    // Summary of raw terms, interpreted fields and issues for the validator
+    String validationMetricsFileName = options.getValidationMetricsFileName();
+    if (validationMetricsFileName != null && !validationMetricsFileName.isEmpty()) {
+      String rowType = CORE_TERM.qualifiedName();
+      PCollection<ValidationMetrics> validationMetrics =
+          PCollectionList.of(
+                  filteredUniqueRecords.apply(
+                      "Verbatim validation metrics",
+                      Combine.globally(ValidationMetricsFn.verbatim(rowType))))
+              .and(
+                  basicRecords.apply(
+                      "Basic validation metrics",
+                      Combine.globally(ValidationMetricsFn.<BasicRecord>interpreted(rowType))))
+              .and(
+                  temporalRecords.apply(
+                      "Temporal validation metrics",
+                      Combine.globally(ValidationMetricsFn.<TemporalRecord>interpreted(rowType))))
+              .and(
+                  taxonRecords.apply(
+                      "Taxonomy validation metrics",
+                      Combine.globally(ValidationMetricsFn.<TaxonRecord>interpreted(rowType))))
+              .and(
+                  locationRecords.apply(
+                      "Location validation metrics",
+                      Combine.globally(ValidationMetricsFn.<LocationRecord>interpreted(rowType))))
+              .apply("Flatten validation metrics", Flatten.pCollections())
+              .apply("Merge validation metrics", Combine.globally(ValidationMetricsFn.merge()));
+
+      // Related data of the issue samples is read from the verbatim records of the samples
+      PCollectionView<ValidationMetrics> validationMetricsView =
+          validationMetrics.apply("Validation metrics view", View.asSingleton());
+      PCollectionView<List<ExtendedRecord>> issueSamplesView =
+          filteredUniqueRecords
+              .apply(
+                  "Filter issue samples",
+                  ValidationMetricsFn.issueSamples(rowType, validationMetricsView))
+              .apply("Issue samples view", View.asList());
+
+      validationMetrics
+          .apply(
+              "Add related data to issue samples",
+              ValidationMetricsFn.relatedData(rowType, issueSamplesView))
+          .apply(
+              "Write validation metrics",
+              ValidationMetricsFn.write(
+                  hdfsConfigs,
+                  PathBuilder.buildDatasetAttemptPath(options, validationMetricsFileName, false)));
+    }
 
     log.info("Running the pipeline");
     PipelineResult result = p.run();
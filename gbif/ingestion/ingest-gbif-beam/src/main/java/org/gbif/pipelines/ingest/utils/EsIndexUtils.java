@@ -20,13 +20,16 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.pipelines.common.beam.options.EsIndexingPipelineOptions;
 import org.gbif.pipelines.core.config.model.LockConfig;
+import org.gbif.pipelines.core.converters.JsonConverter;
 import org.gbif.pipelines.estools.EsIndex;
 import org.gbif.pipelines.estools.client.EsClient;
 import org.gbif.pipelines.estools.client.EsConfig;
+import org.gbif.pipelines.estools.model.BulkLoadParams;
 import org.gbif.pipelines.estools.model.IndexParams;
 import org.gbif.pipelines.estools.service.EsConstants.Field;
 import org.gbif.pipelines.estools.service.EsConstants.Indexing;
 import org.gbif.pipelines.estools.service.EsService;
+import org.gbif.pipelines.io.avro.MetadataRecord;
 import org.gbif.wrangler.lock.Mutex;
 
 @Slf4j
@@ -152,9 +155,7 @@ public class EsIndexUtils {
 
     // we first check if there are indexes to swap to avoid unnecessary locks
     if (idxToAdd != null || !idxToRemove.isEmpty()) {
-      Map<String, String> searchSettings = new HashMap<>(2);
-      searchSettings.put(Field.INDEX_REFRESH_INTERVAL, options.getIndexRefreshInterval());
-      searchSettings.put(Field.INDEX_NUMBER_REPLICAS, options.getIndexNumberReplicas().toString());
+      Map<String, String> searchSettings = createSearchSettings(options);
 
       Mutex.Action action =
           () ->
@@ -172,6 +173,35 @@ public class EsIndexUtils {
     }
   }
 
+  /**
+   * Connects to Elasticsearch instance and runs the pipeline in a bulk load session if the index is
+   * independent (contains only one dataset), the index is force-merged after the load and the
+   * search settings are restored even if the pipeline fails. Shared indexes are searched during the
+   * load, the pipeline runs without changing their settings.
+   */
+  public static void bulkLoad(EsIndexingPipelineOptions options, Runnable pipeline) {
+    if (!options.getEsIndexName().startsWith(options.getDatasetId())) {
+      pipeline.run();
+      return;
+    }
+
+    BulkLoadParams params =
+        BulkLoadParams.builder()
+            .searchSettings(createSearchSettings(options))
+            .maxNumSegments(options.getIndexMaxNumSegments())
+            .build();
+
+    EsIndex.bulkLoad(
+        EsConfig.from(options.getEsHosts()), options.getEsIndexName(), params, pipeline);
+  }
+
+  private static Map<String, String> createSearchSettings(EsIndexingPipelineOptions options) {
+    Map<String, String> searchSettings = new HashMap<>(2);
+    searchSettings.put(Field.INDEX_REFRESH_INTERVAL, options.getIndexRefreshInterval());
+    searchSettings.put(Field.INDEX_NUMBER_REPLICAS, options.getIndexNumberReplicas().toString());
+    return searchSettings;
+  }
+
   /**
    * Connects to Elasticsearch instance and deletes records in an index by datasetId and returns the
    * indexes where the dataset was present
@@ -187,6 +217,65 @@ public class EsIndexUtils {
         options.getSearchQueryAttempts());
   }
 
+  /**
+   * Checks if the dataset can be indexed incrementally instead of deleting its records: the dataset
+   * must be present only in the target index, with a document per hash of the last indexing. The
+   * hashes of the dataset are deleted otherwise, so the pipeline indexes all documents and saves
+   * new hashes. See {@link IndexHashesUtils}.
+   *
+   * @param pipelineSupported the indexing pipeline handles the index hashes, otherwise the dataset
+   *     is indexed fully and the hashes are deleted, they are outdated after the indexing
+   */
+  public static boolean prepareIncrementalIndexing(
+      EsIndexingPipelineOptions options, boolean pipelineSupported) {
+    if (!pipelineSupported || !IndexHashesUtils.isSupported(options)) {
+      IndexHashesUtils.deleteHashes(options);
+      return false;
+    }
+
+    Optional<Long> hashesCount = IndexHashesUtils.readCurrentCount(options);
+    Map<String, Long> documentsCount =
+        EsIndex.countDatasetDocumentsInAliases(
+            EsConfig.from(options.getEsHosts()), options.getEsAlias(), options.getDatasetId());
+
+    boolean incremental =
+        hashesCount.isPresent()
+            && documentsCount.size() == 1
+            && hashesCount.get().equals(documentsCount.get(options.getEsIndexName()))
+            && IndexHashesUtils.usePreviousHashes(options);
+
+    if (incremental) {
+      log.info("Dataset is indexed incrementally, {} documents in ES", hashesCount.get());
+    } else {
+      log.info(
+          "Dataset is indexed fully, {} hashes, documents in ES {}",
+          hashesCount.orElse(null),
+          documentsCount);
+      IndexHashesUtils.deleteHashes(options);
+    }
+    return incremental;
+  }
+
+  /**
+   * Sets crawlId, lastCrawled and created of the metadata to the documents of the dataset which the
+   * incremental indexing didn't write because their content didn't change
+   */
+  public static void updateCrawlFields(EsIndexingPipelineOptions options, MetadataRecord metadata) {
+    if (metadata.getCrawlId() == null) {
+      log.info("Crawl fields aren't updated, the dataset has no crawl id");
+      return;
+    }
+    EsIndex.updateCrawlFieldsByDatasetId(
+        EsConfig.from(options.getEsHosts()),
+        options.getEsIndexName(),
+        options.getDatasetId(),
+        metadata.getCrawlId(),
+        JsonConverter.convertToDate(metadata.getLastCrawled()).orElse(null),
+        JsonConverter.convertToDate(metadata.getCreated()).orElse(null),
+        options.getSearchQueryTimeoutSec(),
+        options.getSearchQueryAttempts());
+  }
+
   /**
    * Connects to Elasticsearch instance and refreshes index to make queries work without waiting for
    * an update timeout
@@ -0,0 +1,164 @@
+package org.gbif.pipelines.ingest.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.io.TextIO;
+import org.apache.beam.sdk.transforms.Count;
+import org.apache.beam.sdk.transforms.MapElements;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.TypeDescriptors;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.gbif.api.vocabulary.DatasetType;
+import org.gbif.pipelines.common.beam.options.EsIndexingPipelineOptions;
+import org.gbif.pipelines.common.beam.utils.PathBuilder;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.core.utils.FsUtils;
+
+/**
+ * Stores the document hashes of the incremental indexing, see {@link
+ * org.gbif.pipelines.transforms.common.IndexDiffTransform}. The hashes are kept per dataset and
+ * index, uses pattern for path - "{targetPath}/{datasetId}/index-hashes/{esIndexName}/{name}":
+ *
+ * <pre>
+ *   current   - hashes of the last successful indexing and their number in count.txt
+ *   previous  - hashes the running indexing compares the documents with
+ *   {attempt} - hashes of the running indexing, they become current when the indexing succeeds
+ * </pre>
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class IndexHashesUtils {
+
+  private static final String INDEX_HASHES = "index-hashes";
+  private static final String CURRENT = "current";
+  private static final String PREVIOUS = "previous";
+  private static final String HASHES = "hashes";
+  private static final String COUNT = "count";
+
+  /**
+   * The incremental indexing is used for occurrence datasets in shared indexes, an independent
+   * index is new on every indexing
+   */
+  public static boolean isSupported(EsIndexingPipelineOptions options) {
+    String esDocumentId = options.getEsDocumentId();
+    return options.getEsIncrementalIndexing()
+        && DatasetType.OCCURRENCE == options.getDatasetType()
+        && !options.getEsIndexName().startsWith(options.getDatasetId())
+        && esDocumentId != null
+        && !esDocumentId.isEmpty();
+  }
+
+  /** Reads the number of hashes of the last successful indexing */
+  public static Optional<Long> readCurrentCount(EsIndexingPipelineOptions options) {
+    String path = buildPath(options, CURRENT, COUNT + ".txt");
+    HdfsConfigs hdfsConfigs = createHdfsConfigs(options);
+    if (!FsUtils.fileExists(hdfsConfigs, path)) {
+      return Optional.empty();
+    }
+
+    FileSystem fs = FsUtils.getFileSystem(hdfsConfigs, path);
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(fs.open(new Path(path)), StandardCharsets.UTF_8))) {
+      return Optional.of(Long.parseLong(reader.readLine().trim()));
+    } catch (IOException | RuntimeException ex) {
+      log.warn("Can't read the number of index hashes from {}", path, ex);
+      return Optional.empty();
+    }
+  }
+
+  /** Makes the current hashes the previous hashes, the running indexing compares them */
+  public static boolean usePreviousHashes(EsIndexingPipelineOptions options) {
+    Path current = new Path(buildPath(options, CURRENT));
+    Path previous = new Path(buildPath(options, PREVIOUS));
+    FileSystem fs = FsUtils.getFileSystem(createHdfsConfigs(options), current.toString());
+    try {
+      fs.delete(previous, true);
+      return fs.rename(current, previous);
+    } catch (IOException ex) {
+      log.warn("Can't move index hashes {} to {}", current, previous, ex);
+      return false;
+    }
+  }
+
+  /** Deletes the hashes of the dataset, the next indexing indexes all documents */
+  public static void deleteHashes(EsIndexingPipelineOptions options) {
+    String path =
+        PathBuilder.buildPath(options.getTargetPath(), options.getDatasetId(), INDEX_HASHES)
+            .toString();
+    if (FsUtils.deleteIfExist(createHdfsConfigs(options), path)) {
+      log.info("Index hashes {} deleted", path);
+    }
+  }
+
+  /** Reads the previous hashes, returns null if there are no previous hashes */
+  public static PCollection<String> readPreviousHashes(
+      Pipeline p, EsIndexingPipelineOptions options) {
+    String path = buildPath(options, PREVIOUS);
+    if (!FsUtils.fileExists(createHdfsConfigs(options), path)) {
+      return null;
+    }
+    return p.apply("Read previous index hashes", TextIO.read().from(path + "/" + HASHES + "*"));
+  }
+
+  /** Writes the hashes and their number of the running indexing */
+  public static void writeHashes(PCollection<String> hashes, EsIndexingPipelineOptions options) {
+    String path = buildPath(options, options.getAttempt().toString());
+    FsUtils.deleteIfExist(createHdfsConfigs(options), path);
+
+    hashes.apply("Write index hashes", TextIO.write().to(path + "/" + HASHES).withSuffix(".tsv"));
+    hashes
+        .apply("Count index hashes", Count.globally())
+        .apply(
+            "Convert count to string",
+            MapElements.into(TypeDescriptors.strings()).via(count -> Long.toString(count)))
+        .apply(
+            "Write index hashes count",
+            TextIO.write().to(path + "/" + COUNT).withSuffix(".txt").withoutSharding());
+  }
+
+  /** Makes the hashes of the successful indexing the current hashes */
+  public static void commitHashes(EsIndexingPipelineOptions options) {
+    Path attempt = new Path(buildPath(options, options.getAttempt().toString()));
+    Path current = new Path(buildPath(options, CURRENT));
+    FileSystem fs = FsUtils.getFileSystem(createHdfsConfigs(options), current.toString());
+    try {
+      fs.delete(current, true);
+      if (fs.rename(attempt, current)) {
+        fs.delete(new Path(buildPath(options, PREVIOUS)), true);
+        log.info("Index hashes {} committed", current);
+        return;
+      }
+      log.warn("Can't move index hashes {} to {}", attempt, current);
+    } catch (IOException ex) {
+      log.warn("Can't commit index hashes {}", attempt, ex);
+    }
+    // Without current hashes the next indexing indexes all documents
+    deleteHashes(options);
+  }
+
+  private static String buildPath(EsIndexingPipelineOptions options, String... names) {
+    Path path =
+        PathBuilder.buildPath(
+            options.getTargetPath(),
+            options.getDatasetId(),
+            INDEX_HASHES,
+            options.getEsIndexName());
+    for (String name : names) {
+      path = new Path(path, name);
+    }
+    return path.toString();
+  }
+
+  private static HdfsConfigs createHdfsConfigs(EsIndexingPipelineOptions options) {
+    return HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig());
+  }
+}
@@ -6,15 +6,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.Phaser;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.SneakyThrows;
@@ -24,8 +20,10 @@ import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.Table;
 import org.gbif.api.vocabulary.EndpointType;
 import org.gbif.converters.parser.xml.parsing.validators.UniquenessValidator;
+import org.gbif.pipelines.fragmenter.common.FragmentMutator;
 import org.gbif.pipelines.fragmenter.common.HbaseStore;
 import org.gbif.pipelines.fragmenter.common.RawRecord;
+import org.gbif.pipelines.fragmenter.common.StagedPipeline;
 import org.gbif.pipelines.fragmenter.record.OccurrenceRecordConverter;
 import org.gbif.pipelines.fragmenter.strategy.DwcaStrategy;
 import org.gbif.pipelines.fragmenter.strategy.Strategy;
@@ -40,8 +38,13 @@ import org.gbif.pipelines.keygen.config.KeygenConfig;
  *
  * <p>Processing workflow: 1. Read a dwca/xml archive 2. Collect raw records into small batches
  * (batch size is configurable) 3. Get or create GBIF id for each element of the batch and create
- * keys (salt + ":" + GBIF id) 4. Get **dateCreated** from the table using GBIF id, if a record is
- * exist 5. Create HBase put(create new or update existing) records and upload them into HBase
+ * keys (salt + ":" + GBIF id) 4. Get **hashValue** and **dateCreated** from the table using GBIF
+ * id, with one multi-Get per chunk of keys, and skip unchanged records 5. Create HBase put(create
+ * new or update existing) records and upload them into HBase through a buffered mutator
+ *
+ * <p>In sync mode all steps run in the caller thread. In async mode the caller thread only reads
+ * the archive, steps 3 and 4-5 run in parallel stages of a {@link StagedPipeline}, connected by
+ * queues of backPressure batches, and the throughput of each stage is logged at the end.
  *
  * <pre>{@code
  * long recordsProcessed = FragmentsUploader.dwcaBuilder()
@@ -83,11 +86,21 @@ public class FragmentPersister {
 
   @Builder.Default private int batchSize = 100;
 
+  // number of keys read with one multi-Get when the hash values are compared
+  @Builder.Default private int hbaseGetBatchSize = 500;
+
+  // bytes buffered before the puts are sent to HBase
+  @Builder.Default private long hbaseWriteBufferSize = 8L * 1024L * 1024L;
+
   @Builder.Default private boolean useSyncMode = true;
 
   @Builder.Default private boolean generateIdIfAbsent = false;
 
-  @Builder.Default private ExecutorService executor = Executors.newSingleThreadExecutor();
+  // async mode: threads converting batches and computing the hash values
+  @Builder.Default private int convertThreads = 2;
+
+  // async mode: threads filtering batches by the hash values and writing them
+  @Builder.Default private int writeThreads = 2;
 
   private Integer backPressure;
 
@@ -105,11 +118,9 @@ public class FragmentPersister {
   public long persist() {
 
     // Init values
-    final Phaser phaser = new Phaser(1);
     final AtomicInteger occurrenceCounter = new AtomicInteger(0);
-    final Queue<List<OccurrenceRecord>> rows = new LinkedBlockingQueue<>();
-    final Consumer<OccurrenceRecord> addRowFn =
-        r -> Optional.ofNullable(rows.peek()).ifPresent(req -> req.add(r));
+    final AtomicReference<List<OccurrenceRecord>> rows =
+        new AtomicReference<>(new ArrayList<>(batchSize));
     final Connection connection =
         Optional.ofNullable(hbaseConnection)
             .orElse(
@@ -118,67 +129,81 @@ public class FragmentPersister {
     final HBaseLockingKeyService keygenService =
         new HBaseLockingKeyService(keygenConfig, connection, datasetKey);
 
-    rows.add(new ArrayList<>(batchSize));
-
     log.info("Uploadind fragments from {}", pathToArchive);
     try (Table table = connection.getTable(TableName.valueOf(tableName));
+        FragmentMutator mutator =
+            FragmentMutator.create(connection, tableName, hbaseWriteBufferSize);
         UniquenessValidator validator = UniquenessValidator.getNewInstance()) {
 
-      // Main function receives batch and puts it into HBase table
-      Consumer<List<OccurrenceRecord>> hbaseBulkFn =
-          l -> {
-            Map<String, RawRecord> map =
-                OccurrenceRecordConverter.convert(
-                    keygenService, validator, useTriplet, useOccurrenceId, generateIdIfAbsent, l);
+      // Converts a batch into raw records with GBIF ids and hash values
+      Function<List<OccurrenceRecord>, Map<String, RawRecord>> convertFn =
+          l ->
+              OccurrenceRecordConverter.convert(
+                  keygenService, validator, useTriplet, useOccurrenceId, generateIdIfAbsent, l);
 
-            map = HbaseStore.filterRecordsByHash(table, map);
+      // Puts new and changed records into HBase table
+      ToIntFunction<Map<String, RawRecord>> writeFn =
+          m -> {
+            Map<String, RawRecord> map =
+                HbaseStore.filterAndPutRecords(
+                    table, mutator, datasetKey, attempt, endpointType, m, hbaseGetBatchSize);
 
             if (!map.isEmpty()) {
-              HbaseStore.putRecords(table, datasetKey, attempt, endpointType, map);
-
               int recordsReturned = occurrenceCounter.addAndGet(map.size());
               if (recordsReturned % 10_000 == 0) {
                 log.info("{}_{}: Pushed [{}] records", datasetKey, attempt, recordsReturned);
               }
             }
-
-            phaser.arriveAndDeregister();
+            return map.size();
           };
 
-      // Function gets a batch and pushed using sync or async way
-      Runnable pushIntoHbaseFn =
-          () ->
-              Optional.ofNullable(rows.poll())
-                  .filter(req -> !req.isEmpty())
-                  .ifPresent(
-                      req -> {
-                        phaser.register();
-                        if (useSyncMode) {
-                          hbaseBulkFn.accept(req);
-                        } else {
-                          CompletableFuture.runAsync(() -> hbaseBulkFn.accept(req), executor);
-                        }
-                      });
-
-      // Function accumulates and pushes batches
-      Consumer<OccurrenceRecord> batchAndPushFn =
-          record -> {
-            checkBackpressure(phaser);
-            addRowFn.accept(record);
-            List<OccurrenceRecord> peek = rows.peek();
-            if (peek == null || peek.size() > batchSize - 1) {
-              pushIntoHbaseFn.run();
-              rows.add(new ArrayList<>(batchSize));
-            }
-          };
+      // Sync mode runs all stages in the caller thread, async mode runs them in a staged pipeline
+      try (StagedPipeline<OccurrenceRecord, Map<String, RawRecord>> pipeline =
+          useSyncMode
+              ? null
+              : new StagedPipeline<>(
+                  datasetKey + "_" + attempt,
+                  convertThreads,
+                  writeThreads,
+                  getQueueCapacity(),
+                  convertFn,
+                  writeFn)) {
+
+        Consumer<List<OccurrenceRecord>> pushFn =
+            l -> {
+              if (pipeline == null) {
+                writeFn.applyAsInt(convertFn.apply(l));
+              } else {
+                pipeline.push(l);
+              }
+            };
+
+        // Function accumulates and pushes batches
+        Consumer<OccurrenceRecord> batchAndPushFn =
+            record -> {
+              List<OccurrenceRecord> batch = rows.get();
+              batch.add(record);
+              if (batch.size() >= batchSize) {
+                pushFn.accept(batch);
+                rows.set(new ArrayList<>(batchSize));
+              }
+            };
 
-      strategy.process(pathToArchive, batchAndPushFn);
+        strategy.process(pathToArchive, batchAndPushFn);
+
+        // Final push
+        if (!rows.get().isEmpty()) {
+          pushFn.accept(rows.get());
+        }
 
-      // Final push
-      pushIntoHbaseFn.run();
+        // Wait for all async stages
+        if (pipeline != null) {
+          pipeline.finish();
+        }
+      }
 
-      // Wait for all async jobs
-      phaser.arriveAndAwaitAdvance();
+      // Send the buffered puts, the mutator reports failed puts here
+      mutator.flush();
     }
 
     return occurrenceCounter.get();
@@ -193,21 +218,8 @@ public class FragmentPersister {
     }
   }
 
-  /**
-   * If the mode is async, check back pressure, the number of running async tasks must be less than
-   * backPressure setting
-   */
-  private void checkBackpressure(Phaser phaser) {
-    if (!useSyncMode && backPressure != null && backPressure > 0) {
-      while (phaser.getUnarrivedParties() > backPressure) {
-        log.debug("Back pressure barrier: pushing too much data, waiting...");
-        try {
-          TimeUnit.MILLISECONDS.sleep(200L);
-        } catch (InterruptedException ex) {
-          log.warn("Back pressure barrier", ex);
-          Thread.currentThread().interrupt();
-        }
-      }
-    }
+  /** In async mode, backPressure is the number of batches waiting between two stages */
+  private int getQueueCapacity() {
+    return backPressure != null && backPressure > 0 ? backPressure : 2 * convertThreads;
   }
 }
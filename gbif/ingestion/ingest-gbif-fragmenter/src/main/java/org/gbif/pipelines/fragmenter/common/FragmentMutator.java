@@ -0,0 +1,69 @@
+package org.gbif.pipelines.fragmenter.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.BufferedMutatorParams;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Put;
+
+/**
+ * Buffered mutator of the fragment table which keeps the keys of the puts written since the last
+ * flush, the puts are flushed only before a key of them is read again
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class FragmentMutator implements Closeable {
+
+  // the buffer sends the puts by itself when it is full, the kept keys are only a superset
+  private static final int MAX_PENDING_KEYS = 100_000;
+
+  private final BufferedMutator mutator;
+  private final Set<String> pendingKeys = new HashSet<>();
+
+  /** Creates a mutator for the table, writeBufferSize is the size of the write buffer in bytes */
+  @SneakyThrows
+  public static FragmentMutator create(
+      Connection connection, String tableName, long writeBufferSize) {
+    BufferedMutatorParams params =
+        new BufferedMutatorParams(TableName.valueOf(tableName)).writeBufferSize(writeBufferSize);
+    return new FragmentMutator(connection.getBufferedMutator(params));
+  }
+
+  /** Flushes the buffered puts if any of the keys was written since the last flush */
+  public synchronized void flushIfPending(Collection<String> keys) throws IOException {
+    for (String key : keys) {
+      if (pendingKeys.contains(key)) {
+        flush();
+        return;
+      }
+    }
+  }
+
+  /** Buffers the puts of the keys */
+  public synchronized void mutate(Collection<String> keys, List<Put> puts) throws IOException {
+    mutator.mutate(puts);
+    pendingKeys.addAll(keys);
+    if (pendingKeys.size() > MAX_PENDING_KEYS) {
+      flush();
+    }
+  }
+
+  public synchronized void flush() throws IOException {
+    mutator.flush();
+    pendingKeys.clear();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    mutator.close();
+    pendingKeys.clear();
+  }
+}
@@ -4,6 +4,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +17,7 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.gbif.api.vocabulary.EndpointType;
@@ -87,6 +89,69 @@ public class HbaseStore {
         .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y));
   }
 
+  /**
+   * Batched version of {@link #filterRecordsByHash} and {@link #putRecords}, reads the hash value
+   * and the created date of the records with one multi-Get per chunk of getBatchSize keys, skips
+   * the records with the same hash value and writes the others through the mutator, which sends
+   * them to HBase when its write buffer is full or when it is flushed. A key which appears again in
+   * the run must see the hash value and the created date it was written with, so the mutator is
+   * flushed before the Gets when some of the keys are still buffered
+   *
+   * @return records which were written
+   */
+  @SneakyThrows
+  public static Map<String, RawRecord> filterAndPutRecords(
+      Table table,
+      FragmentMutator mutator,
+      String datasetKey,
+      Integer attempt,
+      EndpointType endpointType,
+      Map<String, RawRecord> fragmentsMap,
+      int getBatchSize) {
+
+    if (getBatchSize < 1) {
+      throw new IllegalArgumentException("HBase get batch size must be positive: " + getBatchSize);
+    }
+
+    mutator.flushIfPending(fragmentsMap.keySet());
+
+    List<String> keys = new ArrayList<>(fragmentsMap.keySet());
+    Map<String, RawRecord> changedMap = new HashMap<>(fragmentsMap.size());
+    List<Put> putList = new ArrayList<>(fragmentsMap.size());
+
+    for (int from = 0; from < keys.size(); from += getBatchSize) {
+      List<String> chunk = keys.subList(from, Math.min(from + getBatchSize, keys.size()));
+      List<Get> getList =
+          chunk.stream()
+              .map(HbaseStore::createHashValueCreatedDateGet)
+              .collect(Collectors.toList());
+      Result[] results = table.get(getList);
+
+      for (int i = 0; i < chunk.size(); i++) {
+        String key = chunk.get(i);
+        RawRecord raw = fragmentsMap.get(key);
+        byte[] hashValue = results[i].getValue(FF_BYTES, HVQ_BYTES);
+        if (hashValue == null || !raw.getHashValue().equals(new String(hashValue, UTF_8))) {
+          byte[] created = results[i].getValue(FF_BYTES, DCQ_BYTES);
+          putList.add(
+              createFragmentPut(
+                  datasetKey,
+                  attempt,
+                  endpointType.name(),
+                  key,
+                  raw,
+                  created == null ? null : Bytes.toLong(created)));
+          changedMap.put(key, raw);
+        }
+      }
+    }
+
+    if (!putList.isEmpty()) {
+      mutator.mutate(changedMap.keySet(), putList);
+    }
+    return changedMap;
+  }
+
   private static Map<String, Long> getCreatedDateMap(
       Table table, Map<String, RawRecord> fragmentsMap) throws IOException {
 
@@ -138,6 +203,13 @@ public class HbaseStore {
     return get;
   }
 
+  private static Get createHashValueCreatedDateGet(String key) {
+    Get get = new Get(Bytes.toBytes(key));
+    get.addColumn(FF_BYTES, HVQ_BYTES);
+    get.addColumn(FF_BYTES, DCQ_BYTES);
+    return get;
+  }
+
   public static byte[] getFragmentFamily() {
     return FF_BYTES;
   }
@@ -0,0 +1,75 @@
+package org.gbif.pipelines.fragmenter.common;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and queue depth of one stage of a {@link StagedPipeline}, shared by the threads of the
+ * stage. The time is the time spent in the stage, for the read stage the time blocked by a full
+ * queue, and the queue depth is sampled after each batch.
+ */
+public class StageMetrics {
+
+  private final String stage;
+  private final LongAdder batches = new LongAdder();
+  private final AtomicLong records = new AtomicLong();
+  private final LongAdder nanos = new LongAdder();
+  private final LongAdder queueDepthSum = new LongAdder();
+  private final LongAccumulator queueDepthMax = new LongAccumulator(Math::max, 0L);
+
+  public StageMetrics(String stage) {
+    this.stage = stage;
+  }
+
+  public void add(int records, long nanos, int queueDepth) {
+    this.batches.increment();
+    this.records.addAndGet(records);
+    this.nanos.add(nanos);
+    this.queueDepthSum.add(queueDepth);
+    this.queueDepthMax.accumulate(queueDepth);
+  }
+
+  public long getBatches() {
+    return batches.sum();
+  }
+
+  public long getRecords() {
+    return records.get();
+  }
+
+  public long getMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+  }
+
+  public double getAvgQueueDepth() {
+    long b = batches.sum();
+    return b == 0 ? 0d : (double) queueDepthSum.sum() / b;
+  }
+
+  public long getMaxQueueDepth() {
+    return queueDepthMax.get();
+  }
+
+  /** Records per second of the time spent in the stage */
+  public double getThroughput() {
+    long n = nanos.sum();
+    return n == 0 ? 0d : records.get() * 1_000_000_000d / n;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        Locale.ROOT,
+        "%s stage: %d records in %d batches, %d ms, %.0f records/s, queue depth avg %.1f max %d",
+        stage,
+        getRecords(),
+        getBatches(),
+        getMillis(),
+        getThroughput(),
+        getAvgQueueDepth(),
+        getMaxQueueDepth());
+  }
+}
@@ -0,0 +1,246 @@
+package org.gbif.pipelines.fragmenter.common;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.pipelines.common.PipelinesException;
+
+/**
+ * Bounded pipeline of three stages connected by blocking queues: the caller thread reads and pushes
+ * batches, conversion threads convert them and writer threads write the converted batches. A full
+ * queue blocks the stage before it, so a slow writer slows down the reader instead of buffering the
+ * archive in memory.
+ *
+ * <pre>{@code
+ * try (StagedPipeline<OccurrenceRecord, Map<String, RawRecord>> pipeline =
+ *     new StagedPipeline<>("dataset_1", 2, 2, 4, convertFn, writeFn)) {
+ *   strategy.process(path, r -> ... pipeline.push(batch));
+ *   long written = pipeline.finish();
+ * }
+ * }</pre>
+ *
+ * <p>The first failure of a stage, including an {@link Error}, stops the work: the remaining
+ * batches are dropped, {@link #push(List)} and {@link #finish()} stop waiting for the stages and
+ * rethrow the failure. The stage threads are interrupted then, and {@link #finish()} and {@link
+ * #close()} wait up to {@value #STOP_SECONDS} seconds for them to stop, so the resources used by
+ * the stage functions are not closed under a running stage.
+ */
+@Slf4j
+public class StagedPipeline<T, R> implements AutoCloseable {
+
+  private static final Object END = new Object();
+  private static final long POLL_MS = 100;
+  private static final long STOP_SECONDS = 60;
+
+  private final String name;
+  private final int convertThreads;
+  private final int writeThreads;
+  private final Function<List<T>, R> convertFn;
+  private final ToIntFunction<R> writeFn;
+
+  private final BlockingQueue<Object> convertQueue;
+  private final BlockingQueue<Object> writeQueue;
+  private final ExecutorService executor;
+  private final AtomicInteger runningConverters;
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  @Getter private final StageMetrics readMetrics = new StageMetrics("read");
+  @Getter private final StageMetrics convertMetrics = new StageMetrics("convert");
+  @Getter private final StageMetrics writeMetrics = new StageMetrics("write");
+
+  /**
+   * @param name used in the thread names and the logs
+   * @param convertThreads number of threads of the conversion stage
+   * @param writeThreads number of threads of the writer stage
+   * @param queueCapacity number of batches a queue between two stages can hold
+   * @param convertFn converts a batch of records
+   * @param writeFn writes a converted batch, returns the number of written records
+   */
+  public StagedPipeline(
+      String name,
+      int convertThreads,
+      int writeThreads,
+      int queueCapacity,
+      Function<List<T>, R> convertFn,
+      ToIntFunction<R> writeFn) {
+    if (convertThreads < 1 || writeThreads < 1 || queueCapacity < 1) {
+      throw new IllegalArgumentException(
+          "Number of threads and queue capacity must be positive: "
+              + convertThreads
+              + ", "
+              + writeThreads
+              + ", "
+              + queueCapacity);
+    }
+    this.name = name;
+    this.convertThreads = convertThreads;
+    this.writeThreads = writeThreads;
+    this.convertFn = convertFn;
+    this.writeFn = writeFn;
+    this.convertQueue = new ArrayBlockingQueue<>(queueCapacity);
+    this.writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+    this.runningConverters = new AtomicInteger(convertThreads);
+
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor =
+        Executors.newFixedThreadPool(
+            convertThreads + writeThreads,
+            r -> {
+              Thread thread = new Thread(r, name + "-stage-" + threadCounter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    for (int i = 0; i < convertThreads; i++) {
+      executor.execute(this::convert);
+    }
+    for (int i = 0; i < writeThreads; i++) {
+      executor.execute(this::write);
+    }
+  }
+
+  /** Pushes a batch to the conversion stage, blocks while the conversion queue is full */
+  public void push(List<T> batch) {
+    checkFailure();
+    if (batch.isEmpty()) {
+      return;
+    }
+    long start = System.nanoTime();
+    offer(batch);
+    readMetrics.add(batch.size(), System.nanoTime() - start, convertQueue.size());
+  }
+
+  /**
+   * Waits until all pushed batches are written, stops the stage threads and logs the metrics
+   *
+   * @return number of written records
+   */
+  @SneakyThrows
+  public long finish() {
+    try {
+      for (int i = 0; i < convertThreads; i++) {
+        offer(END);
+      }
+      executor.shutdown();
+      // A failure stops the work, the stage threads are not waited for
+      while (failure.get() == null && !executor.awaitTermination(POLL_MS, TimeUnit.MILLISECONDS)) {
+        log.debug("{}: waiting for the stages to finish", name);
+      }
+    } finally {
+      stop();
+      log.info("{}: {}", name, readMetrics);
+      log.info("{}: {}", name, convertMetrics);
+      log.info("{}: {}", name, writeMetrics);
+    }
+    checkFailure();
+    return writeMetrics.getRecords();
+  }
+
+  /** Stops the stage threads, the pushed batches may not be written */
+  @Override
+  public void close() {
+    stop();
+  }
+
+  /** Interrupts the stage threads and waits until they stop, a stage may still be writing */
+  @SneakyThrows
+  private void stop() {
+    executor.shutdownNow();
+    if (!executor.awaitTermination(STOP_SECONDS, TimeUnit.SECONDS)) {
+      log.warn("{}: stages are still running after {} seconds", name, STOP_SECONDS);
+    }
+  }
+
+  /** Puts an item to the conversion queue, stops waiting for a free slot once a stage failed */
+  @SneakyThrows
+  private void offer(Object item) {
+    while (!convertQueue.offer(item, POLL_MS, TimeUnit.MILLISECONDS)) {
+      checkFailure();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void convert() {
+    try {
+      Object item;
+      while ((item = convertQueue.take()) != END) {
+        if (failure.get() == null) {
+          List<T> batch = (List<T>) item;
+          try {
+            long start = System.nanoTime();
+            R converted = convertFn.apply(batch);
+            convertMetrics.add(batch.size(), System.nanoTime() - start, convertQueue.size());
+            writeQueue.put(converted);
+          } catch (InterruptedException ex) {
+            throw ex;
+          } catch (Throwable ex) {
+            fail(ex);
+          }
+        }
+      }
+    } catch (InterruptedException ex) {
+      fail(ex);
+      Thread.currentThread().interrupt();
+    } finally {
+      // The last converter tells the writers that nothing more is coming
+      if (runningConverters.decrementAndGet() == 0) {
+        endWriters();
+      }
+    }
+  }
+
+  // The writers only stop on END or on an interruption, which interrupts this thread as well
+  private void endWriters() {
+    try {
+      for (int i = 0; i < writeThreads; i++) {
+        writeQueue.put(END);
+      }
+    } catch (InterruptedException ex) {
+      fail(ex);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void write() {
+    try {
+      Object item;
+      while ((item = writeQueue.take()) != END) {
+        if (failure.get() == null) {
+          try {
+            long start = System.nanoTime();
+            int written = writeFn.applyAsInt((R) item);
+            writeMetrics.add(written, System.nanoTime() - start, writeQueue.size());
+          } catch (Throwable ex) {
+            fail(ex);
+          }
+        }
+      }
+    } catch (InterruptedException ex) {
+      fail(ex);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void fail(Throwable ex) {
+    if (failure.compareAndSet(null, ex)) {
+      log.error("{}: stage failed, the remaining batches are dropped", name, ex);
+    }
+  }
+
+  private void checkFailure() {
+    Throwable ex = failure.get();
+    if (ex != null) {
+      throw new PipelinesException(ex);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.gbif.pipelines.fragmenter.record;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,7 +27,7 @@ public class OccurrenceRecordConverter {
       boolean generateIfAbsent,
       List<OccurrenceRecord> recordUnitList) {
 
-    Function<OccurrenceRecord, String> keyFn =
+    Function<OccurrenceRecord, Optional<Long>> getKeyFn =
         ru -> {
           Optional<Long> key = Optional.of(Keygen.getErrorKey());
           try {
@@ -34,18 +35,33 @@ public class OccurrenceRecordConverter {
           } catch (RuntimeException ex) {
             log.error(ex.getMessage(), ex);
           }
-          if (!key.isPresent()
-              || Keygen.getErrorKey().equals(key.get())
-              || !validator.isUnique(key.toString())) {
-            return Keygen.getErrorKey().toString();
-          }
-          return Keygen.getSaltedKey(key.get());
+          return key;
         };
 
-    Function<OccurrenceRecord, RawRecord> valueFn = occ -> RawRecord.create(occ.toStringRecord());
+    // Resolves keys of the whole list in batches, falls back to single records if the batch fails
+    List<Optional<Long>> keys;
+    try {
+      keys =
+          Keygen.getKeys(
+              keygenService, useTriplet, useOccurrenceId, generateIfAbsent, recordUnitList);
+    } catch (RuntimeException ex) {
+      log.warn("Batched GBIF ID lookup failed, using single records: {}", ex.getMessage());
+      keys = recordUnitList.stream().map(getKeyFn).collect(Collectors.toList());
+    }
 
-    Map<String, RawRecord> result =
-        recordUnitList.stream().collect(Collectors.toMap(keyFn, valueFn, (s, s2) -> s));
+    Map<String, RawRecord> result = new HashMap<>(recordUnitList.size());
+    for (int i = 0; i < recordUnitList.size(); i++) {
+      Optional<Long> key = keys.get(i);
+      String saltedKey;
+      if (!key.isPresent()
+          || Keygen.getErrorKey().equals(key.get())
+          || !validator.isUnique(key.toString())) {
+        saltedKey = Keygen.getErrorKey().toString();
+      } else {
+        saltedKey = Keygen.getSaltedKey(key.get());
+      }
+      result.putIfAbsent(saltedKey, RawRecord.create(recordUnitList.get(i).toStringRecord()));
+    }
 
     result.remove(Keygen.getErrorKey().toString());
     return result;
@@ -3,7 +3,6 @@ package org.gbif.pipelines.fragmenter;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.Executors;
 import org.gbif.api.vocabulary.EndpointType;
 import org.gbif.pipelines.fragmenter.common.HbaseServer;
 import org.gbif.pipelines.fragmenter.common.TableAssert;
@@ -116,7 +115,6 @@ public class FragmentPersisterIT {
             .datasetKey(datasetKey)
             .attempt(attempt)
             .endpointType(endpointType)
-            .executor(Executors.newSingleThreadExecutor())
             .hbaseConnection(HBASE_SERVER.getConnection())
             .useSyncMode(false)
             .generateIdIfAbsent(true)
@@ -150,7 +148,6 @@ public class FragmentPersisterIT {
             .attempt(attemptFirst)
             .endpointType(endpointType)
             .hbaseConnection(HBASE_SERVER.getConnection())
-            .executor(Executors.newSingleThreadExecutor())
             .generateIdIfAbsent(true)
             .build()
             .persist();
@@ -203,7 +200,6 @@ public class FragmentPersisterIT {
             .attempt(attemptFirst)
             .endpointType(endpointType)
             .hbaseConnection(HBASE_SERVER.getConnection())
-            .executor(Executors.newSingleThreadExecutor())
             .useSyncMode(false)
             .generateIdIfAbsent(true)
             .build()
@@ -238,6 +234,62 @@ public class FragmentPersisterIT {
         endpointType);
   }
 
+  @Test
+  public void dwcaSyncUpdateSmallBatchesUploadTest() throws IOException {
+    // State
+    int expSize = 210;
+    String datasetKey = "50c9509d-22c7-4a22-a47d-8c48425ef4a8";
+    int attemptFirst = 231;
+    int attemptSecond = 232;
+    EndpointType endpointType = EndpointType.DWC_ARCHIVE;
+
+    // When
+    long resultFirst =
+        FragmentPersister.dwcaBuilder()
+            .tableName(HbaseServer.FRAGMENT_TABLE_NAME)
+            .keygenConfig(HbaseServer.CFG)
+            .pathToArchive(regularDwca)
+            .useTriplet(false)
+            .useOccurrenceId(true)
+            .datasetKey(datasetKey)
+            .attempt(attemptFirst)
+            .endpointType(endpointType)
+            .hbaseConnection(HBASE_SERVER.getConnection())
+            .hbaseGetBatchSize(7)
+            .hbaseWriteBufferSize(1024L)
+            .generateIdIfAbsent(true)
+            .build()
+            .persist();
+
+    long resultSecond =
+        FragmentPersister.dwcaBuilder()
+            .tableName(HbaseServer.FRAGMENT_TABLE_NAME)
+            .keygenConfig(HbaseServer.CFG)
+            .pathToArchive(regularUpdatedDwca)
+            .useTriplet(false)
+            .useOccurrenceId(true)
+            .datasetKey(datasetKey)
+            .attempt(attemptSecond)
+            .endpointType(endpointType)
+            .hbaseConnection(HBASE_SERVER.getConnection())
+            .hbaseGetBatchSize(7)
+            .hbaseWriteBufferSize(1024L)
+            .generateIdIfAbsent(true)
+            .build()
+            .persist();
+
+    // Should
+    Assert.assertEquals(expSize, resultFirst);
+    Assert.assertEquals(3, resultSecond); // Only 3 records are new
+    TableAssert.assertTable(
+        HBASE_SERVER.getConnection(),
+        expSize,
+        datasetKey,
+        attemptFirst,
+        attemptSecond,
+        endpointType);
+  }
+
   @Test
   public void dwcaOccExtSyncUploadTest() throws IOException {
     // State
@@ -287,7 +339,6 @@ public class FragmentPersisterIT {
             .datasetKey(datasetKey)
             .attempt(attempt)
             .endpointType(endpointType)
-            .executor(Executors.newSingleThreadExecutor())
             .hbaseConnection(HBASE_SERVER.getConnection())
             .generateIdIfAbsent(true)
             .useSyncMode(false)
@@ -349,7 +400,6 @@ public class FragmentPersisterIT {
             .datasetKey(datasetKey)
             .attempt(attempt)
             .endpointType(endpointType)
-            .executor(Executors.newSingleThreadExecutor())
             .hbaseConnection(HBASE_SERVER.getConnection())
             .useSyncMode(false)
             .backPressure(5)
@@ -498,7 +548,6 @@ public class FragmentPersisterIT {
             .attempt(attemptFirst)
             .endpointType(endpointType)
             .hbaseConnection(HBASE_SERVER.getConnection())
-            .executor(Executors.newSingleThreadExecutor())
             .useSyncMode(false)
             .generateIdIfAbsent(true)
             .build()
@@ -0,0 +1,152 @@
+package org.gbif.pipelines.fragmenter.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.gbif.pipelines.common.PipelinesException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StagedPipelineTest {
+
+  @Test
+  public void allBatchesWrittenTest() {
+
+    // State
+    Set<String> written = ConcurrentHashMap.newKeySet();
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+
+    // When
+    long result;
+    try (StagedPipeline<Integer, List<String>> pipeline =
+        new StagedPipeline<>(
+            "test",
+            3,
+            2,
+            2,
+            l -> {
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              return l.stream().map(String::valueOf).collect(Collectors.toList());
+            },
+            l -> {
+              written.addAll(l);
+              inFlight.decrementAndGet();
+              return l.size();
+            })) {
+
+      for (int i = 0; i < 1_000; i += 10) {
+        pipeline.push(IntStream.range(i, i + 10).boxed().collect(Collectors.toList()));
+      }
+      pipeline.push(new ArrayList<>());
+      result = pipeline.finish();
+
+      // Should
+      Assert.assertEquals(100, pipeline.getReadMetrics().getBatches());
+      Assert.assertEquals(1_000, pipeline.getConvertMetrics().getRecords());
+      Assert.assertEquals(100, pipeline.getWriteMetrics().getBatches());
+      Assert.assertTrue(pipeline.getReadMetrics().getMaxQueueDepth() <= 2);
+    }
+
+    Assert.assertEquals(1_000, result);
+    Assert.assertEquals(1_000, written.size());
+    // converting threads + write queue + writing threads
+    Assert.assertTrue(maxInFlight.get() <= 3 + 2 + 2);
+  }
+
+  @Test(expected = PipelinesException.class)
+  public void writeFailureTest() {
+
+    // When
+    try (StagedPipeline<Integer, List<Integer>> pipeline =
+        new StagedPipeline<>(
+            "test",
+            1,
+            1,
+            1,
+            l -> l,
+            l -> {
+              throw new IllegalStateException("HBase is down");
+            })) {
+      for (int i = 0; i < 100; i++) {
+        pipeline.push(Arrays.asList(i, i + 1));
+      }
+      pipeline.finish();
+    }
+  }
+
+  @Test(expected = PipelinesException.class, timeout = 10_000)
+  public void convertErrorTest() {
+
+    // When
+    try (StagedPipeline<Integer, List<Integer>> pipeline =
+        new StagedPipeline<>(
+            "test",
+            2,
+            1,
+            1,
+            l -> {
+              throw new StackOverflowError("Converter is broken");
+            },
+            List::size)) {
+      for (int i = 0; i < 100; i++) {
+        pipeline.push(Arrays.asList(i, i + 1));
+      }
+      pipeline.finish();
+    }
+  }
+
+  @Test(timeout = 10_000)
+  public void failureWaitsForWritersTest() {
+
+    // State
+    AtomicInteger runningWriters = new AtomicInteger();
+    CountDownLatch slowWriteStarted = new CountDownLatch(1);
+
+    // When
+    try (StagedPipeline<Integer, List<Integer>> pipeline =
+        new StagedPipeline<>(
+            "test",
+            1,
+            2,
+            1,
+            l -> l,
+            l -> {
+              runningWriters.incrementAndGet();
+              try {
+                if (l.get(0) == 0) {
+                  slowWriteStarted.await();
+                  throw new IllegalStateException("HBase is down");
+                }
+                // a write which ignores the interruption
+                slowWriteStarted.countDown();
+                long end = System.nanoTime() + 300_000_000L;
+                while (System.nanoTime() < end) {
+                  Thread.yield();
+                }
+                return l.size();
+              } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+              } finally {
+                runningWriters.decrementAndGet();
+              }
+            })) {
+      for (int i = 0; i < 4; i++) {
+        pipeline.push(Arrays.asList(i, i + 1));
+      }
+      pipeline.finish();
+      Assert.fail("The first batch fails");
+    } catch (PipelinesException ex) {
+      // expected
+    }
+
+    // Should
+    Assert.assertEquals(0, runningWriters.get());
+  }
+}
@@ -15,6 +15,7 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -23,6 +24,7 @@ import lombok.Cleanup;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.var;
+import org.apache.avro.specific.SpecificRecordBase;
 import org.gbif.api.model.pipelines.StepType;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType;
@@ -33,12 +35,25 @@ import org.gbif.pipelines.common.beam.utils.PathBuilder;
 import org.gbif.pipelines.core.io.AvroReader;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
+import org.gbif.pipelines.core.utils.ValidationMetricsAccumulator;
 import org.gbif.pipelines.ingest.java.pipelines.interpretation.Shutdown;
 import org.gbif.pipelines.ingest.java.pipelines.interpretation.TransformsFactory;
 import org.gbif.pipelines.ingest.java.transforms.InterpretedAvroReader;
+import org.gbif.pipelines.ingest.java.transforms.InterpretedRecordsCache;
+import org.gbif.pipelines.io.avro.AudubonRecord;
+import org.gbif.pipelines.io.avro.BasicRecord;
+import org.gbif.pipelines.io.avro.ClusteringRecord;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.gbif.pipelines.io.avro.IdentifierRecord;
+import org.gbif.pipelines.io.avro.ImageRecord;
+import org.gbif.pipelines.io.avro.LocationRecord;
 import org.gbif.pipelines.io.avro.MetadataRecord;
+import org.gbif.pipelines.io.avro.MultimediaRecord;
+import org.gbif.pipelines.io.avro.Record;
+import org.gbif.pipelines.io.avro.TaxonRecord;
+import org.gbif.pipelines.io.avro.TemporalRecord;
+import org.gbif.pipelines.io.avro.grscicoll.GrscicollRecord;
+import org.gbif.pipelines.transforms.Transform;
 import org.gbif.pipelines.transforms.common.ExtensionFilterTransform;
 import org.gbif.pipelines.transforms.core.BasicTransform;
 import org.gbif.pipelines.transforms.core.GrscicollTransform;
@@ -172,6 +187,17 @@ public class VerbatimToOccurrencePipeline {
     ExtensionFilterTransform extensionFilterTr = transformsFactory.createExtensionFilterTransform();
     DefaultValuesTransform defaultValuesTr = transformsFactory.createDefaultValuesTransform();
 
+    // Records are kept in memory too, when the next pipelines are chained in this JVM
+    Optional<InterpretedRecordsCache.Session> session =
+        InterpretedRecordsCache.get(datasetId, attempt);
+
+    // Summary of raw terms, interpreted fields and issues for the validator
+    String validationMetricsFileName = options.getValidationMetricsFileName();
+    Optional<ValidationMetricsAccumulator> validationMetrics =
+        validationMetricsFileName == null || validationMetricsFileName.isEmpty()
+            ? Optional.empty()
+            : Optional.of(new ValidationMetricsAccumulator(CORE_TERM.qualifiedName()));
+
     try {
 
       // Create or read MetadataRecord
@@ -184,7 +210,7 @@ public class VerbatimToOccurrencePipeline {
 
         @Cleanup
         var metadataWriter = createAvroWriter(options, metadataTr, DwcTerm.Occurrence, postfix);
-        metadataWriter.append(mdr);
+        collect(session, metadataTr, true, metadataWriter::append).accept(mdr);
       } else if (useMetadataRecordReadIO(types)) {
         mdr =
             InterpretedAvroReader.readAvroUseTargetPath(options, CORE_TERM, metadataTr)
@@ -272,10 +298,46 @@ public class VerbatimToOccurrencePipeline {
               createAvroWriter(
                   options, gbifIdTr, CORE_TERM, postfix, gbifIdTr.getBaseInvalidName())) {
 
+        Consumer<ClusteringRecord> clusteringFn =
+            collect(session, clusteringTr, clusteringTr.checkType(types), clusteringWriter::append);
+        Consumer<ExtendedRecord> verbatimFn =
+            withMetrics(
+                validationMetrics,
+                collect(session, verbatimTr, verbatimTr.checkType(types), verbatimWriter::append),
+                ValidationMetricsAccumulator::addVerbatim);
+        Consumer<BasicRecord> basicFn =
+            withMetrics(
+                validationMetrics,
+                collect(session, basicTr, basicTr.checkType(types), basicWriter::append),
+                ValidationMetricsAccumulator::addInterpreted);
+        Consumer<TemporalRecord> temporalFn =
+            withMetrics(
+                validationMetrics,
+                collect(session, temporalTr, temporalTr.checkType(types), temporalWriter::append),
+                ValidationMetricsAccumulator::addInterpreted);
+        Consumer<MultimediaRecord> multimediaFn =
+            collect(session, multimediaTr, multimediaTr.checkType(types), multimediaWriter::append);
+        Consumer<ImageRecord> imageFn =
+            collect(session, imageTr, imageTr.checkType(types), imageWriter::append);
+        Consumer<AudubonRecord> audubonFn =
+            collect(session, audubonTr, audubonTr.checkType(types), audubonWriter::append);
+        Consumer<TaxonRecord> taxonFn =
+            withMetrics(
+                validationMetrics,
+                collect(session, taxonomyTr, taxonomyTr.checkType(types), taxonWriter::append),
+                ValidationMetricsAccumulator::addInterpreted);
+        Consumer<GrscicollRecord> grscicollFn =
+            collect(session, grscicollTr, grscicollTr.checkType(types), grscicollWriter::append);
+        Consumer<LocationRecord> locationFn =
+            withMetrics(
+                validationMetrics,
+                collect(session, locationTr, locationTr.checkType(types), locationWriter::append),
+                ValidationMetricsAccumulator::addInterpreted);
+
         // Create interpretation function
         Consumer<ExtendedRecord> interpretAllFn =
             er -> {
-              IdentifierRecord idInvalid = gbifIdTransform.getIdInvalidMap().get(er.getId());
+              IdentifierRecord idInvalid = gbifIdTransform.getInvalid(er.getId());
 
               if (idInvalid == null) {
                 IdentifierRecord id = gbifIdTransform.getErIdMap().get(er.getId());
@@ -290,34 +352,34 @@ public class VerbatimToOccurrencePipeline {
                 }
 
                 if (clusteringTr.checkType(types)) {
-                  clusteringTr.processElement(id).ifPresent(clusteringWriter::append);
+                  clusteringTr.processElement(id).ifPresent(clusteringFn);
                 }
                 if (verbatimTr.checkType(types)) {
-                  verbatimWriter.append(er);
+                  verbatimFn.accept(er);
                 }
                 if (basicTr.checkType(types)) {
-                  basicTr.processElement(er).ifPresent(basicWriter::append);
+                  basicTr.processElement(er).ifPresent(basicFn);
                 }
                 if (temporalTr.checkType(types)) {
-                  temporalTr.processElement(er).ifPresent(temporalWriter::append);
+                  temporalTr.processElement(er).ifPresent(temporalFn);
                 }
                 if (multimediaTr.checkType(types)) {
-                  multimediaTr.processElement(er).ifPresent(multimediaWriter::append);
+                  multimediaTr.processElement(er).ifPresent(multimediaFn);
                 }
                 if (imageTr.checkType(types)) {
-                  imageTr.processElement(er).ifPresent(imageWriter::append);
+                  imageTr.processElement(er).ifPresent(imageFn);
                 }
                 if (audubonTr.checkType(types)) {
-                  audubonTr.processElement(er).ifPresent(audubonWriter::append);
+                  audubonTr.processElement(er).ifPresent(audubonFn);
                 }
                 if (taxonomyTr.checkType(types)) {
-                  taxonomyTr.processElement(er).ifPresent(taxonWriter::append);
+                  taxonomyTr.processElement(er).ifPresent(taxonFn);
                 }
                 if (grscicollTr.checkType(types)) {
-                  grscicollTr.processElement(er, mdr).ifPresent(grscicollWriter::append);
+                  grscicollTr.processElement(er, mdr).ifPresent(grscicollFn);
                 }
                 if (locationTr.checkType(types)) {
-                  locationTr.processElement(er, mdr).ifPresent(locationWriter::append);
+                  locationTr.processElement(er, mdr).ifPresent(locationFn);
                 }
               } else {
                 gbifIdInvalidWriter.append(idInvalid);
@@ -327,16 +389,17 @@ public class VerbatimToOccurrencePipeline {
         // Run async writing for GbifId
         Stream<CompletableFuture<Void>> streamIds = Stream.empty();
         if (useGbifIdWriteIO(types) || useAbsentGbifIdReadIO(types)) {
-          Collection<IdentifierRecord> idCollection = gbifIdTransform.getIdMap().values();
+          Collection<IdentifierRecord> idCollection = gbifIdTransform.getUniqueIds();
+          Consumer<IdentifierRecord> gbifIdFn =
+              collect(session, gbifIdTr, true, gbifIdWriter::append);
           if (useSyncMode) {
             streamIds =
                 Stream.of(
-                    CompletableFuture.runAsync(
-                        () -> idCollection.forEach(gbifIdWriter::append), executor));
+                    CompletableFuture.runAsync(() -> idCollection.forEach(gbifIdFn), executor));
           } else {
             streamIds =
                 idCollection.stream()
-                    .map(v -> CompletableFuture.runAsync(() -> gbifIdWriter.append(v), executor));
+                    .map(v -> CompletableFuture.runAsync(() -> gbifIdFn.accept(v), executor));
           }
         }
 
@@ -359,6 +422,13 @@ public class VerbatimToOccurrencePipeline {
         CompletableFuture.allOf(futures).get();
       }
 
+      if (validationMetrics.isPresent()) {
+        String validationMetricsPath =
+            PathBuilder.buildDatasetAttemptPath(options, validationMetricsFileName, false);
+        ValidationMetricsAccumulator.write(
+            hdfsConfigs, validationMetricsPath, validationMetrics.get().getResult(erExtMap::get));
+      }
+
     } catch (Exception e) {
       log.error("Failed performing conversion on {}", e.getMessage());
       throw new IllegalStateException("Failed performing conversion on ", e);
@@ -377,6 +447,26 @@ public class VerbatimToOccurrencePipeline {
     log.info("Pipeline has been finished - {}", LocalDateTime.now());
   }
 
+  /** Keeps written records in the session too, if the record type is interpreted completely */
+  private static <T extends SpecificRecordBase & Record> Consumer<T> collect(
+      Optional<InterpretedRecordsCache.Session> session,
+      Transform<?, T> transform,
+      boolean isInterpreted,
+      Consumer<T> writeFn) {
+    if (session.isPresent() && isInterpreted) {
+      return session.get().collect(CORE_TERM, transform.getBaseName(), writeFn);
+    }
+    return writeFn;
+  }
+
+  /** Adds written records to the validation metrics too */
+  private static <T> Consumer<T> withMetrics(
+      Optional<ValidationMetricsAccumulator> validationMetrics,
+      Consumer<T> writeFn,
+      BiConsumer<ValidationMetricsAccumulator, T> addFn) {
+    return validationMetrics.map(vm -> writeFn.andThen(r -> addFn.accept(vm, r))).orElse(writeFn);
+  }
+
   private static boolean useGbifIdWriteIO(Set<String> types) {
     return types.contains(RecordType.IDENTIFIER.name()) || types.contains(RecordType.ALL.name());
   }
@@ -3,6 +3,7 @@ package org.gbif.pipelines.ingest.java.transforms;
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.ALL_AVRO;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import lombok.AccessLevel;
@@ -19,13 +20,22 @@ import org.gbif.pipelines.transforms.Transform;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class InterpretedAvroReader {
 
-  /** Read avro files and return as Map<ID, Clazz> */
+  /**
+   * Read avro files and return as Map<ID, Clazz>, uses records of {@link InterpretedRecordsCache}
+   * instead, if the records were collected in this JVM
+   */
   public static <T extends SpecificRecordBase & Record>
       CompletableFuture<Map<String, T>> readAvroAsFuture(
           InterpretationPipelineOptions options,
           DwcTerm coreTerm,
           ExecutorService executor,
           Transform<?, T> transform) {
+    Optional<Map<String, T>> cached =
+        InterpretedRecordsCache.getRecords(
+            options.getDatasetId(), options.getAttempt(), coreTerm, transform.getBaseName());
+    if (cached.isPresent()) {
+      return CompletableFuture.completedFuture(cached.get());
+    }
     String path =
         PathBuilder.buildPathInterpretUsingInputPath(
             options, coreTerm, transform.getBaseName(), ALL_AVRO);
@@ -0,0 +1,94 @@
+package org.gbif.pipelines.ingest.java.transforms;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.io.avro.Record;
+
+/**
+ * Keeps interpreted records of a dataset attempt in memory, so pipelines chained in the same JVM
+ * can use records of the previous pipeline instead of reading its avro files back:
+ *
+ * <pre>{@code
+ * try (InterpretedRecordsCache.Session session = InterpretedRecordsCache.open(datasetId, attempt)) {
+ *   VerbatimToOccurrencePipeline.run(interpretationOptions, executor);
+ *   HdfsViewPipeline.run(hdfsViewOptions, executor);
+ * }
+ * }</pre>
+ *
+ * <p>Writers of an open session still write avro files, the cache is an addition. Only complete
+ * outputs are cached, readers fall back to avro files for record types missing in the cache. The
+ * cached records are shared by the readers and must not be modified.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class InterpretedRecordsCache {
+
+  private static final Map<String, Session> SESSIONS = new ConcurrentHashMap<>();
+
+  /** Opens a session for the dataset attempt, records are collected until the session is closed */
+  public static Session open(String datasetId, Integer attempt) {
+    String key = datasetId + "_" + attempt;
+    Session session = new Session(key);
+    if (SESSIONS.putIfAbsent(key, session) != null) {
+      throw new IllegalStateException("Session is already open for " + key);
+    }
+    log.info("Opened in-memory records session for {}", key);
+    return session;
+  }
+
+  /** Returns the open session of the dataset attempt */
+  public static Optional<Session> get(String datasetId, Integer attempt) {
+    return Optional.ofNullable(SESSIONS.get(datasetId + "_" + attempt));
+  }
+
+  /** Returns cached records of the record type, keyed by record id, if the type was collected */
+  @SuppressWarnings("unchecked")
+  public static <T extends Record> Optional<Map<String, T>> getRecords(
+      String datasetId, Integer attempt, DwcTerm coreTerm, String baseName) {
+    return get(datasetId, attempt)
+        .map(s -> (Map<String, T>) s.records.get(recordsKey(coreTerm, baseName)))
+        .map(Collections::unmodifiableMap);
+  }
+
+  private static String recordsKey(DwcTerm coreTerm, String baseName) {
+    return coreTerm.simpleName() + "/" + baseName;
+  }
+
+  public static class Session implements AutoCloseable {
+
+    private final String key;
+    private final Map<String, Map<String, ? extends Record>> records = new ConcurrentHashMap<>();
+
+    private Session(String key) {
+      this.key = key;
+    }
+
+    /**
+     * Wraps a writer function, every written record is kept in the session too. Replaces records
+     * collected earlier for the same record type.
+     */
+    public <T extends Record> Consumer<T> collect(
+        DwcTerm coreTerm, String baseName, Consumer<T> writeFn) {
+      Map<String, T> map = new ConcurrentHashMap<>();
+      records.put(recordsKey(coreTerm, baseName), map);
+      return r -> {
+        writeFn.accept(r);
+        map.put(r.getId(), r);
+      };
+    }
+
+    @Override
+    public void close() {
+      SESSIONS.remove(key, this);
+      records.clear();
+      log.info("Closed in-memory records session for {}", key);
+    }
+  }
+}
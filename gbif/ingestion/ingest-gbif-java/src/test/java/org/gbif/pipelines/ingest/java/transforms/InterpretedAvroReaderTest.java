@@ -3,6 +3,7 @@ package org.gbif.pipelines.ingest.java.transforms;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.pipelines.common.beam.options.InterpretationPipelineOptions;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
@@ -58,4 +59,41 @@ public class InterpretedAvroReaderTest {
     // Should
     Assert.assertEquals(2, map.size());
   }
+
+  @Test
+  public void cachedReaderTest() throws Exception {
+
+    // State
+    String outputFile = getClass().getResource("/").getFile() + "avro-cached";
+
+    String[] args = {
+      "--datasetId=d596fccb-2319-42eb-b13b-986c932780ad",
+      "--attempt=147",
+      "--interpretationTypes=ALL",
+      "--runner=SparkRunner",
+      "--inputPath=" + outputFile,
+      "--targetPath=" + outputFile
+    };
+    InterpretationPipelineOptions options = PipelinesOptionsFactory.createInterpretation(args);
+    BasicTransform basicTransform = BasicTransform.builder().create();
+
+    try (InterpretedRecordsCache.Session session =
+        InterpretedRecordsCache.open(options.getDatasetId(), options.getAttempt())) {
+
+      // Records aren't written to avro files
+      Consumer<BasicRecord> writeFn =
+          session.collect(CORE_TERM, basicTransform.getBaseName(), r -> {});
+      writeFn.accept(BasicRecord.newBuilder().setId("777").build());
+
+      // When
+      Map<String, BasicRecord> map =
+          InterpretedAvroReader.readAvroAsFuture(
+                  options, CORE_TERM, Executors.newSingleThreadExecutor(), basicTransform)
+              .get();
+
+      // Should
+      Assert.assertEquals(1, map.size());
+      Assert.assertTrue(map.containsKey("777"));
+    }
+  }
 }
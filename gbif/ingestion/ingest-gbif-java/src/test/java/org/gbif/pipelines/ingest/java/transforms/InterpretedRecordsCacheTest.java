@@ -0,0 +1,57 @@
+package org.gbif.pipelines.ingest.java.transforms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.io.avro.BasicRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InterpretedRecordsCacheTest {
+
+  private static final String DATASET_ID = "d596fccb-2319-42eb-b13b-986c932780ad";
+
+  @Test
+  public void collectTest() {
+
+    // State
+    List<BasicRecord> written = new ArrayList<>();
+
+    try (InterpretedRecordsCache.Session session = InterpretedRecordsCache.open(DATASET_ID, 1)) {
+
+      // When
+      Consumer<BasicRecord> writeFn = session.collect(DwcTerm.Occurrence, "basic", written::add);
+      writeFn.accept(BasicRecord.newBuilder().setId("1").build());
+      writeFn.accept(BasicRecord.newBuilder().setId("2").build());
+
+      Optional<Map<String, BasicRecord>> basic =
+          InterpretedRecordsCache.getRecords(DATASET_ID, 1, DwcTerm.Occurrence, "basic");
+      Optional<Map<String, BasicRecord>> location =
+          InterpretedRecordsCache.getRecords(DATASET_ID, 1, DwcTerm.Occurrence, "location");
+      Optional<Map<String, BasicRecord>> otherAttempt =
+          InterpretedRecordsCache.getRecords(DATASET_ID, 2, DwcTerm.Occurrence, "basic");
+
+      // Should
+      Assert.assertEquals(2, written.size());
+      Assert.assertTrue(basic.isPresent());
+      Assert.assertEquals(2, basic.get().size());
+      Assert.assertFalse(location.isPresent());
+      Assert.assertFalse(otherAttempt.isPresent());
+    }
+
+    // Should
+    Assert.assertFalse(InterpretedRecordsCache.get(DATASET_ID, 1).isPresent());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void sessionIsAlreadyOpenTest() {
+
+    // When
+    try (InterpretedRecordsCache.Session session = InterpretedRecordsCache.open(DATASET_ID, 3)) {
+      InterpretedRecordsCache.open(DATASET_ID, 3);
+    }
+  }
+}
@@ -25,6 +25,7 @@ import org.gbif.dwc.DwcFiles;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.nub.lookup.straight.IdLookup;
 import org.gbif.nub.lookup.straight.IdLookupPassThru;
+import org.gbif.pipelines.core.io.LineCounter;
 import org.gbif.pipelines.validator.checklists.collector.ValidationDataCollector;
 import org.gbif.pipelines.validator.checklists.model.NormalizedNameUsageData;
 import org.gbif.pipelines.validator.checklists.ws.IdLookupClient;
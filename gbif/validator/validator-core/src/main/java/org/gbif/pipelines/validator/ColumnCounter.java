@@ -0,0 +1,299 @@
+package org.gbif.pipelines.validator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts rows and non-empty values of every column of a delimited text file. The file is split into
+ * byte ranges aligned to line ends, which are tokenised concurrently straight from the bytes into
+ * primitive per column counters, no objects are created per row or cell.
+ *
+ * <p>A value is empty if it is blank or one of the NULL, \N placeholders. Files with an enclosing
+ * (quote) character may have line breaks inside values and are tokenised as one range.
+ */
+@Slf4j
+@Builder
+public class ColumnCounter {
+
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+  private final Path path;
+  private final byte delimiter;
+  private final Character quote;
+  private final int headerLines;
+  private final int columns;
+  @Builder.Default private final int parallelism = Runtime.getRuntime().availableProcessors();
+  @Builder.Default private final long minRangeSize = 8L * 1024L * 1024L;
+
+  @Getter
+  @AllArgsConstructor
+  public static class Counts {
+    private long rows;
+    private long[] nonEmpty;
+
+    private Counts merge(Counts other) {
+      rows += other.rows;
+      for (int i = 0; i < nonEmpty.length; i++) {
+        nonEmpty[i] += other.nonEmpty[i];
+      }
+      return this;
+    }
+  }
+
+  public Counts count() throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long start = dataStart(channel, size);
+
+      int ranges =
+          quote == null
+              ? (int) Math.max(1L, Math.min(parallelism, (size - start) / minRangeSize))
+              : 1;
+
+      if (ranges == 1) {
+        return new RangeCounter(channel, size, start, size, true).count();
+      }
+
+      log.debug("Count columns of {} using {} ranges", path, ranges);
+      ExecutorService executor = Executors.newFixedThreadPool(ranges);
+      try {
+        List<CompletableFuture<Counts>> futures = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+          long from = start + (size - start) * i / ranges;
+          long to = start + (size - start) * (i + 1) / ranges;
+          RangeCounter counter = new RangeCounter(channel, size, from, to, i == 0);
+          futures.add(CompletableFuture.supplyAsync(counter::countUnchecked, executor));
+        }
+
+        Counts result = new Counts(0L, new long[columns]);
+        for (CompletableFuture<Counts> future : futures) {
+          result.merge(future.join());
+        }
+        return result;
+      } catch (CompletionException ex) {
+        if (ex.getCause() instanceof UncheckedIOException) {
+          throw ((UncheckedIOException) ex.getCause()).getCause();
+        }
+        throw ex;
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+
+  /** Position of the first data line, after the byte order mark and header lines */
+  private long dataStart(FileChannel channel, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(size, 1L)));
+    long position = 0;
+    int lines = 0;
+    boolean first = true;
+    while (lines < headerLines || first) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read <= 0) {
+        return size;
+      }
+      int i = 0;
+      if (first) {
+        first = false;
+        if (read >= BOM.length && startsWithBom(buffer.array())) {
+          i = BOM.length;
+          position = BOM.length;
+        }
+      }
+      for (; i < read && lines < headerLines; i++) {
+        position++;
+        if (buffer.get(i) == '\n') {
+          lines++;
+        }
+      }
+    }
+    return position;
+  }
+
+  private static boolean startsWithBom(byte[] bytes) {
+    return bytes[0] == BOM[0] && bytes[1] == BOM[1] && bytes[2] == BOM[2];
+  }
+
+  /** Tokenises lines which start in [from, to) */
+  private class RangeCounter {
+
+    private final FileChannel channel;
+    private final long size;
+    private final long from;
+    private final long to;
+    private final boolean aligned;
+    private final boolean quoted = quote != null;
+    private final byte quoteByte = quoted ? (byte) quote.charValue() : 0;
+
+    private final long[] nonEmpty = new long[columns];
+    private long rows;
+
+    // Line state
+    private int column;
+    private boolean lineHasBytes;
+    private boolean lineStart = true;
+
+    // Cell state
+    private int cellBytes;
+    private int trimmedLength;
+    private int pendingWhitespaces;
+    private boolean innerWhitespace;
+    private int signature;
+    private boolean inQuote;
+    private boolean quoteSeen;
+
+    private RangeCounter(FileChannel channel, long size, long from, long to, boolean aligned) {
+      this.channel = channel;
+      this.size = size;
+      this.from = from;
+      this.to = to;
+      this.aligned = aligned;
+    }
+
+    private Counts countUnchecked() {
+      try {
+        return count();
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    private Counts count() throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      byte[] bytes = buffer.array();
+
+      // Not aligned range starts from the byte after the first line end at or after from - 1
+      long position = aligned ? from : from - 1;
+      boolean skipping = !aligned;
+
+      while (position < size) {
+        buffer.clear();
+        int read = channel.read(buffer, position);
+        if (read <= 0) {
+          break;
+        }
+        for (int i = 0; i < read; i++) {
+          byte b = bytes[i];
+          if (skipping) {
+            skipping = b != '\n';
+            continue;
+          }
+          if (lineStart && position + i >= to) {
+            return new Counts(rows, nonEmpty);
+          }
+          accept(b);
+        }
+        position += read;
+      }
+
+      if (lineHasBytes || column > 0) {
+        endLine();
+      }
+      return new Counts(rows, nonEmpty);
+    }
+
+    private void accept(byte b) {
+      lineStart = false;
+      if (inQuote) {
+        if (quoteSeen) {
+          quoteSeen = false;
+          if (b == quoteByte) {
+            content(b);
+            return;
+          }
+          inQuote = false;
+        } else if (b == quoteByte) {
+          quoteSeen = true;
+          return;
+        } else {
+          content(b);
+          return;
+        }
+      }
+
+      if (b == '\n') {
+        endLine();
+        return;
+      }
+      if (b != '\r') {
+        lineHasBytes = true;
+      }
+      if (b == delimiter) {
+        endCell();
+        return;
+      }
+      if (cellBytes++ == 0 && quoted && b == quoteByte) {
+        inQuote = true;
+        return;
+      }
+      content(b);
+    }
+
+    private void content(byte b) {
+      if ((b & 0xFF) <= ' ') {
+        if (trimmedLength > 0) {
+          pendingWhitespaces++;
+        }
+        return;
+      }
+      if (pendingWhitespaces > 0) {
+        innerWhitespace = true;
+        trimmedLength += pendingWhitespaces;
+        pendingWhitespaces = 0;
+      }
+      if (++trimmedLength <= 4) {
+        signature = signature << 8 | (b & 0xFF);
+      }
+    }
+
+    private void endCell() {
+      if (column < nonEmpty.length && trimmedLength > 0 && !isNullPlaceholder()) {
+        nonEmpty[column]++;
+      }
+      column++;
+      cellBytes = 0;
+      trimmedLength = 0;
+      pendingWhitespaces = 0;
+      innerWhitespace = false;
+      signature = 0;
+      inQuote = false;
+      quoteSeen = false;
+    }
+
+    private void endLine() {
+      if (lineHasBytes || column > 0) {
+        endCell();
+        rows++;
+      }
+      column = 0;
+      cellBytes = 0;
+      lineHasBytes = false;
+      lineStart = true;
+    }
+
+    /** NULL in any case or \N */
+    private boolean isNullPlaceholder() {
+      if (innerWhitespace) {
+        return false;
+      }
+      return (trimmedLength == 4 && (signature | 0x20202020) == 0x6E756C6C)
+          || (trimmedLength == 2 && signature == ('\\' << 8 | 'N'));
+    }
+  }
+}
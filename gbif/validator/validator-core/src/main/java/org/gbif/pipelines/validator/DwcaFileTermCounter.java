@@ -1,17 +1,25 @@
 package org.gbif.pipelines.validator;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.dwc.Archive;
+import org.gbif.dwc.ArchiveField;
 import org.gbif.dwc.ArchiveFile;
 import org.gbif.dwc.record.Record;
 import org.gbif.dwc.terms.Term;
+import org.gbif.pipelines.validator.ColumnCounter.Counts;
 import org.gbif.utils.file.ClosableIterator;
 import org.gbif.validator.api.DwcFileType;
 import org.gbif.validator.api.Metrics.FileInfo;
@@ -31,10 +39,113 @@ public class DwcaFileTermCounter {
   }
 
   private static FileInfo process(ArchiveFile archiveFile, DwcFileType fileType) {
-    long fileCount = 0;
+    Map<Term, Long> termSizeMap = new HashMap<>(archiveFile.getTerms().size());
+    long fileCount =
+        countColumns(archiveFile, termSizeMap).orElseGet(() -> iterate(archiveFile, termSizeMap));
+
+    List<TermInfo> termInfoList =
+        termSizeMap.entrySet().stream()
+            .map(
+                es ->
+                    TermInfo.builder()
+                        .term(es.getKey().qualifiedName())
+                        .rawIndexed(es.getValue())
+                        .build())
+            .collect(Collectors.toList());
+
+    FileInfoBuilder fileInfoBuilder =
+        FileInfo.builder()
+            .count(fileCount)
+            .fileName(archiveFile.getTitle())
+            .fileType(fileType)
+            .terms(termInfoList);
+
+    Optional.ofNullable(archiveFile.getRowType())
+        .ifPresent(t -> fileInfoBuilder.rowType(t.qualifiedName()));
 
-    HashMap<Term, Long> termSizeMap = new HashMap<>(archiveFile.getTerms().size());
+    return fileInfoBuilder.build();
+  }
 
+  /**
+   * Counts raw values using {@link ColumnCounter}, empty if the file format can't be tokenised as
+   * bytes: not ASCII compatible encodings, multi-character delimiters or line ends other than \n
+   * and \r\n
+   */
+  private static Optional<Long> countColumns(ArchiveFile archiveFile, Map<Term, Long> termSizeMap) {
+    String delimiter = archiveFile.getFieldsTerminatedBy();
+    String lineEnd = archiveFile.getLinesTerminatedBy();
+    Character quote = archiveFile.getFieldsEnclosedBy();
+    if (delimiter == null
+        || delimiter.length() != 1
+        || delimiter.charAt(0) > 127
+        || (lineEnd != null && !lineEnd.equals("\n") && !lineEnd.equals("\r\n"))
+        || (quote != null && quote > 127)
+        || !isAsciiCompatible(archiveFile.getEncoding())
+        || archiveFile.getLocationFiles().isEmpty()) {
+      return Optional.empty();
+    }
+
+    int columns =
+        archiveFile.getFields().values().stream()
+                .map(ArchiveField::getIndex)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .max()
+                .orElse(-1)
+            + 1;
+    int headerLines = Optional.ofNullable(archiveFile.getIgnoreHeaderLines()).orElse(0);
+
+    long rows = 0;
+    long[] nonEmpty = new long[columns];
+    try {
+      for (File file : archiveFile.getLocationFiles()) {
+        Counts counts =
+            ColumnCounter.builder()
+                .path(file.toPath())
+                .delimiter((byte) delimiter.charAt(0))
+                .quote(quote)
+                .headerLines(headerLines)
+                .columns(columns)
+                .build()
+                .count();
+        rows += counts.getRows();
+        for (int i = 0; i < columns; i++) {
+          nonEmpty[i] += counts.getNonEmpty()[i];
+        }
+      }
+    } catch (IOException ex) {
+      log.warn("Can't count columns of {}, iterate records", archiveFile.getTitle(), ex);
+      return Optional.empty();
+    }
+
+    // Map column indexes to terms, a default value fills every empty cell
+    if (rows > 0) {
+      for (Map.Entry<Term, ArchiveField> es : archiveFile.getFields().entrySet()) {
+        String defaultValue = es.getValue().getDefaultValue();
+        Integer index = es.getValue().getIndex();
+        if (defaultValue != null && !defaultValue.trim().isEmpty()) {
+          termSizeMap.put(es.getKey(), rows);
+        } else if (index != null) {
+          termSizeMap.put(es.getKey(), nonEmpty[index]);
+        } else {
+          termSizeMap.put(es.getKey(), 0L);
+        }
+      }
+    }
+    return Optional.of(rows);
+  }
+
+  private static boolean isAsciiCompatible(String encoding) {
+    try {
+      Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+      return charset.equals(StandardCharsets.UTF_8) || charset.newEncoder().maxBytesPerChar() == 1f;
+    } catch (IllegalArgumentException ex) {
+      return false;
+    }
+  }
+
+  private static long iterate(ArchiveFile archiveFile, Map<Term, Long> termSizeMap) {
+    long fileCount = 0;
     try (ClosableIterator<Record> iterator = archiveFile.iterator()) {
       while (iterator.hasNext()) {
         fileCount++;
@@ -59,27 +170,6 @@ public class DwcaFileTermCounter {
     } catch (Exception ex) {
       log.error(ex.getMessage());
     }
-
-    List<TermInfo> termInfoList =
-        termSizeMap.entrySet().stream()
-            .map(
-                es ->
-                    TermInfo.builder()
-                        .term(es.getKey().qualifiedName())
-                        .rawIndexed(es.getValue())
-                        .build())
-            .collect(Collectors.toList());
-
-    FileInfoBuilder fileInfoBuilder =
-        FileInfo.builder()
-            .count(fileCount)
-            .fileName(archiveFile.getTitle())
-            .fileType(fileType)
-            .terms(termInfoList);
-
-    Optional.ofNullable(archiveFile.getRowType())
-        .ifPresent(t -> fileInfoBuilder.rowType(t.qualifiedName()));
-
-    return fileInfoBuilder.build();
+    return fileCount;
   }
 }
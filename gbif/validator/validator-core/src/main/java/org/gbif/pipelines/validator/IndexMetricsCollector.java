@@ -2,6 +2,7 @@ package org.gbif.pipelines.validator;
 
 import static org.gbif.dwc.terms.DwcTerm.Event;
 import static org.gbif.dwc.terms.DwcTerm.Occurrence;
+import static org.gbif.pipelines.validator.metircs.request.CoreMetricsRequestBuilder.INTERPRETED_AGGREGATION;
 import static org.gbif.pipelines.validator.metircs.request.OccurrenceIssuesRequestBuilder.HITS_AGGREGATION;
 import static org.gbif.pipelines.validator.metircs.request.OccurrenceIssuesRequestBuilder.ISSUES_AGGREGATION;
 
@@ -10,18 +11,22 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.Builder;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse.Item;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.RequestOptions;
-import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.search.SearchHit;
-import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.filter.ParsedFilters;
 import org.elasticsearch.search.aggregations.bucket.terms.ParsedStringTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms.Bucket;
 import org.elasticsearch.search.aggregations.metrics.ParsedTopHits;
@@ -30,11 +35,8 @@ import org.gbif.api.vocabulary.OccurrenceIssue;
 import org.gbif.dwc.terms.Term;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Indexing;
 import org.gbif.pipelines.validator.factory.ElasticsearchClientFactory;
-import org.gbif.pipelines.validator.metircs.request.ExtensionTermCountRequestBuilder;
-import org.gbif.pipelines.validator.metircs.request.ExtensionTermCountRequestBuilder.ExtTermCountRequest;
-import org.gbif.pipelines.validator.metircs.request.OccurrenceIssuesRequestBuilder;
-import org.gbif.pipelines.validator.metircs.request.TermCountRequestBuilder;
-import org.gbif.pipelines.validator.metircs.request.TermCountRequestBuilder.TermCountRequest;
+import org.gbif.pipelines.validator.metircs.request.CoreMetricsRequestBuilder;
+import org.gbif.pipelines.validator.metircs.request.ExtensionTermsCountRequestBuilder;
 import org.gbif.validator.api.DwcFileType;
 import org.gbif.validator.api.EvaluationCategory;
 import org.gbif.validator.api.Metrics;
@@ -44,13 +46,12 @@ import org.gbif.validator.api.Metrics.IssueSample;
 import org.gbif.validator.api.Metrics.TermInfo;
 
 /**
- * The class collects all necessary metrics using ES API, there are 4 main queries. such as:
+ * The class collects all necessary metrics using ES API, all queries are sent in one _msearch
+ * request and executed concurrently by ES:
  *
  * <pre>
- * 1) Query total documents count
- * 2) Query core terms and return term, counts of raw and indexed terms
- * 3) Query extensions terms and return term, and raw terms count
- * 4) Query all issues and return issue value, and 5 terms samples
+ * 1) Query core total documents count, counts of interpreted terms and all issues with 5 terms samples
+ * 2) Query every extension and return counts of raw terms
  * </pre>
  */
 @Slf4j
@@ -61,85 +62,108 @@ public class IndexMetricsCollector {
   private final List<FileInfo> fileInfos;
   private final UUID key;
   private final String index;
-  private final String corePrefix;
   private final String extensionsPrefix;
+  /** Client to use instead of the shared {@link ElasticsearchClientFactory} client */
+  private final RestHighLevelClient esClient;
 
   /** Collect all metrics using ES API */
+  @SneakyThrows
   public Metrics collect() {
 
+    MultiSearchRequest request = new MultiSearchRequest();
+    List<Consumer<SearchResponse>> responseHandlers = new ArrayList<>();
+
     fileInfos.stream()
         .filter(f -> f.getRowType() != null)
         .forEach(
             fileInfo -> {
               if (fileInfo.getRowType().equals(Occurrence.qualifiedName())) {
-                collectOccurrnceInfo(fileInfo);
+                request.add(coreRequest(fileInfo, true));
+                responseHandlers.add(r -> collectCoreInfo(fileInfo, r, true));
               } else if (fileInfo.getRowType().equals(Event.qualifiedName())
                   && fileInfo.getFileType() == DwcFileType.CORE) {
-                collectEventInfo(fileInfo);
+                request.add(coreRequest(fileInfo, false));
+                responseHandlers.add(r -> collectCoreInfo(fileInfo, r, false));
               } else if (!fileInfo.getRowType().equals(Occurrence.qualifiedName())
                   && fileInfo.getFileType() == DwcFileType.EXTENSION) {
-                collectExtensionInfo(fileInfo);
+                request.add(extensionRequest(fileInfo));
+                responseHandlers.add(r -> collectExtensionInfo(fileInfo, r));
               }
             });
 
+    if (!responseHandlers.isEmpty()) {
+      RestHighLevelClient client =
+          esClient != null ? esClient : ElasticsearchClientFactory.getInstance(esHost);
+      Item[] items = client.msearch(request, RequestOptions.DEFAULT).getResponses();
+      for (int i = 0; i < items.length; i++) {
+        if (items[i].isFailure()) {
+          throw items[i].getFailure();
+        }
+        responseHandlers.get(i).accept(items[i].getResponse());
+      }
+    }
+
     return Metrics.builder().fileInfos(fileInfos).build();
   }
 
-  private void collectOccurrnceInfo(FileInfo fileInfo) {
-    fileInfo.setIndexedCount(queryOccurrenceDocCount());
-    fileInfo.setIssues(queryOccurrenceIssuesCount());
-    for (TermInfo ti : fileInfo.getTerms()) {
-      queryOccurrenceCoreTermsCount(ti.getTerm()).ifPresent(ti::setInterpretedIndexed);
-    }
+  private SearchRequest coreRequest(FileInfo fileInfo, boolean issues) {
+    return CoreMetricsRequestBuilder.builder()
+        .termValue(key.toString())
+        .indexName(index)
+        .terms(getTerms(fileInfo))
+        .issues(issues)
+        .build()
+        .getRequest();
   }
 
-  private void collectEventInfo(FileInfo fileInfo) {
-    fileInfo.setIndexedCount(queryOccurrenceDocCount());
-    for (TermInfo ti : fileInfo.getTerms()) {
-      queryOccurrenceCoreTermsCount(ti.getTerm()).ifPresent(ti::setInterpretedIndexed);
-    }
+  private SearchRequest extensionRequest(FileInfo fileInfo) {
+    return ExtensionTermsCountRequestBuilder.builder()
+        .termValue(key.toString())
+        .prefix(extensionsPrefix + "." + fileInfo.getRowType())
+        .indexName(index)
+        .terms(getTerms(fileInfo))
+        .build()
+        .getRequest();
   }
 
-  private void collectExtensionInfo(FileInfo fileInfo) {
-    String extPrefix = extensionsPrefix + "." + fileInfo.getRowType();
-    for (TermInfo ti : fileInfo.getTerms()) {
-      ti.setInterpretedIndexed(queryExtensionTermsCount(extPrefix, ti.getTerm()));
+  /** Core total documents count, interpreted terms count and issues */
+  private void collectCoreInfo(FileInfo fileInfo, SearchResponse response, boolean issues) {
+    fileInfo.setIndexedCount(response.getHits().getTotalHits().value);
+
+    Aggregations aggregations = response.getAggregations();
+    ParsedStringTerms issuesAggregation =
+        !issues || aggregations == null ? null : aggregations.get(ISSUES_AGGREGATION);
+    if (issuesAggregation != null) {
+      fileInfo.setIssues(
+          issuesAggregation.getBuckets().stream()
+              .map(this::collectIssueInfo)
+              .collect(Collectors.toList()));
+    }
+
+    ParsedFilters interpreted =
+        aggregations == null ? null : aggregations.get(INTERPRETED_AGGREGATION);
+    if (interpreted != null) {
+      for (TermInfo ti : fileInfo.getTerms()) {
+        ParsedFilters.ParsedBucket bucket = interpreted.getBucketByKey(ti.getTerm());
+        if (bucket != null) {
+          ti.setInterpretedIndexed(bucket.getDocCount());
+        }
+      }
     }
   }
 
-  /** Query indexed document count by datasetKey */
-  @SneakyThrows
-  private Long queryOccurrenceDocCount() {
-    TermCountRequest request =
-        TermCountRequestBuilder.builder()
-            .termValue(key.toString())
-            .indexName(index)
-            .build()
-            .getRequest();
-
-    return ElasticsearchClientFactory.getInstance(esHost)
-        .count(request.getRawCountRequest(), RequestOptions.DEFAULT)
-        .getCount();
+  /** Extension raw terms count */
+  private void collectExtensionInfo(FileInfo fileInfo, SearchResponse response) {
+    List<TermInfo> terms = fileInfo.getTerms();
+    for (int i = 0; i < terms.size(); i++) {
+      ParsedValueCount count =
+          response.getAggregations().get(ExtensionTermsCountRequestBuilder.aggregationName(i));
+      terms.get(i).setInterpretedIndexed(count.getValue());
+    }
   }
 
-  /** Aggregate all issues and return 5 samples per issue */
-  @SneakyThrows
-  private List<IssueInfo> queryOccurrenceIssuesCount() {
-    SearchRequest request =
-        OccurrenceIssuesRequestBuilder.builder()
-            .termValue(key.toString())
-            .indexName(index)
-            .build()
-            .getRequest();
-
-    Aggregation aggregation =
-        ElasticsearchClientFactory.getInstance(esHost)
-            .search(request, RequestOptions.DEFAULT)
-            .getAggregations()
-            .get(ISSUES_AGGREGATION);
-
-    return ((ParsedStringTerms) aggregation)
-        .getBuckets().stream().map(this::collectIssueInfo).collect(Collectors.toList());
+  private static List<String> getTerms(FileInfo fileInfo) {
+    return fileInfo.getTerms().stream().map(TermInfo::getTerm).collect(Collectors.toList());
   }
 
   /** Process one issue bucket, get issue value, count and 5 samples of related data */
@@ -187,50 +211,4 @@ public class IndexMetricsCollector {
         .issueCategory(EvaluationCategory.OCC_INTERPRETATION_BASED)
         .build();
   }
-
-  /** Aggregate occurrence terms and return term count */
-  @SneakyThrows
-  private Optional<Long> queryOccurrenceCoreTermsCount(String term) {
-
-    TermCountRequest tcr =
-        TermCountRequestBuilder.builder()
-            .termValue(key.toString())
-            .prefix(corePrefix)
-            .indexName(index)
-            .term(term)
-            .build()
-            .getRequest();
-
-    Optional<CountRequest> countRequest = tcr.getInterpretedCountRequest();
-    Long interpretedCount = null;
-    if (countRequest.isPresent()) {
-      interpretedCount =
-          ElasticsearchClientFactory.getInstance(esHost)
-              .count(countRequest.get(), RequestOptions.DEFAULT)
-              .getCount();
-    }
-
-    return Optional.ofNullable(interpretedCount);
-  }
-
-  /** Aggregate extensions term and return term count */
-  @SneakyThrows
-  private Long queryExtensionTermsCount(String prefix, String term) {
-    ExtTermCountRequest etcr =
-        ExtensionTermCountRequestBuilder.builder()
-            .prefix(prefix)
-            .termValue(key.toString())
-            .indexName(index)
-            .term(term)
-            .build()
-            .getRequest();
-
-    Aggregation aggregation =
-        ElasticsearchClientFactory.getInstance(esHost)
-            .search(etcr.getSearchRequest(), RequestOptions.DEFAULT)
-            .getAggregations()
-            .get(ExtensionTermCountRequestBuilder.AGGREGATION);
-
-    return ((ParsedValueCount) aggregation).getValue();
-  }
 }
@@ -0,0 +1,154 @@
+package org.gbif.pipelines.validator;
+
+import static org.gbif.dwc.terms.DwcTerm.Occurrence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.gbif.dwc.Archive;
+import org.gbif.dwc.ArchiveFile;
+import org.gbif.pipelines.common.pojo.ValidationMetrics;
+import org.gbif.pipelines.common.pojo.ValidationMetrics.FileMetrics;
+import org.gbif.pipelines.validator.metircs.RawToInderpreted;
+import org.gbif.validator.api.DwcFileType;
+import org.gbif.validator.api.EvaluationCategory;
+import org.gbif.validator.api.Metrics;
+import org.gbif.validator.api.Metrics.FileInfo;
+import org.gbif.validator.api.Metrics.FileInfo.FileInfoBuilder;
+import org.gbif.validator.api.Metrics.IssueInfo;
+import org.gbif.validator.api.Metrics.IssueSample;
+import org.gbif.validator.api.Metrics.TermInfo;
+
+/**
+ * Converts {@link ValidationMetrics} accumulated by the interpretation pipeline to {@link Metrics},
+ * the result is the same as {@link DwcaFileTermCounter} and {@link IndexMetricsCollector} produce,
+ * but without reading the archive and querying ES
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ValidationMetricsConverter {
+
+  private static final String ES_CLASSIFICATION = "gbifClassification.";
+  private static final String CLASSIFICATION = "classification.";
+
+  /** ES fields which are copied from the verbatim record as they are */
+  private static final Set<String> VERBATIM_FIELDS =
+      new HashSet<>(
+          Arrays.asList(
+              "occurrenceId",
+              "organismId",
+              "eventId",
+              "parentEventId",
+              "institutionCode",
+              ES_CLASSIFICATION + "taxonID"));
+
+  public static Metrics convert(Archive archive, ValidationMetrics metrics) {
+    List<FileInfo> result = new ArrayList<>();
+    result.add(convert(archive.getCore(), DwcFileType.CORE, metrics));
+    archive
+        .getExtensions()
+        .forEach(ext -> result.add(convert(ext, DwcFileType.EXTENSION, metrics)));
+    return Metrics.builder().fileInfos(result).build();
+  }
+
+  private static FileInfo convert(
+      ArchiveFile archiveFile, DwcFileType fileType, ValidationMetrics metrics) {
+
+    String rowType =
+        Optional.ofNullable(archiveFile.getRowType()).map(t -> t.qualifiedName()).orElse(null);
+    FileMetrics fm =
+        Optional.ofNullable(rowType).map(metrics.getFiles()::get).orElseGet(FileMetrics::new);
+
+    boolean isCore = fileType == DwcFileType.CORE;
+
+    List<TermInfo> terms =
+        fm.getRawTerms().entrySet().stream()
+            .map(
+                es ->
+                    TermInfo.builder()
+                        .term(es.getKey())
+                        .rawIndexed(es.getValue())
+                        .interpretedIndexed(
+                            isCore
+                                ? interpretedCount(fm, es.getKey(), es.getValue())
+                                : es.getValue())
+                        .build())
+            .collect(Collectors.toList());
+
+    FileInfoBuilder builder =
+        FileInfo.builder()
+            .count(fm.getCount())
+            .fileName(archiveFile.getTitle())
+            .fileType(fileType)
+            .rowType(rowType)
+            .terms(terms);
+
+    if (isCore) {
+      builder.indexedCount(fm.getCount());
+    }
+    if (isCore && Occurrence.qualifiedName().equals(rowType)) {
+      builder.issues(
+          fm.getIssues().entrySet().stream()
+              .map(
+                  es ->
+                      IssueInfo.builder()
+                          .issue(es.getKey())
+                          .count(es.getValue())
+                          .samples(samples(fm.getIssueSamples().get(es.getKey())))
+                          .issueCategory(EvaluationCategory.OCC_INTERPRETATION_BASED)
+                          .build())
+              .collect(Collectors.toList()));
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Count of records with the interpreted field of the term, null if the term is not interpreted
+   */
+  private static Long interpretedCount(FileMetrics fm, String term, Long rawCount) {
+    Optional<String> esField = RawToInderpreted.getInterpretedField(term);
+    if (!esField.isPresent()) {
+      return null;
+    }
+    String field = esField.get();
+    if (VERBATIM_FIELDS.contains(field)) {
+      return rawCount;
+    }
+    Map<String, Long> interpreted = fm.getInterpretedFields();
+    return interpreted.getOrDefault(toRecordField(field), 0L);
+  }
+
+  /** Maps ES document field to the interpreted record field */
+  private static String toRecordField(String esField) {
+    if (esField.startsWith(ES_CLASSIFICATION)) {
+      return CLASSIFICATION + esField.substring(ES_CLASSIFICATION.length());
+    }
+    if (esField.equals("eventDateSingle")) {
+      return "eventDate";
+    }
+    return esField;
+  }
+
+  private static List<IssueSample> samples(List<ValidationMetrics.IssueSample> samples) {
+    if (samples == null) {
+      return Collections.emptyList();
+    }
+    return samples.stream()
+        .map(
+            s ->
+                IssueSample.builder()
+                    .recordId(s.getRecordId())
+                    .relatedData(
+                        Optional.ofNullable(s.getRelatedData()).orElse(Collections.emptyMap()))
+                    .build())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,70 @@
+package org.gbif.pipelines.validator.metircs.request;
+
+import java.util.List;
+import java.util.Optional;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregator.KeyedFilter;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.gbif.pipelines.validator.metircs.RawToInderpreted;
+
+/**
+ * Similir to _search API call, returns the total documents count, counts of interpreted terms and
+ * optionally the issues aggregation in one request
+ *
+ * <p>{ "size": 0, "track_total_hits": true, "query": { "term": { "datasetKey":
+ * "675a1bfd-9bcc-46ea-a417-1f68f23a10f6" } }, "aggs": { "interpreted_count": { "filters": {
+ * "filters": { "http://rs.tdwg.org/dwc/terms/country": { "exists": { "field": "country" } } } } } }
+ * }
+ */
+@Slf4j
+@Builder
+public class CoreMetricsRequestBuilder {
+
+  public static final String INTERPRETED_AGGREGATION = "interpreted_count";
+
+  @Builder.Default private final String termName = "datasetKey";
+  private final String termValue;
+  private final String indexName;
+  private final List<String> terms;
+  private final boolean issues;
+
+  public SearchRequest getRequest() {
+
+    SearchSourceBuilder source =
+        new SearchSourceBuilder()
+            .size(0)
+            .trackTotalHits(true)
+            .query(QueryBuilders.termQuery(termName, termValue));
+
+    // Terms without interpreted field have no interpreted count
+    KeyedFilter[] filters =
+        terms.stream()
+            .distinct()
+            .map(
+                term ->
+                    RawToInderpreted.getInterpretedField(term)
+                        .map(field -> new KeyedFilter(term, QueryBuilders.existsQuery(field))))
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .toArray(KeyedFilter[]::new);
+
+    if (filters.length > 0) {
+      source.aggregation(AggregationBuilders.filters(INTERPRETED_AGGREGATION, filters));
+    }
+
+    if (issues) {
+      source.aggregation(
+          OccurrenceIssuesRequestBuilder.builder()
+              .termValue(termValue)
+              .indexName(indexName)
+              .build()
+              .getAggregation());
+    }
+
+    return new SearchRequest().source(source).indices(indexName);
+  }
+}
@@ -0,0 +1,50 @@
+package org.gbif.pipelines.validator.metircs.request;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+/**
+ * Similir to _search API call, counts values of all extension terms in one request, the aggregation
+ * of a term is named by the term position, see {@link #aggregationName(int)}
+ *
+ * <p>{ "size": 0, "query": { "term": { "datasetKey": "675a1bfd-9bcc-46ea-a417-1f68f23a10f6" } },
+ * "aggs": { "types_count_0": { "value_count": { "field":
+ * "verbatim.extensions.http://rs.tdwg.org/dwc/terms/MeasurementOrFact.http://rs.tdwg.org/dwc/terms/measurementType"
+ * } } } }
+ */
+@Slf4j
+@Builder
+public class ExtensionTermsCountRequestBuilder {
+
+  public static final String AGGREGATION = "types_count";
+
+  @Builder.Default private final String termName = "datasetKey";
+  private final String termValue;
+  private final String prefix;
+  private final String indexName;
+  private final List<String> terms;
+
+  public SearchRequest getRequest() {
+
+    SearchSourceBuilder source =
+        new SearchSourceBuilder().size(0).query(QueryBuilders.termQuery(termName, termValue));
+
+    for (int i = 0; i < terms.size(); i++) {
+      String term = terms.get(i);
+      String aggsField = prefix == null || prefix.isEmpty() ? term : prefix + "." + term;
+      source.aggregation(AggregationBuilders.count(aggregationName(i)).field(aggsField));
+    }
+
+    return new SearchRequest().source(source).indices(indexName);
+  }
+
+  /** Name of the value count aggregation of the term at the position */
+  public static String aggregationName(int termIdx) {
+    return AGGREGATION + "_" + termIdx;
+  }
+}
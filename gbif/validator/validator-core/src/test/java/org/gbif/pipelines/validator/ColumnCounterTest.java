@@ -0,0 +1,106 @@
+package org.gbif.pipelines.validator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.gbif.pipelines.validator.ColumnCounter.Counts;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ColumnCounterTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void tabDelimitedTest() throws Exception {
+
+    // State
+    Path path =
+        write(
+            "\uFEFFid\tbasisOfRecord\tsex\n"
+                + "1\tHumanObservation\t \n"
+                + "2\tNULL\tfemale\r\n"
+                + "\n"
+                + "3\t\\N\n"
+                + "4\tHuman Observation\tmale");
+
+    // When
+    Counts counts =
+        ColumnCounter.builder()
+            .path(path)
+            .delimiter((byte) '\t')
+            .headerLines(1)
+            .columns(3)
+            .build()
+            .count();
+
+    // Should
+    assertEquals(4L, counts.getRows());
+    assertArrayEquals(new long[] {4L, 2L, 2L}, counts.getNonEmpty());
+  }
+
+  @Test
+  public void quotedTest() throws Exception {
+
+    // State
+    Path path =
+        write(
+            "id,locality,remarks\n"
+                + "1,\"Copenhagen, Denmark\",\"line\nbreak\"\n"
+                + "2,\"\",\"said \"\"hi\"\"\"\n"
+                + "3,\" \",\n");
+
+    // When
+    Counts counts =
+        ColumnCounter.builder()
+            .path(path)
+            .delimiter((byte) ',')
+            .quote('"')
+            .headerLines(1)
+            .columns(3)
+            .build()
+            .count();
+
+    // Should
+    assertEquals(3L, counts.getRows());
+    assertArrayEquals(new long[] {3L, 1L, 2L}, counts.getNonEmpty());
+  }
+
+  @Test
+  public void parallelRangesTest() throws Exception {
+
+    // State
+    StringBuilder sb = new StringBuilder("id\tvalue\tempty\n");
+    for (int i = 0; i < 10_000; i++) {
+      sb.append(i).append('\t').append(i % 3 == 0 ? "" : "v" + i).append("\t\n");
+    }
+    Path path = write(sb.toString());
+
+    // When
+    Counts counts =
+        ColumnCounter.builder()
+            .path(path)
+            .delimiter((byte) '\t')
+            .headerLines(1)
+            .columns(3)
+            .parallelism(7)
+            .minRangeSize(1_000L)
+            .build()
+            .count();
+
+    // Should
+    assertEquals(10_000L, counts.getRows());
+    assertArrayEquals(new long[] {10_000L, 6_666L, 0L}, counts.getNonEmpty());
+  }
+
+  private Path write(String content) throws Exception {
+    File file = folder.newFile();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return file.toPath();
+  }
+}
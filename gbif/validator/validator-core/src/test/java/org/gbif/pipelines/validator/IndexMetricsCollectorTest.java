@@ -0,0 +1,192 @@
+package org.gbif.pipelines.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.gbif.api.vocabulary.Extension;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.validator.api.DwcFileType;
+import org.gbif.validator.api.Metrics;
+import org.gbif.validator.api.Metrics.FileInfo;
+import org.gbif.validator.api.Metrics.IssueInfo;
+import org.gbif.validator.api.Metrics.TermInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Runs the collector against a fake ES server, which returns a recorded _msearch response */
+public class IndexMetricsCollectorTest {
+
+  private static final String RESPONSE_PATH = "es/msearch_response.json";
+  private static final String NO_AGGREGATIONS_RESPONSE_PATH =
+      "es/msearch_no_aggregations_response.json";
+
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+  private HttpServer server;
+  private RestHighLevelClient client;
+
+  private volatile String responsePath = RESPONSE_PATH;
+
+  @Before
+  public void startServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        exchange -> {
+          byte[] response = readResource(responsePath);
+          requests.add(exchange.getRequestURI().getPath() + " " + read(exchange.getRequestBody()));
+          exchange.getResponseHeaders().add("Content-Type", "application/json");
+          exchange.sendResponseHeaders(200, response.length);
+          try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+          }
+        });
+    server.start();
+
+    client =
+        new RestHighLevelClient(
+            RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())));
+  }
+
+  @After
+  public void stopServer() throws IOException {
+    client.close();
+    server.stop(0);
+  }
+
+  @Test
+  public void singleRequestTest() {
+
+    // State
+    TermInfo maximumElevationInMeters =
+        TermInfo.builder().term(DwcTerm.maximumElevationInMeters.qualifiedName()).build();
+    TermInfo organismID = TermInfo.builder().term(DwcTerm.organismID.qualifiedName()).build();
+    TermInfo bed = TermInfo.builder().term(DwcTerm.bed.qualifiedName()).build();
+
+    FileInfo occurrenceFileInfo =
+        FileInfo.builder()
+            .fileName("occurrence.txt")
+            .fileType(DwcFileType.CORE)
+            .rowType(DwcTerm.Occurrence.qualifiedName())
+            .terms(new ArrayList<>(Arrays.asList(maximumElevationInMeters, organismID, bed)))
+            .build();
+
+    TermInfo measurementValue =
+        TermInfo.builder().term(DwcTerm.measurementValue.qualifiedName()).build();
+    TermInfo measurementType =
+        TermInfo.builder().term(DwcTerm.measurementType.qualifiedName()).build();
+
+    FileInfo extensionFileInfo =
+        FileInfo.builder()
+            .fileName("measurementorfact.txt")
+            .fileType(DwcFileType.EXTENSION)
+            .rowType(Extension.MEASUREMENT_OR_FACT.getRowType())
+            .terms(new ArrayList<>(Arrays.asList(measurementValue, measurementType)))
+            .build();
+
+    // When
+    Metrics result =
+        IndexMetricsCollector.builder()
+            .fileInfos(new ArrayList<>(Arrays.asList(occurrenceFileInfo, extensionFileInfo)))
+            .key(UUID.fromString("675a1bfd-9bcc-46ea-a417-1f68f23a10f6"))
+            .index("validator")
+            .extensionsPrefix("verbatim.extensions")
+            .esClient(client)
+            .build()
+            .collect();
+
+    // Should
+    assertEquals(1, requests.size());
+    assertTrue(requests.get(0).startsWith("/_msearch"));
+    assertTrue(requests.get(0).contains("\"filters\""));
+    assertTrue(requests.get(0).contains("\"value_count\""));
+
+    assertEquals(2, result.getFileInfos().size());
+
+    // Core
+    assertEquals(Long.valueOf(3L), occurrenceFileInfo.getIndexedCount());
+    assertEquals(Long.valueOf(3L), maximumElevationInMeters.getInterpretedIndexed());
+    assertEquals(Long.valueOf(0L), organismID.getInterpretedIndexed());
+    assertNull(bed.getInterpretedIndexed());
+
+    List<IssueInfo> issues = occurrenceFileInfo.getIssues();
+    assertEquals(1, issues.size());
+    assertEquals("ELEVATION_UNLIKELY", issues.get(0).getIssue());
+    assertEquals(Long.valueOf(1L), issues.get(0).getCount());
+    assertEquals("bla", issues.get(0).getSamples().get(0).getRecordId());
+
+    // Extension
+    assertEquals(Long.valueOf(6L), measurementValue.getInterpretedIndexed());
+    assertEquals(Long.valueOf(0L), measurementType.getInterpretedIndexed());
+  }
+
+  @Test
+  public void noAggregationsTest() {
+
+    // State
+    responsePath = NO_AGGREGATIONS_RESPONSE_PATH;
+    TermInfo maximumElevationInMeters =
+        TermInfo.builder().term(DwcTerm.maximumElevationInMeters.qualifiedName()).build();
+
+    FileInfo occurrenceFileInfo =
+        FileInfo.builder()
+            .fileName("occurrence.txt")
+            .fileType(DwcFileType.CORE)
+            .rowType(DwcTerm.Occurrence.qualifiedName())
+            .terms(new ArrayList<>(Collections.singletonList(maximumElevationInMeters)))
+            .build();
+
+    // When
+    IndexMetricsCollector.builder()
+        .fileInfos(new ArrayList<>(Collections.singletonList(occurrenceFileInfo)))
+        .key(UUID.fromString("675a1bfd-9bcc-46ea-a417-1f68f23a10f6"))
+        .index("validator")
+        .extensionsPrefix("verbatim.extensions")
+        .esClient(client)
+        .build()
+        .collect();
+
+    // Should
+    assertEquals(Long.valueOf(2L), occurrenceFileInfo.getIndexedCount());
+    assertNull(maximumElevationInMeters.getInterpretedIndexed());
+    assertTrue(occurrenceFileInfo.getIssues().isEmpty());
+  }
+
+  private byte[] readResource(String path) throws IOException {
+    try {
+      return Files.readAllBytes(Paths.get(getClass().getClassLoader().getResource(path).toURI()));
+    } catch (URISyntaxException ex) {
+      throw new IOException(ex);
+    }
+  }
+
+  private static String read(InputStream is) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int read;
+    while ((read = is.read(buffer)) != -1) {
+      os.write(buffer, 0, read);
+    }
+    return new String(os.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,82 @@
+package org.gbif.pipelines.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import org.gbif.dwc.Archive;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.common.pojo.ValidationMetrics;
+import org.gbif.pipelines.common.pojo.ValidationMetrics.FileMetrics;
+import org.gbif.validator.api.DwcFileType;
+import org.gbif.validator.api.Metrics;
+import org.gbif.validator.api.Metrics.FileInfo;
+import org.gbif.validator.api.Metrics.IssueInfo;
+import org.gbif.validator.api.Metrics.TermInfo;
+import org.junit.Test;
+
+public class ValidationMetricsConverterTest {
+
+  @Test
+  public void occurrenceCoreTest() throws Exception {
+
+    // State
+    Archive archive = DwcaTestUtil.openArchive("/dwca/dwca-one-hundred-good-triplets-good-ids.zip");
+
+    ValidationMetrics metrics = new ValidationMetrics();
+    FileMetrics core = metrics.file(DwcTerm.Occurrence.qualifiedName());
+    core.setCount(100L);
+    core.getRawTerms().put(DwcTerm.basisOfRecord.qualifiedName(), 100L);
+    core.getRawTerms().put(DwcTerm.kingdom.qualifiedName(), 100L);
+    core.getRawTerms().put(DwcTerm.occurrenceID.qualifiedName(), 100L);
+    core.getRawTerms().put(DwcTerm.bed.qualifiedName(), 3L);
+    core.getInterpretedFields().put("basisOfRecord", 98L);
+    core.getInterpretedFields().put("classification.kingdom", 99L);
+    core.addIssue("BASIS_OF_RECORD_INVALID", "1");
+    core.addIssue("BASIS_OF_RECORD_INVALID", "2");
+    core.getIssueSamples()
+        .get("BASIS_OF_RECORD_INVALID")
+        .get(0)
+        .getRelatedData()
+        .put("dwc:basisOfRecord", "Observaton");
+
+    // When
+    Metrics result = ValidationMetricsConverter.convert(archive, metrics);
+
+    // Should
+    assertEquals(1, result.getFileInfos().size());
+
+    FileInfo fileInfo = result.getFileInfos().get(0);
+    assertEquals(DwcFileType.CORE, fileInfo.getFileType());
+    assertEquals(DwcTerm.Occurrence.qualifiedName(), fileInfo.getRowType());
+    assertEquals(Long.valueOf(100L), fileInfo.getCount());
+    assertEquals(Long.valueOf(100L), fileInfo.getIndexedCount());
+
+    assertTerm(fileInfo, DwcTerm.basisOfRecord, 100L, 98L);
+    assertTerm(fileInfo, DwcTerm.kingdom, 100L, 99L);
+    assertTerm(fileInfo, DwcTerm.occurrenceID, 100L, 100L);
+    assertTerm(fileInfo, DwcTerm.bed, 3L, null);
+
+    List<IssueInfo> issues = fileInfo.getIssues();
+    assertEquals(1, issues.size());
+    assertEquals("BASIS_OF_RECORD_INVALID", issues.get(0).getIssue());
+    assertEquals(Long.valueOf(2L), issues.get(0).getCount());
+    assertEquals(2, issues.get(0).getSamples().size());
+    assertEquals("1", issues.get(0).getSamples().get(0).getRecordId());
+    assertEquals(
+        Collections.singletonMap("dwc:basisOfRecord", "Observaton"),
+        issues.get(0).getSamples().get(0).getRelatedData());
+    assertTrue(issues.get(0).getSamples().get(1).getRelatedData().isEmpty());
+  }
+
+  private static void assertTerm(FileInfo fileInfo, DwcTerm term, Long raw, Long interpreted) {
+    TermInfo termInfo =
+        fileInfo.getTerms().stream()
+            .filter(t -> t.getTerm().equals(term.qualifiedName()))
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+    assertEquals(raw, termInfo.getRawIndexed());
+    assertEquals(interpreted, termInfo.getInterpretedIndexed());
+  }
+}
@@ -13,7 +13,6 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
@@ -24,6 +23,9 @@ import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.transforms.Create;
 import org.apache.beam.sdk.transforms.View;
+import org.apache.beam.sdk.transforms.join.CoGroupByKey;
+import org.apache.beam.sdk.transforms.join.KeyedPCollectionTuple;
+import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.PCollectionView;
 import org.gbif.api.model.pipelines.StepType;
@@ -39,6 +41,7 @@ import org.gbif.pipelines.core.utils.FsUtils;
 import org.gbif.pipelines.factory.FileVocabularyFactory;
 import org.gbif.pipelines.io.avro.ALAMetadataRecord;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.Parent;
 import org.gbif.pipelines.transforms.core.*;
 import org.gbif.pipelines.transforms.extension.AudubonTransform;
 import org.gbif.pipelines.transforms.extension.ImageTransform;
@@ -177,21 +180,28 @@ public class ALAVerbatimToEventPipeline {
             .apply("Filter event duplicates", transformsFactory.createUniqueIdTransform())
             .apply("Filter event extensions", transformsFactory.createExtensionFilterTransform());
 
-    // view with the records that have parents to find the hierarchy in the event core
-    // interpretation later
-    PCollectionView<Map<String, Map<String, String>>> erWithParentEventsView =
+    // lineages of the records that have parents, resolved by joins instead of a side input with
+    // all the records
+    PCollection<KV<String, List<Parent>>> parentsLineage =
         uniqueRawRecords
-            .apply(verbatimTransform.toParentEventsKv())
-            .apply("View to find parents", View.asMap());
-    eventCoreTransform.setErWithParentsView(erWithParentEventsView);
+            .apply("Map to parent events KV", verbatimTransform.toParentEventsKv())
+            .apply("Resolve parents lineage", ParentsLineageTransform.create());
 
     uniqueRawRecords
         .apply("Interpret event identifiers", identifierTransform.interpret())
         .apply("Write event identifiers to avro", identifierTransform.write(pathFn));
 
-    uniqueRawRecords
-        .apply("Check event core transform", eventCoreTransform.check(types))
-        .apply("Interpret event core", eventCoreTransform.interpret())
+    PCollection<KV<String, ExtendedRecord>> eventCoreRawRecords =
+        uniqueRawRecords
+            .apply("Check event core transform", eventCoreTransform.check(types))
+            .apply("Map event core verbatim to KV", verbatimTransform.toKv());
+
+    KeyedPCollectionTuple.of(verbatimTransform.getTag(), eventCoreRawRecords)
+        .and(ParentsLineageTransform.tag(), parentsLineage)
+        .apply("Grouping event core and parents lineage", CoGroupByKey.create())
+        .apply(
+            "Interpret event core",
+            eventCoreTransform.interpret(verbatimTransform.getTag(), ParentsLineageTransform.tag()))
         .apply("Write event core to avro", eventCoreTransform.write(pathFn));
 
     uniqueRawRecords
@@ -12,10 +12,12 @@ import au.org.ala.pipelines.transforms.IndexFields;
 import au.org.ala.pipelines.transforms.IndexRecordTransform;
 import au.org.ala.pipelines.transforms.IndexValues;
 import au.org.ala.pipelines.util.VersionInfo;
+import au.org.ala.sampling.SamplingLookup;
 import au.org.ala.utils.ALAFsUtils;
 import au.org.ala.utils.CombinedYamlConfiguration;
 import au.org.ala.utils.ValidationUtils;
 import avro.shaded.com.google.common.collect.ImmutableMap;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
@@ -56,7 +58,8 @@ import org.slf4j.MDC;
  * CoGroupByKey as they are all using occurrenceIDs. These output are generated in other pipelines
  * which are run prior to running this one.
  *
- * <p>Sampling is joined to IndexRecords using a latitude_longitude string.
+ * <p>Sampling is joined to IndexRecords using a latitude_longitude string, or added from a {@link
+ * SamplingLookup} loaded by every worker when useSamplingLookup is set.
  */
 @Slf4j
 public class IndexRecordToSolrPipeline {
@@ -126,7 +129,23 @@ public class IndexRecordToSolrPipeline {
 
     PCollection<IndexRecord> readyToIndex = null;
 
-    if (options.getIncludeSampling()) {
+    if (options.getIncludeSampling() && options.getUseSamplingLookup()) {
+
+      log.info("Adding sampling to the index from the sampling lookup");
+
+      String samplingLookupPath = buildSamplingLookup(options);
+
+      // add sampling to the records with coordinates, the lookup is loaded once per worker
+      readyToIndex =
+          indexRecordsCollection
+              .apply(Values.create())
+              .apply("Add sampling", ParDo.of(new SamplingLookupFn(samplingLookupPath)));
+      SolrIO.ConnectionConfiguration conn =
+          SolrIO.ConnectionConfiguration.create(options.getZkHost());
+
+      writeToSolr(options, readyToIndex, conn, schemaFields, dynamicFieldPrefixes);
+
+    } else if (options.getIncludeSampling()) {
 
       log.info("Adding sampling to the index");
 
@@ -243,6 +262,21 @@ public class IndexRecordToSolrPipeline {
 
     if (options.getOutputAvroToFilePath() == null) {
 
+      SolrIO.Write write =
+          SolrIO.write()
+              .to(options.getSolrCollection())
+              .withConnectionConfiguration(conn)
+              .withMaxBatchSize(options.getSolrBatchSize())
+              .withRetryConfiguration(
+                  SolrIO.RetryConfiguration.create(
+                      options.getSolrRetryMaxAttempts(),
+                      Duration.standardMinutes(options.getSolrRetryDurationInMins())));
+      if (options.getSolrShardTargetLatencyInMillis() != null) {
+        write =
+            write.withShardRouting(
+                Duration.millis(options.getSolrShardTargetLatencyInMillis().longValue()));
+      }
+
       indexRecords
           .apply(
               "IndexRecord to SOLR Document",
@@ -258,15 +292,7 @@ public class IndexRecordToSolrPipeline {
                       out.output(solrInputDocument);
                     }
                   }))
-          .apply(
-              SolrIO.write()
-                  .to(options.getSolrCollection())
-                  .withConnectionConfiguration(conn)
-                  .withMaxBatchSize(options.getSolrBatchSize())
-                  .withRetryConfiguration(
-                      SolrIO.RetryConfiguration.create(
-                          options.getSolrRetryMaxAttempts(),
-                          Duration.standardMinutes(options.getSolrRetryDurationInMins()))));
+          .apply(write);
     } else {
       indexRecords.apply(AvroIO.write(IndexRecord.class).to(options.getOutputAvroToFilePath()));
     }
@@ -425,39 +451,7 @@ public class IndexRecordToSolrPipeline {
         indexRecordIterable.forEach(
             indexRecord -> {
               if (sampleRecord != null && !sampleRecord.equals(nullSampling)) {
-
-                Map<String, String> strings =
-                    indexRecord.getStrings() != null ? indexRecord.getStrings() : new HashMap<>();
-                Map<String, Double> doubles =
-                    indexRecord.getDoubles() != null ? indexRecord.getDoubles() : new HashMap<>();
-
-                Map<String, String> stringsToPersist =
-                    ImmutableMap.<String, String>builder()
-                        .putAll(strings)
-                        .putAll(sampleRecord.getStrings())
-                        .build();
-
-                Map<String, Double> doublesToPersist =
-                    ImmutableMap.<String, Double>builder()
-                        .putAll(doubles)
-                        .putAll(sampleRecord.getDoubles())
-                        .build();
-
-                IndexRecord ir =
-                    IndexRecord.newBuilder()
-                        .setId(indexRecord.getId())
-                        .setTaxonID(indexRecord.getTaxonID())
-                        .setLatLng(indexRecord.getLatLng())
-                        .setMultiValues(indexRecord.getMultiValues())
-                        .setDates(indexRecord.getDates())
-                        .setLongs(indexRecord.getLongs())
-                        .setBooleans(indexRecord.getBooleans())
-                        .setInts(indexRecord.getInts())
-                        .setStrings(stringsToPersist)
-                        .setDoubles(doublesToPersist)
-                        .setDynamicProperties(indexRecord.getDynamicProperties())
-                        .build();
-                c.output(ir);
+                c.output(addSampling(indexRecord, sampleRecord));
               } else {
                 c.output(indexRecord);
               }
@@ -466,6 +460,65 @@ public class IndexRecordToSolrPipeline {
     };
   }
 
+  private static IndexRecord addSampling(IndexRecord indexRecord, SampleRecord sampleRecord) {
+
+    Map<String, String> strings =
+        indexRecord.getStrings() != null ? indexRecord.getStrings() : new HashMap<>();
+    Map<String, Double> doubles =
+        indexRecord.getDoubles() != null ? indexRecord.getDoubles() : new HashMap<>();
+
+    Map<String, String> stringsToPersist =
+        ImmutableMap.<String, String>builder()
+            .putAll(strings)
+            .putAll(sampleRecord.getStrings())
+            .build();
+
+    Map<String, Double> doublesToPersist =
+        ImmutableMap.<String, Double>builder()
+            .putAll(doubles)
+            .putAll(sampleRecord.getDoubles())
+            .build();
+
+    return IndexRecord.newBuilder()
+        .setId(indexRecord.getId())
+        .setTaxonID(indexRecord.getTaxonID())
+        .setLatLng(indexRecord.getLatLng())
+        .setMultiValues(indexRecord.getMultiValues())
+        .setDates(indexRecord.getDates())
+        .setLongs(indexRecord.getLongs())
+        .setBooleans(indexRecord.getBooleans())
+        .setInts(indexRecord.getInts())
+        .setStrings(stringsToPersist)
+        .setDoubles(doublesToPersist)
+        .setDynamicProperties(indexRecord.getDynamicProperties())
+        .build();
+  }
+
+  /** Adds sampling to the records with coordinates using the sampling lookup of the worker. */
+  private static class SamplingLookupFn extends DoFn<IndexRecord, IndexRecord> {
+
+    private final String samplingLookupPath;
+    private transient SamplingLookup samplingLookup;
+
+    private SamplingLookupFn(String samplingLookupPath) {
+      this.samplingLookupPath = samplingLookupPath;
+    }
+
+    @Setup
+    public void setup() {
+      samplingLookup = SamplingLookup.load(samplingLookupPath);
+    }
+
+    @ProcessElement
+    public void processElement(@Element IndexRecord indexRecord, OutputReceiver<IndexRecord> out) {
+      SampleRecord sampleRecord =
+          Strings.isEmpty(indexRecord.getLatLng())
+              ? null
+              : samplingLookup.lookup(indexRecord.getLatLng());
+      out.output(sampleRecord != null ? addSampling(indexRecord, sampleRecord) : indexRecord);
+    }
+  }
+
   /**
    * Join processing outputs which are all key-ed on OccurrenceID.
    *
@@ -529,6 +582,18 @@ public class IndexRecordToSolrPipeline {
                 }));
   }
 
+  /** Builds the sampling lookup from the sampling AVRO, an up to date lookup is reused. */
+  private static String buildSamplingLookup(AllDatasetsPipelinesOptions options) {
+    String samplingPath = ALAFsUtils.buildPathSamplingUsingTargetPath(options);
+    String samplingLookupPath = String.join("/", samplingPath, "lookup", "sampling-lookup.bin");
+    try {
+      SamplingLookup.build(String.join("/", samplingPath, "*.avro"), samplingLookupPath);
+    } catch (IOException ex) {
+      throw new PipelinesException("Unable to build the sampling lookup: " + ex.getMessage());
+    }
+    return samplingLookupPath;
+  }
+
   private static PCollection<KV<String, SampleRecord>> loadSampleRecords(
       AllDatasetsPipelinesOptions options, Pipeline p, final int partitions) {
     String samplingPath =
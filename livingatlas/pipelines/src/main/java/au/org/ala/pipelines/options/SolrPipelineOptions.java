@@ -35,12 +35,25 @@ public interface SolrPipelineOptions extends IndexingPipelineOptions {
 
   void setSolrRetryDurationInMins(Integer solrRetryDurationInMins);
 
+  @Description(
+      "SOLR target latency of a shard update request, routes documents to shard leaders in adaptive batches if set")
+  Integer getSolrShardTargetLatencyInMillis();
+
+  void setSolrShardTargetLatencyInMillis(Integer solrShardTargetLatencyInMillis);
+
   @Description("Include sampling")
   @Default.Boolean(false)
   Boolean getIncludeSampling();
 
   void setIncludeSampling(Boolean includeSampling);
 
+  @Description(
+      "Add sampling from a sorted lookup file loaded by every worker instead of joining on latLng")
+  @Default.Boolean(false)
+  Boolean getUseSamplingLookup();
+
+  void setUseSamplingLookup(Boolean useSamplingLookup);
+
   @Description("JackKnife path")
   @Default.String("")
   String getJackKnifePath();
@@ -1,5 +1,6 @@
 package au.org.ala.sampling;
 
+import au.com.bytecode.opencsv.CSVReader;
 import au.org.ala.kvs.ALAPipelinesConfig;
 import au.org.ala.kvs.ALAPipelinesConfigFactory;
 import au.org.ala.pipelines.options.AllDatasetsPipelinesOptions;
@@ -12,11 +13,21 @@ import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -27,6 +38,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.fs.FileSystem;
 import org.gbif.pipelines.common.PipelinesException;
 import org.gbif.pipelines.common.beam.options.PipelinesOptionsFactory;
+import org.gbif.pipelines.core.config.model.SamplingConfig;
 import org.gbif.pipelines.core.pojo.HdfsConfigs;
 import org.gbif.pipelines.core.utils.FsUtils;
 import org.jetbrains.annotations.NotNull;
@@ -46,6 +58,11 @@ public class LayerCrawler {
   public static final String FINISHED_STATUS = "finished";
   public static final String ERROR_STATUS = "error";
 
+  // hash of the layer set of the sampling CSVs in the output directory
+  private static final String LAYER_SET_FILE = "layers.sha1";
+  // name of the sampling CSVs written from the sampling cache
+  private static final String CACHED_NAME = "latlng";
+
   private SamplingService service;
 
   private Retrofit retrofit;
@@ -69,23 +86,12 @@ public class LayerCrawler {
 
   public void run(SamplingPipelineOptions options) throws Exception {
 
-    config =
+    MDC.put("step", "SAMPLING");
+    init(
         ALAPipelinesConfigFactory.getInstance(
                 HdfsConfigs.create(options.getHdfsSiteConfig(), options.getCoreSiteConfig()),
                 options.getProperties())
-            .get();
-
-    MDC.put("step", "SAMPLING");
-    retrofit =
-        new Retrofit.Builder()
-            .baseUrl(config.getSamplingService().getWsUrl())
-            .addConverterFactory(JacksonConverterFactory.create())
-            .validateEagerly(true)
-            .build();
-
-    log.info("Initialising crawler....");
-    service = retrofit.create(SamplingService.class);
-    log.info("Initialised.");
+            .get());
 
     FileSystem fs =
         FsUtils.getFileSystem(
@@ -112,9 +118,7 @@ public class LayerCrawler {
     String layerList = getRequiredLayers();
 
     log.info("Running sampling using lat lng files: {} ", latLngFiles.size());
-    for (String inputFile : latLngFiles) {
-      crawl(fs, layerList, inputFile, sampleDownloadPath);
-    }
+    crawl(fs, layerList, latLngFiles, sampleDownloadPath);
 
     log.info("Finished layer sampling. Downloads in CSV directory: {}", sampleDownloadPath);
     log.info("Converting downloaded sampling CSV to AVRO...");
@@ -183,6 +187,24 @@ public class LayerCrawler {
 
   public LayerCrawler() {}
 
+  public LayerCrawler(ALAPipelinesConfig config) {
+    init(config);
+  }
+
+  private void init(ALAPipelinesConfig config) {
+    this.config = config;
+    retrofit =
+        new Retrofit.Builder()
+            .baseUrl(config.getSamplingService().getWsUrl())
+            .addConverterFactory(JacksonConverterFactory.create())
+            .validateEagerly(true)
+            .build();
+
+    log.info("Initialising crawler....");
+    service = retrofit.create(SamplingService.class);
+    log.info("Initialised.");
+  }
+
   public String getRequiredLayers() throws IOException {
 
     log.info("Retrieving layer list from sampling service");
@@ -197,82 +219,270 @@ public class LayerCrawler {
     return layers;
   }
 
+  /**
+   * Reads the "latitude,longitude" points of the complete sampling CSVs in the output directory,
+   * exactly as they are written, the sampling is joined by the exact coordinates. The sampling CSVs
+   * are kept for the layer set they were sampled with, the output directory of another layer set is
+   * deleted, so the CSVs of several layer sets are never mixed.
+   */
+  static Set<String> readSampledPoints(FileSystem fs, String outputDirectoryPath, String layers)
+      throws IOException {
+    Set<String> sampled = ConcurrentHashMap.newKeySet();
+    String layerSetPath = outputDirectoryPath + "/" + LAYER_SET_FILE;
+    String layerSet = SamplingCache.layerSetHash(layers);
+
+    if (ALAFsUtils.exists(fs, outputDirectoryPath)
+        && !layerSet.equals(readLayerSet(fs, layerSetPath))) {
+      log.info("Sampling CSVs in {} are of another layer set, deleting", outputDirectoryPath);
+      ALAFsUtils.deleteIfExist(fs, outputDirectoryPath);
+    }
+
+    if (!ALAFsUtils.exists(fs, outputDirectoryPath)) {
+      ALAFsUtils.createDirectory(fs, outputDirectoryPath);
+      try (Writer writer =
+          new OutputStreamWriter(
+              ALAFsUtils.openOutputStream(fs, layerSetPath), StandardCharsets.UTF_8)) {
+        writer.write(layerSet);
+      }
+    }
+
+    for (String path : ALAFsUtils.listPaths(fs, outputDirectoryPath)) {
+      if (path.endsWith(".csv")) {
+        try (CSVReader reader =
+            new CSVReader(
+                new InputStreamReader(ALAFsUtils.openInputStream(fs, path), StandardCharsets.UTF_8),
+                ',',
+                '"',
+                1)) {
+          String[] line;
+          while ((line = reader.readNext()) != null) {
+            if (line.length >= 2) {
+              sampled.add(line[0] + "," + line[1]);
+            }
+          }
+        }
+      }
+    }
+    log.info("{} points are sampled already in {}", sampled.size(), outputDirectoryPath);
+    return sampled;
+  }
+
+  private static String readLayerSet(FileSystem fs, String layerSetPath) throws IOException {
+    if (!ALAFsUtils.exists(fs, layerSetPath)) {
+      return null;
+    }
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                ALAFsUtils.openInputStream(fs, layerSetPath), StandardCharsets.UTF_8))) {
+      return reader.readLine();
+    }
+  }
+
+  /**
+   * Samples the points of the input file, see {@link #crawl(FileSystem, String, Collection,
+   * String)}
+   */
   public void crawl(FileSystem fs, String layers, String inputFilePath, String outputDirectoryPath)
       throws Exception {
+    crawl(fs, layers, Collections.singletonList(inputFilePath), outputDirectoryPath);
+  }
 
-    // partition the coordinates into batches of N to submit
-    log.info("Partitioning coordinates from file {}", inputFilePath);
+  /**
+   * Samples the points of the input files, several batches are sampled at the same time. The
+   * sampling CSV of a batch is complete once it has its name, the points of the complete sampling
+   * CSVs are not sampled again, so an interrupted crawl of the same layers can be resumed. Points
+   * in the sampling cache are written from the cache first, for all the input files at once, so the
+   * cache is read once.
+   */
+  public void crawl(
+      FileSystem fs, String layers, Collection<String> inputFilePaths, String outputDirectoryPath)
+      throws Exception {
+
+    SamplingConfig samplingConfig = config.getSamplingService();
+
+    Set<String> sampled = readSampledPoints(fs, outputDirectoryPath, layers);
+
+    SamplingCache cache =
+        samplingConfig.getCachePath() == null
+            ? null
+            : SamplingCache.open(
+                samplingConfig.getCachePath(), layers, samplingConfig.getCachePrecision());
+
+    if (cache != null) {
+      Set<String> cached = new LinkedHashSet<>();
+      for (String inputFilePath : inputFilePaths) {
+        try (Stream<String> latLngs = readLatLngs(fs, inputFilePath)) {
+          latLngs
+              .filter(latLng -> !sampled.contains(latLng) && cache.contains(latLng))
+              .forEach(cached::add);
+        }
+      }
+      if (!cached.isEmpty()) {
+        int written = cache.write(fs, cached, outputDirectoryPath, CACHED_NAME);
+        sampled.addAll(cached);
+        log.info("Sampling of {} points written from the sampling cache", written);
+      }
+    }
+
+    for (String inputFilePath : inputFilePaths) {
+      crawl(fs, layers, inputFilePath, outputDirectoryPath, sampled, cache);
+    }
+  }
+
+  private static Stream<String> readLatLngs(FileSystem fs, String inputFilePath)
+      throws IOException {
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(ALAFsUtils.openInputStream(fs, inputFilePath)));
+    return reader
+        .lines()
+        .onClose(
+            () -> {
+              try {
+                reader.close();
+              } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+              }
+            });
+  }
+
+  /**
+   * Samples the points of the input file which are not sampled yet
+   *
+   * @param sampled points of the complete sampling CSVs, the points of the completed batches are
+   *     added
+   * @param cache sampling cache the completed batches are added to, or null
+   */
+  private void crawl(
+      FileSystem fs,
+      String layers,
+      String inputFilePath,
+      String outputDirectoryPath,
+      Set<String> sampled,
+      SamplingCache cache)
+      throws Exception {
+
+    SamplingConfig samplingConfig = config.getSamplingService();
+
+    List<String> notSampled;
+    try (Stream<String> latLngs = readLatLngs(fs, inputFilePath)) {
+      notSampled = latLngs.filter(latLng -> !sampled.contains(latLng)).collect(Collectors.toList());
+    }
 
-    InputStream inputStream = ALAFsUtils.openInputStream(fs, inputFilePath);
-    Collection<List<String>> partitioned;
-    try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-      partitioned = partition(reader.lines(), config.getSamplingService().getBatchSize());
+    // partition the coordinates into batches of N to submit
+    log.info("Partitioning {} coordinates from file {}", notSampled.size(), inputFilePath);
+    Collection<List<String>> partitioned =
+        partition(notSampled.stream(), samplingConfig.getBatchSize());
+
+    ExecutorService executor = Executors.newFixedThreadPool(samplingConfig.getBatchConcurrency());
+    try {
+      List<Future<?>> batches = new ArrayList<>();
+      for (List<String> partition : partitioned) {
+        batches.add(
+            executor.submit(
+                () -> {
+                  crawlBatch(fs, layers, partition, outputDirectoryPath, cache);
+                  sampled.addAll(partition);
+                  return null;
+                }));
+      }
+      for (Future<?> batch : batches) {
+        try {
+          batch.get();
+        } catch (ExecutionException ex) {
+          throw new PipelinesException(
+              "Unable to complete sampling for dataset, completed batches are kept in "
+                  + outputDirectoryPath,
+              ex.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
     }
 
-    for (List<String> partition : partitioned) {
+    log.info("Sampling done for file {}", inputFilePath);
+  }
 
-      log.info("Partition size (no of coordinates) : {}", partition.size());
-      String coords = String.join(",", partition);
+  private void crawlBatch(
+      FileSystem fs,
+      String layers,
+      List<String> partition,
+      String outputDirectoryPath,
+      SamplingCache cache)
+      throws Exception {
 
-      Instant batchStart = Instant.now();
+    log.info("Partition size (no of coordinates) : {}", partition.size());
+    String coords = String.join(",", partition);
 
-      // Submit a job to generate a join
-      Response<SamplingService.Batch> submit =
-          service.submitIntersectBatch(layers, coords).execute();
-      String batchId = submit.body().getBatchId();
+    Instant batchStart = Instant.now();
 
-      String state = UNKNOWN_STATUS;
-      while (!state.equalsIgnoreCase(FINISHED_STATUS) && !state.equalsIgnoreCase(ERROR_STATUS)) {
-        Response<SamplingService.BatchStatus> status = service.getBatchStatus(batchId).execute();
-        SamplingService.BatchStatus batchStatus = status.body();
-        state = batchStatus.getStatus();
+    // Submit a job to generate a join
+    Response<SamplingService.Batch> submit = service.submitIntersectBatch(layers, coords).execute();
+    String batchId = submit.body().getBatchId();
 
-        Instant batchCurrentTime = Instant.now();
+    String state = UNKNOWN_STATUS;
+    while (!state.equalsIgnoreCase(FINISHED_STATUS) && !state.equalsIgnoreCase(ERROR_STATUS)) {
+      Response<SamplingService.BatchStatus> status = service.getBatchStatus(batchId).execute();
+      SamplingService.BatchStatus batchStatus = status.body();
+      state = batchStatus.getStatus();
 
-        log.info(
-            "batch ID {} - status: {} - time elapses {} seconds",
-            batchId,
-            state,
-            Duration.between(batchStart, batchCurrentTime).getSeconds());
+      Instant batchCurrentTime = Instant.now();
 
-        if (!state.equals(FINISHED_STATUS)) {
-          TimeUnit.MILLISECONDS.sleep(config.getSamplingService().getBatchStatusSleepTime());
-        } else {
-          log.info("Downloading sampling batch {}", batchId);
+      log.info(
+          "batch ID {} - status: {} - time elapses {} seconds",
+          batchId,
+          state,
+          Duration.between(batchStart, batchCurrentTime).getSeconds());
 
-          downloadFile(fs, outputDirectoryPath, batchId, batchStatus);
+      if (!state.equals(FINISHED_STATUS)) {
+        TimeUnit.MILLISECONDS.sleep(config.getSamplingService().getBatchStatusSleepTime());
+      } else {
+        log.info("Downloading sampling batch {}", batchId);
 
-          String zipFilePath = outputDirectoryPath + "/" + batchId + ".zip";
-          ReadableByteChannel readableByteChannel = ALAFsUtils.openByteChannel(fs, zipFilePath);
-          InputStream zipInput = Channels.newInputStream(readableByteChannel);
+        if (!downloadFile(fs, outputDirectoryPath, batchId, batchStatus)) {
+          throw new PipelinesException("Unable to download batch ID " + batchId);
+        }
 
-          try (ZipInputStream zipInputStream = new ZipInputStream(zipInput)) {
-            ZipEntry entry = zipInputStream.getNextEntry();
-            while (entry != null) {
-              log.info("Unzipping {}", entry.getName());
+        String zipFilePath = outputDirectoryPath + "/" + batchId + ".zip";
+        String unzippedOutputFilePath = outputDirectoryPath + "/" + batchId + ".csv";
+        String tmpOutputFilePath = unzippedOutputFilePath + ".tmp";
+        ReadableByteChannel readableByteChannel = ALAFsUtils.openByteChannel(fs, zipFilePath);
+        InputStream zipInput = Channels.newInputStream(readableByteChannel);
 
-              String unzippedOutputFilePath = outputDirectoryPath + "/" + batchId + ".csv";
-              if (!entry.isDirectory()) {
-                unzipFiles(fs, zipInputStream, unzippedOutputFilePath);
-              }
+        try (ZipInputStream zipInputStream = new ZipInputStream(zipInput)) {
+          ZipEntry entry = zipInputStream.getNextEntry();
+          while (entry != null) {
+            log.info("Unzipping {}", entry.getName());
 
-              zipInputStream.closeEntry();
-              entry = zipInputStream.getNextEntry();
+            if (!entry.isDirectory()) {
+              unzipFiles(fs, zipInputStream, tmpOutputFilePath);
             }
+
+            zipInputStream.closeEntry();
+            entry = zipInputStream.getNextEntry();
           }
+        }
+
+        // a complete sampling CSV marks the points of the batch as sampled
+        fs.rename(
+            ALAFsUtils.createPath(tmpOutputFilePath),
+            ALAFsUtils.createPath(unzippedOutputFilePath));
 
-          // delete zip file
-          ALAFsUtils.deleteIfExist(fs, zipFilePath);
+        // delete zip file
+        ALAFsUtils.deleteIfExist(fs, zipFilePath);
 
-          log.info("Sampling done for file {}", inputFilePath);
+        if (cache != null) {
+          try (InputStream csv = ALAFsUtils.openInputStream(fs, unzippedOutputFilePath)) {
+            cache.add(batchId, csv);
+          }
         }
       }
+    }
 
-      if (state.equals(ERROR_STATUS)) {
-        log.error("Unable to download batch ID {}", batchId);
-        throw new PipelinesException(
-            "Unable to complete sampling for dataset. Check the status of sampling service for more details");
-      }
+    if (state.equals(ERROR_STATUS)) {
+      log.error("Unable to download batch ID {}", batchId);
+      throw new PipelinesException(
+          "Unable to complete sampling for dataset. Check the status of sampling service for more details");
     }
   }
 
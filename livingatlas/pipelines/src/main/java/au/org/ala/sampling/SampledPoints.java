@@ -0,0 +1,87 @@
+package au.org.ala.sampling;
+
+import au.com.bytecode.opencsv.CSVReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Set of sampled points. A point is keyed by its coordinates rounded to a number of decimal places,
+ * the rounded latitude and longitude are packed in a long, so millions of points fit in memory.
+ */
+class SampledPoints {
+
+  // The rounded coordinates must fit in an int
+  static final int MAX_PRECISION = 7;
+
+  private final double scale;
+  private long[] keys = new long[1024];
+  private int size;
+  private boolean sorted = true;
+
+  SampledPoints(int precision) {
+    if (precision < 0 || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(
+          "Precision must be between 0 and " + MAX_PRECISION + ", but was " + precision);
+    }
+    this.scale = Math.pow(10, precision);
+  }
+
+  /** Key of the point, null if the coordinates are not valid */
+  Long key(String latitude, String longitude) {
+    try {
+      double lat = Double.parseDouble(latitude.trim());
+      double lng = Double.parseDouble(longitude.trim());
+      if (Math.abs(lat) > 90d || Math.abs(lng) > 180d) {
+        return null;
+      }
+      return (Math.round(lat * scale) << 32) | (Math.round(lng * scale) & 0xFFFFFFFFL);
+    } catch (NumberFormatException | NullPointerException ex) {
+      return null;
+    }
+  }
+
+  /** Key of a "latitude,longitude" point, null if the coordinates are not valid */
+  Long key(String latLng) {
+    int separator = latLng.indexOf(',');
+    return separator < 0
+        ? null
+        : key(latLng.substring(0, separator), latLng.substring(separator + 1));
+  }
+
+  synchronized void add(long key) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+    }
+    keys[size++] = key;
+    sorted = false;
+  }
+
+  /** Adds the points of a sampling CSV, the first two columns are latitude and longitude */
+  void addAll(InputStream csv) throws IOException {
+    try (CSVReader reader =
+        new CSVReader(new InputStreamReader(csv, StandardCharsets.UTF_8), ',', '"', 1)) {
+      String[] line;
+      while ((line = reader.readNext()) != null) {
+        Long key = line.length < 2 ? null : key(line[0], line[1]);
+        if (key != null) {
+          add(key);
+        }
+      }
+    }
+  }
+
+  synchronized boolean contains(long key) {
+    if (!sorted) {
+      Arrays.sort(keys, 0, size);
+      sorted = true;
+    }
+    return Arrays.binarySearch(keys, 0, size, key) >= 0;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+}
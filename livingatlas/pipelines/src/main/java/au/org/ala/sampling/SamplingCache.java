@@ -0,0 +1,195 @@
+package au.org.ala.sampling;
+
+import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVWriter;
+import au.org.ala.utils.ALAFsUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.FileSystem;
+import org.gbif.pipelines.core.utils.HashConverter;
+
+/**
+ * Local persistent cache of the sampling service results, only points which were never sampled have
+ * to be sent to the sampling service.
+ *
+ * <p>The sampling CSV files of the crawled batches are kept per layer set, in "{cachePath}/{hash of
+ * the layer ids}/{batchId}.csv", so a change of the layers starts a new cache. The points are
+ * matched by coordinates rounded to the configured precision.
+ */
+@Slf4j
+public class SamplingCache {
+
+  private static final String CSV = ".csv";
+
+  private final Path directory;
+  private final SampledPoints points;
+
+  private SamplingCache(Path directory, SampledPoints points) {
+    this.directory = directory;
+    this.points = points;
+  }
+
+  /**
+   * Opens the cache of a layer set and loads the cached points.
+   *
+   * @param cachePath local cache directory
+   * @param layers layer ids in comma separated form
+   * @param precision number of decimal places of the matched coordinates
+   */
+  public static SamplingCache open(String cachePath, String layers, int precision)
+      throws IOException {
+    Path directory = Paths.get(cachePath, layerSetHash(layers));
+    Files.createDirectories(directory);
+
+    SampledPoints points = new SampledPoints(precision);
+    for (Path file : listFiles(directory)) {
+      try (InputStream in = Files.newInputStream(file)) {
+        points.addAll(in);
+      }
+    }
+    log.info("Sampling cache {} has {} points", directory, points.size());
+    return new SamplingCache(directory, points);
+  }
+
+  /** Returns the hash of a layer set, the order of the layer ids does not matter */
+  public static String layerSetHash(String layers) {
+    String layerSet =
+        Arrays.stream(layers.split(","))
+            .map(String::trim)
+            .sorted()
+            .collect(Collectors.joining(","));
+    return HashConverter.getSha1(layerSet);
+  }
+
+  /** Checks if the "latitude,longitude" point is cached */
+  public boolean contains(String latLng) {
+    Long key = points.key(latLng);
+    return key != null && points.contains(key);
+  }
+
+  /**
+   * Adds the sampling CSV of a batch to the cache.
+   *
+   * @param batchId id of the sampled batch
+   * @param csv sampling CSV of the batch
+   */
+  public void add(String batchId, InputStream csv) throws IOException {
+    Path tmp = Files.createTempFile(directory, batchId, ".tmp");
+    try {
+      Files.copy(csv, tmp, StandardCopyOption.REPLACE_EXISTING);
+      try (InputStream in = Files.newInputStream(tmp)) {
+        points.addAll(in);
+      }
+      Files.move(tmp, directory.resolve(batchId + CSV), StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Writes the cached sampling of the points as sampling CSV files, with the coordinates of the
+   * points instead of the coordinates of the cached points. Each cached file is read once, so the
+   * points of all the input files should be written in one call.
+   *
+   * @param latLngs cached "latitude,longitude" points
+   * @param outputDirectoryPath directory of the sampling CSV files
+   * @param name name of the points, the files are named "cached-{name}-{batchId}.csv"
+   * @return number of the written points
+   */
+  public int write(
+      FileSystem fs, Collection<String> latLngs, String outputDirectoryPath, String name)
+      throws IOException {
+    Map<Long, List<String[]>> pending = new HashMap<>();
+    for (String latLng : latLngs) {
+      Long key = points.key(latLng);
+      if (key != null) {
+        pending.computeIfAbsent(key, k -> new ArrayList<>()).add(latLng.split(",", 2));
+      }
+    }
+
+    int count = 0;
+    for (Path file : listFiles(directory)) {
+      if (pending.isEmpty()) {
+        break;
+      }
+      String outputPath = outputDirectoryPath + "/cached-" + name + "-" + file.getFileName();
+      List<String[]> rows = readCachedRows(file, pending);
+      if (rows.size() > 1) {
+        writeRows(fs, rows, outputPath);
+        count += rows.size() - 1;
+      }
+    }
+
+    if (!pending.isEmpty()) {
+      log.warn("{} points are not in the sampling cache {}", pending.size(), directory);
+    }
+    return count;
+  }
+
+  // Reads the header and the rows of the pending points, a pending point is written once
+  private List<String[]> readCachedRows(Path file, Map<Long, List<String[]>> pending)
+      throws IOException {
+    List<String[]> rows = new ArrayList<>();
+    try (CSVReader reader =
+        new CSVReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+      String[] header = reader.readNext();
+      if (header == null) {
+        return rows;
+      }
+      rows.add(header);
+
+      String[] line;
+      while ((line = reader.readNext()) != null) {
+        Long key = line.length < 2 ? null : points.key(line[0], line[1]);
+        List<String[]> latLngs = key == null ? null : pending.remove(key);
+        if (latLngs != null) {
+          for (String[] latLng : latLngs) {
+            String[] row = line.clone();
+            row[0] = latLng[0];
+            row[1] = latLng[1];
+            rows.add(row);
+          }
+        }
+      }
+    }
+    return rows;
+  }
+
+  // Writes to a temporary file first, a sampling CSV is complete once it has its name
+  private static void writeRows(FileSystem fs, List<String[]> rows, String outputPath)
+      throws IOException {
+    String tmpPath = outputPath + ".tmp";
+    try (CSVWriter writer =
+        new CSVWriter(
+            new OutputStreamWriter(
+                ALAFsUtils.openOutputStream(fs, tmpPath), StandardCharsets.UTF_8))) {
+      writer.writeAll(rows);
+    }
+    fs.rename(ALAFsUtils.createPath(tmpPath), ALAFsUtils.createPath(outputPath));
+  }
+
+  private static List<Path> listFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(f -> f.getFileName().toString().endsWith(CSV))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+}
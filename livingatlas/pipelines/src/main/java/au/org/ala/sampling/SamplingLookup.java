@@ -0,0 +1,454 @@
+package au.org.ala.sampling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.io.fs.EmptyMatchTreatment;
+import org.apache.beam.sdk.io.fs.MatchResult;
+import org.apache.beam.sdk.io.fs.ResourceId;
+import org.apache.beam.sdk.util.MimeTypes;
+import org.gbif.pipelines.io.avro.SampleRecord;
+
+/**
+ * Read-only lookup of sampling results by coordinates, an alternative to joining index records with
+ * sample records on the "lat,lng" string.
+ *
+ * <p>The lookup file contains the distinct sampled points sorted by coordinates, encoded as the
+ * long bits of the latitude and the longitude, followed by the layer values of every point. Layer
+ * names and contextual values are stored once, in dictionaries. The file is memory-mapped, only the
+ * dictionaries are loaded into the heap.
+ *
+ * <pre>
+ *   header       - magic, version, number of points, offset of the dictionaries
+ *   index        - per point: latitude bits, longitude bits, values offset, values length
+ *   values       - per point: contextual (layer, value id) and environmental (layer, value) pairs
+ *   dictionaries - layer names, contextual values
+ * </pre>
+ */
+@Slf4j
+public class SamplingLookup implements Closeable {
+
+  private static final int MAGIC = 0x53414D50;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = Integer.BYTES * 3 + Long.BYTES;
+  private static final int INDEX_ENTRY_SIZE = Long.BYTES * 3 + Integer.BYTES;
+  // A buffer maps at most 2gb, bigger files are mapped in chunks
+  private static final long CHUNK_SIZE = 1L << 30;
+
+  // Lookups loaded by the workers, a lookup is copied and mapped once per JVM
+  private static final Map<String, SamplingLookup> LOADED = new ConcurrentHashMap<>();
+
+  private final FileChannel channel;
+  private final MappedByteBuffer[] chunks;
+  private final int size;
+  private final String[] layers;
+  private final String[] values;
+
+  private SamplingLookup(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    long fileSize = channel.size();
+
+    chunks = new MappedByteBuffer[(int) ((fileSize + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+    for (int i = 0; i < chunks.length; i++) {
+      long position = i * CHUNK_SIZE;
+      chunks[i] =
+          channel.map(
+              FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, fileSize - position));
+    }
+
+    if (getInt(0) != MAGIC || getInt(Integer.BYTES) != VERSION) {
+      throw new IOException("Not a sampling lookup file: " + path);
+    }
+    size = getInt(Integer.BYTES * 2);
+
+    try (DataInputStream in =
+        new DataInputStream(
+            new BufferedInputStream(
+                Channels.newInputStream(
+                    FileChannel.open(path, StandardOpenOption.READ)
+                        .position(getLong(Integer.BYTES * 3)))))) {
+      layers = readDictionary(in);
+      values = readDictionary(in);
+    }
+  }
+
+  /** Opens a local lookup file. */
+  public static SamplingLookup open(Path path) throws IOException {
+    return new SamplingLookup(path);
+  }
+
+  /**
+   * Loads a lookup file from any file system supported by Beam, the file is copied into a local
+   * temporary file once per JVM and shared by all the workers of the JVM.
+   */
+  public static SamplingLookup load(String path) {
+    return LOADED.computeIfAbsent(
+        path,
+        p -> {
+          try {
+            Path local = Files.createTempFile("sampling-lookup", ".bin");
+            local.toFile().deleteOnExit();
+            try (ReadableByteChannel in =
+                    FileSystems.open(FileSystems.matchSingleFileSpec(p).resourceId());
+                InputStream stream = Channels.newInputStream(in)) {
+              Files.copy(stream, local, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.info("Sampling lookup {} copied to {}", p, local);
+            return open(local);
+          } catch (IOException ex) {
+            throw new IllegalStateException("Can't load the sampling lookup " + p, ex);
+          }
+        });
+  }
+
+  /**
+   * Builds a lookup file from the sampling AVRO files, the files are read by the driver. An
+   * existing lookup newer than all the sampling files is kept.
+   *
+   * @param samplingPattern pattern of the sampling AVRO files
+   * @param lookupPath path of the lookup file
+   */
+  public static void build(String samplingPattern, String lookupPath) throws IOException {
+    List<MatchResult.Metadata> samplingFiles = FileSystems.match(samplingPattern).metadata();
+
+    MatchResult lookup = FileSystems.match(lookupPath, EmptyMatchTreatment.ALLOW);
+    if (lookup.status() == MatchResult.Status.OK && !lookup.metadata().isEmpty()) {
+      long built = lookup.metadata().get(0).lastModifiedMillis();
+      if (samplingFiles.stream().allMatch(m -> m.lastModifiedMillis() < built)) {
+        log.info("Sampling lookup {} is up to date", lookupPath);
+        return;
+      }
+    }
+
+    Path local = Files.createTempFile("sampling-lookup", ".bin");
+    try {
+      try (Writer writer = writer(local)) {
+        for (MatchResult.Metadata samplingFile : samplingFiles) {
+          try (InputStream in =
+                  Channels.newInputStream(FileSystems.open(samplingFile.resourceId()));
+              DataFileStream<SampleRecord> samples =
+                  new DataFileStream<>(in, new SpecificDatumReader<>(SampleRecord.class))) {
+            for (SampleRecord sample : samples) {
+              writer.add(sample);
+            }
+          }
+        }
+        writer.finish();
+      }
+
+      ResourceId target = FileSystems.matchNewResource(lookupPath, false);
+      try (OutputStream out =
+          Channels.newOutputStream(FileSystems.create(target, MimeTypes.BINARY))) {
+        Files.copy(local, out);
+      }
+      log.info("Sampling lookup {} built from {} files", lookupPath, samplingFiles.size());
+    } finally {
+      Files.deleteIfExists(local);
+    }
+  }
+
+  /** Number of the sampled points. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the sampling of a point.
+   *
+   * @param latLng coordinates, as "latitude,longitude"
+   * @return sampling of the point or null if the point wasn't sampled
+   */
+  public SampleRecord lookup(String latLng) {
+    long[] key = encode(latLng);
+    if (key == null) {
+      return null;
+    }
+
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long entry = HEADER_SIZE + (long) middle * INDEX_ENTRY_SIZE;
+      int cmp = compare(getLong(entry), getLong(entry + Long.BYTES), key[0], key[1]);
+      if (cmp < 0) {
+        low = middle + 1;
+      } else if (cmp > 0) {
+        high = middle - 1;
+      } else {
+        return readSample(latLng, getLong(entry + Long.BYTES * 2), getInt(entry + Long.BYTES * 3));
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /** Creates a writer of a lookup file. */
+  public static Writer writer(Path path) throws IOException {
+    return new Writer(path);
+  }
+
+  private SampleRecord readSample(String latLng, long offset, int length) {
+    ByteBuffer buffer = ByteBuffer.wrap(read(offset, length));
+
+    Map<String, String> strings = new HashMap<>();
+    for (int i = buffer.getShort(); i > 0; i--) {
+      strings.put(layers[buffer.getShort()], values[buffer.getInt()]);
+    }
+
+    Map<String, Double> doubles = new HashMap<>();
+    for (int i = buffer.getShort(); i > 0; i--) {
+      doubles.put(layers[buffer.getShort()], buffer.getDouble());
+    }
+
+    return SampleRecord.newBuilder()
+        .setLatLng(latLng)
+        .setStrings(strings)
+        .setDoubles(doubles)
+        .build();
+  }
+
+  private int getInt(long position) {
+    MappedByteBuffer chunk = chunks[(int) (position / CHUNK_SIZE)];
+    int offset = (int) (position % CHUNK_SIZE);
+    return offset + Integer.BYTES <= chunk.limit()
+        ? chunk.getInt(offset)
+        : ByteBuffer.wrap(read(position, Integer.BYTES)).getInt();
+  }
+
+  private long getLong(long position) {
+    MappedByteBuffer chunk = chunks[(int) (position / CHUNK_SIZE)];
+    int offset = (int) (position % CHUNK_SIZE);
+    return offset + Long.BYTES <= chunk.limit()
+        ? chunk.getLong(offset)
+        : ByteBuffer.wrap(read(position, Long.BYTES)).getLong();
+  }
+
+  // Copies bytes which may span chunks, a duplicate keeps the shared buffers thread-safe
+  private byte[] read(long position, int length) {
+    byte[] bytes = new byte[length];
+    int copied = 0;
+    while (copied < length) {
+      long current = position + copied;
+      ByteBuffer chunk = chunks[(int) (current / CHUNK_SIZE)].duplicate();
+      chunk.position((int) (current % CHUNK_SIZE));
+      int count = Math.min(length - copied, chunk.remaining());
+      chunk.get(bytes, copied, count);
+      copied += count;
+    }
+    return bytes;
+  }
+
+  private static String[] readDictionary(DataInputStream in) throws IOException {
+    String[] dictionary = new String[in.readInt()];
+    for (int i = 0; i < dictionary.length; i++) {
+      dictionary[i] = in.readUTF();
+    }
+    return dictionary;
+  }
+
+  /** Encodes "latitude,longitude" as the long bits of the coordinates, null if it isn't valid */
+  static long[] encode(String latLng) {
+    if (latLng == null) {
+      return null;
+    }
+    int separator = latLng.indexOf(',');
+    if (separator < 0) {
+      return null;
+    }
+    try {
+      // Adding 0.0 turns -0.0 into 0.0, they have different bits
+      double latitude = Double.parseDouble(latLng.substring(0, separator).trim()) + 0.0d;
+      double longitude = Double.parseDouble(latLng.substring(separator + 1).trim()) + 0.0d;
+      return new long[] {Double.doubleToLongBits(latitude), Double.doubleToLongBits(longitude)};
+    } catch (NumberFormatException ex) {
+      return null;
+    }
+  }
+
+  private static int compare(long latitude1, long longitude1, long latitude2, long longitude2) {
+    int cmp = Long.compare(latitude1, latitude2);
+    return cmp != 0 ? cmp : Long.compare(longitude1, longitude2);
+  }
+
+  /**
+   * Writes a lookup file. The values of the points are written to a temporary file in the order
+   * they are added, the points are sorted when the lookup is finished.
+   */
+  public static class Writer implements Closeable {
+
+    private final Path path;
+    private final Path valuesPath;
+    private final DataOutputStream valuesOut;
+    private final Map<String, Integer> layers = new LinkedHashMap<>();
+    private final Map<String, Integer> values = new LinkedHashMap<>();
+
+    private long[] latitudes = new long[1024];
+    private long[] longitudes = new long[1024];
+    private long[] offsets = new long[1024];
+    private int[] lengths = new int[1024];
+    private int count;
+    private long valuesSize;
+    private long skipped;
+
+    private Writer(Path path) throws IOException {
+      this.path = path;
+      this.valuesPath = Files.createTempFile(path.toAbsolutePath().getParent(), "values", ".tmp");
+      this.valuesOut =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(valuesPath)));
+    }
+
+    /** Adds the sampling of a point, a sample without valid coordinates is skipped */
+    public void add(SampleRecord sample) throws IOException {
+      long[] key = encode(sample.getLatLng());
+      if (key == null) {
+        skipped++;
+        return;
+      }
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      Map<String, String> strings = sample.getStrings();
+      out.writeShort(strings.size());
+      for (Map.Entry<String, String> e : strings.entrySet()) {
+        out.writeShort(layerId(e.getKey()));
+        out.writeInt(values.computeIfAbsent(e.getValue(), v -> values.size()));
+      }
+      Map<String, Double> doubles = sample.getDoubles();
+      out.writeShort(doubles.size());
+      for (Map.Entry<String, Double> e : doubles.entrySet()) {
+        out.writeShort(layerId(e.getKey()));
+        out.writeDouble(e.getValue());
+      }
+
+      if (count == latitudes.length) {
+        int capacity = count * 2;
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+      }
+      latitudes[count] = key[0];
+      longitudes[count] = key[1];
+      offsets[count] = valuesSize;
+      lengths[count] = bytes.size();
+      count++;
+
+      bytes.writeTo(valuesOut);
+      valuesSize += bytes.size();
+    }
+
+    /**
+     * Sorts the points and writes the lookup file, the first sampling of a point added more than
+     * once is kept.
+     *
+     * @return number of the distinct points
+     */
+    public int finish() throws IOException {
+      valuesOut.close();
+
+      Integer[] order = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        order[i] = i;
+      }
+      // a stable sort keeps the first sampling of a duplicated point first
+      Arrays.sort(
+          order, (a, b) -> compare(latitudes[a], longitudes[a], latitudes[b], longitudes[b]));
+
+      int[] distinct = new int[count];
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        int current = order[i];
+        if (size == 0
+            || compare(
+                    latitudes[distinct[size - 1]],
+                    longitudes[distinct[size - 1]],
+                    latitudes[current],
+                    longitudes[current])
+                != 0) {
+          distinct[size++] = current;
+        }
+      }
+
+      long valuesOffset = HEADER_SIZE + (long) size * INDEX_ENTRY_SIZE;
+      try (OutputStream stream = Files.newOutputStream(path);
+          DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(size);
+        out.writeLong(valuesOffset + valuesSize);
+
+        for (int i = 0; i < size; i++) {
+          int point = distinct[i];
+          out.writeLong(latitudes[point]);
+          out.writeLong(longitudes[point]);
+          out.writeLong(valuesOffset + offsets[point]);
+          out.writeInt(lengths[point]);
+        }
+
+        Files.copy(valuesPath, out);
+
+        writeDictionary(out, layers);
+        writeDictionary(out, values);
+      }
+
+      log.info(
+          "Sampling lookup {} written, {} points, {} duplicated, {} without coordinates",
+          path,
+          size,
+          count - size,
+          skipped);
+      return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+      valuesOut.close();
+      Files.deleteIfExists(valuesPath);
+    }
+
+    private int layerId(String layer) {
+      int id = layers.computeIfAbsent(layer, l -> layers.size());
+      if (id > Short.MAX_VALUE) {
+        throw new IllegalStateException("Too many sampling layers, layer " + layer);
+      }
+      return id;
+    }
+
+    private static void writeDictionary(DataOutputStream out, Map<String, Integer> dictionary)
+        throws IOException {
+      out.writeInt(dictionary.size());
+      for (String value : dictionary.keySet()) {
+        out.writeUTF(value);
+      }
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io.solr;
+
+/**
+ * Batch size of a shard which adapts to the observed update requests: it grows slowly while full
+ * batches are written within the target latency, and shrinks when a request is slower than the
+ * target or fails, halving on failures. The size stays between 1 and the maximum batch size.
+ */
+class AdaptiveBatchSize {
+
+  private final int maxSize;
+  private final long targetLatencyMs;
+  private final int step;
+  private int size;
+
+  AdaptiveBatchSize(int maxSize, long targetLatencyMs) {
+    this.maxSize = maxSize;
+    this.targetLatencyMs = targetLatencyMs;
+    this.step = Math.max(1, maxSize / 10);
+    this.size = maxSize;
+  }
+
+  /** Current batch size. */
+  int get() {
+    return size;
+  }
+
+  /**
+   * Adapts the size to a successful request.
+   *
+   * @param documents number of the documents of the request
+   * @param latencyMs latency of the request
+   */
+  void onSuccess(int documents, long latencyMs) {
+    if (latencyMs > targetLatencyMs) {
+      size = Math.max(1, size - Math.max(1, size / 4));
+    } else if (documents >= size) {
+      size = Math.min(maxSize, size + step);
+    }
+  }
+
+  /** Adapts the size to a failed request. */
+  void onFailure() {
+    size = Math.max(1, size / 2);
+  }
+}
@@ -27,10 +27,16 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
 import org.apache.beam.sdk.annotations.Experimental;
 import org.apache.beam.sdk.annotations.Experimental.Kind;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Distribution;
+import org.apache.beam.sdk.metrics.Gauge;
+import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.Create;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.PTransform;
@@ -109,6 +115,9 @@ import org.slf4j.LoggerFactory;
  *
  * <p>When writing it is possible to customize the retry behavior if an error is encountered. By
  * default this is disabled and only one attempt will be made.
+ *
+ * <p>Documents can be routed to the leaders of their shards in adaptive per shard batches, see
+ * {@link Write#withShardRouting(Duration)}.
  */
 @Experimental(Kind.SOURCE_SINK)
 @SuppressWarnings({
@@ -513,6 +522,8 @@ public class SolrIO {
 
     abstract @Nullable RetryConfiguration getRetryConfiguration();
 
+    abstract @Nullable Duration getShardTargetLatency();
+
     @AutoValue.Builder
     abstract static class Builder {
       abstract Builder setConnectionConfiguration(ConnectionConfiguration connectionConfiguration);
@@ -523,6 +534,8 @@ public class SolrIO {
 
       abstract Builder setRetryConfiguration(RetryConfiguration retryConfiguration);
 
+      abstract Builder setShardTargetLatency(Duration shardTargetLatency);
+
       abstract Write build();
     }
 
@@ -582,6 +595,28 @@ public class SolrIO {
       return builder().setRetryConfiguration(retryConfiguration).build();
     }
 
+    /**
+     * Routes the documents to the leaders of their shards, using the router of the collection,
+     * instead of sending mixed batches through the {@link CloudSolrClient}. A batch is kept per
+     * shard and its size adapts to the update requests of the shard: it grows up to the max batch
+     * size while the requests are faster than the target latency, and shrinks when they are slower
+     * or fail. A failed request retries only the documents of its shard, as configured by {@link
+     * #withRetryConfiguration(RetryConfiguration)}, after the leaders are refreshed.
+     *
+     * <p>Documents without an "id" field and documents of an alias are sent without routing. Per
+     * shard metrics are reported as "shard_{name}_documents", "shard_{name}_failedRequests",
+     * "shard_{name}_requestLatencyMs" and "shard_{name}_batchSize".
+     *
+     * @param targetLatency target latency of an update request of a shard
+     * @return the {@link Write} with shard routing configured
+     */
+    public Write withShardRouting(Duration targetLatency) {
+      checkArgument(
+          targetLatency != null && targetLatency.isLongerThan(Duration.ZERO),
+          "targetLatency must be greater than 0");
+      return builder().setShardTargetLatency(targetLatency).build();
+    }
+
     @Override
     public PDone expand(PCollection<SolrInputDocument> input) {
       checkState(getConnectionConfiguration() != null, "withConnectionConfiguration() is required");
@@ -597,12 +632,18 @@ public class SolrIO {
       static final String RETRY_ATTEMPT_LOG = "Error writing to Solr. Retry attempt[%d]";
 
       private static final Duration RETRY_INITIAL_BACKOFF = Duration.standardSeconds(5);
+      private static final String ID_FIELD = "id";
 
       private transient FluentBackoff retryBackoff; // defaults to no retrying
       private final Write spec;
       private transient AuthorizedSolrClient solrClient;
       private Collection<SolrInputDocument> batch;
 
+      // Shard routing, the collection is null if the documents are sent without routing
+      private transient @Nullable DocCollection docCollection;
+      private transient Map<String, ShardBatch> shardBatches;
+      private transient Map<String, AuthorizedSolrClient<HttpSolrClient>> leaderClients;
+
       WriteFn(Write spec) {
         this.spec = spec;
       }
@@ -624,6 +665,17 @@ public class SolrIO {
                   .withMaxRetries(spec.getRetryConfiguration().getMaxAttempts() - 1)
                   .withMaxCumulativeBackoff(spec.getRetryConfiguration().getMaxDuration());
         }
+
+        shardBatches = new HashMap<>();
+        leaderClients = new HashMap<>();
+        if (spec.getShardTargetLatency() != null) {
+          docCollection = readDocCollection();
+          if (docCollection == null) {
+            LOG.warn(
+                "{} is not a collection, documents are sent without shard routing",
+                spec.getCollection());
+          }
+        }
       }
 
       @StartBundle
@@ -634,6 +686,22 @@ public class SolrIO {
       @ProcessElement
       public void processElement(ProcessContext context) throws Exception {
         SolrInputDocument document = context.element();
+        Slice slice = getTargetSlice(document);
+        if (slice != null) {
+          ShardBatch shard =
+              shardBatches.computeIfAbsent(
+                  slice.getName(),
+                  name ->
+                      new ShardBatch(
+                          name,
+                          new AdaptiveBatchSize(
+                              spec.getMaxBatchSize(), spec.getShardTargetLatency().getMillis())));
+          shard.documents.add(document);
+          if (shard.documents.size() >= shard.batchSize.get()) {
+            flushShardBatch(shard);
+          }
+          return;
+        }
         batch.add(document);
         if (batch.size() >= spec.getMaxBatchSize()) {
           flushBatch();
@@ -643,9 +711,33 @@ public class SolrIO {
       @FinishBundle
       public void finishBundle(FinishBundleContext context) throws Exception {
         flushBatch();
+        for (ShardBatch shard : shardBatches.values()) {
+          flushShardBatch(shard);
+        }
+      }
+
+      private @Nullable DocCollection readDocCollection() {
+        return AuthorizedSolrClient.getClusterState(solrClient)
+            .getCollectionOrNull(spec.getCollection());
+      }
+
+      // Finds the shard of the document, null if the document is sent without routing
+      private @Nullable Slice getTargetSlice(SolrInputDocument document) {
+        Object id = document.getFieldValue(ID_FIELD);
+        if (docCollection == null || id == null) {
+          return null;
+        }
+        return docCollection
+            .getRouter()
+            .getTargetSlice(id.toString(), document, null, null, docCollection);
+      }
+
+      private AuthorizedSolrClient<HttpSolrClient> getLeaderClient(Replica leader) {
+        return leaderClients.computeIfAbsent(
+            leader.getStr(ZkStateReader.BASE_URL_PROP),
+            url -> spec.getConnectionConfiguration().createClient(url));
       }
 
-      // Flushes the batch, implementing the retry mechanism as configured in the spec.
       private void flushBatch() throws IOException, InterruptedException {
         if (batch.isEmpty()) {
           return;
@@ -653,40 +745,83 @@ public class SolrIO {
         try {
           UpdateRequest updateRequest = new UpdateRequest();
           updateRequest.add(batch);
+          process(updateRequest, null);
+        } finally {
+          batch.clear();
+        }
+      }
 
-          Sleeper sleeper = Sleeper.DEFAULT;
-          BackOff backoff = retryBackoff.backoff();
-          int attempt = 0;
-          while (true) {
-            attempt++;
-            try {
-              solrClient.process(spec.getCollection(), updateRequest);
-              break;
-            } catch (Exception exception) {
+      private void flushShardBatch(ShardBatch shard) throws IOException, InterruptedException {
+        if (shard.documents.isEmpty()) {
+          return;
+        }
+        try {
+          UpdateRequest updateRequest = new UpdateRequest();
+          updateRequest.add(shard.documents);
+          process(updateRequest, shard);
+        } finally {
+          shard.documents.clear();
+        }
+      }
 
-              // fail immediately if no retry configuration doesn't handle this
-              if (spec.getRetryConfiguration() == null
-                  || !spec.getRetryConfiguration().getRetryPredicate().test(exception)) {
-                throw new IOException(
-                    "Error writing to Solr (no attempt made to retry)", exception);
+      // Sends the request to the leader of the shard, or through the cloud client if the shard is
+      // null, implementing the retry mechanism as configured in the spec.
+      private void process(UpdateRequest updateRequest, @Nullable ShardBatch shard)
+          throws IOException, InterruptedException {
+        Sleeper sleeper = Sleeper.DEFAULT;
+        BackOff backoff = retryBackoff.backoff();
+        int attempt = 0;
+        while (true) {
+          attempt++;
+          long start = System.currentTimeMillis();
+          try {
+            if (shard == null) {
+              solrClient.process(spec.getCollection(), updateRequest);
+            } else {
+              Slice slice = docCollection.getSlice(shard.name);
+              Replica leader = slice == null ? null : slice.getLeader();
+              if (leader == null) {
+                throw new IOException("No leader of the shard " + shard.name);
               }
-
-              // see if we can pause and try again
-              if (!BackOffUtils.next(sleeper, backoff)) {
-                throw new IOException(
-                    String.format(
-                        "Error writing to Solr after %d attempt(s). No more attempts allowed",
-                        attempt),
-                    exception);
-
-              } else {
-                // Note: this used in test cases to verify behavior
-                LOG.warn(String.format(RETRY_ATTEMPT_LOG, attempt), exception);
+              getLeaderClient(leader)
+                  .process(leader.getStr(ZkStateReader.CORE_NAME_PROP), updateRequest);
+              shard.onSuccess(updateRequest.getDocuments().size(), start);
+            }
+            break;
+          } catch (Exception exception) {
+
+            if (shard != null) {
+              shard.onFailure();
+              // the leader may have moved, the next attempt reads the current leaders
+              try {
+                DocCollection current = readDocCollection();
+                if (current != null) {
+                  docCollection = current;
+                }
+              } catch (RuntimeException ex) {
+                LOG.warn("Can't refresh the shard leaders of {}", spec.getCollection(), ex);
               }
             }
+
+            // fail immediately if no retry configuration doesn't handle this
+            if (spec.getRetryConfiguration() == null
+                || !spec.getRetryConfiguration().getRetryPredicate().test(exception)) {
+              throw new IOException("Error writing to Solr (no attempt made to retry)", exception);
+            }
+
+            // see if we can pause and try again
+            if (!BackOffUtils.next(sleeper, backoff)) {
+              throw new IOException(
+                  String.format(
+                      "Error writing to Solr after %d attempt(s). No more attempts allowed",
+                      attempt),
+                  exception);
+
+            } else {
+              // Note: this used in test cases to verify behavior
+              LOG.warn(String.format(RETRY_ATTEMPT_LOG, attempt), exception);
+            }
           }
-        } finally {
-          batch.clear();
         }
       }
 
@@ -695,6 +830,46 @@ public class SolrIO {
         if (solrClient != null) {
           solrClient.close();
         }
+        if (leaderClients != null) {
+          for (AuthorizedSolrClient<HttpSolrClient> leaderClient : leaderClients.values()) {
+            leaderClient.close();
+          }
+        }
+      }
+
+      /** Documents of a shard waiting to be sent, with the batch size and metrics of the shard. */
+      private static class ShardBatch {
+        private final String name;
+        private final AdaptiveBatchSize batchSize;
+        private final Collection<SolrInputDocument> documents = new ArrayList<>();
+        private final Counter documentsCounter;
+        private final Counter failedRequestsCounter;
+        private final Distribution requestLatency;
+        private final Gauge batchSizeGauge;
+
+        private ShardBatch(String name, AdaptiveBatchSize batchSize) {
+          this.name = name;
+          this.batchSize = batchSize;
+          String prefix = "shard_" + name + "_";
+          this.documentsCounter = Metrics.counter(Write.class, prefix + "documents");
+          this.failedRequestsCounter = Metrics.counter(Write.class, prefix + "failedRequests");
+          this.requestLatency = Metrics.distribution(Write.class, prefix + "requestLatencyMs");
+          this.batchSizeGauge = Metrics.gauge(Write.class, prefix + "batchSize");
+        }
+
+        private void onSuccess(int documents, long start) {
+          long latency = System.currentTimeMillis() - start;
+          batchSize.onSuccess(documents, latency);
+          documentsCounter.inc(documents);
+          requestLatency.update(latency);
+          batchSizeGauge.set(batchSize.get());
+        }
+
+        private void onFailure() {
+          batchSize.onFailure();
+          failedRequestsCounter.inc();
+          batchSizeGauge.set(batchSize.get());
+        }
       }
     }
   }
@@ -0,0 +1,329 @@
+package au.org.ala.sampling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import au.com.bytecode.opencsv.CSVReader;
+import au.org.ala.kvs.ALAPipelinesConfig;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.gbif.pipelines.common.PipelinesException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LayerCrawlerTest {
+
+  private static final String LAYERS = "cl1,el1";
+  private static final List<String> POINTS =
+      Arrays.asList("-35.1,149.1", "-35.2,149.2", "-35.3,149.3", "-35.4,149.4", "-35.5,149.5");
+
+  private StubSamplingServer server;
+  private FileSystem fs;
+  private Path dir;
+
+  @Before
+  public void before() throws IOException {
+    server = new StubSamplingServer();
+    fs = FileSystem.getLocal(new Configuration());
+    dir = Files.createTempDirectory("layer-crawler");
+  }
+
+  @After
+  public void after() throws IOException {
+    server.server.shutdown();
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Test
+  public void concurrentCrawlTest() throws Exception {
+    // State
+    String input = writeInput("latlng.csv", POINTS);
+    LayerCrawler crawler = new LayerCrawler(config(2, dir.resolve("cache").toString()));
+
+    // When
+    crawler.crawl(fs, LAYERS, input, dir.resolve("downloads").toString());
+
+    // Should
+    assertEquals(new HashSet<>(POINTS), readSampledPoints("downloads"));
+    assertEquals(3, server.batches.size());
+    assertEquals(2, server.maxInFlight.get());
+  }
+
+  @Test
+  public void cacheTest() throws Exception {
+    // State
+    String cachePath = dir.resolve("cache").toString();
+    new LayerCrawler(config(1, cachePath))
+        .crawl(fs, LAYERS, writeInput("latlng.csv", POINTS), dir.resolve("first").toString());
+    server.batches.clear();
+
+    // -35.10000001 is rounded to a cached point
+    List<String> points = new ArrayList<>(POINTS.subList(1, POINTS.size()));
+    points.add("-35.10000001,149.1");
+    points.add("-36.0,150.0");
+    String input = writeInput("latlng-2.csv", points);
+
+    // When
+    new LayerCrawler(config(1, cachePath))
+        .crawl(fs, LAYERS, input, dir.resolve("second").toString());
+
+    // Should
+    assertEquals(1, server.batches.size());
+    assertEquals("-36.0,150.0", String.join(",", server.batches.values().iterator().next()));
+    assertEquals(new HashSet<>(points), readSampledPoints("second"));
+  }
+
+  @Test
+  public void resumeTest() throws Exception {
+    // State
+    String input = writeInput("latlng.csv", POINTS);
+    String downloads = dir.resolve("downloads").toString();
+    server.failedBatch = 2;
+    try {
+      new LayerCrawler(config(1, null)).crawl(fs, LAYERS, input, downloads);
+      fail("The second batch fails");
+    } catch (PipelinesException ex) {
+      // expected
+    }
+    Set<String> sampledBeforeFailure = readSampledPoints("downloads");
+    server.failedBatch = -1;
+    server.batches.clear();
+
+    // When
+    new LayerCrawler(config(1, null)).crawl(fs, LAYERS, input, downloads);
+
+    // Should
+    assertFalse(sampledBeforeFailure.isEmpty());
+    Set<String> resubmitted =
+        server.batches.values().stream().flatMap(List::stream).collect(Collectors.toSet());
+    resubmitted.retainAll(sampledBeforeFailure);
+    assertTrue(resubmitted.isEmpty());
+    assertEquals(new HashSet<>(POINTS), readSampledPoints("downloads"));
+  }
+
+  @Test
+  public void resumeExactPointsTest() throws Exception {
+    // State
+    String downloads = dir.resolve("downloads").toString();
+    new LayerCrawler(config(1, null))
+        .crawl(fs, LAYERS, writeInput("latlng.csv", POINTS), downloads);
+    server.batches.clear();
+
+    // -35.10000001 is rounded to a sampled point, but joined by its own coordinates
+    List<String> points = new ArrayList<>(POINTS);
+    points.add("-35.10000001,149.1");
+    String input = writeInput("latlng-2.csv", points);
+
+    // When
+    new LayerCrawler(config(1, null)).crawl(fs, LAYERS, input, downloads);
+
+    // Should
+    assertEquals(1, server.batches.size());
+    assertEquals("-35.10000001,149.1", String.join(",", server.batches.values().iterator().next()));
+    assertEquals(new HashSet<>(points), readSampledPoints("downloads"));
+  }
+
+  @Test
+  public void resumeOtherLayersTest() throws Exception {
+    // State
+    String input = writeInput("latlng.csv", POINTS);
+    String downloads = dir.resolve("downloads").toString();
+    new LayerCrawler(config(1, null)).crawl(fs, LAYERS, input, downloads);
+    server.batches.clear();
+
+    // When
+    new LayerCrawler(config(1, null)).crawl(fs, "cl1,el2", input, downloads);
+
+    // Should
+    Set<String> resubmitted =
+        server.batches.values().stream().flatMap(List::stream).collect(Collectors.toSet());
+    assertEquals(new HashSet<>(POINTS), resubmitted);
+    assertEquals(3, countCsvFiles("downloads"));
+  }
+
+  @Test
+  public void cacheSeveralFilesTest() throws Exception {
+    // State
+    String cachePath = dir.resolve("cache").toString();
+    new LayerCrawler(config(1, cachePath))
+        .crawl(fs, LAYERS, writeInput("latlng.csv", POINTS), dir.resolve("first").toString());
+    server.batches.clear();
+
+    List<String> inputs =
+        Arrays.asList(
+            writeInput("latlng-1.csv", POINTS.subList(0, 2)),
+            writeInput("latlng-2.csv", Arrays.asList(POINTS.get(2), "-36.0,150.0")));
+
+    // When
+    new LayerCrawler(config(1, cachePath))
+        .crawl(fs, LAYERS, inputs, dir.resolve("second").toString());
+
+    // Should
+    assertEquals(1, server.batches.size());
+    assertEquals("-36.0,150.0", String.join(",", server.batches.values().iterator().next()));
+    Set<String> points = new HashSet<>(POINTS.subList(0, 3));
+    points.add("-36.0,150.0");
+    assertEquals(points, readSampledPoints("second"));
+  }
+
+  private ALAPipelinesConfig config(int batchConcurrency, String cachePath) {
+    ALAPipelinesConfig config = new ALAPipelinesConfig();
+    config.getSamplingService().setWsUrl(server.server.url("/").toString());
+    config.getSamplingService().setBatchSize(2);
+    config.getSamplingService().setBatchStatusSleepTime(200);
+    config.getSamplingService().setBatchConcurrency(batchConcurrency);
+    config.getSamplingService().setCachePath(cachePath);
+    return config;
+  }
+
+  private String writeInput(String name, List<String> points) throws IOException {
+    Path input = dir.resolve(name);
+    Files.write(input, points, StandardCharsets.UTF_8);
+    return input.toString();
+  }
+
+  private long countCsvFiles(String directory) throws IOException {
+    try (Stream<Path> files = Files.list(dir.resolve(directory))) {
+      return files.filter(f -> f.toString().endsWith(".csv")).count();
+    }
+  }
+
+  private Set<String> readSampledPoints(String directory) throws IOException {
+    Set<String> points = new HashSet<>();
+    try (Stream<Path> files = Files.list(dir.resolve(directory))) {
+      for (Path file : files.collect(Collectors.toList())) {
+        if (file.toString().endsWith(".csv")) {
+          try (CSVReader reader =
+              new CSVReader(
+                  new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            reader.readNext();
+            String[] line;
+            while ((line = reader.readNext()) != null) {
+              points.add(line[0] + "," + line[1]);
+            }
+          }
+        }
+      }
+    }
+    return points;
+  }
+
+  /** Sampling service stub, a batch is finished on the second status request. */
+  private static class StubSamplingServer extends Dispatcher {
+
+    private final MockWebServer server = new MockWebServer();
+    private final Map<String, List<String>> batches = new HashMap<>();
+    private final Map<String, Integer> statusRequests = new HashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile int failedBatch = -1;
+
+    private StubSamplingServer() throws IOException {
+      server.setDispatcher(this);
+      server.start();
+    }
+
+    @Override
+    public synchronized MockResponse dispatch(RecordedRequest request) {
+      String path = request.getPath();
+      try {
+        if (path.endsWith("/intersect/batch")) {
+          String id = String.valueOf(batches.size() + 1);
+          batches.put(id, readPoints(request.getBody().readUtf8()));
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          return json("{\"batchId\": \"" + id + "\"}");
+        }
+        if (path.startsWith("/intersect/batch/")) {
+          String id = path.substring(path.lastIndexOf('/') + 1);
+          if (Integer.parseInt(id) == failedBatch) {
+            inFlight.decrementAndGet();
+            return json("{\"status\": \"error\"}");
+          }
+          if (statusRequests.merge(id, 1, Integer::sum) == 1) {
+            return json("{\"status\": \"waiting\"}");
+          }
+          return json(
+              "{\"status\": \"finished\", \"downloadUrl\": \""
+                  + server.url("/download/" + id)
+                  + "\"}");
+        }
+        if (path.startsWith("/download/")) {
+          inFlight.decrementAndGet();
+          return new MockResponse()
+              .setResponseCode(200)
+              .setBody(new Buffer().write(zip(batches.get(path.substring(10)))));
+        }
+      } catch (IOException ex) {
+        return new MockResponse().setResponseCode(500);
+      }
+      return new MockResponse().setResponseCode(404);
+    }
+
+    private static List<String> readPoints(String form) throws IOException {
+      for (String param : form.split("&")) {
+        if (param.startsWith("points=")) {
+          List<String> coordinates =
+              Arrays.asList(URLDecoder.decode(param.substring(7), "UTF-8").split(","));
+          List<String> points = new ArrayList<>();
+          for (int i = 0; i + 1 < coordinates.size(); i += 2) {
+            points.add(coordinates.get(i) + "," + coordinates.get(i + 1));
+          }
+          return points;
+        }
+      }
+      return new ArrayList<>();
+    }
+
+    private static byte[] zip(List<String> points) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+        out.putNextEntry(new ZipEntry("sampling.csv"));
+        StringBuilder csv = new StringBuilder("latitude,longitude,cl1,el1\n");
+        for (String point : points) {
+          String[] latLng = point.split(",");
+          csv.append(point).append(",v").append(latLng[0]).append(',').append(latLng[1]);
+          csv.append('\n');
+        }
+        out.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+      }
+      return bytes.toByteArray();
+    }
+
+    private static MockResponse json(String body) {
+      return new MockResponse()
+          .setResponseCode(200)
+          .setHeader("Content-Type", "application/json")
+          .setBody(body);
+    }
+  }
+}
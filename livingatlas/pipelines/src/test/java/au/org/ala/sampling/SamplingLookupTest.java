@@ -0,0 +1,95 @@
+package au.org.ala.sampling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.gbif.pipelines.io.avro.SampleRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SamplingLookupTest {
+
+  private Path dir;
+
+  @Before
+  public void before() throws IOException {
+    dir = Files.createTempDirectory("sampling-lookup");
+  }
+
+  @After
+  public void after() throws IOException {
+    Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+  }
+
+  @Test
+  public void lookupTest() throws IOException {
+    // State
+    Path path = dir.resolve("sampling-lookup.bin");
+    int size;
+    try (SamplingLookup.Writer writer = SamplingLookup.writer(path)) {
+      writer.add(sample("-35.28,149.13", "cl22", "Australian Capital Territory", 12.5d));
+      writer.add(sample("-33.86,151.21", "cl22", "New South Wales", 17.75d));
+      writer.add(sample("-33.86,151.21", "cl22", "Duplicate", 0d));
+      writer.add(sample("-0.0,10.0", "cl22", "Zero", -1d));
+      writer.add(sample("not a point", "cl22", "Invalid", 0d));
+      size = writer.finish();
+    }
+
+    // When
+    try (SamplingLookup lookup = SamplingLookup.open(path)) {
+
+      // Should
+      assertEquals(3, size);
+      assertEquals(3, lookup.size());
+
+      SampleRecord canberra = lookup.lookup("-35.28,149.13");
+      assertEquals("-35.28,149.13", canberra.getLatLng());
+      assertEquals("Australian Capital Territory", canberra.getStrings().get("cl22"));
+      assertEquals(12.5d, canberra.getDoubles().get("el1"), 0d);
+
+      // the first sampling of a duplicated point is kept
+      assertEquals("New South Wales", lookup.lookup("-33.86,151.21").getStrings().get("cl22"));
+      // points are compared as numbers
+      assertEquals("Zero", lookup.lookup("0,10").getStrings().get("cl22"));
+
+      assertNull(lookup.lookup("-33.86,151.2"));
+      assertNull(lookup.lookup("-33.86"));
+      assertNull(lookup.lookup(null));
+    }
+  }
+
+  @Test
+  public void emptyLookupTest() throws IOException {
+    // State
+    Path path = dir.resolve("sampling-lookup.bin");
+    try (SamplingLookup.Writer writer = SamplingLookup.writer(path)) {
+      writer.finish();
+    }
+
+    // When
+    try (SamplingLookup lookup = SamplingLookup.open(path)) {
+
+      // Should
+      assertEquals(0, lookup.size());
+      assertNull(lookup.lookup("-35.28,149.13"));
+    }
+  }
+
+  private static SampleRecord sample(
+      String latLng, String layer, String value, double environmental) {
+    Map<String, Double> doubles = new HashMap<>();
+    doubles.put("el1", environmental);
+    return SampleRecord.newBuilder()
+        .setLatLng(latLng)
+        .setStrings(Collections.singletonMap(layer, value))
+        .setDoubles(doubles)
+        .build();
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io.solr;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class AdaptiveBatchSizeTest {
+
+  @Test
+  public void adaptTest() {
+    // State
+    AdaptiveBatchSize batchSize = new AdaptiveBatchSize(1000, 2000L);
+
+    // When
+    batchSize.onFailure();
+    int afterFailure = batchSize.get();
+    batchSize.onSuccess(afterFailure, 3000L);
+    int afterSlowRequest = batchSize.get();
+    batchSize.onSuccess(afterSlowRequest, 100L);
+    int afterFastRequest = batchSize.get();
+    // a partial batch, the end of a bundle, doesn't grow the size
+    batchSize.onSuccess(10, 100L);
+
+    // Should
+    assertEquals(500, afterFailure);
+    assertEquals(375, afterSlowRequest);
+    assertEquals(475, afterFastRequest);
+    assertEquals(475, batchSize.get());
+  }
+
+  @Test
+  public void boundsTest() {
+    // State
+    AdaptiveBatchSize batchSize = new AdaptiveBatchSize(5, 2000L);
+
+    // When
+    for (int i = 0; i < 10; i++) {
+      batchSize.onFailure();
+    }
+    int min = batchSize.get();
+    for (int i = 0; i < 10; i++) {
+      batchSize.onSuccess(batchSize.get(), 1L);
+    }
+
+    // Should
+    assertEquals(1, min);
+    assertEquals(5, batchSize.get());
+  }
+}
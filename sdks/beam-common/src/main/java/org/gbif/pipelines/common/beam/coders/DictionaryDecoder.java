@@ -0,0 +1,161 @@
+package org.gbif.pipelines.common.beam.coders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.util.Utf8;
+
+/**
+ * Avro {@link Decoder} which reads strings written by {@link DictionaryEncoder}, a negative length
+ * is the dictionary index {@code -(index + 1)}. All other values are read by the delegate decoder.
+ */
+class DictionaryDecoder extends Decoder {
+
+  private final String[] dictionary;
+  private Decoder delegate;
+  private byte[] buffer = new byte[64];
+
+  DictionaryDecoder(List<String> dictionary) {
+    this.dictionary = dictionary.toArray(new String[0]);
+  }
+
+  DictionaryDecoder wrap(Decoder delegate) {
+    this.delegate = delegate;
+    return this;
+  }
+
+  @Override
+  public String readString() throws IOException {
+    long length = delegate.readLong();
+    if (length < 0) {
+      return fromDictionary(length);
+    }
+    int size = (int) length;
+    if (buffer.length < size) {
+      buffer = new byte[Math.max(size, buffer.length * 2)];
+    }
+    delegate.readFixed(buffer, 0, size);
+    return new String(buffer, 0, size, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public Utf8 readString(Utf8 old) throws IOException {
+    long length = delegate.readLong();
+    if (length < 0) {
+      return new Utf8(fromDictionary(length));
+    }
+    int size = (int) length;
+    Utf8 result = old != null ? old : new Utf8();
+    result.setByteLength(size);
+    delegate.readFixed(result.getBytes(), 0, size);
+    return result;
+  }
+
+  @Override
+  public void skipString() throws IOException {
+    long length = delegate.readLong();
+    if (length > 0) {
+      delegate.skipFixed((int) length);
+    }
+  }
+
+  private String fromDictionary(long length) throws IOException {
+    int index = (int) (-length - 1);
+    if (index >= dictionary.length) {
+      throw new IOException("String dictionary index is out of range: " + index);
+    }
+    return dictionary[index];
+  }
+
+  @Override
+  public void readNull() throws IOException {
+    delegate.readNull();
+  }
+
+  @Override
+  public boolean readBoolean() throws IOException {
+    return delegate.readBoolean();
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    return delegate.readInt();
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    return delegate.readLong();
+  }
+
+  @Override
+  public float readFloat() throws IOException {
+    return delegate.readFloat();
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    return delegate.readDouble();
+  }
+
+  @Override
+  public ByteBuffer readBytes(ByteBuffer old) throws IOException {
+    return delegate.readBytes(old);
+  }
+
+  @Override
+  public void skipBytes() throws IOException {
+    delegate.skipBytes();
+  }
+
+  @Override
+  public void readFixed(byte[] bytes, int start, int length) throws IOException {
+    delegate.readFixed(bytes, start, length);
+  }
+
+  @Override
+  public void skipFixed(int length) throws IOException {
+    delegate.skipFixed(length);
+  }
+
+  @Override
+  public int readEnum() throws IOException {
+    return delegate.readEnum();
+  }
+
+  @Override
+  public long readArrayStart() throws IOException {
+    return delegate.readArrayStart();
+  }
+
+  @Override
+  public long arrayNext() throws IOException {
+    return delegate.arrayNext();
+  }
+
+  @Override
+  public long skipArray() throws IOException {
+    return delegate.skipArray();
+  }
+
+  @Override
+  public long readMapStart() throws IOException {
+    return delegate.readMapStart();
+  }
+
+  @Override
+  public long mapNext() throws IOException {
+    return delegate.mapNext();
+  }
+
+  @Override
+  public long skipMap() throws IOException {
+    return delegate.skipMap();
+  }
+
+  @Override
+  public int readIndex() throws IOException {
+    return delegate.readIndex();
+  }
+}
@@ -0,0 +1,143 @@
+package org.gbif.pipelines.common.beam.coders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.util.Utf8;
+
+/**
+ * Avro {@link Encoder} which writes strings present in the dictionary as a negative length, {@code
+ * -(index + 1)}, without the bytes. All other values are written by the delegate encoder.
+ *
+ * <p>Must be used together with {@link DictionaryDecoder} with the same dictionary.
+ */
+class DictionaryEncoder extends Encoder {
+
+  private final Map<String, Integer> indexes;
+  private Encoder delegate;
+
+  DictionaryEncoder(List<String> dictionary) {
+    this.indexes = new HashMap<>(dictionary.size() * 2);
+    for (int x = 0; x < dictionary.size(); x++) {
+      indexes.putIfAbsent(dictionary.get(x), x);
+    }
+  }
+
+  DictionaryEncoder wrap(Encoder delegate) {
+    this.delegate = delegate;
+    return this;
+  }
+
+  @Override
+  public void writeString(String str) throws IOException {
+    Integer index = indexes.get(str);
+    if (index == null) {
+      delegate.writeString(str);
+    } else {
+      delegate.writeLong(-(index + 1L));
+    }
+  }
+
+  @Override
+  public void writeString(CharSequence charSequence) throws IOException {
+    writeString(charSequence.toString());
+  }
+
+  @Override
+  public void writeString(Utf8 utf8) throws IOException {
+    writeString(utf8.toString());
+  }
+
+  @Override
+  public void writeNull() throws IOException {
+    delegate.writeNull();
+  }
+
+  @Override
+  public void writeBoolean(boolean b) throws IOException {
+    delegate.writeBoolean(b);
+  }
+
+  @Override
+  public void writeInt(int n) throws IOException {
+    delegate.writeInt(n);
+  }
+
+  @Override
+  public void writeLong(long n) throws IOException {
+    delegate.writeLong(n);
+  }
+
+  @Override
+  public void writeFloat(float f) throws IOException {
+    delegate.writeFloat(f);
+  }
+
+  @Override
+  public void writeDouble(double d) throws IOException {
+    delegate.writeDouble(d);
+  }
+
+  @Override
+  public void writeBytes(ByteBuffer bytes) throws IOException {
+    delegate.writeBytes(bytes);
+  }
+
+  @Override
+  public void writeBytes(byte[] bytes, int start, int len) throws IOException {
+    delegate.writeBytes(bytes, start, len);
+  }
+
+  @Override
+  public void writeFixed(byte[] bytes, int start, int len) throws IOException {
+    delegate.writeFixed(bytes, start, len);
+  }
+
+  @Override
+  public void writeEnum(int e) throws IOException {
+    delegate.writeEnum(e);
+  }
+
+  @Override
+  public void writeArrayStart() throws IOException {
+    delegate.writeArrayStart();
+  }
+
+  @Override
+  public void setItemCount(long itemCount) throws IOException {
+    delegate.setItemCount(itemCount);
+  }
+
+  @Override
+  public void startItem() throws IOException {
+    delegate.startItem();
+  }
+
+  @Override
+  public void writeArrayEnd() throws IOException {
+    delegate.writeArrayEnd();
+  }
+
+  @Override
+  public void writeMapStart() throws IOException {
+    delegate.writeMapStart();
+  }
+
+  @Override
+  public void writeMapEnd() throws IOException {
+    delegate.writeMapEnd();
+  }
+
+  @Override
+  public void writeIndex(int unionIndex) throws IOException {
+    delegate.writeIndex(unionIndex);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    delegate.flush();
+  }
+}
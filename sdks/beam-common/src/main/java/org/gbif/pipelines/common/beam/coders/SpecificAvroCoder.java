@@ -0,0 +1,160 @@
+package org.gbif.pipelines.common.beam.coders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.beam.sdk.coders.AvroCoder;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.CustomCoder;
+import org.apache.beam.sdk.values.TypeDescriptor;
+
+/**
+ * A {@code SpecificAvroCoder} encodes Avro {@link SpecificRecord}s using the generated schema of
+ * the class, instead of the reflection based datum readers and writers used by {@link AvroCoder}.
+ *
+ * <p>Instances are cached per record class and dictionary, the datum reader, the datum writer and
+ * the binary encoder and decoder are created once per thread and reused for every element.
+ *
+ * <p>Optionally, strings which are present in the dictionary, like term names used as map keys in
+ * {@link org.gbif.pipelines.io.avro.ExtendedRecord}, are encoded as the dictionary index instead of
+ * the UTF-8 bytes. The dictionary is a part of the coder, so every element is still encoded and
+ * decoded independently.
+ *
+ * @param <T> the type of the records
+ */
+@EqualsAndHashCode(callSuper = false)
+public class SpecificAvroCoder<T extends SpecificRecord> extends CustomCoder<T> {
+
+  private static final long serialVersionUID = 8620943417856206349L;
+
+  private static final Map<CacheKey, SpecificAvroCoder<?>> CACHE = new ConcurrentHashMap<>();
+
+  @Getter private final Class<T> type;
+
+  @Getter private final List<String> dictionary;
+
+  private final transient Schema schema;
+
+  private final transient ThreadLocal<Codec<T>> codec;
+
+  private SpecificAvroCoder(Class<T> type, List<String> dictionary) {
+    this.type = type;
+    this.dictionary = Collections.unmodifiableList(new ArrayList<>(dictionary));
+    this.schema = SpecificData.get().getSchema(type);
+    this.codec = ThreadLocal.withInitial(() -> new Codec<>(schema, this.dictionary));
+  }
+
+  /** Returns a cached coder of the given class without the string dictionary */
+  public static <T extends SpecificRecord> SpecificAvroCoder<T> of(Class<T> type) {
+    return of(type, Collections.emptyList());
+  }
+
+  /** Returns a cached coder of the given class with the string dictionary */
+  @SuppressWarnings("unchecked")
+  public static <T extends SpecificRecord> SpecificAvroCoder<T> of(
+      Class<T> type, List<String> dictionary) {
+    CacheKey key = new CacheKey(type, new ArrayList<>(dictionary));
+    return (SpecificAvroCoder<T>)
+        CACHE.computeIfAbsent(key, k -> new SpecificAvroCoder<>(type, dictionary));
+  }
+
+  public Schema getSchema() {
+    return schema;
+  }
+
+  @Override
+  public void encode(T value, OutputStream outStream) throws IOException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null record");
+    }
+    codec.get().encode(value, outStream);
+  }
+
+  @Override
+  public T decode(InputStream inStream) throws IOException {
+    return codec.get().decode(inStream);
+  }
+
+  @Override
+  public TypeDescriptor<T> getEncodedTypeDescriptor() {
+    return TypeDescriptor.of(type);
+  }
+
+  /** The binary format is deterministic when the Avro format of the schema is deterministic */
+  @Override
+  public void verifyDeterministic() throws NonDeterministicException {
+    AvroCoder.of(type, schema).verifyDeterministic();
+  }
+
+  @Override
+  public String toString() {
+    return "SpecificAvroCoder{type=" + type.getName() + ", dictionary=" + dictionary.size() + "}";
+  }
+
+  /** Replaces a deserialized coder with the cached instance, which has the transient state */
+  private Object readResolve() throws ObjectStreamException {
+    return of(type, dictionary);
+  }
+
+  /** Per-thread reusable readers, writers, encoders and decoders */
+  private static class Codec<T> {
+
+    private final SpecificDatumWriter<T> writer;
+    private final SpecificDatumReader<T> reader;
+    private final DictionaryEncoder dictionaryEncoder;
+    private final DictionaryDecoder dictionaryDecoder;
+    private BinaryEncoder encoder;
+    private BinaryDecoder decoder;
+
+    private Codec(Schema schema, List<String> dictionary) {
+      this.writer = new SpecificDatumWriter<>(schema);
+      this.reader = new SpecificDatumReader<>(schema, schema);
+      this.dictionaryEncoder = dictionary.isEmpty() ? null : new DictionaryEncoder(dictionary);
+      this.dictionaryDecoder = dictionary.isEmpty() ? null : new DictionaryDecoder(dictionary);
+    }
+
+    private void encode(T value, OutputStream outStream) throws IOException {
+      encoder = EncoderFactory.get().binaryEncoder(outStream, encoder);
+      if (dictionaryEncoder == null) {
+        writer.write(value, encoder);
+      } else {
+        writer.write(value, dictionaryEncoder.wrap(encoder));
+      }
+      encoder.flush();
+    }
+
+    private T decode(InputStream inStream) throws IOException {
+      // Direct decoder doesn't read ahead, the stream can contain other values after the record
+      decoder = DecoderFactory.get().directBinaryDecoder(inStream, decoder);
+      if (dictionaryDecoder == null) {
+        return reader.read(null, decoder);
+      }
+      return reader.read(null, dictionaryDecoder.wrap(decoder));
+    }
+  }
+
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  private static class CacheKey {
+    private final Class<?> type;
+    private final List<String> dictionary;
+  }
+}
@@ -0,0 +1,82 @@
+package org.gbif.pipelines.common.beam.coders;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.coders.CannotProvideCoderException;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderProvider;
+import org.apache.beam.sdk.values.TypeDescriptor;
+import org.gbif.api.vocabulary.Extension;
+import org.gbif.dwc.terms.DcTerm;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.GbifTerm;
+import org.gbif.dwc.terms.Term;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+
+/**
+ * {@link CoderProvider} of {@link SpecificAvroCoder} for all Avro {@link SpecificRecord}s, {@link
+ * ExtendedRecord} uses the dictionary of term names and extension row types.
+ *
+ * <p>Generated Avro classes are annotated with {@code @DefaultCoder(AvroCoder.class)}, which has
+ * the highest precedence among the default coder providers, so the provider must be registered in
+ * the pipeline coder registry, use {@link #register(Pipeline)}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SpecificAvroCoderProvider extends CoderProvider {
+
+  private static final List<String> TERMS_DICTIONARY = createTermsDictionary();
+
+  public static SpecificAvroCoderProvider create() {
+    return new SpecificAvroCoderProvider();
+  }
+
+  /** Registers the provider in the pipeline coder registry with precedence over other providers */
+  public static void register(Pipeline p) {
+    p.getCoderRegistry().registerCoderProvider(create());
+  }
+
+  /** Dictionary of the qualified names of terms and extension row types */
+  public static List<String> getTermsDictionary() {
+    return TERMS_DICTIONARY;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> Coder<T> coderFor(
+      TypeDescriptor<T> typeDescriptor, List<? extends Coder<?>> componentCoders)
+      throws CannotProvideCoderException {
+    Class<? super T> rawType = typeDescriptor.getRawType();
+    if (!SpecificRecord.class.isAssignableFrom(rawType)) {
+      throw new CannotProvideCoderException(
+          "Cannot provide SpecificAvroCoder because "
+              + typeDescriptor
+              + " is not a SpecificRecord");
+    }
+    Class<? extends SpecificRecord> recordType = (Class<? extends SpecificRecord>) rawType;
+    List<String> dictionary =
+        ExtendedRecord.class.equals(recordType) ? TERMS_DICTIONARY : Collections.emptyList();
+    return (Coder<T>) SpecificAvroCoder.of(recordType, dictionary);
+  }
+
+  private static List<String> createTermsDictionary() {
+    List<String> dictionary = new ArrayList<>();
+    addTerms(dictionary, DwcTerm.values());
+    addTerms(dictionary, DcTerm.values());
+    addTerms(dictionary, GbifTerm.values());
+    for (Extension extension : Extension.values()) {
+      dictionary.add(extension.getRowType());
+    }
+    return Collections.unmodifiableList(dictionary);
+  }
+
+  private static void addTerms(List<String> dictionary, Term[] terms) {
+    for (Term term : terms) {
+      dictionary.add(term.qualifiedName());
+    }
+  }
+}
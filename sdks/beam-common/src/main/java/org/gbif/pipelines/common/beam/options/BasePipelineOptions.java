@@ -57,6 +57,13 @@ public interface BasePipelineOptions extends PipelineOptions {
 
   void setAvroSyncInterval(int syncInterval);
 
+  @Description(
+      "Use schema-resolved SpecificAvroCoder instead of AvroCoder for Avro records in shuffles")
+  @Default.Boolean(true)
+  boolean getUseSpecificAvroCoders();
+
+  void setUseSpecificAvroCoders(boolean useSpecificAvroCoders);
+
   @Description("The threshold for java based pipelines, switches between sync and async execution")
   @Default.Integer(1_000)
   int getSyncThreshold();
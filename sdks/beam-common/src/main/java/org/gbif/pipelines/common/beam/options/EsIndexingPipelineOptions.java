@@ -24,4 +24,11 @@ public interface EsIndexingPipelineOptions
   DatasetType getDatasetType();
 
   void setDatasetType(DatasetType datasetType);
+
+  @Description(
+      "Indexes only new and changed occurrence documents of a dataset in a shared index and deletes the documents which aren't in the dataset anymore, comparing the documents with the hashes of the previous indexing. crawlId, lastCrawled and created don't mark a document as changed, unchanged documents of another crawl get them by an update by query")
+  @Default.Boolean(false)
+  Boolean getEsIncrementalIndexing();
+
+  void setEsIncrementalIndexing(Boolean esIncrementalIndexing);
 }
@@ -74,6 +74,13 @@ public interface EsPipelineOptions extends PipelineOptions {
 
   void setIndexNumberReplicas(Integer indexNumberReplicas);
 
+  @Description(
+      "Number of segments per shard an independent index is force-merged to after the load, 0 disables the force-merge")
+  @Default.Integer(1)
+  Integer getIndexMaxNumSegments();
+
+  void setIndexMaxNumSegments(Integer indexMaxNumSegments);
+
   @Description("Elasticsearch empty delete index query timeout in seconds")
   @Default.Integer(5)
   Integer getSearchQueryTimeoutSec();
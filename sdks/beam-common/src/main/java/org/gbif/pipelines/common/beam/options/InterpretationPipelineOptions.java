@@ -104,6 +104,13 @@ public interface InterpretationPipelineOptions
 
   void setCoreRecordType(PipelinesVariables.Pipeline.Interpretation.RecordType recordType);
 
+  @Description(
+      "File name of the validation metrics summary of raw terms, interpreted fields and issues, "
+          + "the summary isn't collected if the name is not set")
+  String getValidationMetricsFileName();
+
+  void setValidationMetricsFileName(String validationMetricsFileName);
+
   /** A {@link DefaultValueFactory} which locates a default directory. */
   class TempDirectoryFactory implements DefaultValueFactory<String> {
 
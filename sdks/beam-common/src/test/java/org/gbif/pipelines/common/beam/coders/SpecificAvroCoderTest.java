@@ -0,0 +1,115 @@
+package org.gbif.pipelines.common.beam.coders;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.coders.AvroCoder;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.TypeDescriptor;
+import org.gbif.api.vocabulary.Extension;
+import org.gbif.dwc.terms.DcTerm;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.Parent;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpecificAvroCoderTest {
+
+  @Test
+  public void dictionaryRoundTripTest() throws Exception {
+
+    // State
+    SpecificAvroCoder<ExtendedRecord> coder =
+        SpecificAvroCoder.of(ExtendedRecord.class, SpecificAvroCoderProvider.getTermsDictionary());
+    ExtendedRecord er = createExtendedRecord();
+
+    // Should
+    CoderProperties.coderDecodeEncodeEqual(coder, er);
+    CoderProperties.coderDecodeEncodeEqualInContext(
+        KvCoder.of(StringUtf8Coder.of(), coder), Coder.Context.NESTED, KV.of("1", er));
+  }
+
+  @Test
+  public void dictionarySizeTest() throws Exception {
+
+    // State
+    ExtendedRecord er = createExtendedRecord();
+
+    // When
+    int avroSize = CoderUtils.encodeToByteArray(AvroCoder.of(ExtendedRecord.class), er).length;
+    int plainSize =
+        CoderUtils.encodeToByteArray(SpecificAvroCoder.of(ExtendedRecord.class), er).length;
+    int dictionarySize =
+        CoderUtils.encodeToByteArray(
+                SpecificAvroCoder.of(
+                    ExtendedRecord.class, SpecificAvroCoderProvider.getTermsDictionary()),
+                er)
+            .length;
+
+    // Should
+    Assert.assertEquals(avroSize, plainSize);
+    Assert.assertTrue(dictionarySize < plainSize / 2);
+  }
+
+  @Test
+  public void serializationTest() throws Exception {
+
+    // State
+    List<String> dictionary = Collections.singletonList("value");
+    SpecificAvroCoder<Parent> coder = SpecificAvroCoder.of(Parent.class, dictionary);
+    Parent parent = Parent.newBuilder().setId("1").setEventType("value").setOrder(1).build();
+
+    // Should
+    CoderProperties.coderSerializable(coder);
+    CoderProperties.coderDecodeEncodeEqual(coder, parent);
+    Assert.assertSame(coder, SpecificAvroCoder.of(Parent.class, dictionary));
+  }
+
+  @Test
+  public void providerTest() throws Exception {
+
+    // State
+    Pipeline p = Pipeline.create(PipelineOptionsFactory.create());
+
+    // When
+    SpecificAvroCoderProvider.register(p);
+    Coder<ExtendedRecord> erCoder = p.getCoderRegistry().getCoder(ExtendedRecord.class);
+    Coder<KV<String, Parent>> kvCoder =
+        p.getCoderRegistry().getCoder(new TypeDescriptor<KV<String, Parent>>() {});
+
+    // Should
+    Assert.assertEquals(
+        SpecificAvroCoder.of(ExtendedRecord.class, SpecificAvroCoderProvider.getTermsDictionary()),
+        erCoder);
+    Assert.assertEquals(
+        KvCoder.of(StringUtf8Coder.of(), SpecificAvroCoder.of(Parent.class)), kvCoder);
+  }
+
+  private static ExtendedRecord createExtendedRecord() {
+    Map<String, String> core = new HashMap<>();
+    core.put(DwcTerm.occurrenceID.qualifiedName(), "occ-1");
+    core.put(DwcTerm.eventDate.qualifiedName(), "2021-01-01");
+    core.put(DwcTerm.decimalLatitude.qualifiedName(), "56.1");
+    core.put(DwcTerm.decimalLongitude.qualifiedName(), "10.2");
+    core.put(DcTerm.license.qualifiedName(), "CC0");
+    core.put("http://example.org/terms/custom", "custom");
+
+    Map<String, String> image = new HashMap<>();
+    image.put(DcTerm.references.qualifiedName(), "http://example.org/image.jpg");
+    image.put(DcTerm.rightsHolder.qualifiedName(), "Someone");
+
+    Map<String, List<Map<String, String>>> ext = new HashMap<>();
+    ext.put(Extension.MULTIMEDIA.getRowType(), Collections.singletonList(image));
+
+    return ExtendedRecord.newBuilder().setId("1").setCoreTerms(core).setExtensions(ext).build();
+  }
+}
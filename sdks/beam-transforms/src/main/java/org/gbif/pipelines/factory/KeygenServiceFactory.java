@@ -17,6 +17,10 @@ import org.gbif.pipelines.keygen.common.HbaseConnectionFactory;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class KeygenServiceFactory {
 
+  /**
+   * Supplier of a keygen service sharing the HBase connection of the JVM, the lookup keys of the
+   * dataset are preloaded if {@link KeygenConfig#isPreload()} is enabled
+   */
   public static SerializableSupplier<HBaseLockingKey> getInstanceSupplier(
       PipelinesConfig config, String datasetId) {
     return () -> {
@@ -24,7 +28,11 @@ public class KeygenServiceFactory {
 
       Connection c = HbaseConnectionFactory.getInstance(zk).getConnection();
 
-      return create(config, c, datasetId);
+      HBaseLockingKeyService service = create(config, c, datasetId);
+      if (config.getKeygen().isPreload() && datasetId != null) {
+        service.preload();
+      }
+      return service;
     };
   }
 
@@ -44,7 +52,8 @@ public class KeygenServiceFactory {
     };
   }
 
-  private static HBaseLockingKey create(PipelinesConfig config, Connection c, String datasetId) {
+  private static HBaseLockingKeyService create(
+      PipelinesConfig config, Connection c, String datasetId) {
     org.gbif.pipelines.keygen.config.KeygenConfig keygenConfig =
         org.gbif.pipelines.keygen.config.KeygenConfig.builder()
             .counterTable(config.getKeygen().getCounterTable())
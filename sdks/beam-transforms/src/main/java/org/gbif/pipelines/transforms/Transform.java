@@ -110,7 +110,17 @@ public abstract class Transform<R, T extends SpecificRecordBase & Record> extend
    * @param toPath path with name to output files, like - directory/name
    */
   public AvroIO.Write<T> write(String toPath) {
-    return AvroIO.write(clazz).to(toPath).withSuffix(Pipeline.AVRO_EXTENSION).withCodec(BASE_CODEC);
+    return write(toPath, BASE_CODEC);
+  }
+
+  /**
+   * Writes {@link T} *.avro files to path, data will be split into several files
+   *
+   * @param toPath path with name to output files, like - directory/name
+   * @param codec Avro compression codec, see {@link org.gbif.pipelines.core.io.AvroCodecs}
+   */
+  public AvroIO.Write<T> write(String toPath, CodecFactory codec) {
+    return AvroIO.write(clazz).to(toPath).withSuffix(Pipeline.AVRO_EXTENSION).withCodec(codec);
   }
 
   /**
@@ -124,6 +134,17 @@ public abstract class Transform<R, T extends SpecificRecordBase & Record> extend
     return write(pathFn.apply(baseName));
   }
 
+  /**
+   * Writes {@link T} *.avro files to path, data will be split into several files
+   *
+   * @param pathFn function can return an output path, where in param is fixed - {@link
+   *     Transform#baseName}
+   * @param codec Avro compression codec, see {@link org.gbif.pipelines.core.io.AvroCodecs}
+   */
+  public AvroIO.Write<T> write(UnaryOperator<String> pathFn, CodecFactory codec) {
+    return write(pathFn.apply(baseName), codec);
+  }
+
   /**
    * Writes {@link T} *.avro files to path, data will be split into several files, uses Snappy
    * compression codec by default
@@ -135,6 +156,17 @@ public abstract class Transform<R, T extends SpecificRecordBase & Record> extend
     return write(pathFn.apply(baseInvalidName));
   }
 
+  /**
+   * Writes {@link T} *.avro files to path, data will be split into several files
+   *
+   * @param pathFn function can return an output path, where in param is fixed - {@link
+   *     Transform#baseInvalidName}
+   * @param codec Avro compression codec, see {@link org.gbif.pipelines.core.io.AvroCodecs}
+   */
+  public AvroIO.Write<T> writeInvalid(UnaryOperator<String> pathFn, CodecFactory codec) {
+    return write(pathFn.apply(baseInvalidName), codec);
+  }
+
   /** Creates an {@link R} for {@link T} */
   public SingleOutput<R, T> interpret() {
     return ParDo.of(this);
@@ -0,0 +1,201 @@
+package org.gbif.pipelines.transforms.common;
+
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.INDEX_CHANGED_DOCUMENTS_COUNT;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.INDEX_DELETED_DOCUMENTS_COUNT;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.INDEX_UNCHANGED_DOCUMENTS_COUNT;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.NonNull;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Metrics;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.join.CoGbkResult;
+import org.apache.beam.sdk.transforms.join.CoGroupByKey;
+import org.apache.beam.sdk.transforms.join.KeyedPCollectionTuple;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionTuple;
+import org.apache.beam.sdk.values.TupleTag;
+import org.apache.beam.sdk.values.TupleTagList;
+import org.gbif.pipelines.core.utils.HashConverter;
+
+/**
+ * Beam level transformation for incremental indexing. Compares the ES json documents of a dataset
+ * with the document hashes of the previous indexing and outputs only the documents to write: new
+ * and changed documents, and a delete document (see {@link #isDelete(JsonNode)}) for every previous
+ * id which isn't in the dataset anymore. All documents are written if there are no previous hashes.
+ *
+ * <p>The second output contains the hashes of all documents, as "id\thash" lines, to compare with
+ * on the next indexing.
+ *
+ * <p>Example:
+ *
+ * <pre>{@code
+ * PCollection<String> jsonCollection = ...
+ * PCollection<String> previousHashes = ...
+ *
+ * PCollectionTuple diff =
+ *     jsonCollection.apply(
+ *         IndexDiffTransform.builder().idField("gbifId").previousHashes(previousHashes).build());
+ *
+ * diff.get(IndexDiffTransform.DOCUMENT_TAG)
+ *     .apply(ElasticsearchIO.write().withIdFn(...).withIsDeleteFn(IndexDiffTransform::isDelete));
+ * diff.get(IndexDiffTransform.HASH_TAG).apply(TextIO.write().to(...));
+ * }</pre>
+ */
+@Builder
+public class IndexDiffTransform extends PTransform<PCollection<String>, PCollectionTuple> {
+
+  private static final long serialVersionUID = 8137049316752380412L;
+
+  public static final TupleTag<String> DOCUMENT_TAG = new TupleTag<String>() {};
+  public static final TupleTag<String> HASH_TAG = new TupleTag<String>() {};
+
+  private static final String DELETE_FIELD = "_delete";
+  private static final String SEPARATOR = "\t";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  // Field used as the document id
+  @NonNull private final String idField;
+
+  // Fields which change on every indexing, they don't mark a document as changed
+  @Builder.Default private final Set<String> ignoredFields = Collections.emptySet();
+
+  // "id\thash" lines of the previous indexing, null if there is no previous indexing
+  private final transient PCollection<String> previousHashes;
+
+  /** Checks if the document is a delete document, see ElasticsearchIO.Write#withIsDeleteFn */
+  public static boolean isDelete(JsonNode document) {
+    return document.has(DELETE_FIELD);
+  }
+
+  @Override
+  public PCollectionTuple expand(PCollection<String> input) {
+    PCollection<KV<String, KV<String, String>>> documents =
+        input.apply("Hash documents", ParDo.of(new HashFn(idField, ignoredFields)));
+
+    TupleTag<KV<String, String>> documentTag = new TupleTag<>();
+    TupleTag<String> previousTag = new TupleTag<>();
+
+    PCollection<KV<String, String>> previous =
+        previousHashes == null
+            ? null
+            : previousHashes.apply("Parse previous hashes", ParDo.of(new ParseHashFn()));
+
+    if (previous == null) {
+      return documents.apply(
+          "Write all documents",
+          ParDo.of(new WriteAllFn()).withOutputTags(DOCUMENT_TAG, TupleTagList.of(HASH_TAG)));
+    }
+
+    return KeyedPCollectionTuple.of(documentTag, documents)
+        .and(previousTag, previous)
+        .apply("Group by document id", CoGroupByKey.create())
+        .apply(
+            "Compare document hashes",
+            ParDo.of(new DiffFn(idField, documentTag, previousTag))
+                .withOutputTags(DOCUMENT_TAG, TupleTagList.of(HASH_TAG)));
+  }
+
+  /** Maps a json document to KV(id, KV(hash, json)) */
+  @AllArgsConstructor
+  private static class HashFn extends DoFn<String, KV<String, KV<String, String>>> {
+
+    private final String idField;
+    private final Set<String> ignoredFields;
+
+    @ProcessElement
+    public void processElement(
+        @Element String json, OutputReceiver<KV<String, KV<String, String>>> out) {
+      try {
+        ObjectNode node = (ObjectNode) MAPPER.readTree(json);
+        String id = node.get(idField).asText();
+        node.remove(ignoredFields);
+        out.output(KV.of(id, KV.of(HashConverter.getSha1(node.toString()), json)));
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+
+  /** Maps an "id\thash" line to KV(id, hash) */
+  private static class ParseHashFn extends DoFn<String, KV<String, String>> {
+
+    @ProcessElement
+    public void processElement(@Element String line, OutputReceiver<KV<String, String>> out) {
+      int separator = line.indexOf(SEPARATOR);
+      out.output(KV.of(line.substring(0, separator), line.substring(separator + 1)));
+    }
+  }
+
+  private static class WriteAllFn extends DoFn<KV<String, KV<String, String>>, String> {
+
+    private final Counter changedCounter =
+        Metrics.counter(IndexDiffTransform.class, INDEX_CHANGED_DOCUMENTS_COUNT);
+
+    @ProcessElement
+    public void processElement(
+        @Element KV<String, KV<String, String>> document, MultiOutputReceiver out) {
+      out.get(DOCUMENT_TAG).output(document.getValue().getValue());
+      out.get(HASH_TAG).output(document.getKey() + SEPARATOR + document.getValue().getKey());
+      changedCounter.inc();
+    }
+  }
+
+  @AllArgsConstructor
+  private static class DiffFn extends DoFn<KV<String, CoGbkResult>, String> {
+
+    private final Counter changedCounter =
+        Metrics.counter(IndexDiffTransform.class, INDEX_CHANGED_DOCUMENTS_COUNT);
+    private final Counter unchangedCounter =
+        Metrics.counter(IndexDiffTransform.class, INDEX_UNCHANGED_DOCUMENTS_COUNT);
+    private final Counter deletedCounter =
+        Metrics.counter(IndexDiffTransform.class, INDEX_DELETED_DOCUMENTS_COUNT);
+
+    private final String idField;
+    private final TupleTag<KV<String, String>> documentTag;
+    private final TupleTag<String> previousTag;
+
+    @ProcessElement
+    public void processElement(@Element KV<String, CoGbkResult> element, MultiOutputReceiver out) {
+      String id = element.getKey();
+      List<String> previousHashes = Lists.newArrayList(element.getValue().getAll(previousTag));
+      List<KV<String, String>> documents =
+          Lists.newArrayList(element.getValue().getAll(documentTag));
+
+      if (documents.isEmpty()) {
+        ObjectNode delete = MAPPER.createObjectNode().put(idField, id).put(DELETE_FIELD, true);
+        out.get(DOCUMENT_TAG).output(delete.toString());
+        deletedCounter.inc();
+        return;
+      }
+
+      // The hash of a duplicated id isn't saved, it doesn't tell which document ES has
+      if (documents.size() == 1) {
+        out.get(HASH_TAG).output(id + SEPARATOR + documents.get(0).getKey());
+      }
+
+      String previousHash = previousHashes.size() == 1 ? previousHashes.get(0) : null;
+      for (KV<String, String> document : documents) {
+        if (documents.size() == 1 && document.getKey().equals(previousHash)) {
+          unchangedCounter.inc();
+        } else {
+          out.get(DOCUMENT_TAG).output(document.getValue());
+          changedCounter.inc();
+        }
+      }
+    }
+  }
+}
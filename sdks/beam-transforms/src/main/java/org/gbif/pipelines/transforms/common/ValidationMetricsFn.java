@@ -0,0 +1,160 @@
+package org.gbif.pipelines.transforms.common;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Set;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderRegistry;
+import org.apache.beam.sdk.coders.SerializableCoder;
+import org.apache.beam.sdk.transforms.Combine;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.values.PCollectionView;
+import org.gbif.pipelines.common.pojo.ValidationMetrics;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.core.utils.ValidationMetricsAccumulator;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.Record;
+
+/**
+ * Beam combine function that accumulates {@link ValidationMetrics} of records, summaries of
+ * different record types are merged by {@link #merge()}. Related data of the issue samples is added
+ * from the verbatim records of the samples, once the samples are known:
+ *
+ * <pre>{@code
+ * PCollection<ValidationMetrics> metrics =
+ *     PCollectionList.of(verbatim.apply(Combine.globally(ValidationMetricsFn.verbatim(rowType))))
+ *         .and(basic.apply(Combine.globally(ValidationMetricsFn.interpreted(rowType))))
+ *         .apply(Flatten.pCollections())
+ *         .apply(Combine.globally(ValidationMetricsFn.merge()));
+ * PCollectionView<ValidationMetrics> metricsView = metrics.apply(View.asSingleton());
+ * PCollectionView<List<ExtendedRecord>> samplesView =
+ *     verbatim.apply(ValidationMetricsFn.issueSamples(rowType, metricsView)).apply(View.asList());
+ * metrics.apply(ValidationMetricsFn.relatedData(rowType, samplesView));
+ * }</pre>
+ */
+public class ValidationMetricsFn<T>
+    extends Combine.CombineFn<T, ValidationMetrics, ValidationMetrics> {
+
+  private static final Coder<ValidationMetrics> CODER =
+      SerializableCoder.of(ValidationMetrics.class);
+
+  private final AddFn<T> addFn;
+
+  private ValidationMetricsFn(AddFn<T> addFn) {
+    this.addFn = addFn;
+  }
+
+  /** Counts raw terms of the core and extensions */
+  public static ValidationMetricsFn<ExtendedRecord> verbatim(String coreRowType) {
+    return new ValidationMetricsFn<>(
+        (m, er) -> ValidationMetricsAccumulator.addVerbatim(m, coreRowType, er));
+  }
+
+  /** Counts interpreted fields and issues of the core */
+  public static <R extends SpecificRecordBase & Record> ValidationMetricsFn<R> interpreted(
+      String coreRowType) {
+    return new ValidationMetricsFn<>(
+        (m, r) -> ValidationMetricsAccumulator.addInterpreted(m, coreRowType, r));
+  }
+
+  /** Merges summaries */
+  public static ValidationMetricsFn<ValidationMetrics> merge() {
+    return new ValidationMetricsFn<>(ValidationMetrics::merge);
+  }
+
+  @Override
+  public ValidationMetrics createAccumulator() {
+    return new ValidationMetrics();
+  }
+
+  @Override
+  public ValidationMetrics addInput(ValidationMetrics accumulator, T input) {
+    addFn.add(accumulator, input);
+    return accumulator;
+  }
+
+  @Override
+  public ValidationMetrics mergeAccumulators(Iterable<ValidationMetrics> accumulators) {
+    ValidationMetrics result = new ValidationMetrics();
+    accumulators.forEach(result::merge);
+    return result;
+  }
+
+  @Override
+  public ValidationMetrics extractOutput(ValidationMetrics accumulator) {
+    return accumulator;
+  }
+
+  @Override
+  public Coder<ValidationMetrics> getAccumulatorCoder(CoderRegistry registry, Coder<T> inputCoder) {
+    return CODER;
+  }
+
+  @Override
+  public Coder<ValidationMetrics> getDefaultOutputCoder(
+      CoderRegistry registry, Coder<T> inputCoder) {
+    return CODER;
+  }
+
+  /** Keeps the verbatim records which are issue samples of the summary */
+  public static ParDo.SingleOutput<ExtendedRecord, ExtendedRecord> issueSamples(
+      String coreRowType, PCollectionView<ValidationMetrics> metricsView) {
+    return ParDo.of(
+            new DoFn<ExtendedRecord, ExtendedRecord>() {
+
+              // The summary is the same for all records
+              private transient Set<String> sampleIds;
+
+              @ProcessElement
+              public void processElement(ProcessContext c) {
+                if (sampleIds == null) {
+                  sampleIds =
+                      ValidationMetricsAccumulator.issueSampleIds(
+                          c.sideInput(metricsView), coreRowType);
+                }
+                if (sampleIds.contains(c.element().getId())) {
+                  c.output(c.element());
+                }
+              }
+            })
+        .withSideInputs(metricsView);
+  }
+
+  /** Adds raw values of the related terms to the issue samples, see {@link #issueSamples} */
+  public static ParDo.SingleOutput<ValidationMetrics, ValidationMetrics> relatedData(
+      String coreRowType, PCollectionView<List<ExtendedRecord>> samplesView) {
+    return ParDo.of(
+            new DoFn<ValidationMetrics, ValidationMetrics>() {
+              @ProcessElement
+              public void processElement(ProcessContext c) {
+                // Copy, the input element must not be modified
+                ValidationMetrics result = new ValidationMetrics().merge(c.element());
+                c.sideInput(samplesView)
+                    .forEach(
+                        er -> ValidationMetricsAccumulator.addRelatedData(result, coreRowType, er));
+                c.output(result);
+              }
+            })
+        .withSideInputs(samplesView);
+  }
+
+  /** Writes the summary as a json file */
+  public static ParDo.SingleOutput<ValidationMetrics, Void> write(
+      HdfsConfigs hdfsConfigs, String path) {
+    return ParDo.of(
+        new DoFn<ValidationMetrics, Void>() {
+          @ProcessElement
+          public void processElement(@Element ValidationMetrics metrics) throws IOException {
+            ValidationMetricsAccumulator.write(hdfsConfigs, path, metrics);
+          }
+        });
+  }
+
+  @FunctionalInterface
+  private interface AddFn<T> extends Serializable {
+    void add(ValidationMetrics metrics, T input);
+  }
+}
@@ -1,19 +1,29 @@
 package org.gbif.pipelines.transforms.core;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.StreamSupport;
 import lombok.Data;
 import org.apache.beam.sdk.transforms.Combine;
 import org.apache.beam.sdk.values.TupleTag;
 import org.gbif.pipelines.core.parsers.location.parser.ConvexHullParser;
 import org.gbif.pipelines.io.avro.LocationRecord;
+import org.locationtech.jts.algorithm.Orientation;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.io.WKTWriter;
 
-/** Beam that calculates a ConvexHull form all coordinates accumulated from location records. */
+/**
+ * Beam that calculates a ConvexHull form all coordinates accumulated from location records.
+ *
+ * <p>The accumulator keeps only the vertices of the hull of the coordinates seen so far, new
+ * coordinates are buffered and the buffer is reduced to the hull vertices once it grows over a
+ * threshold, so the accumulator size depends on the hull and not on the number of records.
+ */
 @Data
 public class ConvexHullFn extends Combine.CombineFn<LocationRecord, ConvexHullFn.Accum, String> {
 
@@ -22,16 +32,21 @@ public class ConvexHullFn extends Combine.CombineFn<LocationRecord, ConvexHullFn
   @Data
   public static class Accum implements Serializable {
 
+    /** Minimal size of the buffer before it is reduced to the hull vertices */
+    private static final int COMPACT_THRESHOLD = 1_024;
+
     private Set<Coordinate> coordinates = new HashSet<>();
 
+    private int compactAt = COMPACT_THRESHOLD;
+
     public Accum acc(Set<Coordinate> coordinates) {
       this.coordinates.addAll(coordinates);
-      return this;
+      return compactIfNeeded();
     }
 
     public Accum acc(Coordinate coordinate) {
       coordinates.add(coordinate);
-      return this;
+      return compactIfNeeded();
     }
 
     public Optional<String> toWktConvexHull() {
@@ -41,6 +56,55 @@ public class ConvexHullFn extends Combine.CombineFn<LocationRecord, ConvexHullFn
       }
       return Optional.empty();
     }
+
+    /** Replaces the accumulated coordinates by the vertices of their convex hull */
+    public Accum compact() {
+      coordinates = new HashSet<>(hullVertices(coordinates));
+      compactAt = Math.max(COMPACT_THRESHOLD, coordinates.size() * 2);
+      return this;
+    }
+
+    private Accum compactIfNeeded() {
+      return coordinates.size() >= compactAt ? compact() : this;
+    }
+
+    /**
+     * Andrew's monotone chain, collinear and duplicate coordinates are dropped, so only the extreme
+     * points are kept. The JTS hull depends only on the extreme points of the input, the
+     * orientation test is the same robust predicate JTS uses to build the hull.
+     */
+    static List<Coordinate> hullVertices(Set<Coordinate> coordinates) {
+      Coordinate[] sorted = coordinates.toArray(new Coordinate[0]);
+      Arrays.sort(sorted);
+      if (sorted.length < 3) {
+        return Arrays.asList(sorted);
+      }
+
+      Coordinate[] hull = new Coordinate[sorted.length * 2];
+      int k = 0;
+      // Lower chain
+      for (Coordinate c : sorted) {
+        while (k >= 2 && Orientation.index(hull[k - 2], hull[k - 1], c) <= 0) {
+          k--;
+        }
+        hull[k++] = c;
+      }
+      // Upper chain
+      for (int i = sorted.length - 2, lower = k + 1; i >= 0; i--) {
+        Coordinate c = sorted[i];
+        while (k >= lower && Orientation.index(hull[k - 2], hull[k - 1], c) <= 0) {
+          k--;
+        }
+        hull[k++] = c;
+      }
+      // The last one is the first coordinate again
+      List<Coordinate> vertices = new ArrayList<>(Arrays.asList(hull).subList(0, k - 1));
+      // JTS keeps the input order of two coordinates, but orders three or more collinear ones
+      if (vertices.size() == 2) {
+        vertices.add(sorted[1]);
+      }
+      return vertices;
+    }
   }
 
   @Override
@@ -57,12 +121,18 @@ public class ConvexHullFn extends Combine.CombineFn<LocationRecord, ConvexHullFn
     return mutableAccumulator;
   }
 
+  /** Merges partial hulls into the first accumulator, the merged vertices are reduced again */
   @Override
   public Accum mergeAccumulators(Iterable<Accum> accumulators) {
-    return StreamSupport.stream(accumulators.spliterator(), false)
-        .reduce(
-            new Accum(),
-            (acc1, acc2) -> new Accum().acc(acc1.getCoordinates()).acc(acc2.getCoordinates()));
+    Iterator<Accum> iterator = accumulators.iterator();
+    if (!iterator.hasNext()) {
+      return createAccumulator();
+    }
+    Accum merged = iterator.next();
+    while (iterator.hasNext()) {
+      merged.getCoordinates().addAll(iterator.next().getCoordinates());
+    }
+    return merged.compact();
   }
 
   @Override
@@ -2,8 +2,12 @@ package org.gbif.pipelines.transforms.core;
 
 import java.io.Serializable;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import lombok.Builder;
@@ -42,12 +46,28 @@ public class DerivedMetadataTransform implements Serializable {
     DoFn<KV<String, CoGbkResult>, KV<String, DerivedMetadataRecord>> fn =
         new DoFn<KV<String, CoGbkResult>, KV<String, DerivedMetadataRecord>>() {
 
-          private ExtendedRecord getAssociatedVerbatim(
-              TaxonRecord taxonRecord, List<ExtendedRecord> verbatimRecords) {
-            return verbatimRecords.stream()
-                .filter(er -> er.getId().equals(taxonRecord.getId()))
-                .findFirst()
-                .orElse(null);
+          /**
+           * Indexes the verbatim records of the taxon records by id in a single pass over the
+           * grouped verbatim records, the first verbatim record of an id is kept
+           */
+          private Map<String, ExtendedRecord> getAssociatedVerbatim(
+              List<TaxonRecord> taxonRecords, Iterable<ExtendedRecord> verbatimRecords) {
+            if (taxonRecords.isEmpty()) {
+              return Collections.emptyMap();
+            }
+            Set<String> ids = new HashSet<>(taxonRecords.size());
+            taxonRecords.forEach(tr -> ids.add(tr.getId()));
+
+            Map<String, ExtendedRecord> associated = new HashMap<>(ids.size());
+            for (ExtendedRecord er : verbatimRecords) {
+              if (ids.contains(er.getId())) {
+                associated.putIfAbsent(er.getId(), er);
+                if (associated.size() == ids.size()) {
+                  break;
+                }
+              }
+            }
+            return associated;
           }
 
           @ProcessElement
@@ -65,9 +85,8 @@ public class DerivedMetadataTransform implements Serializable {
                         false)
                     .collect(Collectors.toList());
 
-            List<ExtendedRecord> verbatimRecords =
-                StreamSupport.stream(result.getAll(extendedRecordTag).spliterator(), false)
-                    .collect(Collectors.toList());
+            Map<String, ExtendedRecord> verbatimRecords =
+                getAssociatedVerbatim(classifications, result.getAll(extendedRecordTag));
 
             DerivedMetadataRecord.Builder builder = DerivedMetadataRecord.newBuilder().setId(key);
             if (convexHull != null && !convexHull.isEmpty()) {
@@ -85,7 +104,7 @@ public class DerivedMetadataTransform implements Serializable {
                 classifications.stream()
                     .map(
                         tr ->
-                            Optional.ofNullable(getAssociatedVerbatim(tr, verbatimRecords))
+                            Optional.ofNullable(verbatimRecords.get(tr.getId()))
                                 .map(vr -> JsonConverter.convertClassification(vr, tr)))
                     .filter(Optional::isPresent)
                     .map(Optional::get)
@@ -4,16 +4,18 @@ import static org.gbif.pipelines.common.PipelinesVariables.Metrics.EVENT_CORE_RE
 import static org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.RecordType.EVENT;
 
 import java.time.Instant;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import lombok.Builder;
-import lombok.Setter;
 import lombok.SneakyThrows;
+import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.transforms.ParDo.SingleOutput;
+import org.apache.beam.sdk.transforms.join.CoGbkResult;
 import org.apache.beam.sdk.values.KV;
-import org.apache.beam.sdk.values.PCollectionView;
+import org.apache.beam.sdk.values.TupleTag;
 import org.apache.beam.sdk.values.TypeDescriptor;
 import org.gbif.pipelines.core.functions.SerializableConsumer;
 import org.gbif.pipelines.core.functions.SerializableSupplier;
@@ -23,6 +25,7 @@ import org.gbif.pipelines.core.interpreters.core.VocabularyInterpreter;
 import org.gbif.pipelines.core.parsers.vocabulary.VocabularyService;
 import org.gbif.pipelines.io.avro.EventCoreRecord;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.Parent;
 import org.gbif.pipelines.transforms.Transform;
 
 /**
@@ -36,16 +39,11 @@ public class EventCoreTransform extends Transform<ExtendedRecord, EventCoreRecor
   private final SerializableSupplier<VocabularyService> vocabularyServiceSupplier;
   private VocabularyService vocabularyService;
 
-  @Setter private PCollectionView<Map<String, Map<String, String>>> erWithParentsView;
-
   @Builder(buildMethodName = "create")
-  private EventCoreTransform(
-      SerializableSupplier<VocabularyService> vocabularyServiceSupplier,
-      PCollectionView<Map<String, Map<String, String>>> erWithParentsView) {
+  private EventCoreTransform(SerializableSupplier<VocabularyService> vocabularyServiceSupplier) {
     super(
         EventCoreRecord.class, EVENT, EventCoreTransform.class.getName(), EVENT_CORE_RECORDS_COUNT);
     this.vocabularyServiceSupplier = vocabularyServiceSupplier;
-    this.erWithParentsView = erWithParentsView;
   }
 
   /** Maps {@link EventCoreRecord} to key value, where key is {@link EventCoreRecord#getId} */
@@ -87,19 +85,42 @@ public class EventCoreTransform extends Transform<ExtendedRecord, EventCoreRecor
     throw new IllegalArgumentException("Method is not implemented!");
   }
 
-  @Override
-  public SingleOutput<ExtendedRecord, EventCoreRecord> interpret() {
-    return ParDo.of(this).withSideInputs(erWithParentsView);
-  }
+  /**
+   * Interprets {@link ExtendedRecord} grouped with the parents lineage computed by {@link
+   * ParentsLineageTransform}, avoids sending all events to every worker as a side input
+   *
+   * @param erTag tag of {@link ExtendedRecord} in the grouped collection
+   * @param lineageTag tag of the lineages, see {@link ParentsLineageTransform#tag()}
+   */
+  public SingleOutput<KV<String, CoGbkResult>, EventCoreRecord> interpret(
+      TupleTag<ExtendedRecord> erTag, TupleTag<List<Parent>> lineageTag) {
+    return ParDo.of(
+        new DoFn<KV<String, CoGbkResult>, EventCoreRecord>() {
 
-  @Override
-  @ProcessElement
-  public void processElement(ProcessContext c) {
-    processElement(c.element(), c.sideInput(erWithParentsView)).ifPresent(c::output);
+          @Setup
+          public void setup() {
+            EventCoreTransform.this.setup();
+          }
+
+          @Teardown
+          public void tearDown() {
+            EventCoreTransform.this.tearDown();
+          }
+
+          @ProcessElement
+          public void processElement(ProcessContext c) {
+            CoGbkResult v = c.element().getValue();
+            ExtendedRecord er = v.getOnly(erTag, null);
+            if (er != null) {
+              List<Parent> parentsLineage = v.getOnly(lineageTag, Collections.emptyList());
+              EventCoreTransform.this.processElement(er, parentsLineage).ifPresent(c::output);
+            }
+          }
+        });
   }
 
   public Optional<EventCoreRecord> processElement(
-      ExtendedRecord source, Map<String, Map<String, String>> erWithParents) {
+      ExtendedRecord source, List<Parent> parentsLineage) {
     return Interpretation.from(source)
         .to(
             EventCoreRecord.newBuilder()
@@ -117,7 +138,7 @@ public class EventCoreTransform extends Transform<ExtendedRecord, EventCoreRecor
         .via((e, r) -> CoreInterpreter.interpretSamplingProtocol(e, r::setSamplingProtocol))
         .via((e, r) -> CoreInterpreter.interpretParentEventID(e, r::setParentEventID))
         .via((e, r) -> CoreInterpreter.interpretLocationID(e, r::setLocationID))
-        .via(CoreInterpreter.interpretLineages(erWithParents, vocabularyService))
+        .via(CoreInterpreter.interpretParentsLineage(parentsLineage, vocabularyService))
         .getOfNullable();
   }
 }
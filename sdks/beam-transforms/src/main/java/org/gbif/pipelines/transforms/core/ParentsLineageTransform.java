@@ -0,0 +1,406 @@
+package org.gbif.pipelines.transforms.core;
+
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.PARENTS_LINEAGE_CYCLES_COUNT;
+import static org.gbif.pipelines.common.PipelinesVariables.Metrics.PARENTS_LINEAGE_TRUNCATED_COUNT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.beam.sdk.coders.AtomicCoder;
+import org.apache.beam.sdk.coders.AvroCoder;
+import org.apache.beam.sdk.coders.BooleanCoder;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.ListCoder;
+import org.apache.beam.sdk.coders.NullableCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Metrics;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.Filter;
+import org.apache.beam.sdk.transforms.Flatten;
+import org.apache.beam.sdk.transforms.MapElements;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.join.CoGbkResult;
+import org.apache.beam.sdk.transforms.join.CoGroupByKey;
+import org.apache.beam.sdk.transforms.join.KeyedPCollectionTuple;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionList;
+import org.apache.beam.sdk.values.TupleTag;
+import org.apache.beam.sdk.values.TypeDescriptor;
+import org.apache.beam.sdk.values.TypeDescriptors;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.GbifTerm;
+import org.gbif.pipelines.io.avro.Parent;
+
+/**
+ * Computes the parents lineage of every event with iterative pointer-jumping joins, instead of
+ * sending the map of all events to every worker as a side input.
+ *
+ * <p>Every event starts pointing to its direct parent. In each round an unresolved event is joined
+ * with the event it points to, appends that event and its already known ancestors to its own
+ * lineage and starts pointing to where that event was pointing. The number of known ancestors
+ * doubles every round, so {@code n} rounds resolve hierarchies with up to {@code 2^n - 1} levels.
+ * Resolved events leave the rounds, only unresolved events and the events they point to are
+ * grouped, so once every lineage is resolved the remaining rounds run on empty collections.
+ *
+ * <p>Cycles are detected explicitly and cut at the event with the smallest id. Lineages deeper than
+ * the configured maximum are truncated, both cases are reported as metrics.
+ *
+ * <p>Input is the collection produced by {@link VerbatimTransform#toParentEventsKv()}, output is a
+ * keyed collection of lineages where {@link Parent#getEventType()} contains raw values.
+ */
+@Slf4j
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ParentsLineageTransform
+    extends PTransform<
+        PCollection<KV<String, Map<String, String>>>, PCollection<KV<String, List<Parent>>>> {
+
+  private static final int DEFAULT_ROUNDS = 8;
+
+  private static final TupleTag<List<Parent>> TAG = new TupleTag<List<Parent>>() {};
+  private static final TupleTag<LineageNode> PROVIDER_TAG = new TupleTag<LineageNode>() {};
+  private static final TupleTag<LineageNode> WAITER_TAG = new TupleTag<LineageNode>() {};
+  private static final TupleTag<Boolean> WAITED_TAG = new TupleTag<Boolean>() {};
+
+  private static final KvCoder<String, LineageNode> NODE_KV_CODER =
+      KvCoder.of(StringUtf8Coder.of(), LineageNodeCoder.of());
+
+  private final int rounds;
+
+  /** Creates a transform which resolves hierarchies with up to 255 levels */
+  public static ParentsLineageTransform create() {
+    return new ParentsLineageTransform(DEFAULT_ROUNDS);
+  }
+
+  /** Creates a transform which resolves hierarchies with up to the given number of levels */
+  public static ParentsLineageTransform create(int maxDepth) {
+    int rounds = 1;
+    while ((1L << rounds) - 1 < maxDepth) {
+      rounds++;
+    }
+    return new ParentsLineageTransform(rounds);
+  }
+
+  public static TupleTag<List<Parent>> tag() {
+    return TAG;
+  }
+
+  @Override
+  public PCollection<KV<String, List<Parent>>> expand(
+      PCollection<KV<String, Map<String, String>>> input) {
+
+    PCollection<LineageNode> nodes =
+        input
+            .apply(
+                "Create lineage nodes",
+                MapElements.into(TypeDescriptor.of(LineageNode.class))
+                    .via(
+                        (KV<String, Map<String, String>> kv) ->
+                            LineageNode.create(
+                                kv.getKey(),
+                                kv.getValue().get(DwcTerm.parentEventID.name()),
+                                kv.getValue().get(GbifTerm.eventType.name()))))
+            .setCoder(LineageNodeCoder.of());
+
+    PCollection<LineageNode> active =
+        nodes.apply("Filter unresolved nodes", Filter.by(n -> !n.isResolved()));
+    PCollection<LineageNode> done =
+        nodes.apply("Filter resolved nodes", Filter.by(n -> n.isResolved()));
+
+    for (int round = 1; round <= rounds; round++) {
+      // Every node can be waited for in the first round
+      PCollection<LineageNode> providers =
+          round == 1 ? nodes : flatten(active, waited(active, done, round), "providers", round);
+
+      PCollection<LineageNode> jumped = jump(active, providers, round);
+
+      done =
+          flatten(
+              done,
+              jumped.apply("Filter resolved, round " + round, Filter.by(n -> n.isResolved())),
+              "resolved",
+              round);
+      active = jumped.apply("Filter unresolved, round " + round, Filter.by(n -> !n.isResolved()));
+    }
+
+    return PCollectionList.of(done)
+        .and(active)
+        .apply("Flatten nodes", Flatten.pCollections())
+        .setCoder(LineageNodeCoder.of())
+        .apply("Filter events without parents", Filter.by(n -> !n.getAncestorIds().isEmpty()))
+        .apply("Convert nodes to lineages", ParDo.of(new LineageFn()))
+        .setCoder(KvCoder.of(StringUtf8Coder.of(), ListCoder.of(AvroCoder.of(Parent.class))));
+  }
+
+  /** One pointer-jumping round, every unresolved node is emitted once in the output collection */
+  private PCollection<LineageNode> jump(
+      PCollection<LineageNode> active, PCollection<LineageNode> providers, int round) {
+
+    PCollection<KV<String, LineageNode>> keyedProviders =
+        providers
+            .apply(
+                "Key providers by id, round " + round,
+                MapElements.into(new TypeDescriptor<KV<String, LineageNode>>() {})
+                    .via((LineageNode n) -> KV.of(n.getId(), n)))
+            .setCoder(NODE_KV_CODER);
+
+    PCollection<KV<String, LineageNode>> waiters =
+        active
+            .apply(
+                "Key waiters by next, round " + round,
+                MapElements.into(new TypeDescriptor<KV<String, LineageNode>>() {})
+                    .via((LineageNode n) -> KV.of(n.getNext(), n)))
+            .setCoder(NODE_KV_CODER);
+
+    return KeyedPCollectionTuple.of(PROVIDER_TAG, keyedProviders)
+        .and(WAITER_TAG, waiters)
+        .apply("Group providers and waiters, round " + round, CoGroupByKey.create())
+        .apply("Jump pointers, round " + round, ParDo.of(new JumpFn()))
+        .setCoder(LineageNodeCoder.of());
+  }
+
+  /**
+   * Resolved nodes which unresolved nodes point to, joined by id with the ids the unresolved nodes
+   * wait for, the rest doesn't take part in the round
+   */
+  private PCollection<LineageNode> waited(
+      PCollection<LineageNode> active, PCollection<LineageNode> done, int round) {
+
+    PCollection<KV<String, LineageNode>> keyedDone =
+        done.apply(
+                "Key resolved by id, round " + round,
+                MapElements.into(new TypeDescriptor<KV<String, LineageNode>>() {})
+                    .via((LineageNode n) -> KV.of(n.getId(), n)))
+            .setCoder(NODE_KV_CODER);
+
+    PCollection<KV<String, Boolean>> waitedIds =
+        active
+            .apply(
+                "Key waited ids, round " + round,
+                MapElements.into(
+                        TypeDescriptors.kvs(TypeDescriptors.strings(), TypeDescriptors.booleans()))
+                    .via((LineageNode n) -> KV.of(n.getNext(), Boolean.TRUE)))
+            .setCoder(KvCoder.of(StringUtf8Coder.of(), BooleanCoder.of()));
+
+    return KeyedPCollectionTuple.of(PROVIDER_TAG, keyedDone)
+        .and(WAITED_TAG, waitedIds)
+        .apply("Group resolved and waited ids, round " + round, CoGroupByKey.create())
+        .apply("Filter waited, round " + round, ParDo.of(new WaitedFn()))
+        .setCoder(LineageNodeCoder.of());
+  }
+
+  private static PCollection<LineageNode> flatten(
+      PCollection<LineageNode> first, PCollection<LineageNode> second, String name, int round) {
+    return PCollectionList.of(first)
+        .and(second)
+        .apply("Flatten " + name + ", round " + round, Flatten.pCollections())
+        .setCoder(LineageNodeCoder.of());
+  }
+
+  private static class WaitedFn extends DoFn<KV<String, CoGbkResult>, LineageNode> {
+
+    @ProcessElement
+    public void processElement(ProcessContext c) {
+      CoGbkResult result = c.element().getValue();
+      if (result.getAll(WAITED_TAG).iterator().hasNext()) {
+        result.getAll(PROVIDER_TAG).forEach(c::output);
+      }
+    }
+  }
+
+  private static class JumpFn extends DoFn<KV<String, CoGbkResult>, LineageNode> {
+
+    private final Counter cyclesCounter =
+        Metrics.counter(ParentsLineageTransform.class, PARENTS_LINEAGE_CYCLES_COUNT);
+
+    @ProcessElement
+    public void processElement(ProcessContext c) {
+      CoGbkResult result = c.element().getValue();
+      LineageNode provider = result.getOnly(PROVIDER_TAG, null);
+
+      // Providers are emitted by the group of the node they are waiting for or stay resolved
+      for (LineageNode waiter : result.getAll(WAITER_TAG)) {
+        LineageNode node = waiter.jumpTo(provider);
+        if (node.isCycle()) {
+          log.warn("Cycle detected in the parentEventID hierarchy of event {}", node.getId());
+          cyclesCounter.inc();
+        }
+        c.output(node);
+      }
+    }
+  }
+
+  private static class LineageFn extends DoFn<LineageNode, KV<String, List<Parent>>> {
+
+    private final Counter truncatedCounter =
+        Metrics.counter(ParentsLineageTransform.class, PARENTS_LINEAGE_TRUNCATED_COUNT);
+
+    @ProcessElement
+    public void processElement(ProcessContext c) {
+      LineageNode node = c.element();
+      if (!node.isResolved()) {
+        log.warn("Parents lineage of event {} is deeper than the maximum depth", node.getId());
+        truncatedCounter.inc();
+      }
+      c.output(KV.of(node.getId(), node.toParents()));
+    }
+  }
+
+  /** State of an event during the pointer-jumping rounds */
+  @Data
+  @NoArgsConstructor
+  public static class LineageNode {
+
+    private String id;
+    private String eventType;
+    // Ancestors found so far, starting with the direct parent
+    private List<String> ancestorIds = new ArrayList<>();
+    private List<String> ancestorTypes = new ArrayList<>();
+    // Next ancestor to resolve, null when the lineage is complete
+    private String next;
+    private boolean cycle;
+
+    static LineageNode create(String id, String parentEventID, String eventType) {
+      LineageNode node = new LineageNode();
+      node.setId(id);
+      node.setEventType(eventType);
+      node.setNext(parentEventID);
+      return node;
+    }
+
+    boolean isResolved() {
+      return next == null;
+    }
+
+    /** Appends the provider and all its known ancestors, then points to the provider's next */
+    LineageNode jumpTo(LineageNode provider) {
+      LineageNode node = new LineageNode();
+      node.setId(id);
+      node.setEventType(eventType);
+      node.setAncestorIds(new ArrayList<>(ancestorIds));
+      node.setAncestorTypes(new ArrayList<>(ancestorTypes));
+      node.setCycle(cycle);
+
+      // case when there is no event with that parentEventID
+      if (provider == null) {
+        return node;
+      }
+
+      Set<String> visited = new HashSet<>(ancestorIds);
+      visited.add(id);
+
+      if (!node.append(visited, provider.getId(), provider.getEventType())) {
+        return node;
+      }
+      for (int x = 0; x < provider.getAncestorIds().size(); x++) {
+        String ancestorId = provider.getAncestorIds().get(x);
+        if (!node.append(visited, ancestorId, provider.getAncestorTypes().get(x))) {
+          return node;
+        }
+      }
+
+      String providerNext = provider.getNext();
+      if (providerNext != null && visited.contains(providerNext)) {
+        node.cut(providerNext);
+      } else {
+        node.setNext(providerNext);
+      }
+      return node;
+    }
+
+    private boolean append(Set<String> visited, String ancestorId, String ancestorType) {
+      if (!visited.add(ancestorId)) {
+        cut(ancestorId);
+        return false;
+      }
+      ancestorIds.add(ancestorId);
+      ancestorTypes.add(ancestorType);
+      return true;
+    }
+
+    /**
+     * The lineage goes back to the repeated id, so the cycle is the part of the path from it. The
+     * cycle is cut at its smallest id, every event of the cycle gets the same cut regardless of the
+     * round it is detected in, the event with the smallest id becomes the top parent.
+     */
+    private void cut(String repeatedId) {
+      List<String> path = new ArrayList<>(ancestorIds.size() + 1);
+      path.add(id);
+      path.addAll(ancestorIds);
+      String cutId = Collections.min(path.subList(path.indexOf(repeatedId), path.size()));
+      int keep = path.indexOf(cutId);
+      ancestorIds = new ArrayList<>(ancestorIds.subList(0, keep));
+      ancestorTypes = new ArrayList<>(ancestorTypes.subList(0, keep));
+      next = null;
+      cycle = true;
+    }
+
+    List<Parent> toParents() {
+      List<Parent> parents = new ArrayList<>(ancestorIds.size());
+      for (int x = 0; x < ancestorIds.size(); x++) {
+        parents.add(
+            Parent.newBuilder()
+                .setId(ancestorIds.get(x))
+                .setEventType(ancestorTypes.get(x))
+                .setOrder(x + 1)
+                .build());
+      }
+      return parents;
+    }
+  }
+
+  /** Explicit coder of {@link LineageNode}, avoids Java serialization between the rounds */
+  public static class LineageNodeCoder extends AtomicCoder<LineageNode> {
+
+    private static final LineageNodeCoder INSTANCE = new LineageNodeCoder();
+
+    private static final Coder<String> STRING_CODER = NullableCoder.of(StringUtf8Coder.of());
+    private static final Coder<List<String>> LIST_CODER = ListCoder.of(STRING_CODER);
+    private static final Coder<Boolean> BOOLEAN_CODER = BooleanCoder.of();
+
+    public static LineageNodeCoder of() {
+      return INSTANCE;
+    }
+
+    @Override
+    public void encode(LineageNode node, OutputStream outStream) throws IOException {
+      STRING_CODER.encode(node.getId(), outStream);
+      STRING_CODER.encode(node.getEventType(), outStream);
+      LIST_CODER.encode(node.getAncestorIds(), outStream);
+      LIST_CODER.encode(node.getAncestorTypes(), outStream);
+      STRING_CODER.encode(node.getNext(), outStream);
+      BOOLEAN_CODER.encode(node.isCycle(), outStream);
+    }
+
+    @Override
+    public LineageNode decode(InputStream inStream) throws IOException {
+      LineageNode node = new LineageNode();
+      node.setId(STRING_CODER.decode(inStream));
+      node.setEventType(STRING_CODER.decode(inStream));
+      node.setAncestorIds(LIST_CODER.decode(inStream));
+      node.setAncestorTypes(LIST_CODER.decode(inStream));
+      node.setNext(STRING_CODER.decode(inStream));
+      node.setCycle(BOOLEAN_CODER.decode(inStream));
+      return node;
+    }
+
+    @Override
+    public void verifyDeterministic() {
+      // Deterministic, all the field coders are deterministic
+    }
+  }
+}
@@ -5,20 +5,25 @@ import static org.gbif.pipelines.common.PipelinesVariables.Metrics.IDENTICAL_GBI
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.INVALID_GBIF_ID_COUNT;
 import static org.gbif.pipelines.common.PipelinesVariables.Metrics.UNIQUE_GBIF_IDS_COUNT;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.pipelines.core.functions.SerializableConsumer;
+import org.gbif.pipelines.core.utils.ConcurrentMinLongMap;
 import org.gbif.pipelines.core.utils.HashConverter;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.gbif.pipelines.io.avro.IdentifierRecord;
@@ -26,34 +31,95 @@ import org.gbif.pipelines.io.avro.IdentifierRecord;
 /**
  * Splits collection into two: 1 - normal collection with regular GBIF ids 2 - contains invalid
  * records with GBIF ids, as duplicates or missed GBIF ids
+ *
+ * <p>GBIF id collisions are resolved with a primitive {@link ConcurrentMinLongMap} of GBIF id to
+ * the 64-bit SHA-1 fingerprint of the record id, instead of maps of strings to records. The record
+ * with the lowest fingerprint wins, the same record as the lowest SHA-1 hex string, so the result
+ * doesn't depend on the order or the concurrency of the processing.
  */
 @Slf4j
-@Getter
-@Builder
 @SuppressWarnings("all")
 public class UniqueGbifIdTransform {
 
-  private final Map<String, IdentifierRecord> idMap = new ConcurrentHashMap<>();
-  private final Map<String, IdentifierRecord> idInvalidMap = new ConcurrentHashMap<>();
   // keyed by the ExtendedRecord ID
-  private final Map<String, IdentifierRecord> erIdMap = new ConcurrentHashMap<>();
+  @Getter private final Map<String, IdentifierRecord> erIdMap = new ConcurrentHashMap<>();
 
-  @NonNull private Function<ExtendedRecord, Optional<IdentifierRecord>> idTransformFn;
+  private final ConcurrentMinLongMap gbifIdMap;
 
-  @NonNull private Map<String, ExtendedRecord> erMap;
+  private final Function<ExtendedRecord, Optional<IdentifierRecord>> idTransformFn;
 
-  @Builder.Default private ExecutorService executor = Executors.newWorkStealingPool();
+  private final Map<String, ExtendedRecord> erMap;
 
-  @Builder.Default private boolean useSyncMode = true;
+  private final ExecutorService executor;
 
-  @Builder.Default private boolean skipTransform = false;
+  private final boolean useSyncMode;
 
-  private SerializableConsumer<String> counterFn;
+  private final boolean skipTransform;
+
+  private final SerializableConsumer<String> counterFn;
+
+  @Builder
+  private UniqueGbifIdTransform(
+      @NonNull Function<ExtendedRecord, Optional<IdentifierRecord>> idTransformFn,
+      @NonNull Map<String, ExtendedRecord> erMap,
+      ExecutorService executor,
+      Boolean useSyncMode,
+      boolean skipTransform,
+      SerializableConsumer<String> counterFn) {
+    this.idTransformFn = idTransformFn;
+    this.erMap = erMap;
+    this.executor = executor == null ? Executors.newWorkStealingPool() : executor;
+    this.useSyncMode = useSyncMode == null || useSyncMode;
+    this.skipTransform = skipTransform;
+    this.counterFn = counterFn;
+    this.gbifIdMap = ConcurrentMinLongMap.create(erMap.size());
+  }
 
   public UniqueGbifIdTransform run() {
     return useSyncMode ? runSync() : runAsync();
   }
 
+  /**
+   * Returns the invalid {@link IdentifierRecord} of the {@link ExtendedRecord} id, a record without
+   * GBIF id or which lost a GBIF id collision, else null
+   */
+  public IdentifierRecord getInvalid(String erId) {
+    IdentifierRecord id = erIdMap.get(erId);
+    return id == null || isUnique(id) ? null : id;
+  }
+
+  /** Returns all {@link IdentifierRecord} with a unique GBIF id */
+  public Collection<IdentifierRecord> getUniqueIds() {
+    return erIdMap.values().stream().filter(this::isUnique).collect(Collectors.toList());
+  }
+
+  /**
+   * Creates a map of unique records, where key is GBIF id or record id if the transform is skipped.
+   * Prefer {@link #getUniqueIds()} for big datasets
+   */
+  public Map<String, IdentifierRecord> getIdMap() {
+    Map<String, IdentifierRecord> idMap = new HashMap<>();
+    for (IdentifierRecord id : getUniqueIds()) {
+      idMap.put(skipTransform ? id.getId() : id.getInternalId(), id);
+    }
+    return idMap;
+  }
+
+  /**
+   * Creates a map of invalid records, where key is record id. Prefer {@link #getInvalid(String)}
+   * for big datasets
+   */
+  public Map<String, IdentifierRecord> getIdInvalidMap() {
+    Map<String, IdentifierRecord> idInvalidMap = new HashMap<>();
+    erIdMap.forEach(
+        (k, v) -> {
+          if (!isUnique(v)) {
+            idInvalidMap.put(v.getId(), v);
+          }
+        });
+    return idInvalidMap;
+  }
+
   @SneakyThrows
   private UniqueGbifIdTransform runAsync() {
     // Filter GBIF id duplicates
@@ -83,14 +149,13 @@ public class UniqueGbifIdTransform {
             .apply(er)
             .ifPresent(
                 id -> {
-                  if (skipTransform) {
-                    idMap.put(id.getId(), id);
-                  } else if (id.getInternalId() != null) {
-                    filter(id);
-                  } else {
-                    incMetrics(INVALID_GBIF_ID_COUNT);
-                    idInvalidMap.put(id.getId(), id);
-                    log.error("GBIF ID is null, occurrenceId - {}", id.getId());
+                  if (!skipTransform) {
+                    if (id.getInternalId() != null) {
+                      filter(id);
+                    } else {
+                      incMetrics(INVALID_GBIF_ID_COUNT);
+                      log.error("GBIF ID is null, occurrenceId - {}", id.getId());
+                    }
                   }
                   erIdMap.put(er.getId(), id);
                 });
@@ -98,23 +163,37 @@ public class UniqueGbifIdTransform {
 
   /** Filter GBIF id duplicates if it is exist */
   private void filter(IdentifierRecord id) {
-    IdentifierRecord record = idMap.get(id.getInternalId());
-    if (record != null) {
-      int compare =
-          HashConverter.getSha1(id.getId()).compareTo(HashConverter.getSha1(record.getId()));
-      if (compare < 0) {
-        incMetrics(IDENTICAL_GBIF_OBJECTS_COUNT);
-        idMap.put(id.getInternalId(), id);
-        idInvalidMap.put(record.getId(), record);
-      } else {
-        incMetrics(DUPLICATE_GBIF_IDS_COUNT);
-        idInvalidMap.put(id.getId(), id);
-      }
-      log.error(
-          "GBIF ID collision, gbifId - {}, occurrenceId - {}", id.getInternalId(), id.getId());
-    } else {
+    ConcurrentMinLongMap.Result result =
+        gbifIdMap.putMin(toKey(id.getInternalId()), HashConverter.getSha1Fingerprint(id.getId()));
+    if (result == ConcurrentMinLongMap.Result.INSERTED) {
       incMetrics(UNIQUE_GBIF_IDS_COUNT);
-      idMap.put(id.getInternalId(), id);
+      return;
+    }
+    if (result == ConcurrentMinLongMap.Result.REPLACED) {
+      incMetrics(IDENTICAL_GBIF_OBJECTS_COUNT);
+    } else {
+      incMetrics(DUPLICATE_GBIF_IDS_COUNT);
+    }
+    log.error("GBIF ID collision, gbifId - {}, occurrenceId - {}", id.getInternalId(), id.getId());
+  }
+
+  private boolean isUnique(IdentifierRecord id) {
+    if (skipTransform) {
+      return true;
+    }
+    if (id.getInternalId() == null) {
+      return false;
+    }
+    OptionalLong winner = gbifIdMap.get(toKey(id.getInternalId()));
+    return winner.isPresent() && winner.getAsLong() == HashConverter.getSha1Fingerprint(id.getId());
+  }
+
+  /** GBIF ids are numbers, other identifiers are keyed by their fingerprint */
+  private static long toKey(String internalId) {
+    try {
+      return Long.parseLong(internalId);
+    } catch (NumberFormatException ex) {
+      return HashConverter.getSha1Fingerprint(internalId);
     }
   }
 
@@ -21,6 +21,7 @@ import org.apache.beam.sdk.values.PCollectionView;
 import org.apache.beam.sdk.values.TupleTag;
 import org.gbif.pipelines.common.PipelinesVariables.Pipeline.Interpretation.InterpretationType;
 import org.gbif.pipelines.core.functions.SerializableFunction;
+import org.gbif.pipelines.core.io.AvroCodecs;
 import org.gbif.pipelines.core.pojo.ErIdrMdrContainer;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.gbif.pipelines.io.avro.IdentifierRecord;
@@ -51,6 +52,9 @@ public abstract class TableTransform<T extends SpecificRecordBase>
 
   @NonNull private Set<String> types;
 
+  // Codec name, CodecFactory is not serializable
+  private String codec;
+
   private final Counter counter;
 
   public TableTransform(
@@ -95,6 +99,12 @@ public abstract class TableTransform<T extends SpecificRecordBase>
     return this;
   }
 
+  /** Avro compression codec name, see {@link AvroCodecs}, Snappy by default */
+  public TableTransform<T> setCodec(String codec) {
+    this.codec = codec;
+    return this;
+  }
+
   public Optional<PCollection<KV<String, CoGbkResult>>> check(
       PCollection<KV<String, CoGbkResult>> pCollection) {
     return CheckTransforms.checkRecordType(types, recordType)
@@ -112,7 +122,7 @@ public abstract class TableTransform<T extends SpecificRecordBase>
 
   public AvroIO.Write<T> write() {
     AvroIO.Write<T> write =
-        AvroIO.write(clazz).to(path).withSuffix(AVRO_EXTENSION).withCodec(BASE_CODEC);
+        AvroIO.write(clazz).to(path).withSuffix(AVRO_EXTENSION).withCodec(getCodec());
 
     if (numShards == null || numShards <= 0) {
       return write;
@@ -122,6 +132,10 @@ public abstract class TableTransform<T extends SpecificRecordBase>
     }
   }
 
+  private CodecFactory getCodec() {
+    return codec == null ? BASE_CODEC : AvroCodecs.parse(codec);
+  }
+
   public SingleOutput<KV<String, CoGbkResult>, T> convert() {
     return ParDo.of(this).withSideInputs(metadataView);
   }
@@ -0,0 +1,135 @@
+package org.gbif.pipelines.transforms.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.apache.beam.sdk.testing.NeedsRunner;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionTuple;
+import org.gbif.pipelines.core.utils.HashConverter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+@Category(NeedsRunner.class)
+public class IndexDiffTransformTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Rule public final transient TestPipeline p = TestPipeline.create();
+
+  @Test
+  public void withoutPreviousHashesTest() {
+    // State
+    List<String> documents = Arrays.asList(doc("1", "Puma", "c1"), doc("2", "Aves", "c1"));
+
+    // When
+    PCollectionTuple result =
+        p.apply(Create.of(documents)).apply(IndexDiffTransform.builder().idField("gbifId").build());
+
+    // Should
+    PAssert.that(result.get(IndexDiffTransform.DOCUMENT_TAG)).containsInAnyOrder(documents);
+    PAssert.that(result.get(IndexDiffTransform.HASH_TAG))
+        .containsInAnyOrder(
+            "1\t" + HashConverter.getSha1(doc("1", "Puma", "c1")),
+            "2\t" + HashConverter.getSha1(doc("2", "Aves", "c1")));
+    p.run();
+  }
+
+  @Test
+  public void diffTest() {
+    // State
+    List<String> previous =
+        Arrays.asList(
+            "1\t" + HashConverter.getSha1(doc("1", "Puma", null)),
+            "2\t" + HashConverter.getSha1(doc("2", "Aves", null)),
+            "3\t" + HashConverter.getSha1(doc("3", "Fungi", null)));
+
+    // 1 is unchanged apart from the crawlId, 2 is changed, 3 is deleted and 4 is new
+    String changed = doc("2", "Plantae", "c2");
+    String added = doc("4", "Bacteria", "c2");
+    List<String> documents = Arrays.asList(doc("1", "Puma", "c2"), changed, added);
+
+    // When
+    PCollection<String> previousHashes = p.apply("Previous", Create.of(previous));
+    PCollectionTuple result =
+        p.apply("Documents", Create.of(documents))
+            .apply(
+                IndexDiffTransform.builder()
+                    .idField("gbifId")
+                    .ignoredFields(Collections.singleton("crawlId"))
+                    .previousHashes(previousHashes)
+                    .build());
+
+    // Should
+    PAssert.that(result.get(IndexDiffTransform.DOCUMENT_TAG))
+        .satisfies(
+            it -> {
+              List<JsonNode> nodes =
+                  StreamSupport.stream(it.spliterator(), false)
+                      .map(IndexDiffTransformTest::read)
+                      .collect(Collectors.toList());
+              assertEquals(3, nodes.size());
+
+              List<JsonNode> deleted =
+                  nodes.stream().filter(IndexDiffTransform::isDelete).collect(Collectors.toList());
+              assertEquals(1, deleted.size());
+              assertEquals("3", deleted.get(0).get("gbifId").asText());
+
+              List<String> written =
+                  nodes.stream()
+                      .filter(n -> !IndexDiffTransform.isDelete(n))
+                      .map(JsonNode::toString)
+                      .collect(Collectors.toList());
+              assertEquals(new HashSet<>(Arrays.asList(changed, added)), new HashSet<>(written));
+              return null;
+            });
+
+    PAssert.that(result.get(IndexDiffTransform.HASH_TAG))
+        .containsInAnyOrder(
+            "1\t" + HashConverter.getSha1(doc("1", "Puma", null)),
+            "2\t" + HashConverter.getSha1(doc("2", "Plantae", null)),
+            "4\t" + HashConverter.getSha1(doc("4", "Bacteria", null)));
+    p.run();
+  }
+
+  @Test
+  public void isDeleteTest() {
+    assertFalse(IndexDiffTransform.isDelete(read(doc("1", "Puma", "c1"))));
+    assertTrue(IndexDiffTransform.isDelete(read("{\"gbifId\":\"1\",\"_delete\":true}")));
+  }
+
+  private static String doc(String id, String kingdom, String crawlId) {
+    return "{\"gbifId\":\""
+        + id
+        + "\",\"kingdom\":\""
+        + kingdom
+        + "\""
+        + (crawlId == null ? "" : ",\"crawlId\":\"" + crawlId + "\"")
+        + "}";
+  }
+
+  private static JsonNode read(String json) {
+    try {
+      return MAPPER.readTree(json);
+    } catch (IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package org.gbif.pipelines.transforms.common;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.beam.sdk.coders.SerializableCoder;
+import org.apache.beam.sdk.testing.NeedsRunner;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Combine;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.transforms.Flatten;
+import org.apache.beam.sdk.transforms.View;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionList;
+import org.apache.beam.sdk.values.PCollectionView;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.common.pojo.ValidationMetrics;
+import org.gbif.pipelines.common.pojo.ValidationMetrics.FileMetrics;
+import org.gbif.pipelines.io.avro.BasicRecord;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.IssueRecord;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+@Category(NeedsRunner.class)
+public class ValidationMetricsFnTest {
+
+  private static final String CORE = DwcTerm.Occurrence.qualifiedName();
+
+  @Rule public final transient TestPipeline p = TestPipeline.create();
+
+  @Test
+  public void mergeBeamTest() {
+
+    // State
+    final List<ExtendedRecord> verbatim =
+        Arrays.asList(
+            ExtendedRecord.newBuilder()
+                .setId("1")
+                .setCoreTerms(
+                    Collections.singletonMap(DwcTerm.basisOfRecord.qualifiedName(), "Observation"))
+                .build(),
+            ExtendedRecord.newBuilder()
+                .setId("2")
+                .setCoreTerms(Collections.singletonMap(DwcTerm.basisOfRecord.qualifiedName(), ""))
+                .build());
+
+    final List<BasicRecord> basic =
+        Arrays.asList(
+            BasicRecord.newBuilder()
+                .setId("1")
+                .setBasisOfRecord("OBSERVATION")
+                .setIssues(
+                    IssueRecord.newBuilder()
+                        .setIssueList(Collections.singletonList("BASIS_OF_RECORD_INVALID"))
+                        .build())
+                .build(),
+            BasicRecord.newBuilder().setId("2").build());
+
+    // When
+    PCollection<ValidationMetrics> verbatimMetrics =
+        p.apply("Verbatim", Create.of(verbatim))
+            .apply("Verbatim metrics", Combine.globally(ValidationMetricsFn.verbatim(CORE)));
+
+    PCollection<ValidationMetrics> basicMetrics =
+        p.apply("Basic", Create.of(basic))
+            .apply(
+                "Basic metrics",
+                Combine.globally(ValidationMetricsFn.<BasicRecord>interpreted(CORE)));
+
+    PCollection<ValidationMetrics> result =
+        PCollectionList.of(verbatimMetrics)
+            .and(basicMetrics)
+            .apply(Flatten.pCollections())
+            .apply(Combine.globally(ValidationMetricsFn.merge()));
+
+    // Should
+    PAssert.thatSingleton(result)
+        .satisfies(
+            metrics -> {
+              FileMetrics core = metrics.getFiles().get(CORE);
+              Assert.assertEquals(1, metrics.getFiles().size());
+              Assert.assertEquals(2L, core.getCount());
+              Assert.assertEquals(
+                  Long.valueOf(1L), core.getRawTerms().get(DwcTerm.basisOfRecord.qualifiedName()));
+              Assert.assertEquals(
+                  Long.valueOf(1L), core.getInterpretedFields().get("basisOfRecord"));
+              Assert.assertEquals(
+                  Long.valueOf(1L), core.getIssues().get("BASIS_OF_RECORD_INVALID"));
+              Assert.assertEquals(
+                  "1", core.getIssueSamples().get("BASIS_OF_RECORD_INVALID").get(0).getRecordId());
+              return null;
+            });
+    p.run();
+  }
+
+  @Test
+  public void relatedDataBeamTest() {
+
+    // State
+    ValidationMetrics metrics = new ValidationMetrics();
+    metrics.file(CORE).addIssue("BASIS_OF_RECORD_INVALID", "1");
+
+    final List<ExtendedRecord> verbatim =
+        Arrays.asList(
+            ExtendedRecord.newBuilder()
+                .setId("1")
+                .setCoreTerms(
+                    Collections.singletonMap(DwcTerm.basisOfRecord.qualifiedName(), "Observaton"))
+                .build(),
+            ExtendedRecord.newBuilder()
+                .setId("2")
+                .setCoreTerms(
+                    Collections.singletonMap(
+                        DwcTerm.basisOfRecord.qualifiedName(), "HumanObservation"))
+                .build());
+
+    // When
+    PCollection<ValidationMetrics> metricsCollection =
+        p.apply(
+            "Metrics", Create.of(metrics).withCoder(SerializableCoder.of(ValidationMetrics.class)));
+    PCollectionView<ValidationMetrics> metricsView =
+        metricsCollection.apply("Metrics view", View.asSingleton());
+
+    PCollectionView<List<ExtendedRecord>> samplesView =
+        p.apply("Verbatim", Create.of(verbatim))
+            .apply("Issue samples", ValidationMetricsFn.issueSamples(CORE, metricsView))
+            .apply("Issue samples view", View.asList());
+
+    PCollection<ValidationMetrics> result =
+        metricsCollection.apply("Related data", ValidationMetricsFn.relatedData(CORE, samplesView));
+
+    // Should
+    PAssert.thatSingleton(result)
+        .satisfies(
+            m -> {
+              Assert.assertEquals(
+                  Collections.singletonMap(DwcTerm.basisOfRecord.prefixedName(), "Observaton"),
+                  m.getFiles()
+                      .get(CORE)
+                      .getIssueSamples()
+                      .get("BASIS_OF_RECORD_INVALID")
+                      .get(0)
+                      .getRelatedData());
+              return null;
+            });
+    p.run();
+  }
+}
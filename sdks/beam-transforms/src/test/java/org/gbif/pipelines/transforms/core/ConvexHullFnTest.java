@@ -1,14 +1,17 @@
 package org.gbif.pipelines.transforms.core;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import lombok.SneakyThrows;
 import org.junit.Assert;
 import org.junit.Test;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.io.WKTReader;
 import org.locationtech.jts.io.WKTWriter;
 
@@ -35,6 +38,80 @@ public class ConvexHullFnTest {
     assertAccum(accum2, geometry);
   }
 
+  @Test
+  public void randomPointsTest() {
+    Random random = new Random(7);
+    for (int run = 0; run < 50; run++) {
+
+      // State
+      int size = 1 + random.nextInt(5_000);
+      boolean grid = run % 2 == 0;
+      List<Coordinate> coordinates = new ArrayList<>(size);
+      for (int x = 0; x < size; x++) {
+        coordinates.add(grid ? gridCoordinate(random) : randomCoordinate(random));
+      }
+
+      // When
+      ConvexHullFn fn = new ConvexHullFn();
+      List<ConvexHullFn.Accum> partials = new ArrayList<>();
+      for (int x = 0; x < 4; x++) {
+        partials.add(fn.createAccumulator());
+      }
+      for (int x = 0; x < size; x++) {
+        partials.get(x % partials.size()).acc(coordinates.get(x));
+      }
+      String result = fn.extractOutput(fn.mergeAccumulators(partials));
+
+      ConvexHullFn.Accum single = fn.createAccumulator();
+      coordinates.forEach(single::acc);
+
+      // Should
+      String expected = expectedWkt(coordinates);
+      Assert.assertEquals(expected, result);
+      Assert.assertEquals(expected, fn.extractOutput(single));
+    }
+  }
+
+  @Test
+  public void degenerateTest() {
+    ConvexHullFn fn = new ConvexHullFn();
+
+    // Should
+    Assert.assertEquals("", fn.extractOutput(fn.createAccumulator()));
+
+    List<Coordinate> point = Arrays.asList(new Coordinate(1d, 1d), new Coordinate(1d, 1d));
+    ConvexHullFn.Accum pointAccum = fn.createAccumulator();
+    point.forEach(pointAccum::acc);
+    Assert.assertEquals(expectedWkt(point), fn.extractOutput(pointAccum.compact()));
+
+    List<Coordinate> line = new ArrayList<>();
+    for (int x = 0; x < 2_000; x++) {
+      line.add(new Coordinate(x * 0.01d, x * 0.02d));
+    }
+    ConvexHullFn.Accum lineAccum = fn.createAccumulator();
+    line.forEach(lineAccum::acc);
+    Assert.assertEquals(3, lineAccum.compact().getCoordinates().size());
+    Assert.assertEquals(expectedWkt(line), fn.extractOutput(lineAccum));
+  }
+
+  /** Convex hull of all the coordinates, without reducing them to the hull vertices */
+  private static String expectedWkt(List<Coordinate> coordinates) {
+    Coordinate[] unique = new HashSet<>(coordinates).toArray(new Coordinate[0]);
+    return new WKTWriter()
+        .write(
+            new org.locationtech.jts.algorithm.ConvexHull(unique, new GeometryFactory())
+                .getConvexHull());
+  }
+
+  private static Coordinate randomCoordinate(Random random) {
+    return new Coordinate(random.nextDouble() * 360 - 180, random.nextDouble() * 180 - 90);
+  }
+
+  /** Coordinates on a coarse grid, lots of duplicates and collinear points */
+  private static Coordinate gridCoordinate(Random random) {
+    return new Coordinate(random.nextInt(20) * 0.5d, random.nextInt(10) * 0.25d);
+  }
+
   /** Test the that an accumulator produces the same convex hull as the one produced by JTS. */
   private void assertAccum(ConvexHullFn.Accum accum, Geometry geometry) {
     WKTWriter wktWriter = new WKTWriter();
@@ -0,0 +1,128 @@
+package org.gbif.pipelines.transforms.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.MapCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.testing.NeedsRunner;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.GbifTerm;
+import org.gbif.pipelines.io.avro.Parent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+@Category(NeedsRunner.class)
+public class ParentsLineageTransformTest {
+
+  @Rule public final transient TestPipeline p = TestPipeline.create();
+
+  @Test
+  public void lineageTest() {
+    // State
+    int depth = 10;
+    List<KV<String, Map<String, String>>> input = new ArrayList<>();
+    List<KV<String, List<Parent>>> expected = new ArrayList<>();
+
+    input.add(KV.of("0", values(null, "Survey")));
+    for (int x = 1; x < depth; x++) {
+      input.add(KV.of(String.valueOf(x), values(String.valueOf(x - 1), "Site")));
+
+      List<Parent> lineage = new ArrayList<>();
+      for (int y = x - 1; y >= 0; y--) {
+        lineage.add(parent(String.valueOf(y), y == 0 ? "Survey" : "Site", x - y));
+      }
+      expected.add(KV.of(String.valueOf(x), lineage));
+    }
+
+    // Missing parent, no lineage
+    input.add(KV.of("orphan", values("missing", null)));
+
+    // Cycles are cut at the smallest id, which becomes the top parent
+    input.add(KV.of("a", values("b", null)));
+    input.add(KV.of("b", values("a", null)));
+    input.add(KV.of("c", values("c", null)));
+    expected.add(KV.of("b", Collections.singletonList(parent("a", null, 1))));
+
+    input.add(KV.of("x", values("z", null)));
+    input.add(KV.of("y", values("x", null)));
+    input.add(KV.of("z", values("y", null)));
+    input.add(KV.of("t", values("z", null)));
+    expected.add(KV.of("y", Collections.singletonList(parent("x", null, 1))));
+    expected.add(KV.of("z", Arrays.asList(parent("y", null, 1), parent("x", null, 2))));
+    expected.add(
+        KV.of(
+            "t", Arrays.asList(parent("z", null, 1), parent("y", null, 2), parent("x", null, 3))));
+
+    // When
+    PCollection<KV<String, List<Parent>>> result =
+        p.apply(
+                Create.of(input)
+                    .withCoder(
+                        KvCoder.of(
+                            StringUtf8Coder.of(),
+                            MapCoder.of(StringUtf8Coder.of(), StringUtf8Coder.of()))))
+            .apply(ParentsLineageTransform.create(depth));
+
+    // Should
+    PAssert.that(result).containsInAnyOrder(expected);
+    p.run();
+  }
+
+  @Test
+  public void truncatedLineageTest() {
+    // State
+    List<KV<String, Map<String, String>>> input =
+        Arrays.asList(
+            KV.of("0", values(null, null)),
+            KV.of("1", values("0", null)),
+            KV.of("2", values("1", null)),
+            KV.of("3", values("2", null)));
+
+    // When
+    PCollection<KV<String, List<Parent>>> result =
+        p.apply(
+                Create.of(input)
+                    .withCoder(
+                        KvCoder.of(
+                            StringUtf8Coder.of(),
+                            MapCoder.of(StringUtf8Coder.of(), StringUtf8Coder.of()))))
+            .apply(ParentsLineageTransform.create(1));
+
+    // Should
+    PAssert.that(result)
+        .containsInAnyOrder(
+            KV.of("1", Collections.singletonList(parent("0", null, 1))),
+            KV.of("2", Collections.singletonList(parent("1", null, 1))),
+            KV.of("3", Collections.singletonList(parent("2", null, 1))));
+    p.run();
+  }
+
+  private static Map<String, String> values(String parentEventID, String eventType) {
+    Map<String, String> values = new HashMap<>();
+    if (parentEventID != null) {
+      values.put(DwcTerm.parentEventID.name(), parentEventID);
+    }
+    if (eventType != null) {
+      values.put(GbifTerm.eventType.name(), eventType);
+    }
+    return values;
+  }
+
+  private static Parent parent(String id, String eventType, int order) {
+    return Parent.newBuilder().setId(id).setEventType(eventType).setOrder(order).build();
+  }
+}
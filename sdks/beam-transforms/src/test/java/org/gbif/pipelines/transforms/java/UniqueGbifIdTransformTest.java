@@ -2,11 +2,14 @@ package org.gbif.pipelines.transforms.java;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executors;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.gbif.pipelines.core.utils.HashConverter;
 import org.gbif.pipelines.io.avro.ExtendedRecord;
 import org.gbif.pipelines.io.avro.IdentifierRecord;
 import org.gbif.pipelines.transforms.specific.GbifIdTransform;
@@ -220,6 +223,44 @@ public class UniqueGbifIdTransformTest {
     assertMap(expectedInvalid, idInvalidMap);
   }
 
+  @Test
+  public void concurrentWinnerTest() {
+    // State
+    int records = 20_000;
+    int gbifIds = 500;
+    String[] idNames = new String[records];
+    Map<String, String> expectedWinners = new HashMap<>();
+    for (int x = 0; x < records; x++) {
+      String id = "occ-" + x;
+      String gbifId = String.valueOf(x % gbifIds);
+      idNames[x] = id + "_" + gbifId;
+      // The lowest SHA-1 of the occurrence id wins a GBIF id collision
+      expectedWinners.merge(
+          gbifId,
+          id,
+          (a, b) -> HashConverter.getSha1(a).compareTo(HashConverter.getSha1(b)) < 0 ? a : b);
+    }
+    final Map<String, ExtendedRecord> input = createErMap(idNames);
+
+    // When
+    UniqueGbifIdTransform gbifIdTransform =
+        UniqueGbifIdTransform.builder()
+            .erMap(input)
+            .idTransformFn(basicTransform::processElement)
+            .executor(Executors.newFixedThreadPool(8))
+            .useSyncMode(false)
+            .build()
+            .run();
+
+    Map<String, IdentifierRecord> idMap = gbifIdTransform.getIdMap();
+
+    // Should
+    Assert.assertEquals(gbifIds, idMap.size());
+    Assert.assertEquals(records - gbifIds, gbifIdTransform.getIdInvalidMap().size());
+    expectedWinners.forEach((k, v) -> Assert.assertEquals(v, idMap.get(k).getId()));
+    expectedWinners.forEach((k, v) -> Assert.assertNull(gbifIdTransform.getInvalid(v)));
+  }
+
   private static <K> void assertMap(
       Map<K, IdentifierRecord> expected, Map<K, IdentifierRecord> result) {
     expected.forEach(
@@ -0,0 +1,131 @@
+package org.gbif.pipelines.benchmarks.coders;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.beam.sdk.coders.AvroCoder;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.gbif.api.vocabulary.Extension;
+import org.gbif.dwc.terms.DcTerm;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.common.beam.coders.SpecificAvroCoder;
+import org.gbif.pipelines.common.beam.coders.SpecificAvroCoderProvider;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link AvroCoder} with {@link SpecificAvroCoder}, with and without the terms dictionary,
+ * encoding and decoding a typical {@link ExtendedRecord}. The encoded size of the record is printed
+ * once per fork.
+ *
+ * <p>Run: java -jar benchmarks-shaded.jar AvroCoderBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroCoderBenchmark {
+
+  @Param({"avro", "specific", "dictionary"})
+  public String coderType;
+
+  private Coder<ExtendedRecord> coder;
+  private ExtendedRecord record;
+  private byte[] encoded;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    switch (coderType) {
+      case "avro":
+        coder = AvroCoder.of(ExtendedRecord.class);
+        break;
+      case "specific":
+        coder = SpecificAvroCoder.of(ExtendedRecord.class);
+        break;
+      case "dictionary":
+        coder =
+            SpecificAvroCoder.of(
+                ExtendedRecord.class, SpecificAvroCoderProvider.getTermsDictionary());
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown coder type: " + coderType);
+    }
+    record = createRecord();
+    encoded = CoderUtils.encodeToByteArray(coder, record);
+    System.out.printf("%n%s coder, encoded size: %d bytes%n", coderType, encoded.length);
+  }
+
+  @Benchmark
+  public byte[] encode() throws Exception {
+    return CoderUtils.encodeToByteArray(coder, record);
+  }
+
+  @Benchmark
+  public ExtendedRecord decode() throws Exception {
+    return CoderUtils.decodeFromByteArray(coder, encoded);
+  }
+
+  /** Occurrence with the usual core terms and two multimedia extension rows */
+  private static ExtendedRecord createRecord() {
+    Map<String, String> core = new HashMap<>();
+    core.put(DwcTerm.occurrenceID.qualifiedName(), "urn:catalog:MNHN:P:P00712345");
+    core.put(DwcTerm.catalogNumber.qualifiedName(), "P00712345");
+    core.put(DwcTerm.institutionCode.qualifiedName(), "MNHN");
+    core.put(DwcTerm.collectionCode.qualifiedName(), "P");
+    core.put(DwcTerm.basisOfRecord.qualifiedName(), "PreservedSpecimen");
+    core.put(DwcTerm.scientificName.qualifiedName(), "Quercus robur L.");
+    core.put(DwcTerm.kingdom.qualifiedName(), "Plantae");
+    core.put(DwcTerm.family.qualifiedName(), "Fagaceae");
+    core.put(DwcTerm.genus.qualifiedName(), "Quercus");
+    core.put(DwcTerm.taxonRank.qualifiedName(), "species");
+    core.put(DwcTerm.recordedBy.qualifiedName(), "J. Smith");
+    core.put(DwcTerm.eventDate.qualifiedName(), "1987-06-21");
+    core.put(DwcTerm.year.qualifiedName(), "1987");
+    core.put(DwcTerm.month.qualifiedName(), "6");
+    core.put(DwcTerm.day.qualifiedName(), "21");
+    core.put(DwcTerm.country.qualifiedName(), "France");
+    core.put(DwcTerm.countryCode.qualifiedName(), "FR");
+    core.put(DwcTerm.locality.qualifiedName(), "Foret de Fontainebleau");
+    core.put(DwcTerm.decimalLatitude.qualifiedName(), "48.4047");
+    core.put(DwcTerm.decimalLongitude.qualifiedName(), "2.7016");
+    core.put(DwcTerm.geodeticDatum.qualifiedName(), "WGS84");
+    core.put(DwcTerm.coordinateUncertaintyInMeters.qualifiedName(), "1000");
+    core.put(DcTerm.license.qualifiedName(), "http://creativecommons.org/licenses/by/4.0/");
+    core.put(DcTerm.modified.qualifiedName(), "2019-11-05T10:15:00Z");
+
+    List<Map<String, String>> multimedia = new ArrayList<>();
+    for (int x = 0; x < 2; x++) {
+      Map<String, String> image = new HashMap<>();
+      image.put(DcTerm.type.qualifiedName(), "StillImage");
+      image.put(DcTerm.format.qualifiedName(), "image/jpeg");
+      image.put(DcTerm.identifier.qualifiedName(), "https://example.org/P00712345_" + x + ".jpg");
+      image.put(DcTerm.license.qualifiedName(), "http://creativecommons.org/licenses/by/4.0/");
+      image.put(DcTerm.rightsHolder.qualifiedName(), "MNHN - Paris");
+      multimedia.add(image);
+    }
+    Map<String, List<Map<String, String>>> extensions = new HashMap<>();
+    extensions.put(Extension.MULTIMEDIA.getRowType(), multimedia);
+
+    return ExtendedRecord.newBuilder()
+        .setId("urn:catalog:MNHN:P:P00712345")
+        .setCoreTerms(core)
+        .setExtensions(extensions)
+        .build();
+  }
+}
@@ -0,0 +1,192 @@
+package org.gbif.pipelines.benchmarks.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.gbif.api.vocabulary.Extension;
+import org.gbif.dwc.terms.DcTerm;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.core.io.AvroCodecs;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.LocationRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures write and read time and the compression ratio of Avro codecs, see {@link AvroCodecs}, on
+ * a generated dataset of verbatim {@link ExtendedRecord}s or interpreted {@link LocationRecord}s.
+ * One operation writes or reads the whole dataset, the sync interval is the same as in the
+ * pipelines. The file size and the ratio to the uncompressed file are printed once per fork.
+ *
+ * <p>Run: java -jar benchmarks-shaded.jar AvroCodecBenchmark -p codec=snappy,xz-6 -p
+ * dataset=verbatim
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AvroCodecBenchmark {
+
+  private static final int SYNC_INTERVAL = 2_097_152;
+
+  private static final String[] COUNTRIES = {"DK", "FR", "ES", "BR", "AU", "US", "ZA", "NO"};
+  private static final String[] NAMES = {
+    "Quercus robur L.",
+    "Fagus sylvatica L.",
+    "Parus major Linnaeus, 1758",
+    "Vulpes vulpes (Linnaeus, 1758)",
+    "Erithacus rubecula (Linnaeus, 1758)",
+    "Pinus sylvestris L."
+  };
+  private static final String[] RECORDERS = {"J. Smith", "A. Jensen", "M. Garcia", "L. Silva"};
+
+  @Param({"null", "snappy", "deflate-1", "deflate-6", "deflate-9", "xz-1", "xz-6", "bzip2"})
+  public String codec;
+
+  @Param({"verbatim", "interpreted"})
+  public String dataset;
+
+  @Param({"50000"})
+  public int records;
+
+  private Schema schema;
+  private List<SpecificRecordBase> data;
+  private CodecFactory codecFactory;
+  private byte[] file;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    Random random = new Random(42);
+    data = new ArrayList<>(records);
+    for (int x = 0; x < records; x++) {
+      data.add("verbatim".equals(dataset) ? createVerbatim(x, random) : createLocation(x, random));
+    }
+    schema = data.get(0).getSchema();
+    codecFactory = AvroCodecs.parse(codec);
+    file = write(codecFactory);
+
+    int uncompressed = write(CodecFactory.nullCodec()).length;
+    System.out.printf(
+        "%n%s %s: %d bytes, ratio %.2f%n",
+        dataset, codec, file.length, (double) uncompressed / file.length);
+  }
+
+  @Benchmark
+  public byte[] write() throws IOException {
+    return write(codecFactory);
+  }
+
+  @Benchmark
+  public long read() throws IOException {
+    long count = 0;
+    try (DataFileStream<SpecificRecordBase> stream =
+        new DataFileStream<>(new ByteArrayInputStream(file), new SpecificDatumReader<>(schema))) {
+      SpecificRecordBase reuse = null;
+      while (stream.hasNext()) {
+        reuse = stream.next(reuse);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private byte[] write(CodecFactory codecFactory) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<SpecificRecordBase> writer =
+        new DataFileWriter<>(new SpecificDatumWriter<SpecificRecordBase>(schema))) {
+      writer.setCodec(codecFactory);
+      writer.setSyncInterval(SYNC_INTERVAL);
+      writer.create(schema, out);
+      for (SpecificRecordBase r : data) {
+        writer.append(r);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static ExtendedRecord createVerbatim(int x, Random random) {
+    String id = "urn:catalog:MNHN:P:P" + (700_000 + x);
+    Map<String, String> core = new HashMap<>();
+    core.put(DwcTerm.occurrenceID.qualifiedName(), id);
+    core.put(DwcTerm.catalogNumber.qualifiedName(), "P" + (700_000 + x));
+    core.put(DwcTerm.institutionCode.qualifiedName(), "MNHN");
+    core.put(DwcTerm.collectionCode.qualifiedName(), "P");
+    core.put(DwcTerm.basisOfRecord.qualifiedName(), "PreservedSpecimen");
+    core.put(DwcTerm.scientificName.qualifiedName(), pick(NAMES, random));
+    core.put(DwcTerm.recordedBy.qualifiedName(), pick(RECORDERS, random));
+    core.put(DwcTerm.eventDate.qualifiedName(), (1900 + random.nextInt(120)) + "-06-21");
+    core.put(DwcTerm.countryCode.qualifiedName(), pick(COUNTRIES, random));
+    core.put(DwcTerm.decimalLatitude.qualifiedName(), latitude(random));
+    core.put(DwcTerm.decimalLongitude.qualifiedName(), longitude(random));
+    core.put(DwcTerm.geodeticDatum.qualifiedName(), "WGS84");
+    core.put(DcTerm.license.qualifiedName(), "http://creativecommons.org/licenses/by/4.0/");
+
+    Map<String, String> image = new HashMap<>();
+    image.put(DcTerm.type.qualifiedName(), "StillImage");
+    image.put(DcTerm.format.qualifiedName(), "image/jpeg");
+    image.put(DcTerm.identifier.qualifiedName(), "https://example.org/" + id + ".jpg");
+
+    Map<String, List<Map<String, String>>> extensions = new HashMap<>();
+    extensions.put(Extension.MULTIMEDIA.getRowType(), Collections.singletonList(image));
+
+    return ExtendedRecord.newBuilder()
+        .setId(id)
+        .setCoreTerms(core)
+        .setExtensions(extensions)
+        .build();
+  }
+
+  private static LocationRecord createLocation(int x, Random random) {
+    return LocationRecord.newBuilder()
+        .setId("urn:catalog:MNHN:P:P" + (700_000 + x))
+        .setCreated(1_600_000_000_000L + x)
+        .setCountryCode(pick(COUNTRIES, random))
+        .setPublishingCountry("FR")
+        .setDecimalLatitude(Double.valueOf(latitude(random)))
+        .setDecimalLongitude(Double.valueOf(longitude(random)))
+        .setCoordinateUncertaintyInMeters((double) (random.nextInt(100) * 10))
+        .setHasCoordinate(true)
+        .setHasGeospatialIssue(false)
+        .setRepatriated(random.nextBoolean())
+        .build();
+  }
+
+  private static String pick(String[] values, Random random) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static String latitude(Random random) {
+    return String.format(Locale.ROOT, "%.4f", random.nextDouble() * 180 - 90);
+  }
+
+  private static String longitude(Random random) {
+    return String.format(Locale.ROOT, "%.4f", random.nextDouble() * 360 - 180);
+  }
+}
@@ -0,0 +1,109 @@
+package org.gbif.pipelines.benchmarks.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.gbif.pipelines.core.io.LineCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link LineCounter} with the {@link BufferedReader#readLine()} loop it replaces, on
+ * a generated occurrence file. Every 20th record has a quoted multi-line value, the file is in the
+ * page cache after the first iteration, so the IO cost is mostly excluded.
+ *
+ * <p>Run: java -jar benchmarks-shaded.jar LineCounterBenchmark -p megabytes=1024 -p lineEnds=crlf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LineCounterBenchmark {
+
+  private static final String[] NAMES = {
+    "Quercus robur L.", "Fagus sylvatica L.", "Parus major Linnaeus, 1758", "Pinus sylvestris L."
+  };
+
+  @Param({"256"})
+  public int megabytes;
+
+  @Param({"lf", "crlf"})
+  public String lineEnds;
+
+  private Path file;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    file = Files.createTempFile("line-counter", ".csv");
+    String lineEnd = "crlf".equals(lineEnds) ? "\r\n" : "\n";
+    Random random = new Random(42);
+    long size = megabytes * 1024L * 1024L;
+    long written = 0;
+    try (BufferedWriter writer = Files.newBufferedWriter(file, UTF_8)) {
+      for (int x = 0; written < size; x++) {
+        String remarks = x % 20 == 0 ? "\"collected" + lineEnd + "near the river\"" : "";
+        String line =
+            "urn:catalog:MNHN:P:P"
+                + (700_000 + x)
+                + ",PreservedSpecimen,"
+                + "\""
+                + NAMES[random.nextInt(NAMES.length)]
+                + "\","
+                + String.format(
+                    Locale.ROOT, "%.4f,%.4f", random.nextDouble() * 180 - 90, random.nextDouble())
+                + ","
+                + remarks
+                + lineEnd;
+        writer.write(line);
+        written += line.length();
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /** The replaced implementation */
+  @Benchmark
+  public long readLine() throws IOException {
+    long lines = 0;
+    try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+      while (reader.readLine() != null) {
+        lines++;
+      }
+    }
+    return lines;
+  }
+
+  @Benchmark
+  public long mapped() throws IOException {
+    return LineCounter.count(file, ',', null);
+  }
+
+  @Benchmark
+  public long mappedQuoted() throws IOException {
+    return LineCounter.count(file, ',', '"');
+  }
+}
@@ -16,4 +16,10 @@ public class KeygenConfig implements Serializable {
   private String counterTable;
   private String lookupTable;
   private String zkConnectionString;
+
+  /**
+   * Preload the lookup keys of the dataset once and answer lookups from memory, for recrawls where
+   * nearly all records already have a GBIF ID. Applies to a keygen service shared in one JVM.
+   */
+  private boolean preload;
 }
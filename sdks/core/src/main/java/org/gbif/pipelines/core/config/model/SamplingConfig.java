@@ -32,6 +32,15 @@ public final class SamplingConfig implements Serializable {
   // retries
   private int downloadRetries = 5;
 
+  // number of batches sampled at the same time
+  private int batchConcurrency = 1;
+
+  // local directory of the point sampling cache, no cache if not set
+  private String cachePath;
+
+  // decimal places of the coordinates matched by the cache and by a resumed crawl
+  private int cachePrecision = 6;
+
   // http headers to add to each request
   private Map<String, String> httpHeaders = Collections.emptyMap();
 
@@ -11,7 +11,6 @@ import com.google.common.base.Strings;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -92,8 +91,12 @@ public class CoreInterpreter {
     extractNullAwareOptValue(er, DwcTerm.parentEventID).ifPresent(consumer);
   }
 
-  public static BiConsumer<ExtendedRecord, EventCoreRecord> interpretLineages(
-      Map<String, Map<String, String>> erWithParents, VocabularyService vocabularyService) {
+  /**
+   * Parents lineage interpretation for an already resolved lineage, where {@link
+   * Parent#getEventType()} contains raw values.
+   */
+  public static BiConsumer<ExtendedRecord, EventCoreRecord> interpretParentsLineage(
+      List<Parent> parentsLineage, VocabularyService vocabularyService) {
     return (er, evr) -> {
       String parentEventID = extractValue(er, DwcTerm.parentEventID);
 
@@ -102,31 +105,23 @@ public class CoreInterpreter {
       }
 
       // parent event IDs
-      List<Parent> parents = new ArrayList<>();
-      int order = 1;
-      while (parentEventID != null) {
-        Map<String, String> parentValues = erWithParents.get(parentEventID);
-
-        if (parentValues == null) {
-          // case when there is no event with that parentEventID
-          break;
-        }
+      List<Parent> parents = new ArrayList<>(parentsLineage.size());
+      for (Parent rawParent : parentsLineage) {
+        String rawEventType = rawParent.getEventType();
 
-        Parent.Builder parentBuilder = Parent.newBuilder().setId(parentEventID);
+        Parent.Builder parentBuilder =
+            Parent.newBuilder().setId(rawParent.getId()).setOrder(rawParent.getOrder());
         VocabularyInterpreter.interpretVocabulary(
-                GbifTerm.eventType, parentValues.get(GbifTerm.eventType.name()), vocabularyService)
+                GbifTerm.eventType, rawEventType, vocabularyService)
             .ifPresent(c -> parentBuilder.setEventType(c.getConcept()));
 
         // allow the raw event type value through if not matched to vocab
         // this is useful as vocab is a WIP
         if (parentBuilder.getEventType() == null) {
-          parentBuilder.setEventType(parentValues.get(GbifTerm.eventType.name()));
+          parentBuilder.setEventType(rawEventType);
         }
 
-        parentBuilder.setOrder(order++);
         parents.add(parentBuilder.build());
-
-        parentEventID = parentValues.get(DwcTerm.parentEventID.name());
       }
 
       evr.setParentsLineage(parents);
@@ -0,0 +1,70 @@
+package org.gbif.pipelines.core.io;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.avro.file.CodecFactory;
+
+/**
+ * Parses Avro compression codecs, the same names as {@link CodecFactory#toString()} returns:
+ *
+ * <ul>
+ *   <li>null, snappy, bzip2
+ *   <li>deflate or deflate-[-1..9], deflate level, -1 is the default level of the deflater and 0 is
+ *       no compression
+ *   <li>xz or xz-[0..9], xz level, default level is 6
+ * </ul>
+ *
+ * <p>Zstandard is not provided by Avro 1.8, which is required by Beam, so zstandard and zstd are
+ * rejected with a message pointing to the alternatives.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class AvroCodecs {
+
+  private static final Pattern LEVEL_PATTERN = Pattern.compile("^(deflate|xz)-(-1|\\d)$");
+
+  public static CodecFactory parse(String codec) {
+    if (codec == null || codec.trim().isEmpty()) {
+      throw new IllegalArgumentException("Avro codec can't be empty");
+    }
+
+    String name = codec.trim().toLowerCase(Locale.ROOT);
+    switch (name) {
+      case "null":
+        return CodecFactory.nullCodec();
+      case "snappy":
+        return CodecFactory.snappyCodec();
+      case "bzip2":
+        return CodecFactory.bzip2Codec();
+      case "deflate":
+        return CodecFactory.deflateCodec(CodecFactory.DEFAULT_DEFLATE_LEVEL);
+      case "xz":
+        return CodecFactory.xzCodec(CodecFactory.DEFAULT_XZ_LEVEL);
+      default:
+        break;
+    }
+
+    Matcher matcher = LEVEL_PATTERN.matcher(name);
+    if (matcher.matches()) {
+      int level = Integer.parseInt(matcher.group(2));
+      if ("deflate".equals(matcher.group(1))) {
+        return CodecFactory.deflateCodec(level);
+      }
+      if (level < 0) {
+        throw new IllegalArgumentException("Xz level must be in range 0-9: " + codec);
+      }
+      return CodecFactory.xzCodec(level);
+    }
+
+    if (name.startsWith("zstd") || name.startsWith("zstandard")) {
+      throw new IllegalArgumentException(
+          "Zstandard codec is not supported by Avro 1.8, use xz-[0..9] or deflate-[-1..9]: "
+              + codec);
+    }
+
+    throw new IllegalArgumentException(
+        "Unknown Avro codec: " + codec + ", use null, snappy, bzip2, deflate-[-1..9] or xz-[0..9]");
+  }
+}
@@ -0,0 +1,269 @@
+package org.gbif.pipelines.core.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.gbif.dwc.ArchiveFile;
+
+/**
+ * Counts non-blank lines of text files without decoding them. A file is memory-mapped in chunks
+ * which are scanned for line ends concurrently, \n, \r\n and \r line ends are supported.
+ *
+ * <p>Line ends inside quoted values don't end a line. A value is quoted only if the quote is the
+ * first byte of the field, a doubled quote inside a quoted value is an escaped quote, quotes in the
+ * middle of an unquoted value are ordinary bytes. A chunk doesn't know the state it starts in, so
+ * it is scanned for every start state at once, the scans usually merge after the first field, and
+ * the chunk results are combined in the file order.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class LineCounter {
+
+  private static final long MAX_CHUNK_SIZE = 256L * 1024L * 1024L;
+  private static final long MIN_CHUNK_SIZE = 8L * 1024L * 1024L;
+
+  // Scan states, outside a quoted value at the start or in the middle of a field, inside a quoted
+  // value, and inside a quoted value after a quote, which either ends the value or escapes a quote
+  private static final int FIELD_START = 0;
+  private static final int IN_FIELD = 1;
+  private static final int IN_QUOTES = 2;
+  private static final int QUOTE_IN_QUOTES = 3;
+
+  private static final int[] UNQUOTED_STATES = {FIELD_START, IN_FIELD};
+  private static final int[] ALL_STATES = {FIELD_START, IN_FIELD, IN_QUOTES, QUOTE_IN_QUOTES};
+
+  /** Efficient way of counting lines */
+  public static long count(ArchiveFile arhiveFile) {
+    long lines = 0;
+    long header = Optional.ofNullable(arhiveFile.getIgnoreHeaderLines()).orElse(0);
+    String terminatedBy = arhiveFile.getFieldsTerminatedBy();
+    Character delimiter =
+        terminatedBy != null && terminatedBy.length() == 1 ? terminatedBy.charAt(0) : null;
+    Character quote = arhiveFile.getFieldsEnclosedBy();
+    for (File file : arhiveFile.getLocationFiles()) {
+      try {
+        lines += Math.max(0L, count(file.toPath(), delimiter, quote) - header);
+      } catch (IOException ex) {
+        log.error(ex.getMessage(), ex);
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Counts non-blank lines, line ends inside values enclosed by the quote are skipped
+   *
+   * @param delimiter single byte field delimiter, quoted values start only at the line start if
+   *     null
+   * @param quote quote byte, line ends are never skipped if null
+   */
+  public static long count(Path path, Character delimiter, Character quote) throws IOException {
+    return count(
+        path, delimiter, quote, Runtime.getRuntime().availableProcessors(), MIN_CHUNK_SIZE);
+  }
+
+  static long count(
+      Path path, Character delimiter, Character quote, int parallelism, long minChunkSize)
+      throws IOException {
+    // Unsigned byte values, no byte matches if there is no delimiter or quote
+    Bytes bytes =
+        new Bytes(delimiter == null ? -1 : delimiter & 0xFF, quote == null ? -1 : quote & 0xFF);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size == 0) {
+        return 0L;
+      }
+
+      long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(minChunkSize, size / parallelism + 1));
+      int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+
+      List<ChunkLines> results = new ArrayList<>(chunks);
+      if (chunks == 1) {
+        results.add(scan(channel, 0, size, bytes));
+      } else {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks));
+        try {
+          List<CompletableFuture<ChunkLines>> futures = new ArrayList<>(chunks);
+          for (int i = 0; i < chunks; i++) {
+            long from = i * chunkSize;
+            long to = Math.min(size, from + chunkSize);
+            futures.add(
+                CompletableFuture.supplyAsync(
+                    () -> scanUnchecked(channel, from, to, bytes), executor));
+          }
+          for (CompletableFuture<ChunkLines> future : futures) {
+            results.add(future.join());
+          }
+        } catch (CompletionException ex) {
+          if (ex.getCause() instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) ex.getCause()).getCause();
+          }
+          throw ex;
+        } finally {
+          executor.shutdown();
+        }
+      }
+
+      long lines = 0;
+      int state = FIELD_START;
+      for (ChunkLines result : results) {
+        lines += result.lines[state];
+        state = result.end[state];
+      }
+
+      // The last line without a line end
+      if (!isLineEnd(last(channel, size))) {
+        lines++;
+      }
+      return lines;
+    }
+  }
+
+  private static ChunkLines scanUnchecked(FileChannel channel, long from, long to, Bytes bytes) {
+    try {
+      return scan(channel, from, to, bytes);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Counts line ends outside quoted values in [from, to) which follow a not line end byte, a byte
+   * before the beginning of the file is a line end, so leading blank lines are skipped. The chunk
+   * is scanned for every start state, a scan which reaches the state of another scan is merged into
+   * it and only remembers the difference of the line counts.
+   */
+  private static ChunkLines scan(FileChannel channel, long from, long to, Bytes bytes)
+      throws IOException {
+    long start = from == 0 ? 0 : from - 1;
+    MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, start, to - start);
+    int length = buffer.limit();
+
+    int i = 0;
+    byte prev = '\n';
+    if (from > 0) {
+      prev = buffer.get(0);
+      i = 1;
+    }
+
+    // Quoted states can't be reached without a quote
+    int[] starts = bytes.quote < 0 ? UNQUOTED_STATES : ALL_STATES;
+    int scans = starts.length;
+    int[] state = Arrays.copyOf(starts, scans);
+    long[] lines = new long[scans];
+    int[] mergedInto = new int[scans];
+    Arrays.fill(mergedInto, -1);
+    int active = scans;
+
+    for (; i < length; i++) {
+      byte b = buffer.get(i);
+      boolean lineEnd = isLineEnd(b);
+      boolean count = lineEnd && !isLineEnd(prev);
+      for (int s = 0; s < scans; s++) {
+        if (mergedInto[s] < 0) {
+          if (count && state[s] != IN_QUOTES) {
+            lines[s]++;
+          }
+          state[s] = next(state[s], b, lineEnd, bytes);
+        }
+      }
+      if (active > 1) {
+        active = merge(state, lines, mergedInto, active);
+      }
+      prev = b;
+    }
+
+    // Scans merged into another one end in its state with its lines plus the difference
+    long[] result = new long[ALL_STATES.length];
+    int[] end = new int[ALL_STATES.length];
+    for (int s = 0; s < scans; s++) {
+      int target = s;
+      long diff = 0;
+      while (mergedInto[target] >= 0) {
+        diff += lines[target];
+        target = mergedInto[target];
+      }
+      result[starts[s]] = lines[target] + diff;
+      end[starts[s]] = state[target];
+    }
+    return new ChunkLines(result, end);
+  }
+
+  private static int next(int state, byte b, boolean lineEnd, Bytes bytes) {
+    int value = b & 0xFF;
+    if (state == IN_QUOTES) {
+      return value == bytes.quote ? QUOTE_IN_QUOTES : IN_QUOTES;
+    }
+    if (state == QUOTE_IN_QUOTES && value == bytes.quote) {
+      return IN_QUOTES;
+    }
+    if (lineEnd || value == bytes.delimiter) {
+      return FIELD_START;
+    }
+    if (state == FIELD_START && value == bytes.quote) {
+      return IN_QUOTES;
+    }
+    return IN_FIELD;
+  }
+
+  /**
+   * Merges active scans with the same state, the merged scan keeps only the difference of lines
+   * against the scan it follows from now on
+   */
+  private static int merge(int[] state, long[] lines, int[] mergedInto, int active) {
+    for (int s = 1; s < state.length; s++) {
+      if (mergedInto[s] < 0) {
+        for (int t = 0; t < s; t++) {
+          if (mergedInto[t] < 0 && state[t] == state[s]) {
+            mergedInto[s] = t;
+            lines[s] -= lines[t];
+            active--;
+            break;
+          }
+        }
+      }
+    }
+    return active;
+  }
+
+  private static byte last(FileChannel channel, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(1);
+    channel.read(buffer, size - 1);
+    return buffer.get(0);
+  }
+
+  private static boolean isLineEnd(byte b) {
+    return b == '\n' || b == '\r';
+  }
+
+  @AllArgsConstructor
+  private static class Bytes {
+    private final int delimiter;
+    private final int quote;
+  }
+
+  /** Line ends of a chunk and the state it ends in, by the state the chunk starts in */
+  @AllArgsConstructor
+  private static class ChunkLines {
+    private final long[] lines;
+    private final int[] end;
+  }
+}
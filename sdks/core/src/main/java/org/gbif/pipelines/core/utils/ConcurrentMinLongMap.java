@@ -0,0 +1,138 @@
+package org.gbif.pipelines.core.utils;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed capacity, thread-safe map of primitive long keys to long values, which keeps the minimum
+ * value per key, values are compared as unsigned longs.
+ *
+ * <p>Keys and values are stored in two primitive arrays using open addressing with linear probing,
+ * so the map doesn't allocate objects per entry. Keys are claimed and values are lowered only with
+ * compare-and-set operations, the result for a key doesn't depend on the order or the concurrency
+ * of the {@link #putMin} calls. The map doesn't grow, the expected number of keys must be known
+ * when it is created.
+ */
+public class ConcurrentMinLongMap {
+
+  /** Result of {@link #putMin} */
+  public enum Result {
+    /** The key was absent */
+    INSERTED,
+    /** The value replaced a greater value */
+    REPLACED,
+    /** A lower or equal value already exists */
+    REJECTED
+  }
+
+  private static final long EMPTY_KEY = 0L;
+  // The greatest unsigned value, every value is lower or equal
+  private static final long NO_VALUE = -1L;
+
+  private final AtomicLongArray keys;
+  private final AtomicLongArray values;
+  private final int mask;
+
+  // Zero is used as the empty key marker, the value of the zero key is kept separately
+  private final AtomicLong zeroKeyValue = new AtomicLong(NO_VALUE);
+
+  private ConcurrentMinLongMap(int capacity) {
+    this.keys = new AtomicLongArray(capacity);
+    this.values = new AtomicLongArray(capacity);
+    this.mask = capacity - 1;
+    for (int x = 0; x < capacity; x++) {
+      values.set(x, NO_VALUE);
+    }
+  }
+
+  /** Creates a map for the expected number of keys, with a load factor of 0.5 at most */
+  public static ConcurrentMinLongMap create(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1;
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Expected size is too big - " + expectedSize);
+    }
+    return new ConcurrentMinLongMap(capacity);
+  }
+
+  /** Associates the value with the key if the key is absent or the current value is greater */
+  public Result putMin(long key, long value) {
+    if (key == EMPTY_KEY) {
+      return lower(zeroKeyValue, value);
+    }
+
+    int idx = indexOf(key, true);
+    while (true) {
+      long current = values.get(idx);
+      if (current != NO_VALUE && Long.compareUnsigned(value, current) >= 0) {
+        return Result.REJECTED;
+      }
+      if (values.compareAndSet(idx, current, value)) {
+        return current == NO_VALUE ? Result.INSERTED : Result.REPLACED;
+      }
+    }
+  }
+
+  /** Returns the minimum value of the key */
+  public OptionalLong get(long key) {
+    long value;
+    if (key == EMPTY_KEY) {
+      value = zeroKeyValue.get();
+    } else {
+      int idx = indexOf(key, false);
+      value = idx < 0 ? NO_VALUE : values.get(idx);
+    }
+    return value == NO_VALUE ? OptionalLong.empty() : OptionalLong.of(value);
+  }
+
+  private static Result lower(AtomicLong holder, long value) {
+    while (true) {
+      long current = holder.get();
+      if (current != NO_VALUE && Long.compareUnsigned(value, current) >= 0) {
+        return Result.REJECTED;
+      }
+      if (holder.compareAndSet(current, value)) {
+        return current == NO_VALUE ? Result.INSERTED : Result.REPLACED;
+      }
+    }
+  }
+
+  /** Finds the slot of the key, claims an empty slot if the key is absent and claim is true */
+  private int indexOf(long key, boolean claim) {
+    int idx = (int) mix(key) & mask;
+    for (int probes = 0; probes <= mask; probes++) {
+      long current = keys.get(idx);
+      if (current == key) {
+        return idx;
+      }
+      if (current == EMPTY_KEY) {
+        if (!claim) {
+          return -1;
+        }
+        if (keys.compareAndSet(idx, EMPTY_KEY, key)) {
+          return idx;
+        }
+        // Another thread claimed the slot, it can be the same key
+        if (keys.get(idx) == key) {
+          return idx;
+        }
+      }
+      idx = (idx + 1) & mask;
+    }
+    if (claim) {
+      throw new IllegalStateException("The map is full, capacity - " + keys.length());
+    }
+    return -1;
+  }
+
+  /** MurmurHash3 finalizer, spreads sequential ids over the slots */
+  private static long mix(long key) {
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb93e53a34ec3L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
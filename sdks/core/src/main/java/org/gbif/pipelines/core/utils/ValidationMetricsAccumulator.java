@@ -0,0 +1,218 @@
+package org.gbif.pipelines.core.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.gbif.api.vocabulary.OccurrenceIssue;
+import org.gbif.dwc.terms.Term;
+import org.gbif.pipelines.common.pojo.ValidationMetrics;
+import org.gbif.pipelines.common.pojo.ValidationMetrics.FileMetrics;
+import org.gbif.pipelines.core.pojo.HdfsConfigs;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.Issues;
+import org.gbif.pipelines.io.avro.RankedName;
+import org.gbif.pipelines.io.avro.Record;
+import org.gbif.pipelines.io.avro.TaxonRecord;
+
+/**
+ * Accumulates {@link ValidationMetrics} of records interpreted by many threads, every thread adds
+ * to its own summary and the summaries are merged by {@link #getResult()}
+ */
+@Slf4j
+public class ValidationMetricsAccumulator {
+
+  /** Interpreted record field of the classification of a rank, e.g. classification.kingdom */
+  public static final String CLASSIFICATION = "classification";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** Technical fields of interpreted records which don't hold interpreted values */
+  private static final Set<String> SKIP_FIELDS =
+      Stream.of("id", "coreId", "parentId", "created", "issues").collect(Collectors.toSet());
+
+  private final String coreRowType;
+  private final Queue<ValidationMetrics> all = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<ValidationMetrics> current =
+      ThreadLocal.withInitial(
+          () -> {
+            ValidationMetrics metrics = new ValidationMetrics();
+            all.add(metrics);
+            return metrics;
+          });
+
+  public ValidationMetricsAccumulator(String coreRowType) {
+    this.coreRowType = coreRowType;
+  }
+
+  public void addVerbatim(ExtendedRecord er) {
+    addVerbatim(current.get(), coreRowType, er);
+  }
+
+  public <T extends SpecificRecordBase & Record> void addInterpreted(T record) {
+    addInterpreted(current.get(), coreRowType, record);
+  }
+
+  public ValidationMetrics getResult() {
+    ValidationMetrics result = new ValidationMetrics();
+    all.forEach(result::merge);
+    return result;
+  }
+
+  /** Merged summary, related data of the issue samples is taken from the verbatim records */
+  public ValidationMetrics getResult(Function<String, ExtendedRecord> verbatimFn) {
+    ValidationMetrics result = getResult();
+    issueSampleIds(result, coreRowType).stream()
+        .map(verbatimFn)
+        .filter(Objects::nonNull)
+        .forEach(er -> addRelatedData(result, coreRowType, er));
+    return result;
+  }
+
+  /** Counts non-empty raw terms of the core record and all extension records */
+  public static void addVerbatim(ValidationMetrics metrics, String coreRowType, ExtendedRecord er) {
+    metrics.file(coreRowType).addRecord(er.getCoreTerms());
+    Optional.ofNullable(er.getExtensions())
+        .ifPresent(
+            ext ->
+                ext.forEach(
+                    (rowType, records) -> {
+                      FileMetrics fm = metrics.file(rowType);
+                      records.forEach(fm::addRecord);
+                    }));
+  }
+
+  /** Counts interpreted fields with a value and issues of the interpreted core record */
+  public static <T extends SpecificRecordBase & Record> void addInterpreted(
+      ValidationMetrics metrics, String coreRowType, T record) {
+    FileMetrics fm = metrics.file(coreRowType);
+    for (Field field : record.getSchema().getFields()) {
+      if (!SKIP_FIELDS.contains(field.name()) && hasValue(record.get(field.pos()))) {
+        fm.addInterpreted(field.name());
+      }
+    }
+
+    if (record instanceof TaxonRecord) {
+      List<RankedName> classification = ((TaxonRecord) record).getClassification();
+      if (classification != null) {
+        classification.stream()
+            .filter(rn -> rn.getRank() != null)
+            .forEach(rn -> fm.addInterpreted(classificationField(rn.getRank().name())));
+      }
+    }
+
+    if (record instanceof Issues && ((Issues) record).getIssues() != null) {
+      ((Issues) record).getIssues().getIssueList().forEach(i -> fm.addIssue(i, record.getId()));
+    }
+  }
+
+  /** Ids of the records which are issue samples of the core */
+  public static Set<String> issueSampleIds(ValidationMetrics metrics, String coreRowType) {
+    Set<String> ids = new HashSet<>();
+    Optional.ofNullable(metrics.getFiles().get(coreRowType))
+        .ifPresent(
+            fm ->
+                fm.getIssueSamples()
+                    .values()
+                    .forEach(samples -> samples.forEach(s -> ids.add(s.getRecordId()))));
+    return ids;
+  }
+
+  /** Sets raw values of the terms related to the issue to the issue samples of the record */
+  public static void addRelatedData(
+      ValidationMetrics metrics, String coreRowType, ExtendedRecord er) {
+    FileMetrics fm = metrics.getFiles().get(coreRowType);
+    if (fm == null) {
+      return;
+    }
+    fm.getIssueSamples()
+        .forEach(
+            (issue, samples) ->
+                samples.stream()
+                    .filter(s -> er.getId().equals(s.getRecordId()))
+                    .forEach(s -> s.setRelatedData(relatedData(issue, er.getCoreTerms()))));
+  }
+
+  /** Interpreted field of the classification rank, e.g. KINGDOM - classification.kingdom */
+  public static String classificationField(String rank) {
+    return CLASSIFICATION + "." + rank.toLowerCase();
+  }
+
+  public static void write(HdfsConfigs hdfsConfigs, String path, ValidationMetrics metrics)
+      throws IOException {
+    FileSystem fs = FsUtils.createParentDirectories(hdfsConfigs, new Path(path));
+    try (OutputStream os = fs.create(new Path(path), true)) {
+      MAPPER.writeValue(os, metrics);
+    }
+    log.info("Validation metrics are saved to {}", path);
+  }
+
+  public static Optional<ValidationMetrics> read(HdfsConfigs hdfsConfigs, String path)
+      throws IOException {
+    FileSystem fs = FsUtils.getFileSystem(hdfsConfigs, path);
+    Path fsPath = new Path(path);
+    if (!fs.exists(fsPath)) {
+      return Optional.empty();
+    }
+    try (InputStream is = fs.open(fsPath)) {
+      return Optional.of(MAPPER.readValue(is, ValidationMetrics.class));
+    }
+  }
+
+  /** Non-empty raw values of the terms related to the issue, keyed by the prefixed term name */
+  private static Map<String, String> relatedData(String issue, Map<String, String> coreTerms) {
+    Map<String, String> relatedData = new TreeMap<>();
+    try {
+      for (Term term : OccurrenceIssue.valueOf(issue).getRelatedTerms()) {
+        String value = coreTerms.get(term.qualifiedName());
+        if (value != null && !value.trim().isEmpty()) {
+          relatedData.put(term.toString(), value);
+        }
+      }
+    } catch (IllegalArgumentException ex) {
+      log.warn("Can't find enum value for OccurrenceIssue - {}", issue);
+    }
+    return relatedData;
+  }
+
+  private static boolean hasValue(Object value) {
+    if (value == null) {
+      return false;
+    }
+    if (value instanceof CharSequence) {
+      return ((CharSequence) value).length() > 0;
+    }
+    if (value instanceof Collection) {
+      return !((Collection<?>) value).isEmpty();
+    }
+    if (value instanceof Map) {
+      return !((Map<?, ?>) value).isEmpty();
+    }
+    if (value instanceof IndexedRecord) {
+      // Interpreters set empty nested records, e.g. an EventDate without gte and lte
+      IndexedRecord record = (IndexedRecord) value;
+      return record.getSchema().getFields().stream()
+          .anyMatch(field -> hasValue(record.get(field.pos())));
+    }
+    return true;
+  }
+}
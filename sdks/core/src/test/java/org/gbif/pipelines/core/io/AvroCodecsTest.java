@@ -0,0 +1,53 @@
+package org.gbif.pipelines.core.io;
+
+import org.apache.avro.file.CodecFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AvroCodecsTest {
+
+  @Test
+  public void namesTest() {
+
+    // Should
+    Assert.assertEquals("null", AvroCodecs.parse("null").toString());
+    Assert.assertEquals("snappy", AvroCodecs.parse("snappy").toString());
+    Assert.assertEquals("snappy", AvroCodecs.parse(" Snappy ").toString());
+    Assert.assertEquals("bzip2", AvroCodecs.parse("bzip2").toString());
+    Assert.assertEquals(
+        CodecFactory.fromString("deflate").toString(), AvroCodecs.parse("deflate").toString());
+  }
+
+  @Test
+  public void levelsTest() {
+
+    // Should
+    Assert.assertEquals("deflate--1", AvroCodecs.parse("deflate--1").toString());
+    Assert.assertEquals("deflate-0", AvroCodecs.parse("deflate-0").toString());
+    Assert.assertEquals("deflate-1", AvroCodecs.parse("deflate-1").toString());
+    Assert.assertEquals("deflate-9", AvroCodecs.parse("deflate-9").toString());
+    Assert.assertEquals("xz-0", AvroCodecs.parse("xz-0").toString());
+    Assert.assertEquals("xz-9", AvroCodecs.parse("xz-9").toString());
+    Assert.assertEquals(
+        CodecFactory.xzCodec(3).toString(),
+        AvroCodecs.parse(CodecFactory.xzCodec(3).toString()).toString());
+    Assert.assertEquals(
+        CodecFactory.fromString("deflate").toString(),
+        AvroCodecs.parse(CodecFactory.fromString("deflate").toString()).toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void xzNegativeLevelTest() {
+    AvroCodecs.parse("xz--1");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zstandardTest() {
+    AvroCodecs.parse("zstandard-3");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownTest() {
+    AvroCodecs.parse("lzo");
+  }
+}
@@ -0,0 +1,88 @@
+package org.gbif.pipelines.core.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LineCounterTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void lineEndsTest() throws Exception {
+
+    // State
+    Path path = write("\nid\tname\n1\tA\r\n2\tB\r\r\n3\tC\r4\tD\n\n5\tE");
+
+    // When
+    long lines = LineCounter.count(path, '\t', null);
+
+    // Should
+    assertEquals(6L, lines);
+  }
+
+  @Test
+  public void quotedTest() throws Exception {
+
+    // State
+    Path path = write("id,remarks\n1,\"multi\nline\r\nvalue\"\n2,\"said \"\"hi\"\"\"\n3,\"\"\n");
+
+    // When
+    long quoted = LineCounter.count(path, ',', '"');
+    long unquoted = LineCounter.count(path, ',', null);
+
+    // Should
+    assertEquals(4L, quoted);
+    assertEquals(6L, unquoted);
+  }
+
+  @Test
+  public void parallelChunksTest() throws Exception {
+
+    // State
+    StringBuilder sb = new StringBuilder("id,remarks\r\n");
+    for (int i = 0; i < 10_000; i++) {
+      sb.append(i).append(i % 10 == 0 ? ",\"a\r\nb\"" : ",c").append("\r\n");
+    }
+    Path path = write(sb.toString());
+
+    // When
+    long single = LineCounter.count(path, ',', '"', 1, Long.MAX_VALUE / 2);
+    long parallel = LineCounter.count(path, ',', '"', 7, 1_000L);
+
+    // Should
+    assertEquals(10_001L, single);
+    assertEquals(10_001L, parallel);
+  }
+
+  @Test
+  public void strayQuoteTest() throws Exception {
+
+    // State: quotes in the middle of unquoted values and escaped quotes before line ends
+    StringBuilder sb = new StringBuilder("id,remarks\n");
+    for (int i = 0; i < 1_000; i++) {
+      sb.append(i).append(i % 2 == 0 ? ",5\" screen" : ",\"a \"\"\nb\"\"\"").append('\n');
+    }
+    Path path = write(sb.toString());
+
+    // When
+    long single = LineCounter.count(path, ',', '"', 1, Long.MAX_VALUE / 2);
+    long parallel = LineCounter.count(path, ',', '"', 7, 100L);
+
+    // Should
+    assertEquals(1_001L, single);
+    assertEquals(1_001L, parallel);
+  }
+
+  private Path write(String content) throws Exception {
+    File file = folder.newFile();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return file.toPath();
+  }
+}
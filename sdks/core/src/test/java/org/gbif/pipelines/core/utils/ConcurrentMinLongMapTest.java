@@ -0,0 +1,81 @@
+package org.gbif.pipelines.core.utils;
+
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentMinLongMapTest {
+
+  @Test
+  public void putMinTest() {
+    // State
+    ConcurrentMinLongMap map = ConcurrentMinLongMap.create(4);
+
+    // When
+    ConcurrentMinLongMap.Result first = map.putMin(1L, 10L);
+    ConcurrentMinLongMap.Result greater = map.putMin(1L, 20L);
+    ConcurrentMinLongMap.Result lower = map.putMin(1L, 5L);
+    ConcurrentMinLongMap.Result zeroKey = map.putMin(0L, 7L);
+    // Unsigned order, negative values are greater than positive
+    ConcurrentMinLongMap.Result negative = map.putMin(0L, -7L);
+
+    // Should
+    Assert.assertEquals(ConcurrentMinLongMap.Result.INSERTED, first);
+    Assert.assertEquals(ConcurrentMinLongMap.Result.REJECTED, greater);
+    Assert.assertEquals(ConcurrentMinLongMap.Result.REPLACED, lower);
+    Assert.assertEquals(ConcurrentMinLongMap.Result.INSERTED, zeroKey);
+    Assert.assertEquals(ConcurrentMinLongMap.Result.REJECTED, negative);
+    Assert.assertEquals(OptionalLong.of(5L), map.get(1L));
+    Assert.assertEquals(OptionalLong.of(7L), map.get(0L));
+    Assert.assertFalse(map.get(2L).isPresent());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void fullMapTest() {
+    // State
+    ConcurrentMinLongMap map = ConcurrentMinLongMap.create(1);
+
+    // When
+    for (long x = 1; x < 4; x++) {
+      map.putMin(x, x);
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void concurrentPutMinTest() {
+    // State
+    int keys = 1_000;
+    int valuesPerKey = 100;
+    ConcurrentMinLongMap map = ConcurrentMinLongMap.create(keys);
+    AtomicInteger inserted = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    // When
+    for (int v = valuesPerKey; v > 0; v--) {
+      long value = v;
+      for (long k = 1; k <= keys; k++) {
+        long key = k * 31;
+        executor.execute(
+            () -> {
+              if (map.putMin(key, value) == ConcurrentMinLongMap.Result.INSERTED) {
+                inserted.incrementAndGet();
+              }
+            });
+      }
+    }
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+    // Should
+    Assert.assertEquals(keys, inserted.get());
+    for (long k = 1; k <= keys; k++) {
+      Assert.assertEquals(OptionalLong.of(1L), map.get(k * 31));
+    }
+  }
+}
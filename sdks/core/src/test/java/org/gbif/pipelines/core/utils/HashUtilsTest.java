@@ -31,4 +31,21 @@ public class HashUtilsTest {
     // Should
     Assert.assertEquals(expected, result);
   }
+
+  @Test
+  public void sha1FingerprintOrderTest() {
+    // State
+    String value1 = "af91c6ca-da34-4e49-ace3-3b125dbeab3c";
+    String value2 = "f033adff-4dc4-4d20-9da0-4ed24cf59b61";
+
+    // When
+    int hexCompare = HashConverter.getSha1(value1).compareTo(HashConverter.getSha1(value2));
+    int fingerprintCompare =
+        Long.compareUnsigned(
+            HashConverter.getSha1Fingerprint(value1), HashConverter.getSha1Fingerprint(value2));
+
+    // Should
+    Assert.assertEquals(0x3521a4e173f1c42aL, HashConverter.getSha1Fingerprint(value1));
+    Assert.assertEquals(Integer.signum(hexCompare), Integer.signum(fingerprintCompare));
+  }
 }
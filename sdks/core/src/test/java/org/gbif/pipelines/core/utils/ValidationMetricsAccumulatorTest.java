@@ -0,0 +1,212 @@
+package org.gbif.pipelines.core.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.pipelines.common.pojo.ValidationMetrics;
+import org.gbif.pipelines.common.pojo.ValidationMetrics.FileMetrics;
+import org.gbif.pipelines.common.pojo.ValidationMetrics.IssueSample;
+import org.gbif.pipelines.io.avro.BasicRecord;
+import org.gbif.pipelines.io.avro.EventDate;
+import org.gbif.pipelines.io.avro.ExtendedRecord;
+import org.gbif.pipelines.io.avro.IssueRecord;
+import org.gbif.pipelines.io.avro.Rank;
+import org.gbif.pipelines.io.avro.RankedName;
+import org.gbif.pipelines.io.avro.TaxonRecord;
+import org.gbif.pipelines.io.avro.TemporalRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ValidationMetricsAccumulatorTest {
+
+  private static final String CORE = DwcTerm.Occurrence.qualifiedName();
+  private static final String EXT = DwcTerm.MeasurementOrFact.qualifiedName();
+
+  @Test
+  public void verbatimTest() {
+    // State
+    ValidationMetrics metrics = new ValidationMetrics();
+
+    // When
+    ValidationMetricsAccumulator.addVerbatim(metrics, CORE, er("1", "HumanObservation"));
+    ValidationMetricsAccumulator.addVerbatim(metrics, CORE, er("2", " "));
+
+    // Should
+    FileMetrics core = metrics.getFiles().get(CORE);
+    Assert.assertEquals(2L, core.getCount());
+    Assert.assertEquals(
+        Long.valueOf(2L), core.getRawTerms().get(DwcTerm.occurrenceID.qualifiedName()));
+    Assert.assertEquals(
+        Long.valueOf(1L), core.getRawTerms().get(DwcTerm.basisOfRecord.qualifiedName()));
+
+    FileMetrics ext = metrics.getFiles().get(EXT);
+    Assert.assertEquals(4L, ext.getCount());
+    Assert.assertEquals(
+        Long.valueOf(4L), ext.getRawTerms().get(DwcTerm.measurementValue.qualifiedName()));
+    Assert.assertEquals(
+        Long.valueOf(0L), ext.getRawTerms().get(DwcTerm.measurementType.qualifiedName()));
+  }
+
+  @Test
+  public void interpretedTest() {
+    // State
+    ValidationMetrics metrics = new ValidationMetrics();
+    BasicRecord basic =
+        BasicRecord.newBuilder()
+            .setId("1")
+            .setBasisOfRecord("HUMAN_OBSERVATION")
+            .setIssues(IssueRecord.newBuilder().setIssueList(Arrays.asList("I1", "I2")).build())
+            .build();
+    TaxonRecord taxon =
+        TaxonRecord.newBuilder()
+            .setId("1")
+            .setClassification(
+                Arrays.asList(
+                    RankedName.newBuilder().setRank(Rank.KINGDOM).setName("Animalia").build(),
+                    RankedName.newBuilder().setRank(Rank.PHYLUM).setName("Chordata").build()))
+            .build();
+
+    // When
+    ValidationMetricsAccumulator.addInterpreted(metrics, CORE, basic);
+    ValidationMetricsAccumulator.addInterpreted(metrics, CORE, taxon);
+
+    // Should
+    FileMetrics core = metrics.getFiles().get(CORE);
+    Map<String, Long> interpreted = core.getInterpretedFields();
+    Assert.assertEquals(Long.valueOf(1L), interpreted.get("basisOfRecord"));
+    Assert.assertEquals(Long.valueOf(1L), interpreted.get("classification.kingdom"));
+    Assert.assertEquals(Long.valueOf(1L), interpreted.get("classification.phylum"));
+    Assert.assertNull(interpreted.get("sex"));
+    Assert.assertNull(interpreted.get("id"));
+    Assert.assertNull(interpreted.get("issues"));
+    Assert.assertEquals(Long.valueOf(1L), core.getIssues().get("I1"));
+    Assert.assertEquals(
+        Collections.singletonList(new IssueSample("1", new TreeMap<>())),
+        core.getIssueSamples().get("I2"));
+  }
+
+  @Test
+  public void emptyNestedRecordTest() {
+    // State
+    ValidationMetrics metrics = new ValidationMetrics();
+    TemporalRecord unparsed =
+        TemporalRecord.newBuilder().setId("1").setEventDate(new EventDate()).build();
+    TemporalRecord parsed =
+        TemporalRecord.newBuilder()
+            .setId("2")
+            .setEventDate(EventDate.newBuilder().setGte("2020-01-01").build())
+            .build();
+
+    // When
+    ValidationMetricsAccumulator.addInterpreted(metrics, CORE, unparsed);
+    ValidationMetricsAccumulator.addInterpreted(metrics, CORE, parsed);
+
+    // Should
+    Map<String, Long> interpreted = metrics.getFiles().get(CORE).getInterpretedFields();
+    Assert.assertEquals(Long.valueOf(1L), interpreted.get("eventDate"));
+  }
+
+  @Test
+  public void concurrentTest() throws Exception {
+    // State
+    ValidationMetricsAccumulator accumulator = new ValidationMetricsAccumulator(CORE);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    // When
+    CompletableFuture<?>[] futures =
+        IntStream.range(0, 1_000)
+            .mapToObj(
+                i ->
+                    CompletableFuture.runAsync(
+                        () -> accumulator.addVerbatim(er(Integer.toString(i), "B")), executor))
+            .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(futures).get();
+    executor.shutdown();
+    ValidationMetrics result = accumulator.getResult();
+
+    // Should
+    Assert.assertEquals(1_000L, result.getFiles().get(CORE).getCount());
+    Assert.assertEquals(2_000L, result.getFiles().get(EXT).getCount());
+  }
+
+  @Test
+  public void mergeAndJsonTest() throws Exception {
+    // State
+    ValidationMetrics first = new ValidationMetrics();
+    ValidationMetrics second = new ValidationMetrics();
+    IntStream.range(0, 4).forEach(i -> first.file(CORE).addIssue("I1", "f" + i));
+    IntStream.range(0, 4).forEach(i -> second.file(CORE).addIssue("I1", "s" + i));
+    ObjectMapper mapper = new ObjectMapper();
+
+    // When
+    ValidationMetrics merged = first.merge(second);
+    ValidationMetrics json =
+        mapper.readValue(mapper.writeValueAsString(merged), ValidationMetrics.class);
+
+    // Should
+    FileMetrics core = merged.getFiles().get(CORE);
+    Assert.assertEquals(Long.valueOf(8L), core.getIssues().get("I1"));
+    Assert.assertEquals(
+        Arrays.asList("f0", "f1", "f2", "f3", "s0"),
+        core.getIssueSamples().get("I1").stream()
+            .map(IssueSample::getRecordId)
+            .collect(Collectors.toList()));
+    Assert.assertEquals(merged, json);
+  }
+
+  @Test
+  public void relatedDataTest() {
+    // State
+    ValidationMetricsAccumulator accumulator = new ValidationMetricsAccumulator(CORE);
+    Map<String, ExtendedRecord> verbatim = new HashMap<>();
+    verbatim.put("1", er("1", "Observaton"));
+    verbatim.put("2", er("2", "HumanObservation"));
+    verbatim.values().forEach(accumulator::addVerbatim);
+    accumulator.addInterpreted(
+        BasicRecord.newBuilder()
+            .setId("1")
+            .setIssues(
+                IssueRecord.newBuilder()
+                    .setIssueList(Arrays.asList("BASIS_OF_RECORD_INVALID", "I1"))
+                    .build())
+            .build());
+    accumulator.addInterpreted(BasicRecord.newBuilder().setId("2").build());
+
+    // When
+    ValidationMetrics result = accumulator.getResult(verbatim::get);
+
+    // Should
+    FileMetrics core = result.getFiles().get(CORE);
+    Assert.assertEquals(
+        Collections.singleton("1"), ValidationMetricsAccumulator.issueSampleIds(result, CORE));
+    Assert.assertEquals(
+        Collections.singletonMap(DwcTerm.basisOfRecord.prefixedName(), "Observaton"),
+        core.getIssueSamples().get("BASIS_OF_RECORD_INVALID").get(0).getRelatedData());
+    Assert.assertTrue(core.getIssueSamples().get("I1").get(0).getRelatedData().isEmpty());
+  }
+
+  private static ExtendedRecord er(String id, String basisOfRecord) {
+    Map<String, String> core = new HashMap<>();
+    core.put(DwcTerm.occurrenceID.qualifiedName(), id);
+    core.put(DwcTerm.basisOfRecord.qualifiedName(), basisOfRecord);
+
+    Map<String, String> ext = new HashMap<>();
+    ext.put(DwcTerm.measurementValue.qualifiedName(), "1.7");
+    ext.put(DwcTerm.measurementType.qualifiedName(), "");
+
+    return ExtendedRecord.newBuilder()
+        .setId(id)
+        .setCoreTerms(core)
+        .setExtensions(Collections.singletonMap(EXT, Arrays.asList(ext, ext)))
+        .build();
+  }
+}
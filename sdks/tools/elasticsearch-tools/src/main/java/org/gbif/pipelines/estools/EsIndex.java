@@ -2,14 +2,18 @@ package org.gbif.pipelines.estools;
 
 import static org.gbif.pipelines.estools.service.EsConstants.Util.INDEX_SEPARATOR;
 import static org.gbif.pipelines.estools.service.EsQueries.DELETE_BY_DATASET_QUERY;
+import static org.gbif.pipelines.estools.service.EsQueries.UPDATE_CRAWL_BY_DATASET_QUERY;
 import static org.gbif.pipelines.estools.service.EsService.getIndexesByAliasAndIndexPattern;
 import static org.gbif.pipelines.estools.service.EsService.swapIndexes;
 import static org.gbif.pipelines.estools.service.EsService.updateIndexSettings;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -25,10 +29,13 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.pipelines.estools.client.EsClient;
 import org.gbif.pipelines.estools.client.EsConfig;
+import org.gbif.pipelines.estools.model.BulkLoadParams;
 import org.gbif.pipelines.estools.model.DeleteByQueryTask;
 import org.gbif.pipelines.estools.model.IndexParams;
+import org.gbif.pipelines.estools.service.EsConstants.Field;
 import org.gbif.pipelines.estools.service.EsConstants.Searching;
 import org.gbif.pipelines.estools.service.EsService;
+import org.gbif.pipelines.estools.service.JsonHandler;
 
 /** Exposes a public API to perform operations in a ES instance. */
 @Slf4j
@@ -142,6 +149,9 @@ public class EsIndex {
       Optional.ofNullable(index)
           .ifPresent(
               idx -> {
+                // restore the settings of a bulk load session which didn't finish
+                restoreBulkLoadSettings(esClient, idx);
+
                 // change index settings to search settings
                 updateIndexSettings(esClient, idx, settings);
 
@@ -152,6 +162,153 @@ public class EsIndex {
     }
   }
 
+  /**
+   * Loads documents into an index in a bulk load session, see {@link #startBulkLoad(EsConfig,
+   * String, BulkLoadParams)} and {@link #finishBulkLoad(EsConfig, String, BulkLoadParams)}. The
+   * settings are restored if the load fails, the index isn't merged in that case.
+   *
+   * @param config configuration of the ES instance.
+   * @param index index to load the documents into.
+   * @param params parameters of the session.
+   * @param load loads the documents.
+   */
+  public static void bulkLoad(EsConfig config, String index, BulkLoadParams params, Runnable load) {
+    startBulkLoad(config, index, params);
+    try {
+      load.run();
+    } catch (RuntimeException ex) {
+      log.error("Bulk load into index {} failed, restoring the index settings", index);
+      try {
+        restoreBulkLoadSettings(config, index);
+      } catch (RuntimeException restoreEx) {
+        ex.addSuppressed(restoreEx);
+      }
+      throw ex;
+    }
+    finishBulkLoad(config, index, params);
+  }
+
+  /**
+   * Starts a bulk load session, the load settings are applied to the index. The settings to restore
+   * are the search settings and the previous values of the rest of the load settings, they are
+   * saved in the _meta of the index mappings first, so the settings of a session which never
+   * finished can be restored by {@link #restoreBulkLoadSettings(EsConfig, String)}.
+   *
+   * @param config configuration of the ES instance.
+   * @param index index to load the documents into.
+   * @param params parameters of the session.
+   */
+  public static void startBulkLoad(EsConfig config, String index, BulkLoadParams params) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(index), "index is required");
+    Objects.requireNonNull(params, "params are required");
+    try (EsClient esClient = EsClient.from(config)) {
+      ObjectNode meta =
+          Optional.ofNullable(EsService.getIndexMeta(esClient, index).get(index))
+              .orElseGet(JsonHandler::createObjectNode);
+
+      // keep the settings saved by a previous session which didn't finish
+      if (!meta.path(Field.BULK_LOAD_RESTORE_SETTINGS).isObject()) {
+        Map<String, String> current = EsService.getIndexSettings(esClient, index);
+        Map<String, String> restore = new HashMap<>();
+        params.getLoadSettings().keySet().forEach(key -> restore.put(key, current.get(key)));
+        restore.putAll(params.getSearchSettings());
+
+        meta.set(Field.BULK_LOAD_RESTORE_SETTINGS, JsonHandler.convertToJsonNode(restore));
+        EsService.updateIndexMeta(esClient, index, meta);
+      }
+
+      log.info(
+          "Starting bulk load into index {} with settings {}", index, params.getLoadSettings());
+      updateIndexSettings(esClient, index, params.getLoadSettings());
+    }
+  }
+
+  /**
+   * Finishes a bulk load session, the index is force-merged to the target number of segments before
+   * the saved settings are restored, so the replicas copy the merged segments.
+   *
+   * @param config configuration of the ES instance.
+   * @param index index the documents were loaded into.
+   * @param params parameters of the session.
+   */
+  public static void finishBulkLoad(EsConfig config, String index, BulkLoadParams params) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(index), "index is required");
+    Objects.requireNonNull(params, "params are required");
+    try (EsClient esClient = EsClient.from(config)) {
+      if (params.getMaxNumSegments() > 0) {
+        forceMergeAndWaitTillCompletion(
+            esClient,
+            index,
+            params.getMaxNumSegments(),
+            params.getTimeoutSec(),
+            params.getAttempts());
+      }
+      restoreBulkLoadSettings(esClient, index);
+    }
+  }
+
+  /**
+   * Restores the settings saved by bulk load sessions which didn't finish.
+   *
+   * @param config configuration of the ES instance.
+   * @param idxPattern name of an index or a pattern using wildcards.
+   * @return indexes whose settings were restored.
+   */
+  public static Set<String> restoreBulkLoadSettings(EsConfig config, String idxPattern) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(idxPattern), "index is required");
+    try (EsClient esClient = EsClient.from(config)) {
+      return restoreBulkLoadSettings(esClient, idxPattern);
+    }
+  }
+
+  private static Set<String> restoreBulkLoadSettings(EsClient esClient, String idxPattern) {
+    Set<String> restored = new HashSet<>();
+    EsService.getIndexMeta(esClient, idxPattern)
+        .forEach(
+            (idx, meta) -> {
+              JsonNode saved = meta.path(Field.BULK_LOAD_RESTORE_SETTINGS);
+              if (saved.isObject()) {
+                Map<String, String> settings = new HashMap<>();
+                saved
+                    .fields()
+                    .forEachRemaining(
+                        e ->
+                            settings.put(
+                                e.getKey(), e.getValue().isNull() ? null : e.getValue().asText()));
+
+                log.info("Restoring settings {} of index {}", settings, idx);
+                updateIndexSettings(esClient, idx, settings);
+
+                // the marker is cleared after the settings are restored, a failure can be retried
+                meta.putNull(Field.BULK_LOAD_RESTORE_SETTINGS);
+                EsService.updateIndexMeta(esClient, idx, meta);
+                restored.add(idx);
+              }
+            });
+    return restored;
+  }
+
+  private static void forceMergeAndWaitTillCompletion(
+      EsClient esClient, String index, int maxNumSegments, int timeoutSec, int attempts) {
+    log.info("Force-merging index {} to {} segments", index, maxNumSegments);
+    String taskId = EsService.forceMerge(esClient, index, maxNumSegments);
+
+    if (!waitTillCompletion(esClient, taskId, timeoutSec, attempts)) {
+      log.warn("Force-merge task {} of index {} hasn't completed yet", taskId, index);
+    }
+  }
+
+  @SneakyThrows
+  private static boolean waitTillCompletion(
+      EsClient esClient, String taskId, int timeoutSec, int attempts) {
+    boolean completed = EsService.isTaskCompleted(esClient, taskId);
+    while (!completed && attempts-- > 0) {
+      TimeUnit.SECONDS.sleep(timeoutSec);
+      completed = EsService.isTaskCompleted(esClient, taskId);
+    }
+    return completed;
+  }
+
   /**
    * Counts the number of documents of an index.
    *
@@ -226,6 +383,49 @@ public class EsIndex {
     log.info("{} records deleted from ES index {}", task.getRecordsDeleted(), index);
   }
 
+  /**
+   * Connects to Elasticsearch instance and sets the crawl fields of the dataset documents of an
+   * index which belong to another crawl, e.g. documents which the incremental indexing didn't write
+   * because their content didn't change.
+   *
+   * @param config configuration of the ES instance.
+   * @param index index of the dataset documents
+   * @param datasetKey dataset whose documents are updated
+   * @param crawlId new crawl id
+   * @param lastCrawled new last crawled date, can be null
+   * @param created new created date, can be null
+   */
+  public static void updateCrawlFieldsByDatasetId(
+      EsConfig config,
+      String index,
+      String datasetKey,
+      int crawlId,
+      String lastCrawled,
+      String created,
+      int timeoutSec,
+      int attempts) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(index), "index is required");
+    String query =
+        String.format(
+            UPDATE_CRAWL_BY_DATASET_QUERY,
+            datasetKey,
+            crawlId,
+            toJsonString(lastCrawled),
+            toJsonString(created));
+
+    try (EsClient esClient = EsClient.from(config)) {
+      log.info("Updating crawl fields of dataset {} in ES index {}", datasetKey, index);
+      String taskId = EsService.updateRecordsByQuery(esClient, index, query);
+      if (!waitTillCompletion(esClient, taskId, timeoutSec, attempts)) {
+        log.warn("Update task {} of index {} hasn't completed yet", taskId, index);
+      }
+    }
+  }
+
+  private static String toJsonString(String value) {
+    return value == null ? "null" : "\"" + value + "\"";
+  }
+
   /**
    * Connects to Elasticsearch instance and given index
    *
@@ -258,13 +458,35 @@ public class EsIndex {
     Preconditions.checkArgument(aliases != null && aliases.length > 0, "aliases are required");
     Preconditions.checkArgument(!Strings.isNullOrEmpty(datasetKey), "datasetKey is required");
 
-    // we check if the aliases exist, otherwise ES throws an error.
-    String existingAlias =
-        Arrays.stream(aliases)
-            .filter(alias -> EsService.existsIndex(esClient, alias))
-            .collect(Collectors.joining(","));
+    return EsService.findDatasetIndexesInAlias(
+        esClient, findExistingAliases(esClient, aliases), datasetKey);
+  }
+
+  /**
+   * Counts the documents of a dataset in the indexes of the aliases where the dataset is present.
+   * This method checks that the aliases exist before querying ES.
+   *
+   * @param config configuration of the ES instance.
+   * @param aliases name of the alias to search in.
+   * @param datasetKey key of the dataset we are looking for.
+   * @return number of documents of the dataset per index
+   */
+  public static Map<String, Long> countDatasetDocumentsInAliases(
+      EsConfig config, String[] aliases, String datasetKey) {
+    Preconditions.checkArgument(aliases != null && aliases.length > 0, "aliases are required");
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(datasetKey), "datasetKey is required");
+
+    try (EsClient esClient = EsClient.from(config)) {
+      return EsService.countDatasetDocumentsInAlias(
+          esClient, findExistingAliases(esClient, aliases), datasetKey);
+    }
+  }
 
-    return EsService.findDatasetIndexesInAlias(esClient, existingAlias, datasetKey);
+  // we check if the aliases exist, otherwise ES throws an error.
+  private static String findExistingAliases(EsClient esClient, String[] aliases) {
+    return Arrays.stream(aliases)
+        .filter(alias -> EsService.existsIndex(esClient, alias))
+        .collect(Collectors.joining(","));
   }
 
   private static String getDatasetIndexesPattern(String datasetId) {
@@ -0,0 +1,32 @@
+package org.gbif.pipelines.estools.model;
+
+import java.util.Map;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import org.gbif.pipelines.estools.service.EsConstants.BulkLoad;
+import org.gbif.pipelines.estools.service.EsConstants.Searching;
+
+/** Bulk load session parameters holder. */
+@Builder
+@Getter
+@ToString
+public class BulkLoadParams {
+
+  /** Settings applied while the documents are loaded */
+  @Builder.Default
+  private final Map<String, String> loadSettings = BulkLoad.getDefaultBulkLoadSettings();
+
+  /** Settings applied after the load, the rest of the load settings get their previous values */
+  @Builder.Default
+  private final Map<String, String> searchSettings = Searching.getDefaultSearchSettings();
+
+  /** Target number of segments per shard after the load, the index isn't merged if it is 0 */
+  @Builder.Default private final int maxNumSegments = BulkLoad.MAX_NUM_SEGMENTS;
+
+  /** Seconds between checks of the force-merge task */
+  @Builder.Default private final int timeoutSec = 10;
+
+  /** Checks of the force-merge task before giving up waiting */
+  @Builder.Default private final int attempts = 360;
+}
@@ -19,6 +19,9 @@ public final class EsConstants {
     public static final String NUMBER_REPLICAS = "number_of_replicas";
     public static final String TRANSLOG = "translog";
     public static final String DURABILITY = "durability";
+    public static final String FLUSH_THRESHOLD_SIZE = "flush_threshold_size";
+    public static final String META = "_meta";
+    public static final String BULK_LOAD_RESTORE_SETTINGS = "bulk_load_restore_settings";
     public static final String ACTIONS = "actions";
     public static final String MAPPINGS = "mappings";
     public static final String ALIAS = "alias";
@@ -31,6 +34,8 @@ public final class EsConstants {
     public static final String INDEX_NUMBER_REPLICAS = Util.INDEX_PREFIX + Field.NUMBER_REPLICAS;
     public static final String INDEX_TRANSLOG_DURABILITY =
         Util.INDEX_PREFIX + Field.TRANSLOG + Util.JSON_CONCATENATOR + Field.DURABILITY;
+    public static final String INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE =
+        Util.INDEX_PREFIX + Field.TRANSLOG + Util.JSON_CONCATENATOR + Field.FLUSH_THRESHOLD_SIZE;
     public static final String INDEX_MAX_RESULT_WINDOW = Util.INDEX_PREFIX + MAX_RESULT_WINDOW;
     public static final String INDEX_UNASSIGNED_NODE_DELAY =
         Util.INDEX_PREFIX + UNASSIGNED_NODE_DELAY;
@@ -78,6 +83,26 @@ public final class EsConstants {
     }
   }
 
+  @NoArgsConstructor(access = AccessLevel.PRIVATE)
+  public static final class BulkLoad {
+
+    public static final String TRANSLOG_FLUSH_THRESHOLD_SIZE = "1gb";
+    public static final int MAX_NUM_SEGMENTS = 1;
+    private static final Map<String, String> DEFAULT_BULK_LOAD_SETTINGS = new HashMap<>(4);
+
+    static {
+      DEFAULT_BULK_LOAD_SETTINGS.put(Field.INDEX_REFRESH_INTERVAL, Indexing.REFRESH_INTERVAL);
+      DEFAULT_BULK_LOAD_SETTINGS.put(Field.INDEX_NUMBER_REPLICAS, Indexing.NUMBER_REPLICAS);
+      DEFAULT_BULK_LOAD_SETTINGS.put(Field.INDEX_TRANSLOG_DURABILITY, Constant.TRANSLOG_DURABILITY);
+      DEFAULT_BULK_LOAD_SETTINGS.put(
+          Field.INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE, BulkLoad.TRANSLOG_FLUSH_THRESHOLD_SIZE);
+    }
+
+    public static Map<String, String> getDefaultBulkLoadSettings() {
+      return DEFAULT_BULK_LOAD_SETTINGS;
+    }
+  }
+
   @NoArgsConstructor(access = AccessLevel.PRIVATE)
   public static final class Searching {
 
@@ -28,4 +28,21 @@ public class EsQueries {
 
   public static final String DELETE_BY_DATASET_QUERY =
       "{\"query\":{\"match\":{\"datasetKey\":\"%s\"}}}";
+
+  /** Sets the crawl fields of the dataset documents which belong to another crawl */
+  public static final String UPDATE_CRAWL_BY_DATASET_QUERY =
+      "{\n"
+          + "  \"query\": {"
+          + "    \"bool\": {"
+          + "      \"filter\": {\"match\": {\"datasetKey\": \"%1$s\"}},"
+          + "      \"must_not\": {\"term\": {\"crawlId\": %2$d}}"
+          + "    }"
+          + "  },"
+          + "  \"script\": {"
+          + "    \"lang\": \"painless\","
+          + "    \"source\": \"ctx._source.crawlId = params.crawlId;"
+          + " ctx._source.lastCrawled = params.lastCrawled; ctx._source.created = params.created\","
+          + "    \"params\": {\"crawlId\": %2$d, \"lastCrawled\": %3$s, \"created\": %4$s}"
+          + "  }"
+          + "}";
 }
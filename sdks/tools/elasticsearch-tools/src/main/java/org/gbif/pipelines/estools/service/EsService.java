@@ -2,6 +2,7 @@ package org.gbif.pipelines.estools.service;
 
 import static org.gbif.pipelines.estools.service.HttpRequestBuilder.createBodyFromString;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
@@ -75,6 +76,89 @@ public class EsService {
     esClient.performPutRequest(endpoint, Collections.emptyMap(), body);
   }
 
+  /**
+   * Gets the settings of an index.
+   *
+   * @param esClient client to call ES. It is required.
+   * @param idxName name of the index.
+   * @return flat settings of the index, e.g. index.refresh_interval.
+   */
+  @SneakyThrows
+  public static Map<String, String> getIndexSettings(@NonNull EsClient esClient, String idxName) {
+    String endpoint = buildEndpoint(idxName, "_settings?flat_settings=true");
+    Response response = esClient.performGetRequest(endpoint);
+    return HttpResponseParser.parseIndexSettingsResponse(response.getEntity(), idxName);
+  }
+
+  /**
+   * Gets the _meta field of the mappings of indexes.
+   *
+   * @param esClient client to call ES. It is required.
+   * @param idxPattern name of an index or a pattern using wildcards.
+   * @return _meta of every index that matches, empty if no index matches.
+   */
+  public static Map<String, ObjectNode> getIndexMeta(
+      @NonNull EsClient esClient, String idxPattern) {
+    String endpoint = buildEndpoint(idxPattern, "_mapping");
+    try {
+      Response response = esClient.performGetRequest(endpoint);
+      return HttpResponseParser.parseIndexMetaResponse(response.getEntity());
+    } catch (ResponseException e) {
+      log.debug("No indexes with pattern {} found", idxPattern);
+      return Collections.emptyMap();
+    }
+  }
+
+  /**
+   * Replaces the _meta field of the mappings of an index.
+   *
+   * @param esClient client to call ES. It is required.
+   * @param idxName name of the index.
+   * @param meta new _meta content.
+   */
+  @SneakyThrows
+  public static void updateIndexMeta(@NonNull EsClient esClient, String idxName, ObjectNode meta) {
+    ObjectNode mappings = JsonHandler.createObjectNode();
+    mappings.set(EsConstants.Field.META, meta);
+
+    String endpoint = buildEndpoint(idxName, "_mapping");
+    esClient.performPutRequest(
+        endpoint, Collections.emptyMap(), createBodyFromString(mappings.toString()));
+  }
+
+  /**
+   * Starts merging the segments of an index and returns the ID of the task which is doing the
+   * merge.
+   *
+   * @param esClient client to call ES. It is required.
+   * @param idxName name of the index to merge.
+   * @param maxNumSegments target number of segments per shard.
+   * @return the task ID
+   */
+  @SneakyThrows
+  public static String forceMerge(@NonNull EsClient esClient, String idxName, int maxNumSegments) {
+    String endpoint =
+        buildEndpoint(
+            idxName,
+            "_forcemerge?max_num_segments=" + maxNumSegments + "&wait_for_completion=false");
+    return HttpResponseParser.parseTaskResponse(
+        esClient.performPostRequest(endpoint, Collections.emptyMap(), null).getEntity());
+  }
+
+  /**
+   * Checks if a task is completed.
+   *
+   * @param esClient client to call ES. It is required.
+   * @param taskId ID of the task.
+   * @return true if the task is completed.
+   */
+  @SneakyThrows
+  public static boolean isTaskCompleted(@NonNull EsClient esClient, String taskId) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(taskId), "Task ID cannot be null or empty");
+    return HttpResponseParser.parseTaskCompleted(
+        esClient.performGetRequest(buildEndpoint("_tasks", taskId)).getEntity());
+  }
+
   /**
    * Gets all the indexes associated to a specific alias and whose names match with a specified
    * pattern.
@@ -290,6 +374,27 @@ public class EsService {
         esClient.performPostRequest(endpoint, Collections.emptyMap(), body).getEntity());
   }
 
+  /**
+   * Updates records in an index by some ES DSL query with a script and returns the ID of the task
+   * which is doing the update.
+   *
+   * @param esClient client to call ES. It is required.
+   * @param idxName name of the index to update records.
+   * @param query ES DSL query with the update script
+   * @return the task ID
+   */
+  @SneakyThrows
+  public static String updateRecordsByQuery(
+      @NonNull EsClient esClient, String idxName, String query) {
+    String endpoint =
+        buildEndpoint(
+            idxName,
+            "_update_by_query?conflicts=proceed&scroll_size=5000&wait_for_completion=false");
+    HttpEntity body = createBodyFromString(query);
+    return HttpResponseParser.parseTaskResponse(
+        esClient.performPostRequest(endpoint, Collections.emptyMap(), body).getEntity());
+  }
+
   @SneakyThrows
   public static DeleteByQueryTask getDeletedByQueryTask(@NonNull EsClient esClient, String taskId) {
     Preconditions.checkArgument(
@@ -313,6 +418,22 @@ public class EsService {
     return HttpResponseParser.parseFindDatasetIndexesInAliasResponse(response.getEntity());
   }
 
+  /**
+   * Finds the indexes in an alias where a given dataset is present and counts the documents of the
+   * dataset in each of them.
+   *
+   * @param esClient client to call ES. It is required.
+   * @param alias name of the alias to search in.
+   * @return number of documents of the dataset per index
+   */
+  public static Map<String, Long> countDatasetDocumentsInAlias(
+      @NonNull EsClient esClient, String alias, String datasetKey) {
+    Response response =
+        EsService.executeQuery(
+            esClient, alias, String.format(EsQueries.FIND_DATASET_INDEXES_QUERY, datasetKey));
+    return HttpResponseParser.parseFindDatasetIndexesCountInAliasResponse(response.getEntity());
+  }
+
   /**
    * Executes a given DSL query.
    *
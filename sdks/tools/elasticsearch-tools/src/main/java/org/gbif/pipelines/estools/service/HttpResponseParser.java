@@ -4,6 +4,9 @@ import static org.gbif.pipelines.estools.service.EsConstants.Field;
 import static org.gbif.pipelines.estools.service.EsQueries.AGG_BY_INDEX;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -70,6 +73,20 @@ class HttpResponseParser {
         .collect(Collectors.toSet());
   }
 
+  /**
+   * Parses the response from a request that finds the indexes where a dataset is indexed and
+   * returns the number of documents of the dataset per index.
+   *
+   * @param entity {@link HttpEntity} from the response.
+   * @return number of documents per index found
+   */
+  static Map<String, Long> parseFindDatasetIndexesCountInAliasResponse(HttpEntity entity) {
+    JsonNode node = JsonHandler.readTree(entity);
+    return StreamSupport.stream(
+            node.get("aggregations").get(AGG_BY_INDEX).get("buckets").spliterator(), false)
+        .collect(Collectors.toMap(n -> n.get("key").asText(), n -> n.get("doc_count").asLong()));
+  }
+
   /**
    * Parses the response of delete by query and returns the task ID.
    *
@@ -93,4 +110,57 @@ class HttpResponseParser {
     task.setRecordsDeleted(node.get("task").get("status").get("deleted").asLong());
     return task;
   }
+
+  /**
+   * Parses the flat settings of an index.
+   *
+   * @param entity {@link HttpEntity} from the response.
+   * @param idxName name of the index.
+   * @return settings of the index, empty if the index isn't in the response.
+   */
+  static Map<String, String> parseIndexSettingsResponse(HttpEntity entity, String idxName) {
+    JsonNode settings = JsonHandler.readTree(entity).path(idxName).path(Field.SETTINGS);
+    Map<String, String> result = new HashMap<>();
+    settings.fields().forEachRemaining(e -> result.put(e.getKey(), e.getValue().asText()));
+    return result;
+  }
+
+  /**
+   * Parses the _meta field of the mappings of the indexes.
+   *
+   * @param entity {@link HttpEntity} from the response.
+   * @return _meta of every index, an empty object if the index has no _meta.
+   */
+  static Map<String, ObjectNode> parseIndexMetaResponse(HttpEntity entity) {
+    Map<String, ObjectNode> result = new HashMap<>();
+    JsonHandler.readTree(entity)
+        .fields()
+        .forEachRemaining(
+            e -> {
+              JsonNode meta = e.getValue().path(Field.MAPPINGS).path(Field.META);
+              result.put(
+                  e.getKey(), meta.isObject() ? (ObjectNode) meta : JsonHandler.createObjectNode());
+            });
+    return result;
+  }
+
+  /**
+   * Parses the response of a request which is executed as a task and returns the task ID.
+   *
+   * @param entity {@link HttpEntity} from the response.
+   * @return task ID.
+   */
+  static String parseTaskResponse(HttpEntity entity) {
+    return JsonHandler.readTree(entity).get("task").asText();
+  }
+
+  /**
+   * Parses the response of getting a task.
+   *
+   * @param entity {@link HttpEntity} from the response.
+   * @return true if the task is completed.
+   */
+  static boolean parseTaskCompleted(HttpEntity entity) {
+    return JsonHandler.readTree(entity).path("completed").asBoolean();
+  }
 }
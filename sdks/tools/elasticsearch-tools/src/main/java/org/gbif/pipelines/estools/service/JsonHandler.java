@@ -97,12 +97,13 @@ public final class JsonHandler {
   public static JsonNode convertToJsonNode(Map<String, String> map) {
     ObjectNode objectNode = MAPPER.createObjectNode();
 
+    // null values reset settings to their defaults
     map.entrySet().stream()
-        .filter(x -> !IS_COMPLEX_OBJECT.test(x.getValue()))
+        .filter(x -> x.getValue() == null || !IS_COMPLEX_OBJECT.test(x.getValue()))
         .forEach(e -> objectNode.put(e.getKey(), e.getValue()));
 
     map.entrySet().stream()
-        .filter(x -> IS_COMPLEX_OBJECT.test(x.getValue()))
+        .filter(x -> x.getValue() != null && IS_COMPLEX_OBJECT.test(x.getValue()))
         .forEach(
             e -> {
               try {
@@ -0,0 +1,218 @@
+package org.gbif.pipelines.estools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.gbif.pipelines.estools.client.EsConfig;
+import org.gbif.pipelines.estools.model.BulkLoadParams;
+import org.gbif.pipelines.estools.service.EsConstants.Field;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests the bulk load session of {@link EsIndex} against a fake ES cluster. */
+public class EsIndexBulkLoadTest {
+
+  private static final String INDEX = "dataset_1";
+
+  private FakeCluster cluster;
+  private EsConfig config;
+
+  @Before
+  public void before() throws IOException {
+    cluster = new FakeCluster();
+    config = EsConfig.from("http://localhost:" + cluster.server.getAddress().getPort());
+
+    Map<String, String> settings = cluster.createIndex(INDEX);
+    settings.put(Field.INDEX_REFRESH_INTERVAL, "-1");
+    settings.put(Field.INDEX_NUMBER_REPLICAS, "0");
+    settings.put(Field.INDEX_NUMBER_SHARDS, "3");
+  }
+
+  @After
+  public void after() {
+    cluster.server.stop(0);
+  }
+
+  @Test
+  public void bulkLoadTest() {
+
+    // State
+    Map<String, String> duringLoad = new HashMap<>();
+
+    // When
+    EsIndex.bulkLoad(config, INDEX, params(), () -> duringLoad.putAll(cluster.settings.get(INDEX)));
+
+    // Should
+    assertEquals("async", duringLoad.get(Field.INDEX_TRANSLOG_DURABILITY));
+    assertEquals("1gb", duringLoad.get(Field.INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE));
+    assertEquals("0", duringLoad.get(Field.INDEX_NUMBER_REPLICAS));
+
+    Map<String, String> settings = cluster.settings.get(INDEX);
+    assertEquals("40s", settings.get(Field.INDEX_REFRESH_INTERVAL));
+    assertEquals("1", settings.get(Field.INDEX_NUMBER_REPLICAS));
+    assertEquals("3", settings.get(Field.INDEX_NUMBER_SHARDS));
+    assertFalse(settings.containsKey(Field.INDEX_TRANSLOG_DURABILITY));
+    assertFalse(settings.containsKey(Field.INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE));
+
+    // merged before the replicas are restored
+    int merge = cluster.requests.indexOf("POST /dataset_1/_forcemerge?max_num_segments=1");
+    int restore = cluster.requests.lastIndexOf("PUT /dataset_1/_settings");
+    assertTrue(merge > 0);
+    assertTrue(merge < restore);
+    assertTrue(cluster.meta.get(INDEX).get(Field.BULK_LOAD_RESTORE_SETTINGS).isNull());
+  }
+
+  @Test
+  public void failedLoadTest() {
+
+    // When
+    IllegalStateException error = null;
+    try {
+      EsIndex.bulkLoad(
+          config,
+          INDEX,
+          params(),
+          () -> {
+            throw new IllegalStateException("pipeline failed");
+          });
+    } catch (IllegalStateException ex) {
+      error = ex;
+    }
+
+    // Should
+    assertEquals("pipeline failed", error.getMessage());
+    assertEquals("1", cluster.settings.get(INDEX).get(Field.INDEX_NUMBER_REPLICAS));
+    assertNull(cluster.settings.get(INDEX).get(Field.INDEX_TRANSLOG_DURABILITY));
+    assertTrue(cluster.requests.stream().noneMatch(r -> r.contains("_forcemerge")));
+  }
+
+  @Test
+  public void interruptedLoadTest() {
+
+    // State
+    EsIndex.startBulkLoad(config, INDEX, params());
+    // a second session must not save the load settings as the settings to restore
+    EsIndex.startBulkLoad(config, INDEX, params());
+
+    // When
+    Set<String> restored = EsIndex.restoreBulkLoadSettings(config, "dataset_*");
+    Set<String> restoredAgain = EsIndex.restoreBulkLoadSettings(config, "dataset_*");
+
+    // Should
+    assertEquals(Collections.singleton(INDEX), restored);
+    assertTrue(restoredAgain.isEmpty());
+    assertEquals("40s", cluster.settings.get(INDEX).get(Field.INDEX_REFRESH_INTERVAL));
+    assertEquals("1", cluster.settings.get(INDEX).get(Field.INDEX_NUMBER_REPLICAS));
+    assertNull(cluster.settings.get(INDEX).get(Field.INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE));
+  }
+
+  private static BulkLoadParams params() {
+    Map<String, String> searchSettings = new HashMap<>();
+    searchSettings.put(Field.INDEX_REFRESH_INTERVAL, "40s");
+    searchSettings.put(Field.INDEX_NUMBER_REPLICAS, "1");
+    return BulkLoadParams.builder().searchSettings(searchSettings).timeoutSec(0).build();
+  }
+
+  /** Implements the ES endpoints used by the bulk load session, the state is kept in memory. */
+  private static class FakeCluster {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final Map<String, Map<String, String>> settings = new HashMap<>();
+    private final Map<String, ObjectNode> meta = new HashMap<>();
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    private FakeCluster() throws IOException {
+      server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", this::handle);
+      server.start();
+    }
+
+    private Map<String, String> createIndex(String index) {
+      settings.put(index, new HashMap<>());
+      meta.put(index, MAPPER.createObjectNode());
+      return settings.get(index);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+      String method = exchange.getRequestMethod();
+      String path = exchange.getRequestURI().getPath();
+      String query = exchange.getRequestURI().getQuery();
+      requests.add(method + " " + path + (query == null ? "" : "?" + query.split("&")[0]));
+
+      String body = read(exchange.getRequestBody());
+      String[] parts = path.substring(1).split("/");
+      ObjectNode response = MAPPER.createObjectNode();
+
+      if ("_tasks".equals(parts[0])) {
+        response.put("completed", true);
+      } else if ("_settings".equals(parts[1]) && "GET".equals(method)) {
+        ObjectNode flat = response.putObject(parts[0]).putObject(Field.SETTINGS);
+        settings.get(parts[0]).forEach(flat::put);
+      } else if ("_settings".equals(parts[1])) {
+        JsonNode update = MAPPER.readTree(body).get(Field.SETTINGS);
+        Map<String, String> current = settings.get(parts[0]);
+        update
+            .fields()
+            .forEachRemaining(
+                e -> {
+                  if (e.getValue().isNull()) {
+                    current.remove(e.getKey());
+                  } else {
+                    current.put(e.getKey(), e.getValue().asText());
+                  }
+                });
+      } else if ("_mapping".equals(parts[1]) && "GET".equals(method)) {
+        String prefix = parts[0].replace("*", "");
+        meta.forEach(
+            (idx, m) -> {
+              if (idx.startsWith(prefix)) {
+                response.putObject(idx).putObject(Field.MAPPINGS).set(Field.META, m.deepCopy());
+              }
+            });
+      } else if ("_mapping".equals(parts[1])) {
+        meta.put(parts[0], (ObjectNode) MAPPER.readTree(body).get(Field.META));
+      } else if ("_forcemerge".equals(parts[1])) {
+        response.put("task", "node:1");
+      }
+
+      byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    }
+
+    private static String read(InputStream in) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+}
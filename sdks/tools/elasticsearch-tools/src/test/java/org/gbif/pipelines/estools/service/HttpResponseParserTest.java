@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Map;
 import java.util.Set;
 import org.apache.http.HttpEntity;
 import org.apache.http.nio.entity.NStringEntity;
@@ -41,6 +42,25 @@ public class HttpResponseParserTest {
     assertTrue(indexes.contains("idx2"));
   }
 
+  @Test
+  public void parseFindDatasetIndexesTest() {
+
+    // State
+    String path = "/responses/dataset-indexes.json";
+
+    // When
+    Set<String> indexes =
+        HttpResponseParser.parseFindDatasetIndexesInAliasResponse(getEntityFromResponse(path));
+    Map<String, Long> counts =
+        HttpResponseParser.parseFindDatasetIndexesCountInAliasResponse(getEntityFromResponse(path));
+
+    // Should
+    assertEquals(2, indexes.size());
+    assertEquals(indexes, counts.keySet());
+    assertEquals(Long.valueOf(1200L), counts.get("occurrence_a"));
+    assertEquals(Long.valueOf(50L), counts.get("occurrence_b"));
+  }
+
   private HttpEntity getEntityFromResponse(String path) {
     String json = JsonHandler.toString(getClass().getResourceAsStream(path));
     try {
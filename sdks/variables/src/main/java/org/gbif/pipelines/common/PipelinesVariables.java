@@ -27,6 +27,7 @@ public class PipelinesVariables {
     public static final String FRAGMENTER = "fragmenter";
     public static final String VALIDATOR = "validator";
     public static final String COLLECT_METRICS = "collect-metrics";
+    public static final String VALIDATION_METRICS = "validation-metrics";
     public static final String VERBATIM_TO_EVENT = "verbatim-to-event";
     public static final String EVENT_TO_INDEX = "event-to-index";
 
@@ -194,6 +195,7 @@ public class PipelinesVariables {
       public static final String DECIMAL_LONGITUDE = "decimalLongitude";
       public static final String MACHINE_TAGS = "machineTags";
       public static final String CRAWL_ID = "crawlId";
+      public static final String LAST_CRAWLED = "lastCrawled";
       public static final String LICENSE = "license";
       public static final String ALL = "all";
       public static final String DATASET_PUBLISHING_COUNTRY = "datasetPublishingCountry";
@@ -260,6 +262,9 @@ public class PipelinesVariables {
     public static final String FILTER_ER_BASED_ON_GBIF_ID = "filterErBasedOnGbifIdCount";
     public static final String OCCURRENCE_EXT_COUNT = "occurrenceExtCount";
     public static final String HASH_ID_COUNT = "hashIdCount";
+    public static final String INDEX_CHANGED_DOCUMENTS_COUNT = "indexChangedDocumentsCount";
+    public static final String INDEX_UNCHANGED_DOCUMENTS_COUNT = "indexUnchangedDocumentsCount";
+    public static final String INDEX_DELETED_DOCUMENTS_COUNT = "indexDeletedDocumentsCount";
     // Core types
     public static final String METADATA_RECORDS_COUNT = "metadataRecordsCount";
     public static final String DEFAULT_VALUES_RECORDS_COUNT = "defaultValuesRecordsCount";
@@ -273,6 +278,8 @@ public class PipelinesVariables {
     public static final String VERBATIM_RECORDS_COUNT = "verbatimRecordsCount";
     // Event core types
     public static final String EVENT_CORE_RECORDS_COUNT = "eventCoreRecordsCount";
+    public static final String PARENTS_LINEAGE_CYCLES_COUNT = "parentsLineageCyclesCount";
+    public static final String PARENTS_LINEAGE_TRUNCATED_COUNT = "parentsLineageTruncatedCount";
     // Extension types
     public static final String MULTIMEDIA_RECORDS_COUNT = "multimediaRecordsCount";
     public static final String IMAGE_RECORDS_COUNT = "imageRecordsCount";
@@ -0,0 +1,107 @@
+package org.gbif.pipelines.common.pojo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mergeable summary of the records seen by an interpretation pipeline, used by the validator
+ * instead of an archive scan and ES queries. Files are keyed by the row type, a file keeps counts
+ * of records with a non-empty raw term, records with an interpreted field and records with an
+ * issue. Issue samples get the raw values of the related terms once the samples are known.
+ */
+@Data
+@NoArgsConstructor
+public class ValidationMetrics implements Serializable {
+
+  private static final long serialVersionUID = -3851725411296563734L;
+
+  public static final int MAX_ISSUE_SAMPLES = 5;
+
+  private Map<String, FileMetrics> files = new TreeMap<>();
+
+  public FileMetrics file(String rowType) {
+    return files.computeIfAbsent(rowType, k -> new FileMetrics());
+  }
+
+  /** Adds counts of the other summary to this one */
+  public ValidationMetrics merge(ValidationMetrics other) {
+    other.files.forEach((rowType, fm) -> file(rowType).merge(fm));
+    return this;
+  }
+
+  @Data
+  @NoArgsConstructor
+  public static class FileMetrics implements Serializable {
+
+    private static final long serialVersionUID = 6262931505287307290L;
+
+    private long count;
+    private Map<String, Long> rawTerms = new TreeMap<>();
+    private Map<String, Long> interpretedFields = new TreeMap<>();
+    private Map<String, Long> issues = new TreeMap<>();
+    private Map<String, List<IssueSample>> issueSamples = new TreeMap<>();
+
+    /** Counts a record and its non-empty terms, empty terms are kept with 0 count */
+    public void addRecord(Map<String, String> terms) {
+      count++;
+      terms.forEach(
+          (term, value) -> {
+            if (value == null || value.trim().isEmpty()) {
+              rawTerms.putIfAbsent(term, 0L);
+            } else {
+              rawTerms.merge(term, 1L, Long::sum);
+            }
+          });
+    }
+
+    public void addInterpreted(String field) {
+      interpretedFields.merge(field, 1L, Long::sum);
+    }
+
+    public void addIssue(String issue, String recordId) {
+      issues.merge(issue, 1L, Long::sum);
+      List<IssueSample> samples = issueSamples.computeIfAbsent(issue, k -> new ArrayList<>());
+      if (recordId != null && samples.size() < MAX_ISSUE_SAMPLES) {
+        samples.add(new IssueSample(recordId, new TreeMap<>()));
+      }
+    }
+
+    public FileMetrics merge(FileMetrics other) {
+      count += other.count;
+      other.rawTerms.forEach((k, v) -> rawTerms.merge(k, v, Long::sum));
+      other.interpretedFields.forEach((k, v) -> interpretedFields.merge(k, v, Long::sum));
+      other.issues.forEach((k, v) -> issues.merge(k, v, Long::sum));
+      other.issueSamples.forEach(
+          (k, v) -> {
+            List<IssueSample> samples = issueSamples.computeIfAbsent(k, x -> new ArrayList<>());
+            v.stream()
+                .limit(Math.max(0, MAX_ISSUE_SAMPLES - samples.size()))
+                .map(IssueSample::copy)
+                .forEach(samples::add);
+          });
+      return this;
+    }
+  }
+
+  /** Record with an issue and the raw values of the terms related to the issue */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class IssueSample implements Serializable {
+
+    private static final long serialVersionUID = 4178164425262870137L;
+
+    private String recordId;
+    private Map<String, String> relatedData = new TreeMap<>();
+
+    public IssueSample copy() {
+      return new IssueSample(recordId, new TreeMap<>(relatedData));
+    }
+  }
+}